@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.dmx.internal.core;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.openhab.binding.dmx.internal.action.FadeAction;
+
+/**
+ * DmxUniverse rendering tests.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class DmxUniverseTest {
+
+    @Test
+    public void bufferCoversHighestChannel() {
+
+        DmxUniverse universe = new DmxUniverse();
+        assertEquals(32, universe.calculateBuffer(0).length);
+
+        universe.getChannel(100).setValue(10);
+        byte[] buffer = universe.calculateBuffer(0);
+        assertEquals(100, buffer.length);
+        assertEquals(10, buffer[99]);
+    }
+
+    @Test
+    public void bufferChangedOnlyWhenValuesChange() {
+
+        DmxUniverse universe = new DmxUniverse();
+        universe.getChannel(1).setValue(255);
+
+        universe.calculateBuffer(0);
+        assertTrue(universe.getBufferChanged());
+        universe.calculateBuffer(0);
+        assertFalse(universe.getBufferChanged());
+    }
+
+    @Test
+    public void fadeIsInterpolatedLinearly() {
+
+        DmxUniverse universe = new DmxUniverse();
+        DmxChannel channel = universe.getChannel(5);
+        channel.setValue(0);
+        channel.setChannelAction(new FadeAction(1000, 200, -1));
+
+        assertEquals(0, universe.calculateBuffer(1000)[4] & 0xFF);
+        assertEquals(50, universe.calculateBuffer(1250)[4] & 0xFF);
+        assertEquals(100, universe.calculateBuffer(1500)[4] & 0xFF);
+        assertEquals(200, universe.calculateBuffer(2000)[4] & 0xFF);
+        assertEquals(200, universe.calculateBuffer(5000)[4] & 0xFF);
+    }
+
+    @Test
+    public void allFadesOfSeveralUniversesReachTheirTarget() {
+
+        DmxUniverse[] universes = new DmxUniverse[4];
+        for (int u = 0; u < universes.length; u++) {
+            universes[u] = new DmxUniverse();
+            for (int c = 1; c <= DmxUniverse.UNIVERSE_SIZE; c++) {
+                DmxChannel channel = universes[u].getChannel(c);
+                channel.setValue(c % 256);
+                channel.setChannelAction(new FadeAction(1000 + c, 255 - c % 256, -1));
+            }
+        }
+
+        for (long time = 0; time <= 2000; time += 25) {
+            for (DmxUniverse universe : universes) {
+                universe.calculateBuffer(time);
+            }
+        }
+
+        for (DmxUniverse universe : universes) {
+            byte[] buffer = universe.calculateBuffer(2000);
+            for (int c = 1; c <= DmxUniverse.UNIVERSE_SIZE; c++) {
+                assertEquals(255 - c % 256, buffer[c - 1] & 0xFF);
+            }
+        }
+    }
+
+    @Test
+    public void schedulerRendersNoFrameAfterStop() throws InterruptedException {
+
+        final AtomicInteger frames = new AtomicInteger();
+        final CountDownLatch rendered = new CountDownLatch(3);
+        DmxFrameScheduler scheduler = new DmxFrameScheduler(new Runnable() {
+            @Override
+            public void run() {
+                frames.incrementAndGet();
+                rendered.countDown();
+            }
+        }, 10);
+
+        scheduler.start();
+        assertTrue(rendered.await(10, TimeUnit.SECONDS));
+        scheduler.stop();
+
+        int stoppedFrames = frames.get();
+        assertEquals(stoppedFrames, scheduler.getFrames());
+        Thread.sleep(50);
+        assertEquals(stoppedFrames, frames.get());
+    }
+
+}
@@ -33,10 +33,6 @@ public class FadeAction extends BaseAction {
     /** Desired channel output value. **/
     private int targetValue;
 
-    private long stepDuration;
-
-    private FadeDirection fadeDirection;
-
     /**
      * Create new fading action.
      * 
@@ -77,20 +73,7 @@ public class FadeAction extends BaseAction {
             startTime = currentTime;
 
             if (fadeTime != 0) {
-
                 startValue = channel.getValue();
-
-                // calculate fade details
-                if (startValue == targetValue) {
-                    stepDuration = 1;
-                } else if (startValue > targetValue) {
-                    fadeDirection = FadeDirection.down;
-                    stepDuration = fadeTime / (startValue - targetValue);
-                } else {
-                    fadeDirection = FadeDirection.up;
-                    stepDuration = fadeTime / (targetValue - startValue);
-                }
-
             } else {
                 newValue = targetValue;
             }
@@ -100,22 +83,11 @@ public class FadeAction extends BaseAction {
 
         if (fadeTime != 0 && newValue != targetValue) {
 
-            // calculate new fade value
-            if (stepDuration == 0) {
-                stepDuration = 1;
-            }
-            int currentStep = (int) (duration / stepDuration);
-
-            if (fadeDirection == FadeDirection.up) {
-                newValue = DmxUtil.capDmxValue(startValue + currentStep);
-                if (newValue > targetValue) {
-                    newValue = targetValue;
-                }
+            // interpolate linearly between the start and the target value
+            if (duration >= fadeTime) {
+                newValue = targetValue;
             } else {
-                newValue = DmxUtil.capDmxValue(startValue - currentStep);
-                if (newValue < targetValue) {
-                    newValue = targetValue;
-                }
+                newValue = startValue + (int) ((targetValue - startValue) * duration / fadeTime);
             }
         }
 
@@ -132,8 +104,3 @@ public class FadeAction extends BaseAction {
     }
 
 }
-
-enum FadeDirection {
-    up,
-    down
-}
@@ -144,7 +144,7 @@ public class DmxChannel implements Comparable<DmxChannel> {
      * 
      * @return value 0-255
      */
-    public synchronized Integer getNextValue(long calculationTime) {
+    public synchronized int getNextValue(long calculationTime) {
 
         if (!switchedOn) {
             return DMX_MIN_VALUE;
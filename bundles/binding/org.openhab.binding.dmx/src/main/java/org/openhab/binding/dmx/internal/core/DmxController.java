@@ -9,7 +9,6 @@
 package org.openhab.binding.dmx.internal.core;
 
 import java.util.Dictionary;
-import java.util.Timer;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.dmx.DmxConnection;
@@ -35,8 +34,8 @@ public class DmxController implements DmxService, ManagedService {
 
     private static int TRANSMIT_FREQUENCY_MS = 35;
 
-    /** Thread in which the DMX transmitter is running **/
-    private Timer transmitterTimer;
+    /** Scheduler running the DMX transmitter in its own thread **/
+    private DmxFrameScheduler frameScheduler;
 
     private DmxTransmitter transmitter;
 
@@ -52,8 +51,8 @@ public class DmxController implements DmxService, ManagedService {
 
         logger.trace("Starting Dmx transmitter ...");
         transmitter = new DmxTransmitter(this);
-        transmitterTimer = new Timer(true);
-        transmitterTimer.schedule(transmitter, 0, TRANSMIT_FREQUENCY_MS);
+        frameScheduler = new DmxFrameScheduler(transmitter, TRANSMIT_FREQUENCY_MS);
+        frameScheduler.start();
         logger.trace("Dmx transmitter started.");
 
     }
@@ -64,10 +63,11 @@ public class DmxController implements DmxService, ManagedService {
     @Override
     public void stop() {
 
-        if (transmitterTimer != null) {
-            transmitterTimer.cancel();
+        if (frameScheduler != null) {
+            frameScheduler.stop();
+            logger.debug("Dmx transmitter stopped: {}", frameScheduler);
         }
-        transmitterTimer = null;
+        frameScheduler = null;
     }
 
     /**
@@ -0,0 +1,200 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.dmx.internal.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a frame renderer at a fixed frame rate in its own thread.
+ *
+ * The start of every frame is calculated from the start of the first frame, so
+ * the frame rate doesn't drift with the render time or the scheduling delays.
+ * If the scheduler falls behind by more than a frame, the missed frames are
+ * skipped instead of being sent in a burst.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class DmxFrameScheduler implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DmxFrameScheduler.class);
+
+    /** interval for logging the frame statistics in nanoseconds */
+    private static final long STATISTICS_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+    private final Runnable renderer;
+
+    private final long periodNanos;
+
+    private volatile Thread thread;
+
+    private long frames;
+    private long skippedFrames;
+    private long totalLateness;
+    private long maxLateness;
+    private long totalRenderTime;
+    private long maxRenderTime;
+
+    /**
+     * Create a new scheduler.
+     *
+     * @param renderer
+     *            renders and sends one frame.
+     * @param periodMs
+     *            time between the start of two frames in ms.
+     */
+    public DmxFrameScheduler(Runnable renderer, long periodMs) {
+        this.renderer = renderer;
+        this.periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMs);
+    }
+
+    /**
+     * Start rendering frames.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(this, "DMX Transmitter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop rendering frames. Waits for the current frame to complete.
+     */
+    public void stop() {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+            thread = null;
+        }
+        // the frame thread needs the monitor to record its statistics, so don't hold it while joining
+        if (t != null && t != Thread.currentThread()) {
+            t.interrupt();
+            try {
+                t.join(TimeUnit.NANOSECONDS.toMillis(periodNanos) * 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @{inheritDoc
+     */
+    @Override
+    public void run() {
+
+        long nextFrame = System.nanoTime();
+        long nextStatistics = nextFrame + STATISTICS_INTERVAL;
+
+        while (thread == Thread.currentThread()) {
+
+            long now = System.nanoTime();
+            long wait = nextFrame - now;
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                if (Thread.interrupted()) {
+                    break;
+                }
+                continue;
+            }
+
+            try {
+                renderer.run();
+            } catch (Exception e) {
+                logger.error("Error rendering dmx frame.", e);
+            }
+            long renderTime = System.nanoTime() - now;
+            recordFrame(now - nextFrame, renderTime);
+
+            nextFrame += periodNanos;
+            long behind = System.nanoTime() - nextFrame;
+            if (behind > periodNanos) {
+                // skip the frames we have missed, but keep the frame phase
+                long missed = behind / periodNanos;
+                nextFrame += missed * periodNanos;
+                synchronized (this) {
+                    skippedFrames += missed;
+                }
+            }
+
+            if (now > nextStatistics) {
+                logger.debug("DMX frame statistics: {}", this);
+                nextStatistics = now + STATISTICS_INTERVAL;
+            }
+        }
+    }
+
+    private synchronized void recordFrame(long lateness, long renderTime) {
+        frames++;
+        totalLateness += lateness;
+        if (lateness > maxLateness) {
+            maxLateness = lateness;
+        }
+        totalRenderTime += renderTime;
+        if (renderTime > maxRenderTime) {
+            maxRenderTime = renderTime;
+        }
+    }
+
+    /**
+     * @return number of rendered frames.
+     */
+    public synchronized long getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return number of frames skipped because the scheduler was behind.
+     */
+    public synchronized long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    /**
+     * @return average delay of the frame start in microseconds.
+     */
+    public synchronized long getAverageLateness() {
+        return frames > 0 ? TimeUnit.NANOSECONDS.toMicros(totalLateness / frames) : 0;
+    }
+
+    /**
+     * @return maximum delay of the frame start in microseconds.
+     */
+    public synchronized long getMaxLateness() {
+        return TimeUnit.NANOSECONDS.toMicros(maxLateness);
+    }
+
+    /**
+     * @return average time to render and send a frame in microseconds.
+     */
+    public synchronized long getAverageRenderTime() {
+        return frames > 0 ? TimeUnit.NANOSECONDS.toMicros(totalRenderTime / frames) : 0;
+    }
+
+    /**
+     * @return maximum time to render and send a frame in microseconds.
+     */
+    public synchronized long getMaxRenderTime() {
+        return TimeUnit.NANOSECONDS.toMicros(maxRenderTime);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "frames=" + frames + ", skipped=" + skippedFrames + ", avgLateness=" + getAverageLateness()
+                + "us, maxLateness=" + getMaxLateness() + "us, avgRenderTime=" + getAverageRenderTime()
+                + "us, maxRenderTime=" + getMaxRenderTime() + "us";
+    }
+}
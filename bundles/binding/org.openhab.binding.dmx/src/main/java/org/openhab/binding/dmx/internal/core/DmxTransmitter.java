@@ -8,8 +8,6 @@
  */
 package org.openhab.binding.dmx.internal.core;
 
-import java.util.TimerTask;
-
 import org.openhab.binding.dmx.DmxConnection;
 import org.openhab.binding.dmx.DmxService;
 import org.slf4j.Logger;
@@ -19,13 +17,14 @@ import org.slf4j.LoggerFactory;
  * DmxTransmitter, which is responsible for continuously sending all value
  * changes to the DMX connection.
  *
- * This transmitter should always run in a separate thread to allow for smooth
+ * Each run renders and sends one frame. The transmitter is run by a
+ * {@link DmxFrameScheduler} in a separate thread to allow for smooth
  * transmissions.
  *
  * @author Davy Vanherbergen
  * @since 1.2.0
  */
-public final class DmxTransmitter extends TimerTask {
+public final class DmxTransmitter implements Runnable {
 
     private static Logger logger = LoggerFactory.getLogger(DmxTransmitter.class);
 
@@ -33,9 +32,9 @@ public final class DmxTransmitter extends TimerTask {
 
     private DmxService service;
 
-    private boolean running;
+    private volatile boolean running;
 
-    private boolean suspended;
+    private volatile boolean suspended;
 
     /**
      * Default constructor.
@@ -56,7 +55,7 @@ public final class DmxTransmitter extends TimerTask {
 
         running = true;
         try {
-            byte[] b = universe.calculateBuffer();
+            byte[] b = universe.calculateBuffer(System.currentTimeMillis());
             if (universe.getBufferChanged()) {
                 DmxConnection conn = service.getConnection();
                 if (conn != null) {
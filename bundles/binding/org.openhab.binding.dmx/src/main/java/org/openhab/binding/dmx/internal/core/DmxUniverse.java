@@ -8,10 +8,9 @@
  */
 package org.openhab.binding.dmx.internal.core;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Vector;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.openhab.binding.dmx.DmxStatusUpdateListener;
 import org.slf4j.Logger;
@@ -20,6 +19,9 @@ import org.slf4j.LoggerFactory;
 /**
  * DMX Universe. Can contain up to 512 DMX channels.
  *
+ * Every frame is rendered into a 512 byte buffer in a single pass over the
+ * channels in use, ordered by channel id.
+ *
  * @author Davy Vanherbergen
  * @since 1.2.0
  */
@@ -27,51 +29,53 @@ public class DmxUniverse {
 
     private static final Logger logger = LoggerFactory.getLogger(DmxUniverse.class);
 
-    private Vector<DmxChannel> channels = new Vector<DmxChannel>();
+    /** Number of channels in a DMX universe **/
+    public static final int UNIVERSE_SIZE = 512;
+
+    /** Channels in use, ordered by channel id. Replaced when a channel is added. **/
+    private volatile DmxChannel[] channels = new DmxChannel[0];
 
-    private short[] buffer = new short[512];
+    /** Channels in use, indexed by channel id. **/
+    private final DmxChannel[] channelsById = new DmxChannel[UNIVERSE_SIZE + 1];
+
+    private final byte[] buffer = new byte[UNIVERSE_SIZE];
 
     private boolean bufferChanged = false;
 
-    private int minimumBufferSize = 32;
+    private volatile int minimumBufferSize = 32;
 
-    private List<DmxStatusUpdateListener> updateListeners = new ArrayList<DmxStatusUpdateListener>();
+    private List<DmxStatusUpdateListener> updateListeners = new CopyOnWriteArrayList<DmxStatusUpdateListener>();
 
     /**
-     * Change the buffer value at the given index.
+     * Calculate the current DMX buffer state.
      * 
-     * @param index
-     * @param value
+     * @return DMX buffer.
      */
-    private void setBufferValue(int index, short value) {
-
-        if (buffer[index] == value) {
-            return;
-        } else {
-            buffer[index] = value;
-            bufferChanged = true;
-        }
+    public byte[] calculateBuffer() {
+        return calculateBuffer(System.currentTimeMillis());
     }
 
     /**
-     * Calculate the current DMX buffer state.
+     * Calculate the DMX buffer state at the given time.
      * 
+     * @param calculationTime
+     *            time in ms to calculate the channel values for.
      * @return DMX buffer.
      */
-    public byte[] calculateBuffer() {
-
-        bufferChanged = false;
-        long calculationTime = System.currentTimeMillis();
+    public byte[] calculateBuffer(long calculationTime) {
 
+        boolean changed = false;
         for (DmxChannel channel : channels) {
-            setBufferValue(channel.getChannelId() - 1, channel.getNextValue(calculationTime).shortValue());
+            int index = channel.getChannelId() - 1;
+            byte value = (byte) channel.getNextValue(calculationTime);
+            if (buffer[index] != value) {
+                buffer[index] = value;
+                changed = true;
+            }
         }
+        bufferChanged = changed;
 
-        byte[] b = new byte[minimumBufferSize];
-        for (int i = 0; i < minimumBufferSize; i++) {
-            b[i] = (byte) (buffer[i]);
-        }
-        return b;
+        return Arrays.copyOf(buffer, minimumBufferSize);
     }
 
     /**
@@ -83,8 +87,11 @@ public class DmxUniverse {
     private synchronized void addChannel(DmxChannel channel) {
 
         logger.trace("Adding channel {}", channel.getChannelId());
-        channels.add(channel);
-        Collections.sort(channels);
+        DmxChannel[] newChannels = Arrays.copyOf(channels, channels.length + 1);
+        newChannels[channels.length] = channel;
+        Arrays.sort(newChannels);
+        channelsById[channel.getChannelId()] = channel;
+        channels = newChannels;
 
         if (channel.getChannelId() > minimumBufferSize) {
             minimumBufferSize = channel.getChannelId();
@@ -105,14 +112,15 @@ public class DmxUniverse {
      *            int
      * @return channel
      */
-    public DmxChannel getChannel(int channelId) {
-        for (DmxChannel c : channels) {
-            if (c.getChannelId() == channelId) {
-                return c;
-            }
+    public synchronized DmxChannel getChannel(int channelId) {
+        if (channelId < 1 || channelId > UNIVERSE_SIZE) {
+            throw new IllegalArgumentException("Invalid DMX channel " + channelId);
+        }
+        DmxChannel c = channelsById[channelId];
+        if (c == null) {
+            c = new DmxChannel(channelId);
+            addChannel(c);
         }
-        DmxChannel c = new DmxChannel(channelId);
-        addChannel(c);
         return c;
     }
 
@@ -95,8 +95,11 @@ public class DmxUtil {
      * @return dimmed value
      */
     public static int getOutputValue(int input, int outputLevel) {
-        BigDecimal value = BigDecimal.valueOf(input);
-        return value.multiply(BigDecimal.valueOf(outputLevel))
-                .divide(PercentType.HUNDRED.toBigDecimal(), 0, BigDecimal.ROUND_UP).intValue();
+        if (outputLevel == 100) {
+            return input;
+        }
+        // integer division rounding up, called for every channel in every frame
+        int value = input * outputLevel;
+        return value >= 0 ? (value + 99) / 100 : value / 100;
     }
 }
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.exec.internal;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.Assert;
+
+/**
+ * Tests the {@link ExecShell} with <code>/bin/sh</code>.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ExecShellTest {
+
+    private static final long TIMEOUT = 10000;
+
+    private ExecShell shell;
+
+    @Before
+    public void init() throws IOException {
+        shell = new ExecShell("/bin/sh");
+    }
+
+    @After
+    public void destroy() {
+        shell.destroy();
+    }
+
+    @Test
+    public void testOutputIncludesStandardError() {
+        Assert.assertEquals("out\nerr", shell.execute("echo out; echo err >&2", TIMEOUT));
+        Assert.assertEquals("no newline", shell.execute("printf 'no newline'", TIMEOUT));
+        Assert.assertEquals("", shell.execute("true", TIMEOUT));
+    }
+
+    @Test
+    public void testCommandLineIsInterpretedByTheShell() {
+        Assert.assertEquals("a  b", shell.execute("echo 'a  b'", TIMEOUT));
+        Assert.assertEquals("/", shell.execute("echo /", TIMEOUT));
+        Assert.assertEquals("3", shell.execute("X=3; echo $X", TIMEOUT));
+    }
+
+    @Test
+    public void testCommandsDontChangeTheShell() {
+        String directory = shell.execute("pwd", TIMEOUT);
+
+        shell.execute("cd /", TIMEOUT);
+        Assert.assertEquals(directory, shell.execute("pwd", TIMEOUT));
+
+        shell.execute("export OPENHAB_EXEC_TEST=1", TIMEOUT);
+        Assert.assertEquals("", shell.execute("echo $OPENHAB_EXEC_TEST", TIMEOUT));
+
+        shell.execute("exit 3", TIMEOUT);
+        Assert.assertEquals("ok", shell.execute("echo ok", TIMEOUT));
+
+        shell.execute("exec true", TIMEOUT);
+        Assert.assertEquals("ok", shell.execute("echo ok", TIMEOUT));
+    }
+
+    @Test
+    public void testCommandsDontReadTheInput() {
+        Assert.assertEquals("", shell.execute("cat", TIMEOUT));
+        Assert.assertEquals("ok", shell.execute("echo ok", TIMEOUT));
+    }
+
+    @Test
+    public void testShellIsRestartedAfterTimeout() {
+        Assert.assertNull(shell.execute("sleep 10", 200));
+        Assert.assertTrue(shell.isAlive());
+        Assert.assertEquals("ok", shell.execute("echo ok", TIMEOUT));
+    }
+
+    @Test
+    public void testCommandWhichNeverExitsTimesOut() {
+        long start = System.currentTimeMillis();
+        // the loop keeps the output open, so waiting for the end of the output would never return
+        Assert.assertNull(shell.execute("while true; do sleep 1; done", 500));
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+        Assert.assertEquals("ok", shell.execute("echo ok", TIMEOUT));
+    }
+
+    @Test
+    public void testBackgroundProcessDoesNotBlockTheOutput() {
+        long start = System.currentTimeMillis();
+        Assert.assertNull(shell.execute("sleep 5 & sleep 10", 500));
+        Assert.assertTrue(System.currentTimeMillis() - start < 3000);
+        Assert.assertEquals("ok", shell.execute("echo ok", TIMEOUT));
+    }
+
+    @Test
+    public void testShellIsRestartedAfterItDied() {
+        // $$ is the shell itself, not the subshell
+        Assert.assertNull(shell.execute("kill -9 $$", TIMEOUT));
+        Assert.assertEquals("ok", shell.execute("echo ok", TIMEOUT));
+    }
+
+    @Test
+    public void testDestroyedShellExecutesNothing() {
+        shell.destroy();
+        Assert.assertFalse(shell.isAlive());
+        Assert.assertNull(shell.execute("echo ok", TIMEOUT));
+    }
+
+}
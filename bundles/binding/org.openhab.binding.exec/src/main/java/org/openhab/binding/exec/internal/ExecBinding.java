@@ -10,12 +10,24 @@ package org.openhab.binding.exec.internal;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -50,6 +62,12 @@ import org.slf4j.LoggerFactory;
  * <i>Note</i>: when using 'ssh' you should use private key authorization since
  * the password cannot be read from commandline. The given user should have the
  * necessary permissions.
+ * <p>
+ * The in-binding commands are executed by a bounded pool of worker threads, so a
+ * slow command doesn't hold up the other items. Items with the same command line
+ * share one execution, and its response is reused for the length of the refresh
+ * interval. Optionally the commands are sent to long-lived shells instead of
+ * forking a new process for every command.
  *
  * @author Thomas.Eichstaedt-Engelen
  * @author Pauli Anttila
@@ -69,7 +87,27 @@ public class ExecBinding extends AbstractActiveBinding<ExecBindingProvider>imple
     /** the interval to find new refresh candidates (defaults to 1000 milliseconds) */
     private int granularity = 1000;
 
-    private Map<String, Long> lastUpdateMap = new HashMap<String, Long>();
+    /** the maximum number of commands executed at the same time (defaults to 4) */
+    private int maxConcurrent = 4;
+
+    /**
+     * the shell to execute in-binding commands with, <code>null</code> to fork every command. See
+     * {@link ExecShell} for how the shell interprets the command lines.
+     */
+    private String shell = null;
+
+    private Map<String, Long> lastUpdateMap = new ConcurrentHashMap<String, Long>();
+
+    /** the items waiting for a command to complete */
+    private Set<String> pendingItems = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /** the running and the recently completed commands by command line, guarded by itself */
+    private final Map<String, CommandRun> commandRuns = new HashMap<String, CommandRun>();
+
+    private ExecutorService executorService;
+
+    /** the idle shells when running with a persistent shell */
+    private final BlockingQueue<ExecShell> idleShells = new LinkedBlockingQueue<ExecShell>();
 
     /** RegEx to extract a parse a function String <code>'(.*?)\((.*)\)'</code> */
     private static final Pattern EXTRACT_FUNCTION_PATTERN = Pattern.compile("(.*?)\\((.*)\\)");
@@ -90,58 +128,136 @@ public class ExecBinding extends AbstractActiveBinding<ExecBindingProvider>imple
         setProperlyConfigured(true);
     }
 
+    @Override
+    public void deactivate() {
+        synchronized (commandRuns) {
+            if (executorService != null) {
+                executorService.shutdownNow();
+                executorService = null;
+            }
+            commandRuns.clear();
+        }
+        pendingItems.clear();
+        destroyShells();
+        super.deactivate();
+    }
+
     @Override
     public void execute() {
+        long now = System.currentTimeMillis();
+        removeExpiredRuns(now);
+
         for (ExecBindingProvider provider : providers) {
             for (String itemName : provider.getInBindingItemNames()) {
 
                 String commandLine = provider.getCommandLine(itemName);
 
                 int refreshInterval = provider.getRefreshInterval(itemName);
-                String transformation = provider.getTransformation(itemName);
 
                 Long lastUpdateTimeStamp = lastUpdateMap.get(itemName);
                 if (lastUpdateTimeStamp == null) {
                     lastUpdateTimeStamp = 0L;
                 }
 
-                long age = System.currentTimeMillis() - lastUpdateTimeStamp;
+                long age = now - lastUpdateTimeStamp;
                 boolean needsUpdate = age >= refreshInterval;
 
-                if (needsUpdate) {
+                if (needsUpdate && pendingItems.add(itemName)) {
 
                     logger.debug("item '{}' is about to be refreshed now", itemName);
 
                     commandLine = String.format(commandLine, Calendar.getInstance().getTime(), "", itemName);
+                    scheduleRefresh(provider, itemName, commandLine, now);
+                }
+            }
+        }
+    }
 
-                    String response = executeCommandAndWaitResponse(commandLine);
+    /**
+     * Attaches the item to a running or recently completed execution of the same
+     * command line, or starts a new execution.
+     */
+    private void scheduleRefresh(ExecBindingProvider provider, String itemName, String commandLine, long now) {
+        ItemRefresh refresh = new ItemRefresh(provider, itemName);
+        String cachedResponse;
+        synchronized (commandRuns) {
+            CommandRun run = commandRuns.get(commandLine);
+            if (run == null || (run.completed && now - run.completedAt > granularity)) {
+                run = new CommandRun(commandLine);
+                run.waiting.add(refresh);
+                commandRuns.put(commandLine, run);
+                getExecutorService().execute(run);
+                return;
+            }
+            if (!run.completed) {
+                logger.debug("item '{}' waits for the running commandLine '{}'", itemName, commandLine);
+                run.waiting.add(refresh);
+                return;
+            }
+            cachedResponse = run.response;
+        }
+        logger.debug("item '{}' reuses the response of commandLine '{}'", itemName, commandLine);
+        updateItem(refresh, commandLine, cachedResponse);
+    }
 
-                    if (response == null) {
-                        logger.error("No response received from command '{}'", commandLine);
-                        lastUpdateMap.put(itemName, System.currentTimeMillis());
-                        continue;
-                    }
+    private void removeExpiredRuns(long now) {
+        synchronized (commandRuns) {
+            for (Iterator<CommandRun> iterator = commandRuns.values().iterator(); iterator.hasNext();) {
+                CommandRun run = iterator.next();
+                if (run.completed && now - run.completedAt > granularity) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
 
-                    String transformedResponse = response;
-                    // If transformation is needed
-                    if (transformation.length() > 0) {
-                        transformedResponse = transformResponse(response, transformation);
-                    }
+    private ExecutorService getExecutorService() {
+        if (executorService == null) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "Exec Worker " + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            executorService = pool;
+        }
+        return executorService;
+    }
 
-                    List<Class<? extends State>> acceptedDataTypes = provider.getAcceptedDataTypes(itemName);
-                    State state = null;
-                    if (acceptedDataTypes != null) {
-                        state = TypeParser.parseState(acceptedDataTypes, transformedResponse);
-                    }
-                    if (state != null) {
-                        eventPublisher.postUpdate(itemName, state);
-                    } else {
-                        logger.debug("Couldn't create state for value '{}'", transformedResponse);
-                    }
+    private void updateItem(ItemRefresh refresh, String commandLine, String response) {
+        String itemName = refresh.itemName;
+        try {
+            if (response == null) {
+                logger.error("No response received from command '{}'", commandLine);
+                return;
+            }
 
-                    lastUpdateMap.put(itemName, System.currentTimeMillis());
-                }
+            String transformedResponse = response;
+            // If transformation is needed
+            String transformation = refresh.provider.getTransformation(itemName);
+            if (transformation != null && transformation.length() > 0) {
+                transformedResponse = transformResponse(response, transformation);
+            }
+
+            List<Class<? extends State>> acceptedDataTypes = refresh.provider.getAcceptedDataTypes(itemName);
+            State state = null;
+            if (acceptedDataTypes != null) {
+                state = TypeParser.parseState(acceptedDataTypes, transformedResponse);
+            }
+            if (state != null) {
+                eventPublisher.postUpdate(itemName, state);
+            } else {
+                logger.debug("Couldn't create state for value '{}'", transformedResponse);
             }
+        } finally {
+            lastUpdateMap.put(itemName, System.currentTimeMillis());
+            pendingItems.remove(itemName);
         }
     }
 
@@ -316,6 +432,10 @@ public class ExecBinding extends AbstractActiveBinding<ExecBindingProvider>imple
      * @return response data from executed command line
      */
     private String executeCommandAndWaitResponse(String commandLine) {
+        if (shell != null && !commandLine.contains(CMD_LINE_DELIMITER)) {
+            return executeInShell(commandLine);
+        }
+
         String retval = null;
 
         CommandLine cmdLine = null;
@@ -367,6 +487,44 @@ public class ExecBinding extends AbstractActiveBinding<ExecBindingProvider>imple
         return retval;
     }
 
+    /**
+     * Executes <code>commandLine</code> in one of the idle shells, or in a new
+     * shell if all are busy.
+     *
+     * @param commandLine the command line to execute
+     * @return response data from executed command line
+     */
+    private String executeInShell(String commandLine) {
+        String shellCommand = shell;
+        ExecShell execShell = idleShells.poll();
+        if (execShell == null) {
+            try {
+                execShell = new ExecShell(shellCommand);
+                logger.debug("started shell '{}'", shellCommand);
+            } catch (IOException e) {
+                logger.error("couldn't start shell '" + shellCommand + "'", e);
+                return null;
+            }
+        }
+
+        String response = execShell.execute(commandLine, timeout);
+        logger.debug("executed commandLine '{}' in shell, result '{}'", commandLine, response);
+        if (execShell.isAlive() && StringUtils.equals(shellCommand, shell)) {
+            idleShells.offer(execShell);
+        } else {
+            execShell.destroy();
+        }
+        return response;
+    }
+
+    private void destroyShells() {
+        List<ExecShell> shells = new ArrayList<ExecShell>();
+        idleShells.drainTo(shells);
+        for (ExecShell execShell : shells) {
+            execShell.destroy();
+        }
+    }
+
     @Override
     @SuppressWarnings("rawtypes")
     public void updated(Dictionary config) throws ConfigurationException {
@@ -381,6 +539,34 @@ public class ExecBinding extends AbstractActiveBinding<ExecBindingProvider>imple
             if (StringUtils.isNotBlank(granularityString)) {
                 granularity = Integer.parseInt(granularityString);
             }
+
+            String maxConcurrentString = (String) config.get("maxconcurrent");
+            if (StringUtils.isNotBlank(maxConcurrentString)) {
+                int newMaxConcurrent = Integer.parseInt(maxConcurrentString);
+                if (newMaxConcurrent < 1) {
+                    throw new ConfigurationException("maxconcurrent", "must be at least 1");
+                }
+                synchronized (commandRuns) {
+                    maxConcurrent = newMaxConcurrent;
+                    if (executorService != null) {
+                        ThreadPoolExecutor pool = (ThreadPoolExecutor) executorService;
+                        if (maxConcurrent > pool.getMaximumPoolSize()) {
+                            pool.setMaximumPoolSize(maxConcurrent);
+                            pool.setCorePoolSize(maxConcurrent);
+                        } else {
+                            pool.setCorePoolSize(maxConcurrent);
+                            pool.setMaximumPoolSize(maxConcurrent);
+                        }
+                    }
+                }
+            }
+
+            String shellString = (String) config.get("shell");
+            String newShell = StringUtils.isNotBlank(shellString) ? shellString.trim() : null;
+            if (!StringUtils.equals(shell, newShell)) {
+                shell = newShell;
+                destroyShells();
+            }
         }
 
     }
@@ -395,4 +581,53 @@ public class ExecBinding extends AbstractActiveBinding<ExecBindingProvider>imple
         super.removeBindingProvider(bindingProvider);
     }
 
+    /**
+     * An item waiting for the response of a command.
+     */
+    private static class ItemRefresh {
+        private final ExecBindingProvider provider;
+        private final String itemName;
+
+        ItemRefresh(ExecBindingProvider provider, String itemName) {
+            this.provider = provider;
+            this.itemName = itemName;
+        }
+    }
+
+    /**
+     * One execution of a command line, shared by all items with the same command
+     * line. The fields are guarded by {@link ExecBinding#commandRuns}.
+     */
+    private class CommandRun implements Runnable {
+        private final String commandLine;
+        private final List<ItemRefresh> waiting = new ArrayList<ItemRefresh>();
+        private boolean completed;
+        private long completedAt;
+        private String response;
+
+        CommandRun(String commandLine) {
+            this.commandLine = commandLine;
+        }
+
+        @Override
+        public void run() {
+            String result = null;
+            List<ItemRefresh> refreshes;
+            try {
+                result = executeCommandAndWaitResponse(commandLine);
+            } finally {
+                synchronized (commandRuns) {
+                    response = result;
+                    completed = true;
+                    completedAt = System.currentTimeMillis();
+                    refreshes = new ArrayList<ItemRefresh>(waiting);
+                    waiting.clear();
+                }
+            }
+            for (ItemRefresh refresh : refreshes) {
+                updateItem(refresh, commandLine, result);
+            }
+        }
+    }
+
 }
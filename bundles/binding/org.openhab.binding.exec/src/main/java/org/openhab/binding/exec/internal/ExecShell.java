@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.exec.internal;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A long-lived shell process which executes command lines sent to its standard
+ * input. This saves forking a new process for every command. Each command line
+ * is followed by printing a marker, which tells where its output ends.
+ * <p>
+ * Unlike forked command lines, which are split into arguments by openHAB, the
+ * command lines are interpreted by the shell: quoting, globbing and variable
+ * expansion apply, the standard error is merged into the output and the
+ * standard input is empty. Every command line runs in a subshell of its own, so
+ * <code>cd</code>, <code>export</code>, <code>exit</code> or <code>exec</code>
+ * don't affect the following command lines.
+ * <p>
+ * The output is read by a thread of its own, so waiting for it is bounded by the
+ * timeout even if a command line leaves processes behind which keep the output
+ * open. A shell which doesn't respond within the timeout is terminated and kills
+ * the subshell of the running command line, and a shell which has died is
+ * started again for the next command line.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ExecShell {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecShell.class);
+
+    /** marks the end of the output of a shell in its queue of lines */
+    private static final String END_OF_OUTPUT = new String();
+
+    private final String marker = "__OPENHAB_EXEC_" + UUID.randomUUID().toString().replace("-", "") + "__";
+
+    private final String shell;
+
+    private Process process;
+    private BlockingQueue<String> lines;
+    private Writer writer;
+    private boolean destroyed = false;
+
+    /**
+     * Starts the shell.
+     *
+     * @param shell the shell executable, e.g. <code>/bin/sh</code>
+     * @throws IOException if the shell couldn't be started
+     */
+    public ExecShell(String shell) throws IOException {
+        this.shell = shell;
+        start();
+    }
+
+    private void start() throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(shell);
+        builder.redirectErrorStream(true);
+        process = builder.start();
+        lines = new LinkedBlockingQueue<String>();
+        writer = new OutputStreamWriter(process.getOutputStream());
+
+        Thread readerThread = new OutputReader(process, lines);
+        readerThread.start();
+
+        // the subshell of the running command line is killed along with the shell
+        writer.write("trap 'kill -9 $! 2>/dev/null; exit 1' TERM\n");
+        writer.flush();
+    }
+
+    private boolean isRunning() {
+        if (process == null) {
+            return false;
+        }
+        try {
+            process.exitValue();
+            return false;
+        } catch (IllegalThreadStateException e) {
+            return true;
+        }
+    }
+
+    private void stop() {
+        if (process != null) {
+            process.destroy();
+            closeQuietly(writer);
+            closeQuietly(process.getInputStream());
+            process = null;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // the shell is gone anyway
+        }
+    }
+
+    /**
+     * Executes a command line and waits for its output.
+     *
+     * @param commandLine the command line, interpreted by the shell
+     * @param timeout the time to wait for the output in milliseconds
+     * @return the output of the command without the trailing line break, or
+     *         <code>null</code> if the shell has died or timed out
+     */
+    public synchronized String execute(String commandLine, long timeout) {
+        if (destroyed) {
+            return null;
+        }
+        if (!isRunning()) {
+            if (process != null) {
+                logger.debug("Shell '{}' has died, restarting it", shell);
+            }
+            try {
+                start();
+            } catch (IOException e) {
+                logger.error("couldn't restart shell '" + shell + "'", e);
+                process = null;
+                return null;
+            }
+        }
+
+        try {
+            // commands must neither read the input nor change the state of the shell; the subshell
+            // runs in the background, so the shell can still kill it when it is terminated
+            writer.write("( " + commandLine + "\n) </dev/null 2>&1 & wait $!; printf '%s\\n' '" + marker + "'\n");
+            writer.flush();
+
+            long deadline = System.currentTimeMillis() + timeout;
+            StringBuilder output = new StringBuilder();
+            while (true) {
+                String line = lines.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                if (line == null) {
+                    logger.warn("Timeout occured when executing commandLine '{}' in shell", commandLine);
+                    break;
+                }
+                if (line == END_OF_OUTPUT) {
+                    break;
+                }
+                if (line.endsWith(marker)) {
+                    output.append(line, 0, line.length() - marker.length());
+                    return StringUtils.chomp(output.toString());
+                }
+                output.append(line).append('\n');
+            }
+        } catch (IOException e) {
+            logger.debug("Shell failed executing commandLine '{}': {}", commandLine, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // the shell is started again for the next command line
+        stop();
+        return null;
+    }
+
+    /**
+     * @return <code>true</code> if the shell can execute further commands
+     */
+    public synchronized boolean isAlive() {
+        return !destroyed;
+    }
+
+    /**
+     * Terminates the shell.
+     */
+    public synchronized void destroy() {
+        destroyed = true;
+        stop();
+    }
+
+    /**
+     * Reads the output of a shell line by line. It ends when the output is closed,
+     * which may be later than the shell itself if a command line has left
+     * processes behind.
+     */
+    private static class OutputReader extends Thread {
+
+        private final BufferedReader reader;
+        private final BlockingQueue<String> lines;
+
+        OutputReader(Process process, BlockingQueue<String> lines) {
+            super("Exec Shell Reader");
+            setDaemon(true);
+            this.reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            this.lines = lines;
+        }
+
+        @Override
+        public void run() {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            } catch (IOException e) {
+                // the shell has been stopped
+            } finally {
+                lines.add(END_OF_OUTPUT);
+            }
+        }
+    }
+
+}
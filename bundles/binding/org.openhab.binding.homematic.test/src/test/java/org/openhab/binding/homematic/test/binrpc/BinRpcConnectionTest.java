@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.test.binrpc;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.binrpc.BinRpcRequest;
+import org.openhab.binding.homematic.internal.binrpc.BinRpcResponse;
+import org.openhab.binding.homematic.internal.communicator.client.BinRpcConnection;
+
+import junit.framework.Assert;
+
+/**
+ * Testcases for the persistent BIN-RPC connection.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class BinRpcConnectionTest {
+    private BinRpcStubServer server;
+    private BinRpcConnection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new BinRpcStubServer(0);
+        connection = new BinRpcConnection("127.0.0.1", server.getPort(), 5000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.close();
+        server.close();
+    }
+
+    @Test
+    public void testSocketIsReused() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            BinRpcRequest request = new BinRpcRequest("setValue");
+            request.addArg("KEQ0000001:1");
+            request.addArg("STATE");
+            request.addArg(Boolean.TRUE);
+            BinRpcResponse response = connection.send(request);
+            Assert.assertEquals("", response.getResponseData()[0]);
+        }
+        Assert.assertEquals(10, server.getRequests());
+        Assert.assertEquals(1, server.getConnections());
+        Assert.assertEquals(1, connection.getConnects());
+    }
+
+    @Test
+    public void testClosedSocketIsReplaced() throws Exception {
+        connection.send(new BinRpcRequest("getVersion"));
+        connection.close();
+        connection.send(new BinRpcRequest("getVersion"));
+        Assert.assertEquals(2, server.getRequests());
+        Assert.assertEquals(2, connection.getConnects());
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.test.binrpc;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openhab.binding.homematic.internal.binrpc.BinRpcResponse;
+
+/**
+ * A local BIN-RPC server for tests and benchmarks. It answers every call with an
+ * empty string after an optional delay and keeps the connections open, like the
+ * Homematic server does.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class BinRpcStubServer implements Runnable {
+    private static final byte BIN_EMPTY_STRING[] = { 'B', 'i', 'n', 1, 0, 0, 0, 8, 0, 0, 0, 3, 0, 0, 0, 0 };
+
+    private final ServerSocket serverSocket;
+    private final long delay;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+
+    /**
+     * Starts the server on a free local port.
+     *
+     * @param delay the time in milliseconds the server takes to answer a call
+     */
+    public BinRpcStubServer(long delay) throws IOException {
+        this.delay = delay;
+        serverSocket = new ServerSocket(0);
+        Thread thread = new Thread(this, "BIN-RPC stub server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                Thread handler = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        handle(socket);
+                    }
+                });
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException ex) {
+                // closed
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try {
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            OutputStream output = socket.getOutputStream();
+            while (true) {
+                new BinRpcResponse(input, true);
+                requests.incrementAndGet();
+                if (delay > 0) {
+                    Thread.sleep(delay);
+                }
+                output.write(BIN_EMPTY_STRING);
+                output.flush();
+            }
+        } catch (Exception ex) {
+            // connection closed
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the number of accepted connections.
+     */
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * Returns the number of answered calls.
+     */
+    public int getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Stops accepting connections.
+     */
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}
@@ -45,14 +45,14 @@ public class BinRpcResponse {
      */
     public BinRpcResponse(InputStream is, boolean methodHeader) throws IOException, ParseException {
         byte sig[] = new byte[4];
-        int l = is.read(sig);
+        int l = read(is, sig);
         if (l != sig.length) {
             throw new EOFException("Only " + l + " bytes received reading signature");
         }
         if (sig[0] != 'B' || sig[1] != 'i' || sig[2] != 'n') {
             throw new UnsupportedEncodingException("No BinX signature");
         }
-        l = is.read(sig);
+        l = read(is, sig);
         if (l != sig.length) {
             throw new EOFException("Only " + l + " bytes received reading length");
         }
@@ -84,6 +84,22 @@ public class BinRpcResponse {
         data = null;
     }
 
+    /**
+     * Reads until the buffer is full or the end of the stream is reached, a
+     * persistent connection may deliver a message in several chunks.
+     */
+    private static int read(InputStream is, byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int r = is.read(buffer, offset, buffer.length - offset);
+            if (r < 0) {
+                break;
+            }
+            offset += r;
+        }
+        return offset;
+    }
+
     /**
      * Returns the decoded methodName.
      */
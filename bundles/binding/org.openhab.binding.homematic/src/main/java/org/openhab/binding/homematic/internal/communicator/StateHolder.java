@@ -8,10 +8,11 @@
  */
 package org.openhab.binding.homematic.internal.communicator;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.openhab.binding.homematic.internal.common.HomematicContext;
 import org.openhab.binding.homematic.internal.communicator.ProviderItemIterator.ProviderItemIteratorCallback;
@@ -41,10 +42,13 @@ public class StateHolder {
 
     private ExecutorService reloadExecutorPool;
 
-    private boolean datapointReloadInProgress = false;
-    private Map<HomematicBindingConfig, Object> refreshCache = new HashMap<HomematicBindingConfig, Object>();
-    private Map<HomematicBindingConfig, HmValueItem> datapoints = new HashMap<HomematicBindingConfig, HmValueItem>();
-    private Map<HomematicBindingConfig, HmValueItem> variables = new HashMap<HomematicBindingConfig, HmValueItem>();
+    private volatile boolean datapointReloadInProgress = false;
+    private final AtomicBoolean datapointReloadRequested = new AtomicBoolean();
+    private Map<HomematicBindingConfig, Object> refreshCache = new ConcurrentHashMap<HomematicBindingConfig, Object>();
+    private Map<HomematicBindingConfig, HmValueItem> datapoints =
+            new ConcurrentHashMap<HomematicBindingConfig, HmValueItem>();
+    private Map<HomematicBindingConfig, HmValueItem> variables =
+            new ConcurrentHashMap<HomematicBindingConfig, HmValueItem>();
 
     public StateHolder(HomematicContext context) {
         this.context = context;
@@ -62,7 +66,9 @@ public class StateHolder {
      * receives from the Homematic server during the reload.
      */
     public void addToRefreshCache(HomematicBindingConfig bindingConfig, Object value) {
-        refreshCache.put(bindingConfig, value);
+        if (value != null) {
+            refreshCache.put(bindingConfig, value);
+        }
     }
 
     /**
@@ -93,48 +99,68 @@ public class StateHolder {
 
     /**
      * Reloads all datapoints from the Homematic server and publishes only
-     * changed values to the openHAB bus.
+     * changed values to the openHAB bus. Reload requests which arrive while a
+     * reload is queued or running are merged into a single further reload.
      */
     public void reloadDatapoints() {
+        if (!datapointReloadRequested.compareAndSet(false, true)) {
+            logger.debug("Homematic server datapoints reload already pending");
+            return;
+        }
         reloadExecutorPool.execute(new Runnable() {
 
             @Override
             public void run() {
+                synchronized (datapointReloadRequested) {
+                    datapointReloadRequested.set(false);
+                    doReloadDatapoints();
+                }
+            }
+        });
+    }
 
-                try {
-                    logger.debug("Reloading Homematic server datapoints");
-                    datapointReloadInProgress = true;
-                    context.getHomematicClient().iterateAllDatapoints(new HmValueItemIteratorCallback() {
-                        @Override
-                        public void iterate(HomematicBindingConfig bindingConfig, HmValueItem hmValueItem) {
-                            if (!datapoints.containsKey(bindingConfig)) {
-                                logger.info("Adding new {}", bindingConfig);
-                                datapoints.put(bindingConfig, hmValueItem);
-                            } else {
-                                Object cachedValue = refreshCache.get(bindingConfig);
-                                if (cachedValue != null) {
-                                    logger.debug("Value changed while refreshing from '{}' to '{}' for binding {}",
-                                            hmValueItem.getValue(), cachedValue, bindingConfig);
-                                    hmValueItem.setValue(cachedValue);
-                                }
+    /**
+     * Compares the reloaded datapoints with the cached ones and applies only
+     * the differences.
+     */
+    private void doReloadDatapoints() {
+        final int[] changes = new int[2];
+        try {
+            logger.debug("Reloading Homematic server datapoints");
+            long start = System.currentTimeMillis();
+            datapointReloadInProgress = true;
+            context.getHomematicClient().iterateAllDatapoints(new HmValueItemIteratorCallback() {
+                @Override
+                public void iterate(HomematicBindingConfig bindingConfig, HmValueItem hmValueItem) {
+                    HmValueItem cachedItem = datapoints.get(bindingConfig);
+                    if (cachedItem == null) {
+                        logger.info("Adding new {}", bindingConfig);
+                        datapoints.put(bindingConfig, hmValueItem);
+                        changes[0]++;
+                    } else {
+                        Object cachedValue = refreshCache.get(bindingConfig);
+                        if (cachedValue != null) {
+                            logger.debug("Value changed while refreshing from '{}' to '{}' for binding {}",
+                                    hmValueItem.getValue(), cachedValue, bindingConfig);
+                            hmValueItem.setValue(cachedValue);
+                        }
 
-                                if (hasChanged(bindingConfig, datapoints.get(bindingConfig), hmValueItem)) {
-                                    datapoints.put(bindingConfig, hmValueItem);
-                                    publish(bindingConfig, hmValueItem);
-                                }
-                            }
+                        if (hasChanged(bindingConfig, cachedItem, hmValueItem)) {
+                            datapoints.put(bindingConfig, hmValueItem);
+                            publish(bindingConfig, hmValueItem);
+                            changes[1]++;
                         }
-                    });
-                    logger.debug("Finished reloading {} Homematic server datapoints", datapoints.size());
-                } catch (HomematicClientException ex) {
-                    logger.error(ex.getMessage(), ex);
-                } finally {
-                    datapointReloadInProgress = false;
-                    refreshCache.clear();
+                    }
                 }
-
-            }
-        });
+            });
+            logger.debug("Finished reloading {} Homematic server datapoints in {}ms, {} added, {} changed",
+                    datapoints.size(), System.currentTimeMillis() - start, changes[0], changes[1]);
+        } catch (HomematicClientException ex) {
+            logger.error(ex.getMessage(), ex);
+        } finally {
+            datapointReloadInProgress = false;
+            refreshCache.clear();
+        }
     }
 
     /**
@@ -242,6 +268,7 @@ public class StateHolder {
      */
     public void destroy() {
         datapointReloadInProgress = false;
+        datapointReloadRequested.set(false);
         if (reloadExecutorPool != null) {
             reloadExecutorPool.shutdownNow();
             reloadExecutorPool = null;
@@ -10,7 +10,7 @@ package org.openhab.binding.homematic.internal.communicator.client;
 
 import java.io.IOException;
 import java.net.ConnectException;
-import java.net.Socket;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -35,6 +35,8 @@ public class BinRpcClient implements RpcClient {
     private final static boolean TRACE_ENABLED = logger.isTraceEnabled();
 
     private HomematicContext context = HomematicContext.getInstance();
+    private Map<HmInterface, BinRpcConnection> connections = new EnumMap<HmInterface, BinRpcConnection>(
+            HmInterface.class);
 
     /**
      * {@inheritDoc}
@@ -49,7 +51,13 @@ public class BinRpcClient implements RpcClient {
      */
     @Override
     public void shutdown() throws HomematicClientException {
-        // nothing todo
+        synchronized (connections) {
+            for (BinRpcConnection connection : connections.values()) {
+                logger.debug("Closing {}", connection);
+                connection.close();
+            }
+            connections.clear();
+        }
     }
 
     /**
@@ -185,17 +193,12 @@ public class BinRpcClient implements RpcClient {
      * Sends a BIN-RPC message and parses the response to see if there was an
      * error.
      */
-    private synchronized Object[] sendMessage(HmInterface hmInterface, BinRpcRequest request)
-            throws HomematicClientException {
-        Socket socket = null;
+    private Object[] sendMessage(HmInterface hmInterface, BinRpcRequest request) throws HomematicClientException {
         try {
             if (TRACE_ENABLED) {
                 logger.trace("Client BinRpcRequest {}", request);
             }
-            socket = new Socket(context.getConfig().getHost(), hmInterface.getPort());
-            socket.setSoTimeout(context.getConfig().getTimeout() * 1000);
-            socket.getOutputStream().write(request.createMessage());
-            BinRpcResponse resp = new BinRpcResponse(socket.getInputStream(), false);
+            BinRpcResponse resp = getConnection(hmInterface).send(request);
 
             if (TRACE_ENABLED) {
                 logger.trace("Client BinRpcResponse: {}", resp.toString());
@@ -224,14 +227,21 @@ public class BinRpcClient implements RpcClient {
                     cex);
         } catch (Exception ex) {
             throw new HomematicClientException(ex.getMessage() + " (sending " + request + ")", ex);
-        } finally {
-            try {
-                if (socket != null) {
-                    socket.close();
-                }
-            } catch (IOException ex) {
-                // ignore
+        }
+    }
+
+    /**
+     * Returns the persistent connection to the interface.
+     */
+    private BinRpcConnection getConnection(HmInterface hmInterface) {
+        synchronized (connections) {
+            BinRpcConnection connection = connections.get(hmInterface);
+            if (connection == null) {
+                connection = new BinRpcConnection(context.getConfig().getHost(), hmInterface.getPort(),
+                        context.getConfig().getTimeout() * 1000);
+                connections.put(hmInterface, connection);
             }
+            return connection;
         }
     }
 
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.client;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.text.ParseException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openhab.binding.homematic.internal.binrpc.BinRpcRequest;
+import org.openhab.binding.homematic.internal.binrpc.BinRpcResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent BIN-RPC connection to one interface of the Homematic server.
+ * BIN-RPC has no request ids, so the requests are queued and sent one after the
+ * other over the same socket. A socket which has been open for too long is replaced,
+ * a reused socket which fails (e.g. because the server closed it) is replaced once
+ * for the same request.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class BinRpcConnection {
+    private final static Logger logger = LoggerFactory.getLogger(BinRpcConnection.class);
+
+    /** the maximum lifetime of a socket in milliseconds */
+    private static final long SOCKET_MAX_ALIVE = 900000;
+
+    private final String host;
+    private final int port;
+    private final int timeout;
+
+    /** the fair lock is the request queue */
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    private Socket socket;
+    private InputStream input;
+    private OutputStream output;
+    private long socketCreated;
+    private long requests;
+    private long connects;
+
+    /**
+     * @param host the host of the Homematic server
+     * @param port the BIN-RPC port of the interface
+     * @param timeout the read timeout in milliseconds
+     */
+    public BinRpcConnection(String host, int port, int timeout) {
+        this.host = host;
+        this.port = port;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Sends the request and returns the decoded response.
+     */
+    public BinRpcResponse send(BinRpcRequest request) throws IOException, ParseException {
+        byte[] message = request.createMessage();
+        lock.lock();
+        try {
+            requests++;
+            boolean reused = openSocket();
+            try {
+                return sendMessage(message);
+            } catch (IOException ex) {
+                closeSocket();
+                if (!reused) {
+                    throw ex;
+                }
+                logger.debug("Reused BIN-RPC socket to {}:{} failed, retrying with a new one: {}", host, port,
+                        ex.getMessage());
+                openSocket();
+                try {
+                    return sendMessage(message);
+                } catch (IOException retryEx) {
+                    closeSocket();
+                    throw retryEx;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Opens a new socket if required.
+     *
+     * @return true if an open socket is reused
+     */
+    private boolean openSocket() throws IOException {
+        if (socket != null && System.currentTimeMillis() - socketCreated > SOCKET_MAX_ALIVE) {
+            logger.trace("BIN-RPC socket to {}:{} reached its maximum lifetime", host, port);
+            closeSocket();
+        }
+        if (socket != null) {
+            return true;
+        }
+
+        Socket newSocket = new Socket(host, port);
+        try {
+            newSocket.setSoTimeout(timeout);
+            newSocket.setKeepAlive(true);
+            newSocket.setTcpNoDelay(true);
+            input = new BufferedInputStream(newSocket.getInputStream());
+            output = newSocket.getOutputStream();
+        } catch (IOException ex) {
+            newSocket.close();
+            throw ex;
+        }
+        socket = newSocket;
+        socketCreated = System.currentTimeMillis();
+        connects++;
+        return false;
+    }
+
+    private BinRpcResponse sendMessage(byte[] message) throws IOException, ParseException {
+        output.write(message);
+        output.flush();
+        return new BinRpcResponse(input, false);
+    }
+
+    private void closeSocket() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+        }
+        socket = null;
+        input = null;
+        output = null;
+    }
+
+    /**
+     * Closes the socket, the next request opens a new one.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closeSocket();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of sockets opened.
+     */
+    public long getConnects() {
+        lock.lock();
+        try {
+            return connects;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s[%s:%d, requests=%d, connects=%d]", getClass().getSimpleName(), host, port, requests,
+                connects);
+    }
+}
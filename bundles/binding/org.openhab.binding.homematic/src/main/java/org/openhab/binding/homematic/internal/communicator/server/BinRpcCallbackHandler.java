@@ -8,9 +8,13 @@
  */
 package org.openhab.binding.homematic.internal.communicator.server;
 
+import java.io.BufferedInputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.util.Map;
 
 import org.openhab.binding.homematic.internal.binrpc.BinRpcResponse;
@@ -36,6 +40,9 @@ public class BinRpcCallbackHandler implements Runnable {
             0, 0, 3, 0, 0, 0, 16, 's', 'y', 's', 't', 'e', 'm', '.', 'm', 'u', 'l', 't', 'i', 'c', 'a', 'l', 'l', 0, 0,
             0, 3, 0, 0, 0, 5, 'e', 'v', 'e', 'n', 't' };
 
+    /** the time in milliseconds an idle connection is kept open for further calls */
+    private static final int KEEP_ALIVE_TIMEOUT = 5000;
+
     private Socket socket;
     private HomematicCallbackReceiver callbackReceiver;
 
@@ -45,21 +52,31 @@ public class BinRpcCallbackHandler implements Runnable {
     }
 
     /**
-     * Reads the event from the Homematic server and handles the method call.
+     * Reads the events from the Homematic server and handles the method calls.
+     * The server may send several calls over the same connection, they are
+     * handled until the server closes it or stays idle for too long.
      */
     @Override
     public void run() {
         try {
-            BinRpcResponse response = new BinRpcResponse(socket.getInputStream(), true);
-            if (TRACE_ENABLED) {
-                logger.trace("Event BinRpcResponse: {}", response.toString());
-            }
-            byte[] returnValue = handleMethodCall(response.getMethodName(), response.getResponseData());
-            if (returnValue != null) {
-                socket.getOutputStream().write(returnValue);
+            socket.setSoTimeout(KEEP_ALIVE_TIMEOUT);
+            InputStream input = new BufferedInputStream(socket.getInputStream());
+            OutputStream output = socket.getOutputStream();
+            while (true) {
+                BinRpcResponse response = new BinRpcResponse(input, true);
+                if (TRACE_ENABLED) {
+                    logger.trace("Event BinRpcResponse: {}", response.toString());
+                }
+                byte[] returnValue = handleMethodCall(response.getMethodName(), response.getResponseData());
+                if (returnValue != null) {
+                    output.write(returnValue);
+                    output.flush();
+                }
             }
         } catch (EOFException eof) {
             // ignore
+        } catch (SocketTimeoutException ste) {
+            // idle connection, ignore
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
         } finally {
@@ -11,8 +11,10 @@ package org.openhab.binding.homematic.internal.communicator.server;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.common.HomematicContext;
@@ -30,8 +32,21 @@ import org.slf4j.LoggerFactory;
 public class BinRpcNetworkService implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(BinRpcNetworkService.class);
 
+    /** the maximum number of callback connections which are handled concurrently */
+    private static final int MAX_HANDLER_THREADS = 8;
+
+    /** the maximum number of accepted connections waiting for a handler thread */
+    private static final int MAX_QUEUED_CONNECTIONS = 64;
+
     private ServerSocket serverSocket;
-    private final ExecutorService pool = Executors.newCachedThreadPool();
+
+    /**
+     * A bounded pool, if all threads are busy and the queue is full, the accepting thread
+     * handles the connection itself and therefore stops accepting new ones for the time.
+     */
+    private final ExecutorService pool = new ThreadPoolExecutor(MAX_HANDLER_THREADS, MAX_HANDLER_THREADS, 60L,
+            TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(MAX_QUEUED_CONNECTIONS),
+            new ThreadPoolExecutor.CallerRunsPolicy());
     private boolean accept = true;
     private HomematicCallbackReceiver callbackReceiver;
 
@@ -44,6 +59,7 @@ public class BinRpcNetworkService implements Runnable {
         HomematicConfig config = HomematicContext.getInstance().getConfig();
         serverSocket = new ServerSocket(config.getCallbackPort());
         serverSocket.setReuseAddress(true);
+        ((ThreadPoolExecutor) pool).allowCoreThreadTimeOut(true);
     }
 
     /**
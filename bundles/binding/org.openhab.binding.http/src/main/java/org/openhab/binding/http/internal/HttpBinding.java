@@ -11,12 +11,25 @@ package org.openhab.binding.http.internal;
 import static org.apache.commons.lang.StringUtils.isNotBlank;
 import static org.openhab.binding.http.internal.HttpGenericBindingProvider.CHANGED_COMMAND_KEY;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -70,6 +83,12 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
     /** the interval to find new refresh candidates (defaults to 1000 milliseconds) */
     private int granularity = 1000;
 
+    /** the maximum number of requests which are executed at the same time */
+    private static final int MAX_CONCURRENT_REQUESTS = 8;
+
+    /** executes the requests of a refresh cycle, guarded by <code>this</code> */
+    private ExecutorService executorService;
+
     private Map<String, Long> lastUpdateMap = new HashMap<String, Long>();
 
     /** RegEx to extract a parse a function String <code>'(.*?)\((.*)\)'</code> */
@@ -107,6 +126,17 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
         setProperlyConfigured(true);
     }
 
+    @Override
+    public void deactivate() {
+        super.deactivate();
+        synchronized (this) {
+            if (executorService != null) {
+                executorService.shutdownNow();
+                executorService = null;
+            }
+        }
+    }
+
     protected void addBindingProvider(HttpBindingProvider bindingProvider) {
         super.addBindingProvider(bindingProvider);
     }
@@ -133,10 +163,18 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
 
     /**
      * @{inheritDoc}
+     *
+     * All due requests of a refresh cycle are issued concurrently on the executor of the
+     * binding and identical requests are only executed once, so that the cycle takes as
+     * long as the slowest host instead of the sum of all hosts.
      */
     @Override
     public void execute() {
 
+        ExecutorService executor = getExecutorService();
+        Map<RequestKey, Future<String>> requests = new HashMap<RequestKey, Future<String>>();
+        List<PendingUpdate> pendingUpdates = new ArrayList<PendingUpdate>();
+
         for (HttpBindingProvider provider : providers) {
             for (String itemName : provider.getInBindingItemNames()) {
 
@@ -145,7 +183,6 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
 
                 Properties headers = provider.getHttpHeaders(itemName);
                 int refreshInterval = provider.getRefreshInterval(itemName);
-                String transformation = provider.getTransformation(itemName);
 
                 Long lastUpdateTimeStamp = lastUpdateMap.get(itemName);
                 if (lastUpdateTimeStamp == null) {
@@ -157,64 +194,147 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
 
                 if (needsUpdate) {
 
-                    String response = null;
+                    PendingUpdate pendingUpdate = new PendingUpdate(provider, itemName, url);
 
                     // check if special URL is used and data should get from
                     // cache rather than directly from server
                     if (isCacheConfig(url)) {
                         logger.debug("item '{}' is fetched from cache", itemName);
-                        response = getCacheData(url);
+                        pendingUpdate.cacheConfig = getCacheConfig(url);
+                        if (pendingUpdate.cacheConfig == null) {
+                            continue;
+                        }
+                        pendingUpdate.response = pendingUpdate.cacheConfig.refresh(executor, requests, timeout);
                     } else if (isValidUrl(url)) {
                         logger.debug("item '{}' is about to be refreshed now", itemName);
-                        response = HttpUtil.executeUrl("GET", url, headers, null, null, timeout);
+                        pendingUpdate.response = executeCoalesced(executor, requests, url, headers, timeout);
                     } else {
                         logger.debug("item '{}' is not a valid URL or is a cache id yet to be initialised ({})",
                                 itemName, url);
                         continue;
                     }
 
-                    if (response == null) {
-                        logger.error("No response received from '{}'", url);
-                    } else {
-                        String transformedResponse;
-                        try {
-                            String[] parts = splitTransformationConfig(transformation);
-                            String transformationType = parts[0];
-                            String transformationFunction = parts[1];
-
-                            TransformationService transformationService = TransformationHelper
-                                    .getTransformationService(HttpActivator.getContext(), transformationType);
-                            if (transformationService != null) {
-                                transformedResponse = transformationService.transform(transformationFunction, response);
-                            } else {
-                                transformedResponse = response;
-                                logger.warn(
-                                        "couldn't transform response because transformationService of type '{}' is unavailable",
-                                        transformationType);
-                            }
-                        } catch (TransformationException te) {
-                            logger.error("transformation throws exception [transformation=" + transformation
-                                    + ", response=" + response + "]", te);
-
-                            // in case of an error we return the response without any
-                            // transformation
-                            transformedResponse = response;
-                        }
+                    pendingUpdates.add(pendingUpdate);
+                }
+            }
+        }
 
-                        logger.debug("transformed response is '{}'", transformedResponse);
+        for (PendingUpdate pendingUpdate : pendingUpdates) {
+            String response = getResponse(pendingUpdate);
+            if (response == null) {
+                logger.error("No response received from '{}'", pendingUpdate.url);
+            } else {
+                updateItem(pendingUpdate.provider, pendingUpdate.itemName, response);
+            }
 
-                        Class<? extends Item> itemType = provider.getItemType(itemName);
-                        State state = createState(itemType, transformedResponse);
+            lastUpdateMap.put(pendingUpdate.itemName, System.currentTimeMillis());
+        }
+    }
 
-                        if (state != null) {
-                            eventPublisher.postUpdate(itemName, state);
-                        }
+    /**
+     * Executes a GET request asynchronously unless the very same request has already been
+     * issued in the current refresh cycle.
+     */
+    private static Future<String> executeCoalesced(ExecutorService executor,
+            Map<RequestKey, Future<String>> requests, final String url, final Properties headers,
+            final int timeout) {
+        RequestKey key = new RequestKey(url, headers);
+        Future<String> response = requests.get(key);
+        if (response == null) {
+            try {
+                response = executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return HttpUtil.executeUrl("GET", url, headers, null, null, timeout);
                     }
+                });
+            } catch (RejectedExecutionException e) {
+                // the binding is being deactivated
+                return null;
+            }
+            requests.put(key, response);
+        } else {
+            logger.trace("coalescing request to '{}'", url);
+        }
+        return response;
+    }
 
-                    lastUpdateMap.put(itemName, System.currentTimeMillis());
-                }
+    /**
+     * Waits for the response of a pending update and stores it in the cache, if the
+     * update reads from a cache item.
+     */
+    private String getResponse(PendingUpdate pendingUpdate) {
+        String response = null;
+        if (pendingUpdate.response != null) {
+            try {
+                response = pendingUpdate.response.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (CancellationException e) {
+                logger.debug("request to '{}' has been cancelled", pendingUpdate.url);
+            } catch (ExecutionException e) {
+                logger.error("request to '{}' failed: {}", pendingUpdate.url, e.getCause().toString());
             }
         }
+        if (pendingUpdate.cacheConfig != null) {
+            response = pendingUpdate.cacheConfig.complete(pendingUpdate.response, response);
+        }
+        return response;
+    }
+
+    private synchronized ExecutorService getExecutorService() {
+        if (executorService == null) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_CONCURRENT_REQUESTS, MAX_CONCURRENT_REQUESTS, 60,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "HTTP Request " + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            executorService = pool;
+        }
+        return executorService;
+    }
+
+    private void updateItem(HttpBindingProvider provider, String itemName, String response) {
+        String transformation = provider.getTransformation(itemName);
+        String transformedResponse;
+        try {
+            String[] parts = splitTransformationConfig(transformation);
+            String transformationType = parts[0];
+            String transformationFunction = parts[1];
+
+            TransformationService transformationService = TransformationHelper
+                    .getTransformationService(HttpActivator.getContext(), transformationType);
+            if (transformationService != null) {
+                transformedResponse = transformationService.transform(transformationFunction, response);
+            } else {
+                transformedResponse = response;
+                logger.warn("couldn't transform response because transformationService of type '{}' is unavailable",
+                        transformationType);
+            }
+        } catch (TransformationException te) {
+            logger.error("transformation throws exception [transformation=" + transformation + ", response="
+                    + response + "]", te);
+
+            // in case of an error we return the response without any
+            // transformation
+            transformedResponse = response;
+        }
+
+        logger.debug("transformed response is '{}'", transformedResponse);
+
+        Class<? extends Item> itemType = provider.getItemType(itemName);
+        State state = createState(itemType, transformedResponse);
+
+        if (state != null) {
+            eventPublisher.postUpdate(itemName, state);
+        }
     }
 
     /**
@@ -355,39 +475,18 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
     }
 
     /**
-     * Synchronized access to the item cache. Checks the <code>cacheId</code>
-     * is a cached item and returns the cached value. If the cache has
-     * expired, refresh the cache value by making a new HTTP request.
+     * Synchronized access to the item cache. Returns the {@link CacheConfig}
+     * of the given <code>cacheId</code>.
      *
      * @param cacheId
-     * @return the cached (or refreshed) dats
+     * @return the cache config or <code>null</code> if the cache has been
+     *         cleared in the meantime
      */
-    private String getCacheData(String cacheId) {
+    private CacheConfig getCacheConfig(String cacheId) {
         synchronized (itemCacheLock) {
             // check again in case the cache was cleared in between taking
             // the lock when checking in isCacheConfig() and now
-            if (!itemCache.containsKey(cacheId)) {
-                return null;
-            }
-
-            CacheConfig cacheConfig = itemCache.get(cacheId);
-
-            long cacheAge = System.currentTimeMillis() - cacheConfig.lastUpdate;
-            boolean cacheNeedsUpdate = cacheAge >= cacheConfig.updateInterval;
-
-            if (cacheNeedsUpdate) {
-
-                // update and store data on cache
-                logger.debug("updating cache for '{}' ('{}')", cacheId, cacheConfig.url);
-                cacheConfig.data = HttpUtil.executeUrl("GET", cacheConfig.url, cacheConfig.headers, null, null,
-                        timeout);
-
-                if (cacheConfig.data != null) {
-                    cacheConfig.lastUpdate = System.currentTimeMillis();
-                }
-            }
-
-            return cacheConfig.data;
+            return itemCache.get(cacheId);
         }
     }
 
@@ -488,6 +587,56 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
         return headers;
     }
 
+    /**
+     * A request of the current refresh cycle, identified by its url and headers
+     */
+    static class RequestKey {
+
+        final String url;
+        final Properties headers;
+
+        RequestKey(String url, Properties headers) {
+            this.url = url;
+            this.headers = headers != null ? headers : new Properties();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * url.hashCode() + headers.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RequestKey)) {
+                return false;
+            }
+            RequestKey other = (RequestKey) obj;
+            return url.equals(other.url) && headers.equals(other.headers);
+        }
+    }
+
+    /**
+     * An item update of the current refresh cycle which waits for its response
+     */
+    static class PendingUpdate {
+
+        final HttpBindingProvider provider;
+        final String itemName;
+        final String url;
+
+        /** the cache the response is read from or <code>null</code> */
+        CacheConfig cacheConfig;
+
+        /** the (possibly still running) request */
+        Future<String> response;
+
+        PendingUpdate(HttpBindingProvider provider, String itemName, String url) {
+            this.provider = provider;
+            this.itemName = itemName;
+            this.url = url;
+        }
+    }
+
     /**
      * Internal data structure for data cache purposes
      *
@@ -512,10 +661,49 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
         /** Last time when data is updated */
         long lastUpdate;
 
+        /** The currently running refresh request or <code>null</code> */
+        Future<String> pendingRefresh;
+
         public CacheConfig(String id) {
             this.id = id;
         }
 
+        /**
+         * Starts a refresh of the cached data if it has expired. Each cache is refreshed
+         * independently of all other caches.
+         *
+         * @return the running refresh request or <code>null</code> if the cached data is
+         *         still valid
+         */
+        synchronized Future<String> refresh(ExecutorService executor, Map<RequestKey, Future<String>> requests,
+                int timeout) {
+            if (pendingRefresh == null) {
+                long cacheAge = System.currentTimeMillis() - lastUpdate;
+                if (cacheAge >= updateInterval) {
+                    // update and store data on cache
+                    logger.debug("updating cache for '{}' ('{}')", id, url);
+                    pendingRefresh = executeCoalesced(executor, requests, url, headers, timeout);
+                }
+            }
+            return pendingRefresh;
+        }
+
+        /**
+         * Stores the result of a refresh request.
+         *
+         * @return the current cached data
+         */
+        synchronized String complete(Future<String> refresh, String result) {
+            if (refresh != null && refresh == pendingRefresh) {
+                pendingRefresh = null;
+                data = result;
+                if (data != null) {
+                    lastUpdate = System.currentTimeMillis();
+                }
+            }
+            return data;
+        }
+
         @Override
         public String toString() {
             return "CacheConfig [id=" + id + ", url=" + url + ", update interval=" + updateInterval + "]";
@@ -29,7 +29,7 @@ public class KNXBusReaderSchedulerTest {
 
     @Before
     public void setUp() throws Exception {
-        kNXBindingAutoRefreshScheduler = new KNXBusReaderScheduler();
+        kNXBindingAutoRefreshScheduler = new KNXBusReaderScheduler(new KNXTelegramScheduler());
     }
 
     @Test
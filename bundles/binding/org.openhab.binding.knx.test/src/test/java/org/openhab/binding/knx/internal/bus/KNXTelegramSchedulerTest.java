@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.bus;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.knx.internal.bus.KNXTelegramScheduler.Priority;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.datapoint.CommandDP;
+import tuwien.auto.calimero.datapoint.Datapoint;
+import tuwien.auto.calimero.exception.KNXFormatException;
+import tuwien.auto.calimero.process.ProcessCommunicator;
+
+/**
+ * Tests the {@link KNXTelegramScheduler} against a simulated bus, which records the telegrams.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class KNXTelegramSchedulerTest {
+
+    private final List<String> telegrams = Collections.synchronizedList(new ArrayList<String>());
+
+    private TestScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new TestScheduler(1000);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    public void testWritesBeforeReads() throws Exception {
+        scheduler.read(createDP("1/1/1"), Priority.REFRESH);
+        scheduler.read(createDP("1/1/2"), Priority.READ);
+        scheduler.write(createDP("1/1/3"), "on");
+        scheduler.write(createDP("1/1/4"), "off");
+        scheduler.start();
+
+        waitForTelegrams(4);
+        assertEquals("[write 1/1/3 on, write 1/1/4 off, read 1/1/2, read 1/1/1]", telegrams.toString());
+        assertEquals(2, scheduler.getSentTelegrams(Priority.WRITE));
+        assertEquals(1, scheduler.getSentTelegrams(Priority.READ));
+        assertEquals(1, scheduler.getSentTelegrams(Priority.REFRESH));
+    }
+
+    @Test
+    public void testReadsOfSameAddressAreMerged() throws Exception {
+        assertTrue(scheduler.read(createDP("1/1/1"), Priority.REFRESH));
+        assertTrue(scheduler.read(createDP("1/1/2"), Priority.READ));
+        assertTrue(scheduler.read(createDP("1/1/1"), Priority.READ));
+        assertTrue(scheduler.read(createDP("1/1/1"), Priority.REFRESH));
+        assertEquals(2, scheduler.getPendingReads());
+        assertEquals(2, scheduler.getMergedReads());
+        scheduler.start();
+
+        waitForTelegrams(2);
+        Thread.sleep(100);
+        // the refresh of 1/1/1 has been raised to a one-time read
+        assertEquals("[read 1/1/2, read 1/1/1]", telegrams.toString());
+        assertEquals(0, scheduler.getSentTelegrams(Priority.REFRESH));
+    }
+
+    @Test
+    public void testBusLoadIsLimited() throws Exception {
+        scheduler = new TestScheduler(20);
+        for (int i = 1; i <= 30; i++) {
+            scheduler.write(createDP("1/1/" + i), "on");
+        }
+        long start = System.currentTimeMillis();
+        scheduler.start();
+
+        waitForTelegrams(30);
+        // a burst of 10 telegrams, the other 20 at 20 telegrams per second
+        assertTrue(System.currentTimeMillis() - start >= 900);
+    }
+
+    @Test
+    public void testClearReads() throws Exception {
+        scheduler.read(createDP("1/1/1"), Priority.READ);
+        scheduler.read(createDP("1/1/2"), Priority.REFRESH);
+        scheduler.clearReads();
+        assertEquals(0, scheduler.getPendingReads());
+        assertFalse(scheduler.read(null, Priority.READ));
+        assertFalse(scheduler.write(null, "on"));
+    }
+
+    private void waitForTelegrams(int count) throws InterruptedException {
+        for (int i = 0; i < 500 && telegrams.size() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, telegrams.size());
+    }
+
+    private Datapoint createDP(String groupAddress) throws KNXFormatException {
+        return new CommandDP(new GroupAddress(groupAddress), "test " + groupAddress, 1, "1.001");
+    }
+
+    private class TestScheduler extends KNXTelegramScheduler {
+        private final int maxTelegramsPerSecond;
+        private final ProcessCommunicator communicator;
+
+        TestScheduler(int maxTelegramsPerSecond) {
+            this.maxTelegramsPerSecond = maxTelegramsPerSecond;
+            this.communicator = (ProcessCommunicator) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { ProcessCommunicator.class }, new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            Datapoint datapoint = (Datapoint) args[0];
+                            if (method.getName().equals("write")) {
+                                telegrams.add("write " + datapoint.getMainAddress() + " " + args[1]);
+                            } else if (method.getName().equals("read")) {
+                                telegrams.add("read " + datapoint.getMainAddress());
+                                return "on";
+                            }
+                            return null;
+                        }
+                    });
+        }
+
+        @Override
+        protected ProcessCommunicator getCommunicator() {
+            return communicator;
+        }
+
+        @Override
+        protected int getMaxTelegramsPerSecond() {
+            return maxTelegramsPerSecond;
+        }
+
+        @Override
+        protected long getReadingPause() {
+            return 0;
+        }
+    }
+}
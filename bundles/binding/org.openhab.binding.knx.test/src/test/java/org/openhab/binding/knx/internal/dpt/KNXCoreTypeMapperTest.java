@@ -992,6 +992,37 @@ public class KNXCoreTypeMapperTest {
         testTypeMapping2ByteFloat(DPTXlator2ByteFloat.DPT_WIND_SPEED_KMH);
     }
 
+    /**
+     * KNXCoreTypeMapper tests that method typeMapper.toType() converts all values of the types “8-Bit Unsigned Value"
+     * and “2-Octet Float Value" to the same value as the Calimero translator does.
+     *
+     * @throws KNXFormatException
+     */
+    @Test
+    public void testTypeMappingMatchesTranslator() throws KNXFormatException {
+        DPT[] dpts = { DPTXlator8BitUnsigned.DPT_SCALING, DPTXlator8BitUnsigned.DPT_ANGLE,
+                DPTXlator8BitUnsigned.DPT_PERCENT_U8 };
+        for (DPT dpt : dpts) {
+            DPTXlator8BitUnsigned translator = new DPTXlator8BitUnsigned(dpt);
+            Datapoint datapoint = createDP(dpt.getID());
+            for (int i = 0; i < 0x100; i++) {
+                byte[] data = new byte[] { (byte) i };
+                translator.setData(data);
+                assertEquals("KNXCoreTypeMapper.toType() returned wrong value for datapoint type \"" + dpt.getID()
+                        + "\"", translator.getValue().split(" ")[0], knxCoreTypeMapper.toType(datapoint, data).toString());
+            }
+        }
+
+        DPTXlator2ByteFloat translator = new DPTXlator2ByteFloat(DPTXlator2ByteFloat.DPT_TEMPERATURE);
+        Datapoint datapoint = createDP(DPTXlator2ByteFloat.DPT_TEMPERATURE.getID());
+        for (int i = 0; i < 0x10000; i++) {
+            byte[] data = new byte[] { (byte) (i >> 8), (byte) i };
+            translator.setData(data);
+            assertEquals("KNXCoreTypeMapper.toType() returned wrong value for data " + i,
+                    translator.getValue().split(" ")[0], knxCoreTypeMapper.toType(datapoint, data).toString());
+        }
+    }
+
     /**
      * KNXCoreTypeMapper tests method typeMapper.toType() for type “Time" KNX ID: 10.001 DPT_TIMEOFDAY
      * 
@@ -33,8 +33,6 @@ import tuwien.auto.calimero.DetachEvent;
 import tuwien.auto.calimero.GroupAddress;
 import tuwien.auto.calimero.Settings;
 import tuwien.auto.calimero.datapoint.Datapoint;
-import tuwien.auto.calimero.exception.KNXException;
-import tuwien.auto.calimero.process.ProcessCommunicator;
 import tuwien.auto.calimero.process.ProcessEvent;
 import tuwien.auto.calimero.process.ProcessListener;
 
@@ -62,7 +60,9 @@ public class KNXBinding extends AbstractBinding<KNXBindingProvider>implements Pr
      */
     private List<String> ignoreEventList = Collections.synchronizedList(new ArrayList<String>());
 
-    private KNXBusReaderScheduler mKNXBusReaderScheduler = new KNXBusReaderScheduler();
+    private KNXTelegramScheduler mTelegramScheduler = new KNXTelegramScheduler();
+
+    private KNXBusReaderScheduler mKNXBusReaderScheduler = new KNXBusReaderScheduler(mTelegramScheduler);
 
     private boolean mKNXConnectionEstablished;
 
@@ -70,6 +70,7 @@ public class KNXBinding extends AbstractBinding<KNXBindingProvider>implements Pr
         logger.debug("Calimero library version {}", Settings.getLibraryVersion());
         logger.trace("KNXBinding: activating");
         KNXConnection.addConnectionListener(this);
+        mTelegramScheduler.start();
         mKNXBusReaderScheduler.start();
 
     }
@@ -82,6 +83,7 @@ public class KNXBinding extends AbstractBinding<KNXBindingProvider>implements Pr
         }
         providers.clear();
         mKNXBusReaderScheduler.stop();
+        mTelegramScheduler.stop();
         KNXConnection.disconnect();
     }
 
@@ -136,27 +138,10 @@ public class KNXBinding extends AbstractBinding<KNXBindingProvider>implements Pr
     private void writeToKNX(String itemName, Type value) {
         Iterable<Datapoint> datapoints = getDatapoints(itemName, value.getClass());
         if (datapoints != null) {
-            ProcessCommunicator pc = KNXConnection.getCommunicator();
-            if (pc != null) {
-                for (Datapoint datapoint : datapoints) {
-                    try {
-                        pc.write(datapoint, toDPTValue(value, datapoint.getDPT()));
-                        logger.debug("Wrote value '{}' to datapoint '{}'", value, datapoint);
-                    } catch (KNXException e) {
-                        logger.warn(
-                                "Value '{}' could not be sent to the KNX bus using datapoint '{}' - retrying one time: {}",
-                                new Object[] { value, datapoint, e.getMessage() });
-                        try {
-                            // do a second try, maybe the reconnection was successful
-                            pc = KNXConnection.getCommunicator();
-                            pc.write(datapoint, toDPTValue(value, datapoint.getDPT()));
-                            logger.debug("Wrote value '{}' to datapoint '{}' on second try", value, datapoint);
-                        } catch (KNXException e1) {
-                            logger.error(
-                                    "Value '{}' could not be sent to the KNX bus using datapoint '{}' - giving up after second try: {}",
-                                    new Object[] { value, datapoint, e1.getMessage() });
-                        }
-                    }
+            for (Datapoint datapoint : datapoints) {
+                if (!mTelegramScheduler.write(datapoint, toDPTValue(value, datapoint.getDPT()))) {
+                    logger.warn("Value '{}' could not be queued for the KNX bus using datapoint '{}'", value,
+                            datapoint);
                 }
             }
         }
@@ -12,13 +12,12 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import org.openhab.binding.knx.internal.bus.KNXTelegramScheduler.Priority;
 import org.openhab.binding.knx.internal.connection.KNXConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +26,7 @@ import tuwien.auto.calimero.datapoint.Datapoint;
 
 /**
  * This is the central class that takes care of the refreshing (cyclical reading) of GAs from the KNX bus.
+ * The reads are sent by the {@link KNXTelegramScheduler}.
  *
  * @author Volker Daube
  * @since 1.6.0
@@ -35,13 +35,18 @@ import tuwien.auto.calimero.datapoint.Datapoint;
 public class KNXBusReaderScheduler {
     private static final Logger sLogger = LoggerFactory.getLogger(KNXBusReaderScheduler.class);
 
-    private final BlockingQueue<Datapoint> mReadQueue = new LinkedBlockingQueue<Datapoint>();
+    private final KNXTelegramScheduler mTelegramScheduler;
 
     private static Map<Integer, List<Datapoint>> mScheduleMap = new ConcurrentHashMap<Integer, List<Datapoint>>();
     private ScheduledExecutorService mScheduledExecutorService;
     private boolean mIsRunning = false;
-    /** the datapoint initializer, which runs in a separate thread */
-    private KNXBindingDatapointReaderTask mDatapointReaderTask = null;
+
+    /**
+     * @param telegramScheduler the scheduler which sends the read requests to the KNX bus
+     */
+    public KNXBusReaderScheduler(KNXTelegramScheduler telegramScheduler) {
+        mTelegramScheduler = telegramScheduler;
+    }
 
     /**
      * Starts the scheduler
@@ -49,10 +54,6 @@ public class KNXBusReaderScheduler {
     public void start() {
         sLogger.trace("Starting auto refresh scheduler");
 
-        sLogger.debug("Starting reader task.");
-        mDatapointReaderTask = new KNXBindingDatapointReaderTask(mReadQueue);
-        mDatapointReaderTask.start();
-
         sLogger.debug("Starting schedule executor.");
         mScheduledExecutorService = Executors.newScheduledThreadPool(KNXConnection.getNumberOfThreads());
 
@@ -66,7 +67,7 @@ public class KNXBusReaderScheduler {
         sLogger.trace("Stopping auto refresh scheduler");
 
         sLogger.trace("Clearing all items from the refresher queue");
-        mReadQueue.clear();
+        mTelegramScheduler.clearReads();
 
         sLogger.debug("Terminating schedule executor.");
         mScheduledExecutorService.shutdown();
@@ -82,8 +83,6 @@ public class KNXBusReaderScheduler {
             Thread.currentThread().interrupt();
         }
 
-        sLogger.trace("Stopping reader task");
-        mDatapointReaderTask.interrupt();
         mIsRunning = false;
     }
 
@@ -96,7 +95,7 @@ public class KNXBusReaderScheduler {
      */
     public synchronized void clear() {
         sLogger.trace("Clearing all datapoints from auto refresh scheduler");
-        mReadQueue.clear();
+        mTelegramScheduler.clearReads();
 
         // Restarting schedule executor
         if (mScheduledExecutorService != null) {
@@ -141,14 +140,7 @@ public class KNXBusReaderScheduler {
             return false;
         }
 
-        if (mReadQueue.size() > KNXConnection.getMaxRefreshQueueEntries()) {
-            sLogger.error("Maximium number of permissible reading queue entries reached ('{}'). Ignoring new entries.",
-                    KNXConnection.getMaxRefreshQueueEntries());
-            return false;
-        }
-
-        sLogger.debug("Datapoint '{}':  one time reading scheduled.", datapoint.getName());
-        return mReadQueue.add(datapoint);
+        return mTelegramScheduler.read(datapoint, Priority.READ);
     }
 
     /**
@@ -180,7 +172,7 @@ public class KNXBusReaderScheduler {
             return readOnce(datapoint);
         }
 
-        if (mReadQueue.size() > KNXConnection.getMaxRefreshQueueEntries()) {
+        if (mTelegramScheduler.getPendingReads() > KNXConnection.getMaxRefreshQueueEntries()) {
             sLogger.error("Maximium number of permissible reading queue entries reached ('{}'). Ignoring new entries.",
                     KNXConnection.getMaxRefreshQueueEntries());
             return false;
@@ -293,7 +285,9 @@ public class KNXBusReaderScheduler {
                     sLogger.debug("Autorefresh: Adding {} item(s) with refresh time {} to reader queue.", dpList.size(),
                             autoRefreshTimeInSecs);
                     synchronized (dpList) {
-                        mReadQueue.addAll(dpList);
+                        for (Datapoint datapoint : dpList) {
+                            mTelegramScheduler.read(datapoint, Priority.REFRESH);
+                        }
                     }
                 }
             }
@@ -0,0 +1,631 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.bus;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.knx.internal.connection.KNXConnection;
+import org.openhab.binding.knx.internal.connection.KNXConnectionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.datapoint.Datapoint;
+import tuwien.auto.calimero.exception.KNXException;
+import tuwien.auto.calimero.exception.KNXFormatException;
+import tuwien.auto.calimero.exception.KNXIllegalArgumentException;
+import tuwien.auto.calimero.exception.KNXInvalidResponseException;
+import tuwien.auto.calimero.exception.KNXTimeoutException;
+import tuwien.auto.calimero.link.KNXLinkClosedException;
+import tuwien.auto.calimero.process.ProcessCommunicator;
+
+/**
+ * Sends all outgoing telegrams to the KNX bus. Writes of commands and updates are sent first,
+ * then the one-time reads and last the reads of the auto refresh feature. Reads only go out
+ * while no write is waiting, so a read storm at startup doesn't delay user commands.
+ *
+ * The bus load is limited by a token bucket, which allows
+ * {@link KNXConnection#getMaxTelegramsPerSecond()} telegrams per second and short bursts of
+ * half of it. Reads leave one token for the next write. Pending reads of the same group
+ * address are merged into one, as the response updates all items listening to the address.
+ *
+ * Writes and reads are sent by separate threads, as a read blocks until the response has been
+ * received or the timeout has expired.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class KNXTelegramScheduler implements KNXConnectionListener {
+    private static final Logger sLogger = LoggerFactory.getLogger(KNXTelegramScheduler.class);
+
+    /** The priority classes of the telegrams, in the order they are sent */
+    public enum Priority {
+        /** writes of commands and updates */
+        WRITE,
+        /** one-time reads */
+        READ,
+        /** cyclic reads of the auto refresh feature */
+        REFRESH
+    }
+
+    /** the number of tokens a read leaves for the next write */
+    private static final double WRITE_RESERVE = 1;
+
+    /** the interval for logging the statistics in milliseconds */
+    private static final long STATISTICS_INTERVAL = 60000;
+
+    private final Object mLock = new Object();
+
+    private final Queue<Write> mWriteQueue = new ArrayDeque<Write>();
+    private final Map<Priority, Map<GroupAddress, Datapoint>> mReadQueues = new EnumMap<Priority, Map<GroupAddress, Datapoint>>(
+            Priority.class);
+    private final Map<GroupAddress, Integer> mReadRetries = new HashMap<GroupAddress, Integer>();
+
+    private boolean mWriting = false;
+    private boolean mKNXConnected = true;
+    private boolean mIsRunning = false;
+    private Thread mWriterThread;
+    private Thread mReaderThread;
+
+    private double mTokens = -1;
+    private long mLastRefill;
+
+    private final Map<Priority, Long> mSentTelegrams = new EnumMap<Priority, Long>(Priority.class);
+    private long mMergedReads;
+    private long mDroppedTelegrams;
+    private long mTotalWriteDelay;
+    private long mWindowStart = System.nanoTime();
+    private long mWindowTelegrams;
+    private double mBusLoad;
+
+    public KNXTelegramScheduler() {
+        for (Priority priority : Priority.values()) {
+            if (priority != Priority.WRITE) {
+                mReadQueues.put(priority, new LinkedHashMap<GroupAddress, Datapoint>());
+            }
+            mSentTelegrams.put(priority, 0L);
+        }
+    }
+
+    /**
+     * Starts the threads which send the telegrams
+     */
+    public void start() {
+        sLogger.trace("Starting telegram scheduler");
+        synchronized (mLock) {
+            if (mIsRunning) {
+                return;
+            }
+            mIsRunning = true;
+        }
+        KNXConnection.addConnectionListener(this);
+        mWriterThread = new Thread("KNXBinding/TelegramWriter") {
+            @Override
+            public void run() {
+                runWriter();
+            }
+        };
+        mWriterThread.setDaemon(true);
+        mWriterThread.start();
+        mReaderThread = new Thread("KNXBinding/TelegramReader") {
+            @Override
+            public void run() {
+                runReader();
+            }
+        };
+        mReaderThread.setDaemon(true);
+        mReaderThread.start();
+    }
+
+    /**
+     * Stops the threads and discards all pending telegrams
+     */
+    public void stop() {
+        sLogger.trace("Stopping telegram scheduler");
+        KNXConnection.removeConnectionListener(this);
+        synchronized (mLock) {
+            mIsRunning = false;
+            mWriteQueue.clear();
+            clearReads();
+            mLock.notifyAll();
+        }
+        if (mWriterThread != null) {
+            mWriterThread.interrupt();
+            mWriterThread = null;
+        }
+        if (mReaderThread != null) {
+            mReaderThread.interrupt();
+            mReaderThread = null;
+        }
+        logStatistics();
+    }
+
+    public boolean isRunning() {
+        synchronized (mLock) {
+            return mIsRunning;
+        }
+    }
+
+    /**
+     * Queues the write of a value to a <code>Datapoint</code>.
+     *
+     * @param datapoint the <code>Datapoint</code> to write
+     * @param value the value in the format of the datapoint type
+     * @return false if the datapoint is null or the queue is full
+     */
+    public boolean write(Datapoint datapoint, String value) {
+        if (datapoint == null) {
+            sLogger.error("Argument datapoint cannot be null");
+            return false;
+        }
+        synchronized (mLock) {
+            if (mWriteQueue.size() >= KNXConnection.getMaxWriteQueueEntries()) {
+                sLogger.error("Maximum number of pending writes reached ('{}'). Ignoring value '{}' for datapoint '{}'.",
+                        new Object[] { KNXConnection.getMaxWriteQueueEntries(), value, datapoint });
+                mDroppedTelegrams++;
+                return false;
+            }
+            mWriteQueue.add(new Write(datapoint, value));
+            mLock.notifyAll();
+            return true;
+        }
+    }
+
+    /**
+     * Queues the read of a <code>Datapoint</code>. If a read of the same group address is already
+     * pending, no further read is queued, but the pending one gets the higher of both priorities.
+     *
+     * @param datapoint the <code>Datapoint</code> to read
+     * @param priority either {@link Priority#READ} or {@link Priority#REFRESH}
+     * @return false if the datapoint is null or the queue is full
+     */
+    public boolean read(Datapoint datapoint, Priority priority) {
+        if (datapoint == null) {
+            sLogger.error("Argument datapoint cannot be null");
+            return false;
+        }
+        if (priority == Priority.WRITE) {
+            throw new IllegalArgumentException("Reads cannot have the priority " + priority);
+        }
+        GroupAddress address = datapoint.getMainAddress();
+        synchronized (mLock) {
+            for (Priority pending : mReadQueues.keySet()) {
+                Map<GroupAddress, Datapoint> queue = mReadQueues.get(pending);
+                if (queue.containsKey(address)) {
+                    mMergedReads++;
+                    if (pending.compareTo(priority) > 0) {
+                        queue.remove(address);
+                        mReadQueues.get(priority).put(address, datapoint);
+                    }
+                    sLogger.trace("Datapoint '{}': read of {} already pending.", datapoint.getName(), address);
+                    return true;
+                }
+            }
+            if (getPendingReads() >= KNXConnection.getMaxRefreshQueueEntries()) {
+                sLogger.error(
+                        "Maximum number of permissible reading queue entries reached ('{}'). Ignoring new entries.",
+                        KNXConnection.getMaxRefreshQueueEntries());
+                mDroppedTelegrams++;
+                return false;
+            }
+            mReadQueues.get(priority).put(address, datapoint);
+            mLock.notifyAll();
+        }
+        sLogger.debug("Datapoint '{}': {} read scheduled.", datapoint.getName(), priority);
+        return true;
+    }
+
+    /**
+     * Discards all pending reads
+     */
+    public void clearReads() {
+        synchronized (mLock) {
+            for (Map<GroupAddress, Datapoint> queue : mReadQueues.values()) {
+                queue.clear();
+            }
+            mReadRetries.clear();
+        }
+    }
+
+    /**
+     * @return the number of pending reads of all priorities
+     */
+    public int getPendingReads() {
+        synchronized (mLock) {
+            int pending = 0;
+            for (Map<GroupAddress, Datapoint> queue : mReadQueues.values()) {
+                pending += queue.size();
+            }
+            return pending;
+        }
+    }
+
+    /**
+     * @return the number of pending writes
+     */
+    public int getPendingWrites() {
+        synchronized (mLock) {
+            return mWriteQueue.size();
+        }
+    }
+
+    /**
+     * @param priority the priority class
+     * @return the number of telegrams of the given priority class which have been sent
+     */
+    public long getSentTelegrams(Priority priority) {
+        synchronized (mLock) {
+            return mSentTelegrams.get(priority);
+        }
+    }
+
+    /**
+     * @return the number of reads which have been merged into an already pending read
+     */
+    public long getMergedReads() {
+        synchronized (mLock) {
+            return mMergedReads;
+        }
+    }
+
+    /**
+     * @return the number of telegrams which have been dropped because the queue was full
+     */
+    public long getDroppedTelegrams() {
+        synchronized (mLock) {
+            return mDroppedTelegrams;
+        }
+    }
+
+    /**
+     * @return the average time in milliseconds between queueing and sending a write
+     */
+    public long getAverageWriteDelay() {
+        synchronized (mLock) {
+            long writes = mSentTelegrams.get(Priority.WRITE);
+            return writes > 0 ? TimeUnit.NANOSECONDS.toMillis(mTotalWriteDelay / writes) : 0;
+        }
+    }
+
+    /**
+     * @return the telegrams per second sent during the last statistics interval
+     */
+    public double getBusLoad() {
+        synchronized (mLock) {
+            return mBusLoad;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.openhab.binding.knx.internal.connection.KNXConnectionListener#connectionEstablished()
+     */
+    @Override
+    public void connectionEstablished() {
+        synchronized (mLock) {
+            mKNXConnected = true;
+            mLock.notifyAll();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.openhab.binding.knx.internal.connection.KNXConnectionListener#connectionLost()
+     */
+    @Override
+    public void connectionLost() {
+        synchronized (mLock) {
+            mKNXConnected = false;
+            clearReads();
+        }
+    }
+
+    /**
+     * @return the communicator to send the telegrams with, or null if there is no connection
+     */
+    protected ProcessCommunicator getCommunicator() {
+        return KNXConnection.getCommunicator();
+    }
+
+    /**
+     * @return the maximum number of telegrams per second
+     */
+    protected int getMaxTelegramsPerSecond() {
+        return KNXConnection.getMaxTelegramsPerSecond();
+    }
+
+    /**
+     * @return the pause in milliseconds after each read
+     */
+    protected long getReadingPause() {
+        return KNXConnection.getReadingPause();
+    }
+
+    private void runWriter() {
+        try {
+            while (true) {
+                Write write = takeWrite();
+                if (write == null) {
+                    break;
+                }
+                try {
+                    writeToKNXBus(write);
+                } finally {
+                    synchronized (mLock) {
+                        mWriting = false;
+                        mLock.notifyAll();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            sLogger.debug("Telegram writer interrupted: {}", e.getMessage());
+        }
+        sLogger.debug("Telegram writer stopped.");
+    }
+
+    private void runReader() {
+        try {
+            while (true) {
+                ReadRequest read = takeRead();
+                if (read == null) {
+                    break;
+                }
+                readFromKNXBus(read);
+
+                long readingPause = getReadingPause();
+                if (readingPause > 0) {
+                    sLogger.trace("Waiting {} msecs to prevent KNX bus overload", readingPause);
+                    Thread.sleep(readingPause);
+                }
+            }
+        } catch (InterruptedException e) {
+            sLogger.debug("Telegram reader interrupted: {}", e.getMessage());
+        }
+        sLogger.debug("Telegram reader stopped.");
+    }
+
+    /**
+     * Waits for the next write and a token to send it.
+     *
+     * @return the write or null if the scheduler has been stopped
+     */
+    private Write takeWrite() throws InterruptedException {
+        synchronized (mLock) {
+            while (mIsRunning) {
+                if (mWriteQueue.isEmpty()) {
+                    mLock.wait();
+                } else {
+                    long wait = takeToken(0);
+                    if (wait == 0) {
+                        Write write = mWriteQueue.poll();
+                        mWriting = true;
+                        long delay = System.nanoTime() - write.queued;
+                        mTotalWriteDelay += delay;
+                        sent(Priority.WRITE);
+                        return write;
+                    }
+                    mLock.wait(wait);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Waits until no write is pending, then for the next read and a token to send it.
+     *
+     * @return the read or null if the scheduler has been stopped
+     */
+    private ReadRequest takeRead() throws InterruptedException {
+        synchronized (mLock) {
+            while (mIsRunning) {
+                Priority priority = getNextReadPriority();
+                if (!mKNXConnected || mWriting || !mWriteQueue.isEmpty() || priority == null) {
+                    mLock.wait();
+                } else {
+                    long wait = takeToken(WRITE_RESERVE);
+                    if (wait == 0) {
+                        Iterator<Datapoint> iterator = mReadQueues.get(priority).values().iterator();
+                        Datapoint datapoint = iterator.next();
+                        iterator.remove();
+                        sent(priority);
+                        return new ReadRequest(datapoint, priority);
+                    }
+                    mLock.wait(wait);
+                }
+            }
+            return null;
+        }
+    }
+
+    private Priority getNextReadPriority() {
+        for (Map.Entry<Priority, Map<GroupAddress, Datapoint>> entry : mReadQueues.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes a token from the bucket, if more than <code>reserve</code> tokens are left.
+     *
+     * @param reserve the number of tokens to leave in the bucket
+     * @return 0 if the token has been taken, otherwise the milliseconds until it will be available
+     */
+    private long takeToken(double reserve) {
+        int rate = Math.max(1, getMaxTelegramsPerSecond());
+        double burst = Math.max(WRITE_RESERVE + 1, rate / 2);
+        long now = System.nanoTime();
+        if (mTokens < 0) {
+            mTokens = burst;
+        } else {
+            mTokens = Math.min(burst, mTokens + (now - mLastRefill) * rate / 1e9);
+        }
+        mLastRefill = now;
+        if (mTokens >= reserve + 1) {
+            mTokens--;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((reserve + 1 - mTokens) * 1000 / rate));
+    }
+
+    private void sent(Priority priority) {
+        mSentTelegrams.put(priority, mSentTelegrams.get(priority) + 1);
+        mWindowTelegrams++;
+        long now = System.nanoTime();
+        long window = now - mWindowStart;
+        if (window >= TimeUnit.MILLISECONDS.toNanos(STATISTICS_INTERVAL)) {
+            mBusLoad = mWindowTelegrams * 1e9 / window;
+            mWindowStart = now;
+            mWindowTelegrams = 0;
+            if (sLogger.isDebugEnabled()) {
+                sLogger.debug("Telegram statistics: {}", getStatistics());
+            }
+        }
+    }
+
+    private void logStatistics() {
+        if (sLogger.isDebugEnabled()) {
+            sLogger.debug("Telegram statistics: {}", getStatistics());
+        }
+    }
+
+    private String getStatistics() {
+        synchronized (mLock) {
+            return String.format(
+                    "busLoad=%.1f/s, writes=%d, reads=%d, refreshes=%d, merged=%d, dropped=%d, pending=%d, avgWriteDelay=%dms",
+                    mBusLoad, mSentTelegrams.get(Priority.WRITE), mSentTelegrams.get(Priority.READ),
+                    mSentTelegrams.get(Priority.REFRESH), mMergedReads, mDroppedTelegrams,
+                    mWriteQueue.size() + getPendingReads(), getAverageWriteDelay());
+        }
+    }
+
+    private void writeToKNXBus(Write write) {
+        ProcessCommunicator pc = getCommunicator();
+        if (pc == null) {
+            sLogger.debug("Couldn't write value '{}' to datapoint '{}'. Connection to KNX bus not (yet) established.",
+                    write.value, write.datapoint);
+            return;
+        }
+        try {
+            pc.write(write.datapoint, write.value);
+            sLogger.debug("Wrote value '{}' to datapoint '{}'", write.value, write.datapoint);
+        } catch (KNXException e) {
+            sLogger.warn("Value '{}' could not be sent to the KNX bus using datapoint '{}' - retrying one time: {}",
+                    new Object[] { write.value, write.datapoint, e.getMessage() });
+            try {
+                // do a second try, maybe the reconnection was successful
+                pc = getCommunicator();
+                if (pc != null) {
+                    pc.write(write.datapoint, write.value);
+                    sLogger.debug("Wrote value '{}' to datapoint '{}' on second try", write.value, write.datapoint);
+                } else {
+                    sLogger.error(
+                            "Value '{}' could not be sent to the KNX bus using datapoint '{}' - giving up, no connection",
+                            write.value, write.datapoint);
+                }
+            } catch (KNXException e1) {
+                sLogger.error(
+                        "Value '{}' could not be sent to the KNX bus using datapoint '{}' - giving up after second try: {}",
+                        new Object[] { write.value, write.datapoint, e1.getMessage() });
+            }
+        }
+    }
+
+    private void readFromKNXBus(ReadRequest read) throws InterruptedException {
+        Datapoint datapoint = read.datapoint;
+        try {
+            ProcessCommunicator pc = getCommunicator();
+            if (pc != null) {
+                sLogger.debug("Sending read request to KNX for item '{}' DPT '{}'", datapoint.getName(),
+                        datapoint.getDPT());
+                pc.read(datapoint);
+                synchronized (mLock) {
+                    mReadRetries.remove(datapoint.getMainAddress());
+                }
+            } else {
+                sLogger.debug(
+                        "Couldn't sent read request to KNX for item '{}'. Connection to KNX bus not (yet) established.",
+                        datapoint.getName());
+            }
+        } catch (KNXFormatException e) {
+            sLogger.warn("Cannot read value for item '{}' from KNX bus: {}: invalid format", datapoint.getName(),
+                    e.getMessage());
+        } catch (KNXInvalidResponseException e) {
+            sLogger.warn("Cannot read value for item '{}' from KNX bus: {}: invalid response", datapoint.getName(),
+                    e.getMessage());
+        } catch (KNXTimeoutException e) {
+            sLogger.warn("Cannot read value for item '{}' from KNX bus: {}: timeout", datapoint.getName(),
+                    e.getMessage());
+            retryRead(read);
+        } catch (KNXLinkClosedException e) {
+            sLogger.warn("Cannot read value for item '{}' from KNX bus: {}: link closed", datapoint.getName(),
+                    e.getMessage());
+        } catch (KNXException e) {
+            sLogger.warn("Cannot read value for item '{}' from KNX bus: {}", datapoint.getName(), e.getMessage());
+        } catch (KNXIllegalArgumentException e) {
+            sLogger.warn("Error sending KNX read request for '{}': {}", datapoint.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Queues a read again, as long as its group address has retries left.
+     *
+     * @param read the read which has timed out
+     */
+    private void retryRead(ReadRequest read) {
+        GroupAddress address = read.datapoint.getMainAddress();
+        int retries;
+        synchronized (mLock) {
+            Integer r = mReadRetries.remove(address);
+            retries = (r != null ? r : KNXConnection.getReadRetriesLimit()) - 1;
+            if (retries >= 0) {
+                mReadRetries.put(address, retries);
+            }
+        }
+        if (retries >= 0) {
+            sLogger.warn("Remaining retries for address '{}' = '{}'", address, retries);
+            read(read.datapoint, read.priority);
+        } else {
+            sLogger.warn("Give up, could not read address '{}' after '{}' retries.", address,
+                    KNXConnection.getReadRetriesLimit());
+        }
+    }
+
+    private static final class Write {
+        private final Datapoint datapoint;
+        private final String value;
+        private final long queued = System.nanoTime();
+
+        public Write(Datapoint datapoint, String value) {
+            this.datapoint = datapoint;
+            this.value = value;
+        }
+    }
+
+    private static final class ReadRequest {
+        private final Datapoint datapoint;
+        private final Priority priority;
+
+        public ReadRequest(Datapoint datapoint, Priority priority) {
+            this.datapoint = datapoint;
+            this.priority = priority;
+        }
+    }
+}
@@ -118,6 +118,18 @@ public class KNXConnection implements ManagedService {
      */
     private static int sMaxRefreshQueueEntries = 10000;
 
+    /**
+     * The maximum number of writes waiting to be sent to the KNX bus. Default value is <code>1000</code>, which
+     * takes 50 seconds to send at the default rate.
+     */
+    private static int sMaxWriteQueueEntries = 1000;
+
+    /**
+     * The maximum number of telegrams per second sent to the KNX bus. Default value is <code>20</code>, which
+     * leaves room for the telegrams of other devices on a TP1 line.
+     */
+    private static int sMaxTelegramsPerSecond = 20;
+
     /** listeners for connection/re-connection events */
     private static Set<KNXConnectionListener> sConnectionListeners = new HashSet<KNXConnectionListener>();
 
@@ -403,6 +415,34 @@ public class KNXConnection implements ManagedService {
                 }
             }
 
+            String maxWriteQueueEntriesString = (String) config.get("maxWriteQueueEntries");
+            if (StringUtils.isNotBlank(maxWriteQueueEntriesString)) {
+                try {
+                    int maxWriteQueueEntriesValue = Integer.parseInt(maxWriteQueueEntriesString);
+                    if (maxWriteQueueEntriesValue > 0) {
+                        sMaxWriteQueueEntries = maxWriteQueueEntriesValue;
+                    }
+                } catch (NumberFormatException e) {
+                    sLogger.warn(
+                            "Error when trying to read parameter 'maxWriteQueueEntries' from configuration. '{}' is not a number: using default.",
+                            maxWriteQueueEntriesString);
+                }
+            }
+
+            String maxTelegramsPerSecondString = (String) config.get("maxTelegramsPerSecond");
+            if (StringUtils.isNotBlank(maxTelegramsPerSecondString)) {
+                try {
+                    int maxTelegramsPerSecondValue = Integer.parseInt(maxTelegramsPerSecondString);
+                    if (maxTelegramsPerSecondValue > 0) {
+                        sMaxTelegramsPerSecond = maxTelegramsPerSecondValue;
+                    }
+                } catch (NumberFormatException e) {
+                    sLogger.warn(
+                            "Error when trying to read parameter 'maxTelegramsPerSecond' from configuration. '{}' is not a number: using default.",
+                            maxTelegramsPerSecondString);
+                }
+            }
+
             String numberOfThreadsString = (String) config.get("numberOfThreads");
             if (StringUtils.isNotBlank(numberOfThreadsString)) {
                 try {
@@ -494,6 +534,20 @@ public class KNXConnection implements ManagedService {
         return sMaxRefreshQueueEntries;
     }
 
+    /**
+     * @return the sMaxWriteQueueEntries
+     */
+    public static int getMaxWriteQueueEntries() {
+        return sMaxWriteQueueEntries;
+    }
+
+    /**
+     * @return the sMaxTelegramsPerSecond
+     */
+    public static int getMaxTelegramsPerSecond() {
+        return sMaxTelegramsPerSecond;
+    }
+
     private static final class ConnectTimerTask extends TimerTask {
         private final Timer timer;
 
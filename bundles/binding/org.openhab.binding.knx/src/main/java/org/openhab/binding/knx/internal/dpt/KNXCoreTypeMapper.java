@@ -9,6 +9,7 @@
 package org.openhab.binding.knx.internal.dpt;
 
 import java.awt.Color;
+import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.text.ParseException;
@@ -79,6 +80,9 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
     /** stores the default KNX DPT to use for each openHAB type */
     static private Map<Class<? extends Type>, String> defaultDptMap;
 
+    /** stores the prepared translation of all (supported) KNX datapoint types */
+    static private Map<String, DatapointType> datapointTypes;
+
     static {
         dptTypeMap = new HashMap<String, Class<? extends Type>>();
 
@@ -223,6 +227,15 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
         defaultDptMap.put(StringType.class, DPTXlatorString.DPT_STRING_8859_1.getID());
 
         defaultDptMap.put(HSBType.class, DPTXlatorRGB.DPT_RGB.getID());
+
+        datapointTypes = new HashMap<String, DatapointType>();
+        for (String dptID : dptTypeMap.keySet()) {
+            try {
+                datapointTypes.put(dptID, new DatapointType(dptID));
+            } catch (KNXException e) {
+                logger.warn("Failed creating a translator for datapoint type ‘{}‘.", dptID, e);
+            }
+        }
     }
 
     /*
@@ -234,19 +247,26 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
     public String toDPTValue(Type type, String dptID) {
 
         DPT dpt;
-        int mainNumber = getMainNumber(dptID);
-        if (mainNumber == -1) {
-            logger.error("toDPTValue couldn't identify mainnumber in dptID: {}", dptID);
-            return null;
-        }
+        int mainNumber;
+        DatapointType datapointType = datapointTypes.get(dptID);
+        if (datapointType != null) {
+            dpt = datapointType.dpt;
+            mainNumber = datapointType.mainNumber;
+        } else {
+            mainNumber = getMainNumber(dptID);
+            if (mainNumber == -1) {
+                logger.error("toDPTValue couldn't identify mainnumber in dptID: {}", dptID);
+                return null;
+            }
 
-        try {
-            DPTXlator translator = TranslatorTypes.createTranslator(mainNumber, dptID);
-            dpt = translator.getType();
+            try {
+                DPTXlator translator = TranslatorTypes.createTranslator(mainNumber, dptID);
+                dpt = translator.getType();
 
-        } catch (KNXException e) {
-            e.printStackTrace();
-            return null;
+            } catch (KNXException e) {
+                e.printStackTrace();
+                return null;
+            }
         }
 
         // check for HSBType first, because it extends PercentType as well
@@ -312,179 +332,18 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
     @Override
     public Type toType(Datapoint datapoint, byte[] data) {
         try {
-            DPTXlator translator = TranslatorTypes.createTranslator(datapoint.getMainNumber(), datapoint.getDPT());
-            translator.setData(data);
-            String value = translator.getValue();
-
-            String id = translator.getType().getID();
-            logger.trace("toType datapoint DPT = " + datapoint.getDPT());
-
-            int mainNumber = getMainNumber(id);
-            if (mainNumber == -1) {
-                logger.debug("toType: couldn't identify mainnumber in dptID: {}.", id);
-                return null;
+            DatapointType datapointType = datapointTypes.get(datapoint.getDPT());
+            if (datapointType == null) {
+                DPTXlator translator = TranslatorTypes.createTranslator(datapoint.getMainNumber(), datapoint.getDPT());
+                translator.setData(data);
+                return toType(translator, datapoint.getDPT());
             }
-            int subNumber = getSubNumber(id);
-            if (subNumber == -1) {
-                logger.debug("toType: couldn't identify su number in dptID: {}.", id);
-                return null;
+            if (datapointType.isDirect()) {
+                return toTypeDirect(datapointType, data);
             }
-            /*
-             * Following code section deals with specific mapping of values from KNX to openHAB types were the String
-             * received from the DPTXlator is not sufficient to set the openHAB type or has bugs
-             */
-            switch (mainNumber) {
-                case 1:
-                    DPTXlatorBoolean translatorBoolean = (DPTXlatorBoolean) translator;
-                    switch (subNumber) {
-                        case 8:
-                            return translatorBoolean.getValueBoolean() ? UpDownType.DOWN : UpDownType.UP;
-                        case 9:
-                            return translatorBoolean.getValueBoolean() ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
-                        case 10:
-                            return translatorBoolean.getValueBoolean() ? StopMoveType.MOVE : StopMoveType.STOP;
-                        case 19:
-                            return translatorBoolean.getValueBoolean() ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
-                        case 22:
-                            return DecimalType.valueOf(translatorBoolean.getValueBoolean() ? "1" : "0");
-                        default:
-                            return translatorBoolean.getValueBoolean() ? OnOffType.ON : OnOffType.OFF;
-                    }
-                case 2:
-                    DPTXlator1BitControlled translator1BitControlled = (DPTXlator1BitControlled) translator;
-                    int decValue = (translator1BitControlled.getControlBit() ? 2 : 0)
-                            + (translator1BitControlled.getValueBit() ? 1 : 0);
-                    return new DecimalType(decValue);
-                case 3:
-                    DPTXlator3BitControlled translator3BitControlled = (DPTXlator3BitControlled) translator;
-                    if (translator3BitControlled.getStepCode() == 0) {
-                        // Not supported: break
-                        logger.debug("toType: KNX DPT_Control_Dimming: break ignored.");
-                        return null;
-                    }
-                    switch (subNumber) {
-                        case 7:
-                            return translator3BitControlled.getControlBit() ? IncreaseDecreaseType.INCREASE
-                                    : IncreaseDecreaseType.DECREASE;
-                        case 8:
-                            return translator3BitControlled.getControlBit() ? UpDownType.DOWN : UpDownType.UP;
-                    }
-                case 14:
-                    /*
-                     * FIXME: Workaround for a bug in Calimero / Openhab DPTXlator4ByteFloat.makeString(): is using a
-                     * locale when
-                     * translating a Float to String. It could happen the a ',' is used as separator, such as
-                     * 3,14159E20.
-                     * Openhab's DecimalType expects this to be in US format and expects '.': 3.14159E20.
-                     * There is no issue with DPTXlator2ByteFloat since calimero is using a non-localized translation
-                     * there.
-                     */
-                    DPTXlator4ByteFloat translator4ByteFloat = (DPTXlator4ByteFloat) translator;
-                    Float f = translator4ByteFloat.getValueFloat();
-                    if (Math.abs(f) < 100000) {
-                        value = String.valueOf(f);
-                    } else {
-                        NumberFormat dcf = NumberFormat.getInstance(Locale.US);
-                        if (dcf instanceof DecimalFormat) {
-                            ((DecimalFormat) dcf).applyPattern("0.#####E0");
-                        }
-                        value = dcf.format(f);
-                    }
-                    break;
-                case 18:
-                    DPTXlatorSceneControl translatorSceneControl = (DPTXlatorSceneControl) translator;
-                    int decimalValue = translatorSceneControl.getSceneNumber();
-                    if (value.startsWith("learn")) {
-                        decimalValue += 0x80;
-                    }
-                    value = String.valueOf(decimalValue);
-
-                    break;
-                case 19:
-                    DPTXlatorDateTime translatorDateTime = (DPTXlatorDateTime) translator;
-                    if (translatorDateTime.isFaultyClock()) {
-                        // Not supported: faulty clock
-                        logger.debug("toType: KNX clock msg ignored: clock faulty bit set, which is not supported");
-                        return null;
-                    } else if (!translatorDateTime.isValidField(DPTXlatorDateTime.YEAR)
-                            && translatorDateTime.isValidField(DPTXlatorDateTime.DATE)) {
-                        // Not supported: "/1/1" (month and day without year)
-                        logger.debug(
-                                "toType: KNX clock msg ignored: no year, but day and month, which is not supported");
-                        return null;
-                    } else if (translatorDateTime.isValidField(DPTXlatorDateTime.YEAR)
-                            && !translatorDateTime.isValidField(DPTXlatorDateTime.DATE)) {
-                        // Not supported: "1900" (year without month and day)
-                        logger.debug(
-                                "toType: KNX clock msg ignored: no day and month, but year, which is not supported");
-                        return null;
-                    } else if (!translatorDateTime.isValidField(DPTXlatorDateTime.YEAR)
-                            && !translatorDateTime.isValidField(DPTXlatorDateTime.DATE)
-                            && !translatorDateTime.isValidField(DPTXlatorDateTime.TIME)) {
-                        // Not supported: No year, no date and no time
-                        logger.debug("toType: KNX clock msg ignored: no day and month or year, which is not supported");
-                        return null;
-                    }
-
-                    Calendar cal = Calendar.getInstance();
-                    if (translatorDateTime.isValidField(DPTXlatorDateTime.YEAR)
-                            && !translatorDateTime.isValidField(DPTXlatorDateTime.TIME)) {
-                        // Pure date format, no time information
-                        cal.setTimeInMillis(translatorDateTime.getValueMilliseconds());
-                        value = new SimpleDateFormat(DateTimeType.DATE_PATTERN).format(cal.getTime());
-                        return DateTimeType.valueOf(value);
-                    } else if (!translatorDateTime.isValidField(DPTXlatorDateTime.YEAR)
-                            && translatorDateTime.isValidField(DPTXlatorDateTime.TIME)) {
-                        // Pure time format, no date information
-                        cal.clear();
-                        cal.set(Calendar.HOUR_OF_DAY, translatorDateTime.getHour());
-                        cal.set(Calendar.MINUTE, translatorDateTime.getMinute());
-                        cal.set(Calendar.SECOND, translatorDateTime.getSecond());
-                        value = new SimpleDateFormat(DateTimeType.DATE_PATTERN).format(cal.getTime());
-                        return DateTimeType.valueOf(value);
-                    } else if (translatorDateTime.isValidField(DPTXlatorDateTime.YEAR)
-                            && translatorDateTime.isValidField(DPTXlatorDateTime.TIME)) {
-                        // Date format and time information
-                        cal.setTimeInMillis(translatorDateTime.getValueMilliseconds());
-                        value = new SimpleDateFormat(DateTimeType.DATE_PATTERN).format(cal.getTime());
-                        return DateTimeType.valueOf(value);
-                    }
-                    break;
-            }
-
-            Class<? extends Type> typeClass = toTypeClass(id);
-            if (typeClass == null) {
-                return null;
-            }
-
-            if (typeClass.equals(PercentType.class)) {
-                return PercentType.valueOf(value.split(" ")[0]);
-            }
-            if (typeClass.equals(DecimalType.class)) {
-                return DecimalType.valueOf(value.split(" ")[0]);
-            }
-            if (typeClass.equals(StringType.class)) {
-                return StringType.valueOf(value);
-            }
-
-            if (typeClass.equals(DateTimeType.class)) {
-                String date = formatDateTime(value, datapoint.getDPT());
-                if ((date == null) || (date.isEmpty())) {
-                    logger.debug("toType: KNX clock msg ignored: date object null or empty {}.", date);
-                    return null;
-                } else {
-                    return DateTimeType.valueOf(date);
-                }
-            }
-
-            if (typeClass.equals(HSBType.class)) {
-                // value has format of "r:<red value> g:<green value> b:<blue value>"
-                int r = Integer.parseInt(value.split(" ")[0].split(":")[1]);
-                int g = Integer.parseInt(value.split(" ")[1].split(":")[1]);
-                int b = Integer.parseInt(value.split(" ")[2].split(":")[1]);
-
-                Color color = new Color(r, g, b);
-                return new HSBType(color);
+            synchronized (datapointType.translator) {
+                datapointType.translator.setData(data);
+                return toType(datapointType.translator, datapoint.getDPT());
             }
         } catch (KNXFormatException kfe) {
             logger.info("Translator couldn't parse data for datapoint type ‘{}‘ (KNXFormatException).",
@@ -499,6 +358,242 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
         return null;
     }
 
+    /**
+     * Converts the data of the given translator into an openHAB type by the value string of the translator.
+     *
+     * @param translator the translator which holds the data
+     * @param dptID the datapoint type id of the datapoint
+     * @return the openHAB command or state or {@code null} if the data is not supported
+     * @throws KNXException if the data could not be translated
+     */
+    private Type toType(DPTXlator translator, String dptID) throws KNXException {
+        String value = translator.getValue();
+
+        String id = translator.getType().getID();
+        logger.trace("toType datapoint DPT = " + dptID);
+
+        int mainNumber = getMainNumber(id);
+        if (mainNumber == -1) {
+            logger.debug("toType: couldn't identify mainnumber in dptID: {}.", id);
+            return null;
+        }
+        int subNumber = getSubNumber(id);
+        if (subNumber == -1) {
+            logger.debug("toType: couldn't identify su number in dptID: {}.", id);
+            return null;
+        }
+        /*
+         * Following code section deals with specific mapping of values from KNX to openHAB types were the String
+         * received from the DPTXlator is not sufficient to set the openHAB type or has bugs
+         */
+        switch (mainNumber) {
+            case 1:
+                DPTXlatorBoolean translatorBoolean = (DPTXlatorBoolean) translator;
+                return toBooleanType(subNumber, translatorBoolean.getValueBoolean());
+            case 2:
+                DPTXlator1BitControlled translator1BitControlled = (DPTXlator1BitControlled) translator;
+                int decValue = (translator1BitControlled.getControlBit() ? 2 : 0)
+                        + (translator1BitControlled.getValueBit() ? 1 : 0);
+                return new DecimalType(decValue);
+            case 3:
+                DPTXlator3BitControlled translator3BitControlled = (DPTXlator3BitControlled) translator;
+                if (translator3BitControlled.getStepCode() == 0) {
+                    // Not supported: break
+                    logger.debug("toType: KNX DPT_Control_Dimming: break ignored.");
+                    return null;
+                }
+                switch (subNumber) {
+                    case 7:
+                        return translator3BitControlled.getControlBit() ? IncreaseDecreaseType.INCREASE
+                                : IncreaseDecreaseType.DECREASE;
+                    case 8:
+                        return translator3BitControlled.getControlBit() ? UpDownType.DOWN : UpDownType.UP;
+                }
+            case 14:
+                DPTXlator4ByteFloat translator4ByteFloat = (DPTXlator4ByteFloat) translator;
+                value = format4ByteFloat(translator4ByteFloat.getValueFloat());
+                break;
+            case 18:
+                DPTXlatorSceneControl translatorSceneControl = (DPTXlatorSceneControl) translator;
+                int decimalValue = translatorSceneControl.getSceneNumber();
+                if (value.startsWith("learn")) {
+                    decimalValue += 0x80;
+                }
+                value = String.valueOf(decimalValue);
+
+                break;
+            case 19:
+                DPTXlatorDateTime translatorDateTime = (DPTXlatorDateTime) translator;
+                if (translatorDateTime.isFaultyClock()) {
+                    // Not supported: faulty clock
+                    logger.debug("toType: KNX clock msg ignored: clock faulty bit set, which is not supported");
+                    return null;
+                } else if (!translatorDateTime.isValidField(DPTXlatorDateTime.YEAR)
+                        && translatorDateTime.isValidField(DPTXlatorDateTime.DATE)) {
+                    // Not supported: "/1/1" (month and day without year)
+                    logger.debug(
+                            "toType: KNX clock msg ignored: no year, but day and month, which is not supported");
+                    return null;
+                } else if (translatorDateTime.isValidField(DPTXlatorDateTime.YEAR)
+                        && !translatorDateTime.isValidField(DPTXlatorDateTime.DATE)) {
+                    // Not supported: "1900" (year without month and day)
+                    logger.debug(
+                            "toType: KNX clock msg ignored: no day and month, but year, which is not supported");
+                    return null;
+                } else if (!translatorDateTime.isValidField(DPTXlatorDateTime.YEAR)
+                        && !translatorDateTime.isValidField(DPTXlatorDateTime.DATE)
+                        && !translatorDateTime.isValidField(DPTXlatorDateTime.TIME)) {
+                    // Not supported: No year, no date and no time
+                    logger.debug("toType: KNX clock msg ignored: no day and month or year, which is not supported");
+                    return null;
+                }
+
+                Calendar cal = Calendar.getInstance();
+                if (translatorDateTime.isValidField(DPTXlatorDateTime.YEAR)
+                        && !translatorDateTime.isValidField(DPTXlatorDateTime.TIME)) {
+                    // Pure date format, no time information
+                    cal.setTimeInMillis(translatorDateTime.getValueMilliseconds());
+                    value = new SimpleDateFormat(DateTimeType.DATE_PATTERN).format(cal.getTime());
+                    return DateTimeType.valueOf(value);
+                } else if (!translatorDateTime.isValidField(DPTXlatorDateTime.YEAR)
+                        && translatorDateTime.isValidField(DPTXlatorDateTime.TIME)) {
+                    // Pure time format, no date information
+                    cal.clear();
+                    cal.set(Calendar.HOUR_OF_DAY, translatorDateTime.getHour());
+                    cal.set(Calendar.MINUTE, translatorDateTime.getMinute());
+                    cal.set(Calendar.SECOND, translatorDateTime.getSecond());
+                    value = new SimpleDateFormat(DateTimeType.DATE_PATTERN).format(cal.getTime());
+                    return DateTimeType.valueOf(value);
+                } else if (translatorDateTime.isValidField(DPTXlatorDateTime.YEAR)
+                        && translatorDateTime.isValidField(DPTXlatorDateTime.TIME)) {
+                    // Date format and time information
+                    cal.setTimeInMillis(translatorDateTime.getValueMilliseconds());
+                    value = new SimpleDateFormat(DateTimeType.DATE_PATTERN).format(cal.getTime());
+                    return DateTimeType.valueOf(value);
+                }
+                break;
+        }
+
+        Class<? extends Type> typeClass = toTypeClass(id);
+        if (typeClass == null) {
+            return null;
+        }
+
+        if (typeClass.equals(PercentType.class)) {
+            return PercentType.valueOf(value.split(" ")[0]);
+        }
+        if (typeClass.equals(DecimalType.class)) {
+            return DecimalType.valueOf(value.split(" ")[0]);
+        }
+        if (typeClass.equals(StringType.class)) {
+            return StringType.valueOf(value);
+        }
+
+        if (typeClass.equals(DateTimeType.class)) {
+            String date = formatDateTime(value, dptID);
+            if ((date == null) || (date.isEmpty())) {
+                logger.debug("toType: KNX clock msg ignored: date object null or empty {}.", date);
+                return null;
+            } else {
+                return DateTimeType.valueOf(date);
+            }
+        }
+
+        if (typeClass.equals(HSBType.class)) {
+            // value has format of "r:<red value> g:<green value> b:<blue value>"
+            int r = Integer.parseInt(value.split(" ")[0].split(":")[1]);
+            int g = Integer.parseInt(value.split(" ")[1].split(":")[1]);
+            int b = Integer.parseInt(value.split(" ")[2].split(":")[1]);
+
+            Color color = new Color(r, g, b);
+            return new HSBType(color);
+        }
+
+        return null;
+    }
+
+    /**
+     * Converts the raw data of the datapoint types 1.x, 5.x, 9.x and 14.x into an openHAB type without a translator.
+     * The values are decoded the same way as Calimero does, but without formatting and parsing a value string.
+     *
+     * @param datapointType the prepared datapoint type
+     * @param data the datapoint value as an ASDU byte array
+     * @return the openHAB command or state
+     * @throws KNXIllegalArgumentException if the data is too short for the datapoint type
+     */
+    private Type toTypeDirect(DatapointType datapointType, byte[] data) {
+        if (data.length < datapointType.typeSize) {
+            throw new KNXIllegalArgumentException(
+                    "data length " + data.length + " < KNX data type width " + datapointType.typeSize);
+        }
+        switch (datapointType.mainNumber) {
+            case 1:
+                return toBooleanType(datapointType.subNumber, (data[0] & 0x01) != 0);
+            case 5:
+                int value = data[0] & 0xFF;
+                if (datapointType.dpt.equals(DPTXlator8BitUnsigned.DPT_SCALING)) {
+                    return new PercentType(Math.round(value * 100.0f / 255.0f));
+                } else if (datapointType.dpt.equals(DPTXlator8BitUnsigned.DPT_ANGLE)) {
+                    value = Math.round(value * 360.0f / 255.0f);
+                }
+                return new DecimalType(value);
+            case 9:
+                int mantissa = ((data[0] & 0x80) << 24 | (data[0] & 0x07) << 28 | (data[1] & 0xFF) << 20) >> 20;
+                int exponent = (data[0] & 0x78) >> 3;
+                return new DecimalType(BigDecimal.valueOf((1 << exponent) * mantissa * 0.01));
+            case 14:
+                int bits = (data[0] & 0xFF) << 24 | (data[1] & 0xFF) << 16 | (data[2] & 0xFF) << 8 | (data[3] & 0xFF);
+                return DecimalType.valueOf(format4ByteFloat(Float.intBitsToFloat(bits)));
+            default:
+                throw new IllegalStateException("No direct conversion for datapoint type " + datapointType.id);
+        }
+    }
+
+    /**
+     * Maps the value of a boolean datapoint type ("B1", main number 1) to an openHAB type
+     *
+     * @param subNumber the sub number of the datapoint type
+     * @param value the boolean value
+     * @return the openHAB command or state
+     */
+    private static Type toBooleanType(int subNumber, boolean value) {
+        switch (subNumber) {
+            case 8:
+                return value ? UpDownType.DOWN : UpDownType.UP;
+            case 9:
+                return value ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
+            case 10:
+                return value ? StopMoveType.MOVE : StopMoveType.STOP;
+            case 19:
+                return value ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
+            case 22:
+                return DecimalType.valueOf(value ? "1" : "0");
+            default:
+                return value ? OnOffType.ON : OnOffType.OFF;
+        }
+    }
+
+    /**
+     * FIXME: Workaround for a bug in Calimero / Openhab DPTXlator4ByteFloat.makeString(): is using a locale when
+     * translating a Float to String. It could happen the a ',' is used as separator, such as 3,14159E20.
+     * Openhab's DecimalType expects this to be in US format and expects '.': 3.14159E20.
+     * There is no issue with DPTXlator2ByteFloat since calimero is using a non-localized translation there.
+     *
+     * @param f the value of a "4-Octet Float Value" datapoint type
+     * @return the value as a string which can be parsed by {@link DecimalType}
+     */
+    private static String format4ByteFloat(float f) {
+        if (Math.abs(f) < 100000) {
+            return String.valueOf(f);
+        } else {
+            NumberFormat dcf = NumberFormat.getInstance(Locale.US);
+            if (dcf instanceof DecimalFormat) {
+                ((DecimalFormat) dcf).applyPattern("0.#####E0");
+            }
+            return dcf.format(f);
+        }
+    }
+
     /**
      * Converts a datapoint type id into an openHAB type class
      * 
@@ -639,4 +734,35 @@ public class KNXCoreTypeMapper implements KNXTypeMapper {
         }
         return result;
     }
+
+    /**
+     * The prepared translation of a datapoint type. The translator is created once and shared by all datapoints of
+     * the datapoint type, so it must be synchronized on while it is used.
+     */
+    private static final class DatapointType {
+
+        private final String id;
+        private final int mainNumber;
+        private final int subNumber;
+        private final DPT dpt;
+        private final DPTXlator translator;
+        private final int typeSize;
+
+        private DatapointType(String id) throws KNXException {
+            this.id = id;
+            this.translator = TranslatorTypes.createTranslator(0, id);
+            this.dpt = translator.getType();
+            this.typeSize = Math.max(1, translator.getTypeSize());
+            int separator = id.indexOf('.');
+            this.mainNumber = Integer.parseInt(id.substring(0, separator));
+            this.subNumber = Integer.parseInt(id.substring(separator + 1));
+        }
+
+        /**
+         * @return <code>true</code> if the data can be converted without the translator
+         */
+        private boolean isDirect() {
+            return mainNumber == 1 || mainNumber == 5 || mainNumber == 9 || mainNumber == 14;
+        }
+    }
 }
@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.modbus.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.openhab.binding.modbus.ModbusBindingProvider;
+
+import net.wimpi.modbus.procimg.InputRegister;
+import net.wimpi.modbus.procimg.SimpleInputRegister;
+import net.wimpi.modbus.util.BitVector;
+
+/**
+ * Tests how {@link ModbusReadBlock} merges the reads of several slaves and
+ * splits up the response again.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ModbusReadBlockTest {
+
+    @Test
+    public void testAdjacentAndOverlappingSlavesAreMerged() {
+        List<ModbusReadBlock> blocks = ModbusReadBlock.coalesce(Arrays.<ModbusSlave> asList(
+                slave("c", ModbusBindingProvider.TYPE_HOLDING, 1, 20, 5),
+                slave("a", ModbusBindingProvider.TYPE_HOLDING, 1, 0, 10),
+                slave("b", ModbusBindingProvider.TYPE_HOLDING, 1, 8, 12)));
+        assertEquals(1, blocks.size());
+    }
+
+    @Test
+    public void testDifferentTypesIdsAndGapsAreNotMerged() {
+        List<ModbusReadBlock> blocks = ModbusReadBlock.coalesce(Arrays.<ModbusSlave> asList(
+                slave("a", ModbusBindingProvider.TYPE_HOLDING, 1, 0, 10),
+                slave("b", ModbusBindingProvider.TYPE_INPUT, 1, 10, 10),
+                slave("c", ModbusBindingProvider.TYPE_HOLDING, 2, 10, 10),
+                slave("d", ModbusBindingProvider.TYPE_HOLDING, 1, 11, 10)));
+        assertEquals(4, blocks.size());
+    }
+
+    @Test
+    public void testMergedRangeIsLimitedToMaxReadLength() {
+        List<ModbusReadBlock> blocks = ModbusReadBlock.coalesce(Arrays.<ModbusSlave> asList(
+                slave("a", ModbusBindingProvider.TYPE_HOLDING, 1, 0, 100),
+                slave("b", ModbusBindingProvider.TYPE_HOLDING, 1, 100, 25),
+                slave("c", ModbusBindingProvider.TYPE_HOLDING, 1, 125, 1)));
+        assertEquals(2, blocks.size());
+    }
+
+    @Test
+    public void testRegistersAreSlicedForEverySlave() {
+        TestSlave a = slave("a", ModbusBindingProvider.TYPE_HOLDING, 1, 10, 3);
+        TestSlave b = slave("b", ModbusBindingProvider.TYPE_HOLDING, 1, 12, 4);
+        List<ModbusReadBlock> blocks = ModbusReadBlock.coalesce(Arrays.<ModbusSlave> asList(a, b));
+        assertEquals(1, blocks.size());
+
+        blocks.get(0).update(null);
+
+        // only the first slave reads, once for the whole range
+        assertEquals(Arrays.asList("10:6"), a.reads);
+        assertTrue(b.reads.isEmpty());
+        assertEquals(Arrays.asList(10, 11, 12), values((InputRegister[]) a.data));
+        assertEquals(Arrays.asList(12, 13, 14, 15), values((InputRegister[]) b.data));
+    }
+
+    @Test
+    public void testCoilsAreSlicedForEverySlave() {
+        TestSlave a = slave("a", ModbusBindingProvider.TYPE_COIL, 1, 0, 2);
+        TestSlave b = slave("b", ModbusBindingProvider.TYPE_COIL, 1, 2, 3);
+        ModbusReadBlock.coalesce(Arrays.<ModbusSlave> asList(a, b)).get(0).update(null);
+
+        assertEquals(Arrays.asList("0:5"), a.reads);
+        BitVector bits = (BitVector) b.data;
+        assertEquals(3, bits.size());
+        // coils with an odd reference are set
+        assertFalse(bits.getBit(0));
+        assertTrue(bits.getBit(1));
+        assertFalse(bits.getBit(2));
+    }
+
+    @Test
+    public void testFailedReadUpdatesNoSlave() {
+        TestSlave a = slave("a", ModbusBindingProvider.TYPE_HOLDING, 1, 0, 2);
+        TestSlave b = slave("b", ModbusBindingProvider.TYPE_HOLDING, 1, 2, 2);
+        a.failing = true;
+        ModbusReadBlock.coalesce(Arrays.<ModbusSlave> asList(a, b)).get(0).update(null);
+
+        assertNull(a.data);
+        assertNull(b.data);
+        assertEquals(1, a.resets);
+    }
+
+    private static TestSlave slave(String name, String type, int id, int start, int length) {
+        TestSlave slave = new TestSlave(name);
+        slave.setType(type);
+        slave.setId(id);
+        slave.setStart(start);
+        slave.setLength(length);
+        return slave;
+    }
+
+    private static List<Integer> values(InputRegister[] registers) {
+        List<Integer> values = new ArrayList<Integer>();
+        for (InputRegister register : registers) {
+            values.add(register.getValue());
+        }
+        return values;
+    }
+
+    /**
+     * Answers every register with its reference and sets every coil with an odd reference.
+     */
+    private static class TestSlave extends ModbusSlave {
+
+        private final List<String> reads = new ArrayList<String>();
+        private Object data;
+        private boolean failing;
+        private int resets;
+
+        TestSlave(String name) {
+            super(name);
+        }
+
+        @Override
+        public boolean connect() {
+            return true;
+        }
+
+        @Override
+        public void resetConnection() {
+            resets++;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public String getConnectionKey() {
+            return "test";
+        }
+
+        @Override
+        Object readData(int start, int length) {
+            reads.add(start + ":" + length);
+            if (failing) {
+                return null;
+            }
+            if (ModbusBindingProvider.TYPE_COIL.equals(getType())) {
+                BitVector bits = new BitVector(length);
+                for (int i = 0; i < length; i++) {
+                    bits.setBit(i, (start + i) % 2 == 1);
+                }
+                return bits;
+            }
+            InputRegister[] registers = new InputRegister[length];
+            for (int i = 0; i < length; i++) {
+                registers[i] = new SimpleInputRegister(start + i);
+            }
+            return registers;
+        }
+
+        @Override
+        void updateItems(ModbusBinding binding, Object local) {
+            data = local;
+        }
+    }
+
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.modbus.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.wimpi.modbus.msg.ReadMultipleRegistersRequest;
+import net.wimpi.modbus.msg.ReadMultipleRegistersResponse;
+
+/**
+ * Tests the {@link ModbusTcpEndpoint} against a local Modbus TCP server.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ModbusTcpEndpointTest {
+
+    private TestServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new TestServer();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        ModbusTcpEndpoint.closeAll();
+        ModbusTcpEndpoint.setKeepConnection(false);
+        ModbusTcpEndpoint.setMaxInFlight(1);
+        server.close();
+    }
+
+    @Test
+    public void testConnectionWhichIsNotKeptHasNoReaderThread() throws Exception {
+        ModbusTcpEndpoint endpoint = ModbusTcpEndpoint.get("localhost", server.getPort());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, read(endpoint, i));
+        }
+
+        assertEquals(5, server.getConnections());
+        assertFalse(hasReaderThread("localhost:" + server.getPort()));
+    }
+
+    @Test
+    public void testKeptConnectionIsReused() throws Exception {
+        ModbusTcpEndpoint.setKeepConnection(true);
+        ModbusTcpEndpoint endpoint = ModbusTcpEndpoint.get("localhost", server.getPort());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, read(endpoint, i));
+        }
+
+        assertEquals(1, server.getConnections());
+    }
+
+    @Test
+    public void testMaxInFlightAppliesToExistingEndpoints() throws Exception {
+        ModbusTcpEndpoint.setKeepConnection(true);
+        final ModbusTcpEndpoint endpoint = ModbusTcpEndpoint.get("localhost", server.getPort());
+        assertEquals(1, read(endpoint, 1));
+
+        // the server only answers once three requests have arrived, in reverse order
+        server.setBatchSize(3);
+        ModbusTcpEndpoint.setMaxInFlight(3);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < 3; i++) {
+                final int reference = 10 + i;
+                results.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        return read(endpoint, reference);
+                    }
+                }));
+            }
+            for (int i = 0; i < 3; i++) {
+                assertEquals(10 + i, results.get(i).get().intValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int read(ModbusTcpEndpoint endpoint, int reference) throws Exception {
+        ReadMultipleRegistersResponse response = (ReadMultipleRegistersResponse) endpoint
+                .execute(new ReadMultipleRegistersRequest(reference, 1));
+        return response.getRegisterValue(0);
+    }
+
+    private static boolean hasReaderThread(String address) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("Modbus TCP " + address) && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Answers every read request with a single register holding the requested reference.
+     */
+    private static class TestServer implements Runnable {
+        private final ServerSocket serverSocket;
+        private int connections;
+        private int batchSize = 1;
+
+        TestServer() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread thread = new Thread(this, "Modbus TCP test server");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        synchronized int getConnections() {
+            return connections;
+        }
+
+        synchronized void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        private synchronized int getBatchSize() {
+            return batchSize;
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    final Socket socket = serverSocket.accept();
+                    synchronized (this) {
+                        connections++;
+                    }
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            serve(socket);
+                        }
+                    });
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+            } catch (IOException e) {
+                // closed
+            }
+        }
+
+        private void serve(Socket socket) {
+            try {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                List<int[]> requests = new ArrayList<int[]>();
+                while (true) {
+                    int transactionId = in.readUnsignedShort();
+                    in.readUnsignedShort();
+                    in.readUnsignedShort();
+                    int unitId = in.readUnsignedByte();
+                    in.readUnsignedByte();
+                    int reference = in.readUnsignedShort();
+                    in.readUnsignedShort();
+                    requests.add(new int[] { transactionId, unitId, reference });
+                    if (requests.size() < getBatchSize()) {
+                        continue;
+                    }
+
+                    Collections.reverse(requests);
+                    for (int[] request : requests) {
+                        out.writeShort(request[0]);
+                        out.writeShort(0);
+                        out.writeShort(5);
+                        out.writeByte(request[1]);
+                        out.writeByte(3);
+                        out.writeByte(2);
+                        out.writeShort(request[2]);
+                    }
+                    out.flush();
+                    requests.clear();
+                }
+            } catch (IOException e) {
+                // connection closed by the endpoint
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+}
@@ -10,12 +10,20 @@ package org.openhab.binding.modbus.internal;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Dictionary;
 import java.util.Enumeration;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -63,12 +71,24 @@ public class ModbusBinding extends AbstractActiveBinding<ModbusBindingProvider>i
     /** slaves update interval in milliseconds, defaults to 200ms */
     public static int pollInterval = 200;
 
+    /** the interval of the TCP connection statistics in the debug log */
+    private static final long STATISTICS_INTERVAL = 60000;
+
+    private long lastStatistics = 0;
+
+    /** polls the slaves of different connections in parallel */
+    private ExecutorService pollExecutor;
+
     @Override
     public void activate() {
     }
 
     @Override
-    public void deactivate() {
+    public synchronized void deactivate() {
+        if (pollExecutor != null) {
+            pollExecutor.shutdownNow();
+            pollExecutor = null;
+        }
     }
 
     @Override
@@ -210,16 +230,76 @@ public class ModbusBinding extends AbstractActiveBinding<ModbusBindingProvider>i
 
     /**
      * updates all slaves from the modbusSlaves
+     *
+     * Slaves are grouped by their connection. The groups are polled in parallel,
+     * while the slaves of a group are polled one after the other with as few read
+     * requests as possible.
      */
     @Override
     protected void execute() {
-        Collection<ModbusSlave> slaves = new HashSet<ModbusSlave>();
-        synchronized (slaves) {
-            slaves.addAll(modbusSlaves.values());
+        logStatistics();
+
+        Map<String, List<ModbusSlave>> connections = new HashMap<String, List<ModbusSlave>>();
+        for (ModbusSlave slave : modbusSlaves.values()) {
+            String key = slave.getConnectionKey();
+            List<ModbusSlave> slaves = connections.get(key);
+            if (slaves == null) {
+                slaves = new ArrayList<ModbusSlave>();
+                connections.put(key, slaves);
+            }
+            slaves.add(slave);
+        }
+
+        if (connections.size() <= 1) {
+            for (List<ModbusSlave> slaves : connections.values()) {
+                update(slaves);
+            }
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<Future<?>>(connections.size());
+        for (final List<ModbusSlave> slaves : connections.values()) {
+            futures.add(getPollExecutor().submit(new Runnable() {
+                @Override
+                public void run() {
+                    update(slaves);
+                }
+            }));
         }
-        for (ModbusSlave slave : slaves) {
-            slave.update(this);
+
+        // wait for the whole cycle, so the poll interval applies between cycles
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                logger.warn("Error polling modbus slaves", e.getCause());
+            }
+        }
+    }
+
+    private void update(List<ModbusSlave> slaves) {
+        for (ModbusReadBlock block : ModbusReadBlock.coalesce(slaves)) {
+            block.update(this);
+        }
+    }
+
+    private synchronized ExecutorService getPollExecutor() {
+        if (pollExecutor == null) {
+            pollExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Modbus Poller " + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
         }
+        return pollExecutor;
     }
 
     private void clearSlaves() {
@@ -227,6 +307,18 @@ public class ModbusBinding extends AbstractActiveBinding<ModbusBindingProvider>i
             slave.resetConnection();
         }
         modbusSlaves.clear();
+        ModbusTcpEndpoint.closeAll();
+    }
+
+    private void logStatistics() {
+        long now = System.currentTimeMillis();
+        if (!logger.isDebugEnabled() || now - lastStatistics < STATISTICS_INTERVAL) {
+            return;
+        }
+        lastStatistics = now;
+        for (ModbusTcpEndpoint endpoint : ModbusTcpEndpoint.getEndpoints()) {
+            logger.debug("Modbus TCP statistics {}", endpoint);
+        }
     }
 
     protected void addBindingProvider(ModbusBindingProvider bindingProvider) {
@@ -260,6 +352,12 @@ public class ModbusBinding extends AbstractActiveBinding<ModbusBindingProvider>i
                         }
                     } else if ("writemultipleregisters".equals(key)) {
                         ModbusSlave.setWriteMultipleRegisters(Boolean.valueOf(config.get(key).toString()));
+                    } else if ("tcpmaxinflight".equals(key)) {
+                        ModbusTcpEndpoint.setMaxInFlight(Integer.valueOf(config.get(key).toString()));
+                    } else if ("tcpmininterval".equals(key)) {
+                        ModbusTcpEndpoint.setMinInterval(Long.valueOf(config.get(key).toString()));
+                    } else if ("tcpkeepconnection".equals(key)) {
+                        ModbusTcpEndpoint.setKeepConnection(Boolean.valueOf(config.get(key).toString()));
                     } else {
                         logger.debug(
                                 "given modbus-slave-config-key '{}' does not follow the expected pattern or 'serial.<slaveId>.<{}>'",
@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.modbus.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.wimpi.modbus.procimg.InputRegister;
+import net.wimpi.modbus.util.BitVector;
+
+/**
+ * A single read request which serves one or more slaves. Slaves which are
+ * reached through the same connection, address the same unit id and data type
+ * and have adjacent or overlapping ranges are read with one request, as long as
+ * the merged range fits into a Modbus PDU. The response is then split up again
+ * between the slaves.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class ModbusReadBlock {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModbusReadBlock.class);
+
+    /** orders slaves by data type, unit id and start reference */
+    private static final Comparator<ModbusSlave> SLAVE_ORDER = new Comparator<ModbusSlave>() {
+        @Override
+        public int compare(ModbusSlave a, ModbusSlave b) {
+            int res = String.valueOf(a.getType()).compareTo(String.valueOf(b.getType()));
+            if (res == 0) {
+                res = Integer.compare(a.getId(), b.getId());
+            }
+            if (res == 0) {
+                res = Integer.compare(a.getStart(), b.getStart());
+            }
+            return res;
+        }
+    };
+
+    private final List<ModbusSlave> slaves = new ArrayList<ModbusSlave>();
+    private final int start;
+    private int end;
+
+    private ModbusReadBlock(ModbusSlave slave) {
+        slaves.add(slave);
+        start = slave.getStart();
+        end = slave.getStart() + slave.getLength();
+    }
+
+    /**
+     * Merges the reads of the given slaves into as few read blocks as possible. All
+     * slaves must share the same connection.
+     *
+     * @param slaves the slaves to read
+     * @return the read blocks
+     */
+    static List<ModbusReadBlock> coalesce(Collection<ModbusSlave> slaves) {
+        List<ModbusSlave> sorted = new ArrayList<ModbusSlave>(slaves);
+        Collections.sort(sorted, SLAVE_ORDER);
+
+        List<ModbusReadBlock> blocks = new ArrayList<ModbusReadBlock>();
+        ModbusReadBlock block = null;
+        for (ModbusSlave slave : sorted) {
+            if (block == null || !block.add(slave)) {
+                block = new ModbusReadBlock(slave);
+                blocks.add(block);
+            }
+        }
+        return blocks;
+    }
+
+    private boolean add(ModbusSlave slave) {
+        ModbusSlave first = slaves.get(0);
+        if (first.getType() == null || !first.getType().equals(slave.getType()) || first.getId() != slave.getId()) {
+            return false;
+        }
+        // slaves are sorted by start, so only the end of the block has to be checked
+        int slaveEnd = slave.getStart() + slave.getLength();
+        if (slave.getStart() > end || Math.max(end, slaveEnd) - start > first.getMaxReadLength()) {
+            return false;
+        }
+        slaves.add(slave);
+        end = Math.max(end, slaveEnd);
+        return true;
+    }
+
+    /**
+     * Reads the data of this block and updates the items of all its slaves.
+     *
+     * @param binding the binding to update the items with
+     */
+    void update(ModbusBinding binding) {
+        if (slaves.size() == 1) {
+            slaves.get(0).update(binding);
+            return;
+        }
+
+        // the first slave's connection is used for the whole block
+        ModbusSlave master = slaves.get(0);
+        if (!master.connect()) {
+            master.resetConnection();
+            logger.info("ModbusSlave not connected");
+            return;
+        }
+
+        Object data = master.readData(start, end - start);
+        if (data == null) {
+            master.resetConnection();
+            logger.info("ModbusSlave error getting responce from slave");
+            return;
+        }
+
+        logger.trace("ModbusSlave: read {} slaves with a single request, ref={} count={}", slaves.size(), start,
+                end - start);
+        for (ModbusSlave slave : slaves) {
+            slave.updateItems(binding, slice(data, slave.getStart() - start, slave.getLength()));
+        }
+    }
+
+    private static Object slice(Object data, int offset, int length) {
+        if (data instanceof BitVector) {
+            BitVector bits = (BitVector) data;
+            BitVector slice = new BitVector(length);
+            for (int i = 0; i < length; i++) {
+                slice.setBit(i, bits.getBit(offset + i));
+            }
+            return slice;
+        }
+        return Arrays.copyOfRange((InputRegister[]) data, offset, offset + length);
+    }
+}
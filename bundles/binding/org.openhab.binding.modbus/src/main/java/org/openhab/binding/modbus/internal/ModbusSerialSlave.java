@@ -139,6 +139,12 @@ public class ModbusSerialSlave extends ModbusSlave {
         return true;
     }
 
+    @Override
+    public String getConnectionKey() {
+        // all serial slaves share the same (static) connection
+        return "serial";
+    }
+
     @Override
     public void resetConnection() {
         if (connection != null) {
@@ -21,6 +21,8 @@ import org.openhab.core.types.Command;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.wimpi.modbus.Modbus;
+import net.wimpi.modbus.ModbusException;
 import net.wimpi.modbus.io.ModbusTransaction;
 import net.wimpi.modbus.msg.ModbusRequest;
 import net.wimpi.modbus.msg.ModbusResponse;
@@ -56,6 +58,9 @@ public abstract class ModbusSlave implements ModbusSlaveConnection {
     /** name - slave name from cfg file, used for items binding */
     protected String name = null;
 
+    /** the maximum number of registers of a read request (FC03 and FC04) */
+    private static final int MAX_READ_REGISTERS = 125;
+
     private static boolean writeMultipleRegisters = false;
 
     public static void setWriteMultipleRegisters(boolean setwmr) {
@@ -168,7 +173,8 @@ public abstract class ModbusSlave implements ModbusSlaveConnection {
         int readIndex = config.readIndex;
         int writeRegister = getStart() + config.writeIndex;
 
-        if (!isConnected()) {
+        if (!connect()) {
+            logger.info("ModbusSlave not connected");
             return;
         }
 
@@ -226,12 +232,11 @@ public abstract class ModbusSlave implements ModbusSlaveConnection {
             request = new WriteSingleRegisterRequest(writeRegister, newValue);
         }
         request.setUnitID(getId());
-        transaction.setRequest(request);
 
         try {
             logger.debug("ModbusSlave: FC{} ref={} value={}", request.getFunctionCode(), writeRegister,
                     newValue.getValue());
-            transaction.execute();
+            executeRequest(request);
         } catch (Exception e) {
             logger.debug("ModbusSlave: {}", e.getMessage());
             return;
@@ -269,10 +274,9 @@ public abstract class ModbusSlave implements ModbusSlaveConnection {
         }
         ModbusRequest request = new WriteCoilRequest(writeRegister, b);
         request.setUnitID(getId());
-        transaction.setRequest(request);
         try {
             logger.debug("ModbusSlave: FC05 ref={} value={}", writeRegister, b);
-            transaction.execute();
+            executeRequest(request);
         } catch (Exception e) {
             logger.debug("ModbusSlave:{}", e.getMessage());
             return;
@@ -291,47 +295,80 @@ public abstract class ModbusSlave implements ModbusSlaveConnection {
             return;
         }
 
-        try {
-
-            Object local = null;
+        Object local = readData(getStart(), getLength());
+        if (local == null) {
+            resetConnection();
+            logger.info("ModbusSlave error getting responce from slave");
+            return;
+        }
+        updateItems(binding, local);
+    }
 
+    /**
+     * Reads a range of the slave's data type from the connected device.
+     *
+     * @param start the starting reference
+     * @param length the number of coils or registers to read
+     * @return the coils as {@link BitVector} or the registers as {@link InputRegister} array,
+     *         null if the read failed
+     */
+    Object readData(int start, int length) {
+        try {
             if (ModbusBindingProvider.TYPE_COIL.equals(getType())) {
-                ModbusRequest request = new ReadCoilsRequest(getStart(), getLength());
+                ModbusRequest request = new ReadCoilsRequest(start, length);
                 if (this instanceof ModbusSerialSlave) {
                     request.setHeadless();
                 }
-                request.setUnitID(id);
                 ReadCoilsResponse responce = (ReadCoilsResponse) getModbusData(request);
-                local = responce.getCoils();
+                return responce.getCoils();
             } else if (ModbusBindingProvider.TYPE_DISCRETE.equals(getType())) {
-                ModbusRequest request = new ReadInputDiscretesRequest(getStart(), getLength());
+                ModbusRequest request = new ReadInputDiscretesRequest(start, length);
                 ReadInputDiscretesResponse responce = (ReadInputDiscretesResponse) getModbusData(request);
-                local = responce.getDiscretes();
+                return responce.getDiscretes();
             } else if (ModbusBindingProvider.TYPE_HOLDING.equals(getType())) {
-                ModbusRequest request = new ReadMultipleRegistersRequest(getStart(), getLength());
+                ModbusRequest request = new ReadMultipleRegistersRequest(start, length);
                 ReadMultipleRegistersResponse responce = (ReadMultipleRegistersResponse) getModbusData(request);
-                local = responce.getRegisters();
+                return responce.getRegisters();
             } else if (ModbusBindingProvider.TYPE_INPUT.equals(getType())) {
-                ModbusRequest request = new ReadInputRegistersRequest(getStart(), getLength());
+                ModbusRequest request = new ReadInputRegistersRequest(start, length);
                 ReadInputRegistersResponse responce = (ReadInputRegistersResponse) getModbusData(request);
-                local = responce.getRegisters();
+                return responce.getRegisters();
             }
-            if (storage == null) {
+        } catch (Exception e) {
+            logger.debug("ModbusSlave:{}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Stores data read from the device and updates all items with it
+     *
+     * @param binding ModbusBindig that stores providers information
+     * @param local the data as returned by {@link #readData(int, int)}
+     */
+    void updateItems(ModbusBinding binding, Object local) {
+        if (storage == null) {
+            storage = local;
+        } else {
+            synchronized (storage) {
                 storage = local;
-            } else {
-                synchronized (storage) {
-                    storage = local;
-                }
             }
-            Collection<String> items = binding.getItemNames();
-            for (String item : items) {
-                updateItem(binding, item);
-            }
-        } catch (Exception e) {
-            resetConnection();
-            logger.info("ModbusSlave error getting responce from slave");
         }
+        Collection<String> items = binding.getItemNames();
+        for (String item : items) {
+            updateItem(binding, item);
+        }
+    }
 
+    /**
+     * @return the maximum number of coils or registers which can be read with a single request
+     */
+    int getMaxReadLength() {
+        if (ModbusBindingProvider.TYPE_COIL.equals(getType())
+                || ModbusBindingProvider.TYPE_DISCRETE.equals(getType())) {
+            return Modbus.MAX_BITS;
+        }
+        return MAX_READ_REGISTERS;
     }
 
     /**
@@ -360,21 +397,35 @@ public abstract class ModbusSlave implements ModbusSlaveConnection {
      */
     private ModbusResponse getModbusData(ModbusRequest request) {
         request.setUnitID(getId());
-        transaction.setRequest(request);
 
         try {
-            transaction.execute();
+            return executeRequest(request);
         } catch (Exception e) {
             logger.debug("ModbusSlave:{}", e.getMessage());
             return null;
         }
+    }
 
-        ModbusResponse r = transaction.getResponse();
-        if ((r.getTransactionID() != transaction.getTransactionID()) && !r.isHeadless()) {
-            return null;
-        }
+    /**
+     * Sends a request to the device and waits for its response. Reads (from the polling
+     * threads) and writes (from commands) don't share a transaction concurrently.
+     *
+     * @param request the request to send
+     * @return the response, or null if the response does not belong to the request
+     * @throws ModbusException if the transaction failed
+     */
+    protected ModbusResponse executeRequest(ModbusRequest request) throws ModbusException {
+        synchronized (transaction) {
+            transaction.setRequest(request);
+            transaction.execute();
 
-        return r;
+            // the transaction id counter of the transactions is shared, so compare with the request
+            ModbusResponse r = transaction.getResponse();
+            if ((r.getTransactionID() != request.getTransactionID()) && !r.isHeadless()) {
+                return null;
+            }
+            return r;
+        }
     }
 
     int getStart() {
@@ -15,4 +15,12 @@ public interface ModbusSlaveConnection {
 
     public boolean isConnected();
 
+    /**
+     * Identifies the physical connection of the slave. Slaves with the same key share
+     * a connection and are never accessed concurrently.
+     *
+     * @return the connection key, e.g. the transport with host and port
+     */
+    public String getConnectionKey();
+
 }
@@ -0,0 +1,552 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.modbus.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.wimpi.modbus.Modbus;
+import net.wimpi.modbus.ModbusException;
+import net.wimpi.modbus.ModbusIOException;
+import net.wimpi.modbus.ModbusSlaveException;
+import net.wimpi.modbus.io.BytesInputStream;
+import net.wimpi.modbus.msg.ExceptionResponse;
+import net.wimpi.modbus.msg.ModbusRequest;
+import net.wimpi.modbus.msg.ModbusResponse;
+
+/**
+ * A Modbus TCP connection which is shared by all slaves with the same host and port.
+ * <p>
+ * Requests get a transaction id of their own endpoint, are written to the socket and
+ * then wait for their response. If the connection is kept, a reader thread reads the
+ * responses and hands them over to the waiting request with the matching transaction id,
+ * so several requests can be in flight at the same time. Responses which arrive after
+ * their request has timed out are discarded.
+ * <p>
+ * Unless the connection is configured to be kept, it is closed as soon as no request is in
+ * flight anymore, because some devices accept a single connection only. Such short-lived
+ * connections don't get a reader thread, every request reads its response itself and the
+ * requests are sent one after the other.
+ * <p>
+ * The number of requests in flight and the interval between two requests can be limited
+ * for all endpoints. After a failed connection attempt, further attempts are delayed with
+ * an increasing backoff.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class ModbusTcpEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModbusTcpEndpoint.class);
+
+    private static final long MIN_RECONNECT_DELAY = 100;
+    private static final long MAX_RECONNECT_DELAY = 10000;
+
+    /** the number of consecutive timeouts after which the connection is considered broken */
+    private static final int MAX_CONSECUTIVE_TIMEOUTS = 3;
+
+    private static final Map<String, ModbusTcpEndpoint> endpoints = new HashMap<String, ModbusTcpEndpoint>();
+
+    private static int maxInFlight = 1;
+    private static long minInterval = 0;
+    private static boolean keepConnection = false;
+
+    private final String host;
+    private final int port;
+    private final InFlightLimit inFlight;
+    private final Object sendLock = new Object();
+    private final Map<Integer, PendingRequest> pending = new HashMap<Integer, PendingRequest>();
+
+    /** the buffer for responses which are read by the requests themselves, guarded by sendLock */
+    private final BytesInputStream responseBuffer = new BytesInputStream(Modbus.MAX_MESSAGE_LENGTH + 6);
+
+    private Socket socket;
+    private DataOutputStream output;
+    /** the input of a connection without reader thread, null if the connection is kept */
+    private DataInputStream input;
+    private int transactionId = 0;
+    private long lastSend = 0;
+    private long reconnectDelay = 0;
+    private long nextConnectAttempt = 0;
+    private int consecutiveTimeouts = 0;
+
+    private long requests;
+    private long timeouts;
+    private long failures;
+    private long connects;
+    private long totalLatency;
+    private long maxLatency;
+
+    private ModbusTcpEndpoint(String host, int port) {
+        this.host = host;
+        this.port = port;
+        this.inFlight = new InFlightLimit(maxInFlight);
+    }
+
+    /**
+     * Returns the endpoint for the given host and port, creating it on the first request.
+     */
+    static synchronized ModbusTcpEndpoint get(String host, int port) {
+        String key = host + ":" + port;
+        ModbusTcpEndpoint endpoint = endpoints.get(key);
+        if (endpoint == null) {
+            endpoint = new ModbusTcpEndpoint(host, port);
+            endpoints.put(key, endpoint);
+        }
+        return endpoint;
+    }
+
+    /**
+     * @return all endpoints which have been used since the last {@link #closeAll()}
+     */
+    static synchronized Collection<ModbusTcpEndpoint> getEndpoints() {
+        return new ArrayList<ModbusTcpEndpoint>(endpoints.values());
+    }
+
+    /**
+     * Closes and forgets all endpoints.
+     */
+    static synchronized void closeAll() {
+        for (ModbusTcpEndpoint endpoint : endpoints.values()) {
+            logger.debug("Closing {}", endpoint);
+            endpoint.close(null, null);
+        }
+        endpoints.clear();
+    }
+
+    /**
+     * @param max the maximum number of requests in flight per endpoint, only kept connections
+     *            have more than one request in flight
+     */
+    static synchronized void setMaxInFlight(int max) {
+        maxInFlight = Math.max(1, max);
+        for (ModbusTcpEndpoint endpoint : endpoints.values()) {
+            endpoint.inFlight.setLimit(maxInFlight);
+        }
+    }
+
+    /**
+     * @param interval the minimum time between two requests to an endpoint in milliseconds
+     */
+    static void setMinInterval(long interval) {
+        minInterval = Math.max(0, interval);
+    }
+
+    /**
+     * @param keep true if connections are kept open while no request is in flight
+     */
+    static void setKeepConnection(boolean keep) {
+        keepConnection = keep;
+    }
+
+    /**
+     * Opens the connection unless it is open already or the reconnect backoff is pending.
+     *
+     * @return true if the endpoint is connected
+     */
+    synchronized boolean connect() {
+        if (socket != null) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now < nextConnectAttempt) {
+            return false;
+        }
+
+        Socket newSocket = new Socket();
+        DataInputStream newInput;
+        try {
+            newSocket.connect(new InetSocketAddress(host, port), Modbus.DEFAULT_TIMEOUT);
+            newSocket.setTcpNoDelay(true);
+            newSocket.setKeepAlive(true);
+            newInput = new DataInputStream(new BufferedInputStream(newSocket.getInputStream()));
+            output = new DataOutputStream(new BufferedOutputStream(newSocket.getOutputStream()));
+            socket = newSocket;
+        } catch (IOException e) {
+            try {
+                newSocket.close();
+            } catch (IOException ce) {
+            }
+            reconnectDelay = reconnectDelay == 0 ? MIN_RECONNECT_DELAY
+                    : Math.min(2 * reconnectDelay, MAX_RECONNECT_DELAY);
+            nextConnectAttempt = now + reconnectDelay;
+            logger.debug("ModbusSlave: Error connecting to {}:{}, retrying in {}ms: {}", host, port, reconnectDelay,
+                    e.getMessage());
+            return false;
+        }
+
+        connects++;
+        reconnectDelay = 0;
+        consecutiveTimeouts = 0;
+        if (keepConnection) {
+            input = null;
+            Thread reader = new Thread(new ResponseReader(newSocket, newInput), "Modbus TCP " + host + ":" + port);
+            reader.setDaemon(true);
+            reader.start();
+        } else {
+            // the connection is closed after the request, a reader thread per request isn't worth it
+            input = newInput;
+        }
+        return true;
+    }
+
+    /**
+     * Sends a request and waits for its response. A request which could not be written,
+     * e.g. because the device has closed an idle connection, is repeated once on a new
+     * connection.
+     *
+     * @param request the request to send
+     * @return the response
+     * @throws ModbusException if the request failed, timed out or the slave has answered with an exception
+     */
+    ModbusResponse execute(ModbusRequest request) throws ModbusException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModbusIOException("Interrupted while waiting for " + host + ":" + port);
+        }
+        try {
+            ModbusResponse response;
+            try {
+                response = send(request);
+            } catch (ModbusWriteException e) {
+                response = send(request);
+            }
+            if (response instanceof ExceptionResponse) {
+                throw new ModbusSlaveException(((ExceptionResponse) response).getExceptionCode());
+            }
+            return response;
+        } finally {
+            inFlight.release();
+            closeIfIdle();
+        }
+    }
+
+    private ModbusResponse send(ModbusRequest request) throws ModbusException {
+        PendingRequest pendingRequest = new PendingRequest();
+        int id;
+        synchronized (sendLock) {
+            long wait = lastSend + minInterval - System.currentTimeMillis();
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ModbusIOException("Interrupted while waiting for " + host + ":" + port);
+                }
+            }
+
+            Socket currentSocket;
+            DataOutputStream currentOutput;
+            DataInputStream currentInput;
+            synchronized (this) {
+                if (!connect()) {
+                    failures++;
+                    throw new ModbusIOException("Not connected to " + host + ":" + port);
+                }
+                transactionId = transactionId >= 0xffff ? 1 : transactionId + 1;
+                id = transactionId;
+                request.setTransactionID(id);
+                requests++;
+                currentSocket = socket;
+                currentOutput = output;
+                currentInput = input;
+                if (currentInput == null) {
+                    pending.put(id, pendingRequest);
+                }
+            }
+
+            try {
+                request.writeTo(currentOutput);
+                currentOutput.flush();
+            } catch (IOException e) {
+                synchronized (this) {
+                    failures++;
+                }
+                close(currentSocket, e);
+                throw new ModbusWriteException("Error writing to " + host + ":" + port + ": " + e.getMessage());
+            }
+            lastSend = System.currentTimeMillis();
+
+            if (currentInput != null) {
+                return receive(id, currentSocket, currentInput);
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        ModbusResponse response;
+        try {
+            response = pendingRequest.await(Modbus.DEFAULT_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response = null;
+        }
+        long latency = System.currentTimeMillis() - start;
+
+        synchronized (this) {
+            if (response != null) {
+                consecutiveTimeouts = 0;
+                totalLatency += latency;
+                maxLatency = Math.max(maxLatency, latency);
+                return response;
+            }
+            pending.remove(id);
+            IOException error = pendingRequest.getError();
+            if (error != null) {
+                failures++;
+                throw new ModbusIOException("Error reading from " + host + ":" + port + ": " + error.getMessage());
+            }
+            timeouts++;
+            if (++consecutiveTimeouts >= MAX_CONSECUTIVE_TIMEOUTS) {
+                close(socket, null);
+            }
+        }
+        throw new ModbusIOException("Timeout waiting for response from " + host + ":" + port);
+    }
+
+    /**
+     * Reads the response to a request on a connection without reader thread. The caller holds the
+     * send lock, so no other request uses the connection meanwhile.
+     */
+    private ModbusResponse receive(int id, Socket currentSocket, DataInputStream currentInput)
+            throws ModbusException {
+        long start = System.currentTimeMillis();
+        long deadline = start + Modbus.DEFAULT_TIMEOUT;
+        try {
+            while (true) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new SocketTimeoutException();
+                }
+                currentSocket.setSoTimeout((int) remaining);
+                ModbusResponse response = readResponse(currentInput, responseBuffer);
+                if (response.getTransactionID() == id) {
+                    long latency = System.currentTimeMillis() - start;
+                    synchronized (this) {
+                        consecutiveTimeouts = 0;
+                        totalLatency += latency;
+                        maxLatency = Math.max(maxLatency, latency);
+                    }
+                    return response;
+                }
+                logger.debug("ModbusSlave: Discarding response with unknown transaction id {} from {}:{}",
+                        response.getTransactionID(), host, port);
+            }
+        } catch (SocketTimeoutException e) {
+            synchronized (this) {
+                timeouts++;
+            }
+            // a late response must not be taken for the response to the next request
+            close(currentSocket, null);
+            throw new ModbusIOException("Timeout waiting for response from " + host + ":" + port);
+        } catch (IOException e) {
+            synchronized (this) {
+                failures++;
+            }
+            close(currentSocket, e);
+            throw new ModbusIOException("Error reading from " + host + ":" + port + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a single response frame.
+     *
+     * @param in the input of the connection
+     * @param byteIn the buffer to read the frame into
+     * @return the response, with the transaction id of the frame
+     * @throws IOException if the frame could not be read or is invalid
+     */
+    private static ModbusResponse readResponse(DataInputStream in, BytesInputStream byteIn) throws IOException {
+        byte[] buffer = byteIn.getBuffer();
+        // MBAP header: transaction id, protocol id, length of the remaining frame
+        in.readFully(buffer, 0, 6);
+        int length = ((buffer[4] & 0xff) << 8) | (buffer[5] & 0xff);
+        if (length < 2 || length > buffer.length - 6) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        in.readFully(buffer, 6, length);
+
+        byteIn.reset(buffer, 6 + length);
+        byteIn.skip(7);
+        int functionCode = byteIn.readUnsignedByte();
+        byteIn.reset();
+        ModbusResponse response = ModbusResponse.createModbusResponse(functionCode);
+        response.readFrom(byteIn);
+        return response;
+    }
+
+    private void closeIfIdle() {
+        // a request without reader thread holds the send lock until it has its response
+        synchronized (sendLock) {
+            synchronized (this) {
+                if (!keepConnection && pending.isEmpty() && socket != null) {
+                    close(socket, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the given socket if it is still the connection of this endpoint and
+     * fails all requests which are waiting for a response on it.
+     */
+    private synchronized void close(Socket closedSocket, IOException error) {
+        if (socket == null || closedSocket != null && closedSocket != socket) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+        }
+        socket = null;
+        output = null;
+        input = null;
+
+        if (!pending.isEmpty()) {
+            IOException cause = error != null ? error : new IOException("Connection closed");
+            for (PendingRequest pendingRequest : pending.values()) {
+                pendingRequest.complete(null, cause);
+            }
+            pending.clear();
+        }
+    }
+
+    private void received(int id, ModbusResponse response) {
+        PendingRequest pendingRequest;
+        synchronized (this) {
+            pendingRequest = pending.remove(id);
+        }
+        if (pendingRequest == null) {
+            logger.debug("ModbusSlave: Discarding response with unknown transaction id {} from {}:{}", id, host,
+                    port);
+        } else {
+            pendingRequest.complete(response, null);
+        }
+    }
+
+    private synchronized long getAverageLatency() {
+        long responses = requests - timeouts - failures;
+        return responses > 0 ? totalLatency / responses : 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return host + ":" + port + " [requests=" + requests + ", timeouts=" + timeouts + ", failures=" + failures
+                + ", connects=" + connects + ", avgLatency=" + getAverageLatency() + "ms, maxLatency=" + maxLatency
+                + "ms, connected=" + (socket != null) + "]";
+    }
+
+    /**
+     * Reads the responses of a connection until it is closed.
+     */
+    private class ResponseReader implements Runnable {
+        private final Socket readerSocket;
+        private final DataInputStream readerInput;
+
+        ResponseReader(Socket socket, DataInputStream input) {
+            this.readerSocket = socket;
+            this.readerInput = input;
+        }
+
+        @Override
+        public void run() {
+            BytesInputStream byteIn = new BytesInputStream(Modbus.MAX_MESSAGE_LENGTH + 6);
+            try {
+                while (true) {
+                    ModbusResponse response = readResponse(readerInput, byteIn);
+                    received(response.getTransactionID(), response);
+                }
+            } catch (IOException e) {
+                if (!readerSocket.isClosed()) {
+                    logger.debug("ModbusSlave: Connection to {}:{} failed: {}", host, port, e.getMessage());
+                }
+                close(readerSocket, e);
+            }
+        }
+    }
+
+    /**
+     * A request which is waiting for its response.
+     */
+    private static class PendingRequest {
+        private ModbusResponse response;
+        private IOException error;
+        private boolean done;
+
+        synchronized void complete(ModbusResponse response, IOException error) {
+            this.response = response;
+            this.error = error;
+            this.done = true;
+            notifyAll();
+        }
+
+        synchronized IOException getError() {
+            return error;
+        }
+
+        synchronized ModbusResponse await(long timeout) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeout;
+            long remaining = timeout;
+            while (!done && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+            return response;
+        }
+    }
+
+    /**
+     * A fair semaphore whose number of permits can be changed while it is in use.
+     */
+    private static class InFlightLimit extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        private int limit;
+
+        InFlightLimit(int limit) {
+            super(limit, true);
+            this.limit = limit;
+        }
+
+        synchronized void setLimit(int newLimit) {
+            if (newLimit > limit) {
+                release(newLimit - limit);
+            } else if (newLimit < limit) {
+                reducePermits(limit - newLimit);
+            }
+            limit = newLimit;
+        }
+    }
+
+    /**
+     * Signals that a request could not be written and may be repeated.
+     */
+    private static class ModbusWriteException extends ModbusIOException {
+        private static final long serialVersionUID = 1L;
+
+        ModbusWriteException(String message) {
+            super(message);
+        }
+    }
+}
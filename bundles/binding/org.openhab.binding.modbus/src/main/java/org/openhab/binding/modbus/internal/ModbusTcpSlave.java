@@ -8,45 +8,33 @@
  */
 package org.openhab.binding.modbus.internal;
 
-import java.net.InetAddress;
-import java.net.UnknownHostException;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import net.wimpi.modbus.io.ModbusTCPTransaction;
-import net.wimpi.modbus.net.TCPMasterConnection;
+import net.wimpi.modbus.ModbusException;
+import net.wimpi.modbus.ModbusIOException;
+import net.wimpi.modbus.msg.ModbusRequest;
+import net.wimpi.modbus.msg.ModbusResponse;
 
 /**
  * ModbusSlave class instantiates physical Modbus slave.
  * It is responsible for polling data from physical device using TCPConnection.
  * It is also responsible for updating physical devices according to OpenHAB commands
  *
+ * The connection is a {@link ModbusTcpEndpoint} which is shared with all other
+ * slaves on the same host and port.
+ *
  * @author Dmitry Krasnov
  * @since 1.1.0
  */
 public class ModbusTcpSlave extends ModbusIPSlave {
 
-    private static final Logger logger = LoggerFactory.getLogger(ModbusTcpSlave.class);
-
-    private TCPMasterConnection connection = null;
+    private ModbusTcpEndpoint endpoint = null;
 
     public ModbusTcpSlave(String slave) {
         super(slave);
-        transaction = new ModbusTCPTransaction();
     }
 
-    /**
-     * Performs physical write to device when slave type is "holding" using Modbus FC06 function
-     * 
-     * @param command command received from OpenHAB
-     * @param readRegister reference to the register that stores current value
-     * @param writeRegister register reference to write data to
-     */
-
     @Override
     public boolean isConnected() {
-        return connection != null;
+        return endpoint != null;
     }
 
     /**
@@ -54,38 +42,32 @@ public class ModbusTcpSlave extends ModbusIPSlave {
      */
     @Override
     public boolean connect() {
-        try {
-            if (connection == null) {
-                connection = new TCPMasterConnection(InetAddress.getByName(getHost()));
-            }
-        } catch (UnknownHostException e) {
-            logger.debug("ModbusSlave: Error connecting to master: {}", e.getMessage());
-            resetConnection();
-            return false;
+        if (endpoint == null) {
+            endpoint = ModbusTcpEndpoint.get(getHost(), getPort());
         }
-        if (!connection.isConnected()) {
-            try {
-                connection.setPort(getPort());
-                connection.connect();
-                ((ModbusTCPTransaction) transaction).setConnection(connection);
-                // We want to close connection after every transaction since some modbus tcp servers
-                // can accept only single connection at a time. If we would keep the connection open,
-                // the server would be blocked for other users.
-                ((ModbusTCPTransaction) transaction).setReconnecting(true);
-            } catch (Exception e) {
-                logger.debug("ModbusSlave: Error connecting to master: {}", e.getMessage());
-                return false;
-            }
+        return endpoint.connect();
+    }
+
+    @Override
+    protected ModbusResponse executeRequest(ModbusRequest request) throws ModbusException {
+        ModbusTcpEndpoint currentEndpoint = endpoint;
+        if (currentEndpoint == null) {
+            throw new ModbusIOException("ModbusSlave not connected");
         }
-        return true;
+        return currentEndpoint.execute(request);
+    }
+
+    @Override
+    public String getConnectionKey() {
+        return "tcp:" + getHost() + ":" + getPort();
     }
 
+    /**
+     * The shared connection closes itself on errors, so only the reference to it is dropped.
+     */
     @Override
     public void resetConnection() {
-        if (connection != null) {
-            connection.close();
-        }
-        connection = null;
+        endpoint = null;
     }
 
 }
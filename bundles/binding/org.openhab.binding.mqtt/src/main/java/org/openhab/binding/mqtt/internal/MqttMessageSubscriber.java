@@ -10,6 +10,8 @@ package org.openhab.binding.mqtt.internal;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.core.events.EventPublisher;
@@ -37,6 +39,8 @@ public class MqttMessageSubscriber extends AbstractMqttMessagePubSub implements
 
     private String msgFilter = null;
 
+    private Pattern msgFilterPattern = null;
+
     private List<Class<? extends State>> acceptedDataTypes = null;
     private List<Class<? extends Command>> acceptedCommandTypes = null;
 
@@ -107,7 +111,11 @@ public class MqttMessageSubscriber extends AbstractMqttMessagePubSub implements
                 initTransformService();
             }
             if (config.length > 4) {
-                setMsgFilter(config[4].trim());
+                try {
+                    setMsgFilter(config[4].trim());
+                } catch (PatternSyntaxException e) {
+                    throw new BindingConfigParseException("Invalid message filter: " + e.getDescription());
+                }
             }
 
         } catch (BindingConfigParseException e) {
@@ -173,8 +181,11 @@ public class MqttMessageSubscriber extends AbstractMqttMessagePubSub implements
      * 
      * @param filter
      *            Regular Expression String
+     * @throws PatternSyntaxException
+     *             if the filter is not a valid regular expression
      */
     public void setMsgFilter(String filter) {
+        this.msgFilterPattern = filter == null ? null : Pattern.compile(filter);
         this.msgFilter = filter;
     }
 
@@ -193,10 +204,10 @@ public class MqttMessageSubscriber extends AbstractMqttMessagePubSub implements
     private boolean msgFilterApplies(String msg) {
         if (msg == null) {
             return false;
-        } else if (msgFilter == null) {
+        } else if (msgFilterPattern == null) {
             return true;
         } else {
-            return msg.matches(msgFilter);
+            return msgFilterPattern.matcher(msg).matches();
         }
     }
 
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.zwave.internal.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessageClass;
+import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessageComparator;
+import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessagePriority;
+import org.openhab.binding.zwave.internal.protocol.SerialMessage.SerialMessageType;
+
+/**
+ * Tests the ordering and the adaptive response timeout of the {@link ZWaveTransmitQueue}.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ZWaveTransmitQueueTest {
+
+    private static final long CONFIGURED_TIMEOUT = 5000;
+
+    private ZWaveTransmitQueue queue;
+
+    @Before
+    public void setUp() {
+        // the messages used here are not sent to a node, so the comparator doesn't need the controller
+        queue = new ZWaveTransmitQueue(new SerialMessageComparator(null));
+    }
+
+    @Test
+    public void testNodesAreServedRoundRobin() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            queue.add(createMessage(2, SerialMessagePriority.Get));
+        }
+        for (int i = 0; i < 3; i++) {
+            queue.add(createMessage(3, SerialMessagePriority.Get));
+        }
+        queue.add(createMessage(4, SerialMessagePriority.Get));
+        assertEquals(7, queue.size());
+
+        int[] expected = new int[] { 2, 3, 4, 2, 3, 2, 3 };
+        for (int nodeId : expected) {
+            assertEquals(nodeId, queue.take().getMessageNode());
+        }
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testMessagesOfOneNodeKeepTheirOrder() throws InterruptedException {
+        SerialMessage first = createMessage(2, SerialMessagePriority.Get);
+        SerialMessage second = createMessage(2, SerialMessagePriority.Get);
+        queue.add(second);
+        queue.add(first);
+
+        assertSame(first, queue.take());
+        assertSame(second, queue.take());
+    }
+
+    @Test
+    public void testHigherPriorityIsServedFirst() throws InterruptedException {
+        SerialMessage poll = createMessage(2, SerialMessagePriority.Poll);
+        SerialMessage set = createMessage(2, SerialMessagePriority.Set);
+        SerialMessage get = createMessage(3, SerialMessagePriority.Get);
+        SerialMessage high = createMessage(4, SerialMessagePriority.High);
+        queue.add(poll);
+        queue.add(get);
+        queue.add(set);
+        queue.add(high);
+
+        assertSame(high, queue.take());
+        assertSame(set, queue.take());
+        assertSame(get, queue.take());
+        assertSame(poll, queue.take());
+    }
+
+    @Test
+    public void testPriorityWinsOverRoundRobin() throws InterruptedException {
+        queue.add(createMessage(2, SerialMessagePriority.High));
+        queue.add(createMessage(2, SerialMessagePriority.High));
+        queue.add(createMessage(3, SerialMessagePriority.Poll));
+
+        assertEquals(2, queue.take().getMessageNode());
+        assertEquals(2, queue.take().getMessageNode());
+        assertEquals(3, queue.take().getMessageNode());
+    }
+
+    @Test
+    public void testConfiguredTimeoutIsUsedUntilEnoughSamples() {
+        assertEquals(CONFIGURED_TIMEOUT, queue.getResponseTimeout(2, CONFIGURED_TIMEOUT));
+        for (int i = 0; i < 4; i++) {
+            queue.recordResponse(2, 100);
+        }
+        assertEquals(CONFIGURED_TIMEOUT, queue.getResponseTimeout(2, CONFIGURED_TIMEOUT));
+
+        queue.recordResponse(2, 100);
+        assertTrue(queue.getResponseTimeout(2, CONFIGURED_TIMEOUT) < CONFIGURED_TIMEOUT);
+    }
+
+    @Test
+    public void testTimeoutFollowsResponseTimes() {
+        for (int i = 0; i < 5; i++) {
+            queue.recordResponse(2, 3000);
+        }
+        long slowTimeout = queue.getResponseTimeout(2, CONFIGURED_TIMEOUT);
+        assertTrue(slowTimeout > 3000);
+        assertTrue(slowTimeout < CONFIGURED_TIMEOUT);
+
+        for (int i = 0; i < 20; i++) {
+            queue.recordResponse(2, 200);
+        }
+        long fastTimeout = queue.getResponseTimeout(2, CONFIGURED_TIMEOUT);
+        assertTrue(fastTimeout < slowTimeout);
+
+        for (int i = 0; i < 50; i++) {
+            queue.recordResponse(2, 200);
+        }
+        assertEquals(1500, queue.getResponseTimeout(2, CONFIGURED_TIMEOUT));
+
+        // other nodes are not affected
+        assertEquals(CONFIGURED_TIMEOUT, queue.getResponseTimeout(3, CONFIGURED_TIMEOUT));
+    }
+
+    @Test
+    public void testTimeoutIsLimitedByConfiguration() {
+        for (int i = 0; i < 5; i++) {
+            queue.recordResponse(2, 8000);
+        }
+        assertEquals(CONFIGURED_TIMEOUT, queue.getResponseTimeout(2, CONFIGURED_TIMEOUT));
+    }
+
+    @Test
+    public void testTimeoutFallsBackAfterTimeout() {
+        for (int i = 0; i < 5; i++) {
+            queue.recordResponse(2, 200);
+        }
+        assertEquals(1500, queue.getResponseTimeout(2, CONFIGURED_TIMEOUT));
+
+        queue.recordTimeout(2);
+        assertEquals(CONFIGURED_TIMEOUT, queue.getResponseTimeout(2, CONFIGURED_TIMEOUT));
+        assertEquals(1, queue.getStatistics().get(2).getTimeouts());
+
+        queue.recordResponse(2, 200);
+        assertEquals(1500, queue.getResponseTimeout(2, CONFIGURED_TIMEOUT));
+    }
+
+    private SerialMessage createMessage(int nodeId, SerialMessagePriority priority) {
+        return new SerialMessage(nodeId, SerialMessageClass.IdentifyNode, SerialMessageType.Request,
+                SerialMessageClass.IdentifyNode, priority);
+    }
+
+}
@@ -0,0 +1,249 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.zwave.internal.protocol.initialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.zwave.internal.protocol.ZWaveNode;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveBasicCommandClass;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass;
+
+/**
+ * Tests the XML files and the binary node cache of the {@link ZWaveNodeSerializer}.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ZWaveNodeSerializerTest {
+
+    private static final String USERDATA_PROPERTY = "smarthome.userdata";
+
+    private File userData;
+
+    private File folder;
+
+    private String previousUserData;
+
+    @Before
+    public void setUp() throws IOException {
+        userData = File.createTempFile("zwave", "");
+        userData.delete();
+        folder = new File(userData, "zwave");
+        previousUserData = System.getProperty(USERDATA_PROPERTY);
+        System.setProperty(USERDATA_PROPERTY, userData.getPath());
+    }
+
+    @After
+    public void tearDown() {
+        if (previousUserData != null) {
+            System.setProperty(USERDATA_PROPERTY, previousUserData);
+        } else {
+            System.clearProperty(USERDATA_PROPERTY);
+        }
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        folder.delete();
+        userData.delete();
+    }
+
+    @Test
+    public void testRoundTrip() {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer();
+        serializer.SerializeNode(createNode(5));
+
+        File file = new File(folder, "node5.xml");
+        assertTrue(file.isFile());
+
+        ZWaveNode node = new ZWaveNodeSerializer().DeserializeNode(5);
+        assertNotNull(node);
+        assertEquals(5, node.getNodeId());
+        assertEquals(0x86, node.getManufacturer());
+        assertEquals(0x64, node.getDeviceId());
+        assertEquals(0x3, node.getDeviceType());
+        assertEquals("Lamp", node.getName());
+        assertEquals("Kitchen", node.getLocation());
+        assertTrue(node.isListening());
+        assertNotNull(node.getCommandClass(CommandClass.BASIC));
+    }
+
+    @Test
+    public void testReadsExistingXml() throws IOException {
+        new ZWaveNodeSerializer();
+        // a node file as it has been written by earlier versions and edited by a user
+        write(new File(folder, "node7.xml"),
+                "<node>\n"
+                        + "  <deviceClass>\n"
+                        + "    <basicDeviceClass>ROUTING_SLAVE</basicDeviceClass>\n"
+                        + "    <genericDeviceClass>THERMOSTAT</genericDeviceClass>\n"
+                        + "    <specificDeviceClass>NOT_USED</specificDeviceClass>\n"
+                        + "  </deviceClass>\n"
+                        + "  <homeId>0xca77fe42</homeId>\n"
+                        + "  <nodeId>7</nodeId>\n"
+                        + "  <name>Heater</name>\n"
+                        + "  <manufacturer>0x10f</manufacturer>\n"
+                        + "  <listening>false</listening>\n"
+                        + "  <supportedCommandClasses>\n"
+                        + "    <entry>\n"
+                        + "      <commandClass>BASIC</commandClass>\n"
+                        + "      <basicCommandClass>\n"
+                        + "        <version>1</version>\n"
+                        + "        <instances>0</instances>\n"
+                        + "      </basicCommandClass>\n"
+                        + "    </entry>\n"
+                        + "  </supportedCommandClasses>\n"
+                        + "  <nodeNeighbors/>\n"
+                        + "</node>\n");
+
+        ZWaveNode node = new ZWaveNodeSerializer().DeserializeNode(7);
+        assertNotNull(node);
+        assertEquals(7, node.getNodeId());
+        assertEquals("Heater", node.getName());
+        assertEquals(0x10f, node.getManufacturer());
+        assertFalse(node.isListening());
+        assertEquals(1, node.getCommandClass(CommandClass.BASIC).getVersion());
+    }
+
+    @Test
+    public void testUnchangedNodeIsNotRewritten() {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer();
+        ZWaveNode node = createNode(9);
+        serializer.SerializeNode(node);
+
+        File file = new File(folder, "node9.xml");
+        long lastModified = file.lastModified() - 10000;
+        file.setLastModified(lastModified);
+        serializer.SerializeNode(node);
+        assertEquals(lastModified, file.lastModified());
+
+        node.setLocation("Living room");
+        serializer.SerializeNode(node);
+        assertEquals("Living room", serializer.DeserializeNode(9).getLocation());
+    }
+
+    @Test
+    public void testIncompleteNodeIsNotSerialized() {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer();
+        ZWaveNode node = createNode(11);
+        node.setNodeStage(ZWaveNodeInitStage.PROTOINFO);
+        serializer.SerializeNode(node);
+
+        assertFalse(new File(folder, "node11.xml").exists());
+        assertNull(serializer.DeserializeNode(11));
+    }
+
+    @Test
+    public void testDeleteNode() {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer();
+        serializer.SerializeNode(createNode(13));
+
+        assertTrue(serializer.DeleteNode(13));
+        assertNull(serializer.DeserializeNode(13));
+        assertFalse(serializer.DeleteNode(13));
+    }
+
+    @Test
+    public void testBinaryCacheIsWrittenWithXml() {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer();
+        serializer.SerializeNode(createNode(15));
+
+        assertTrue(new File(folder, "node15.bin").isFile());
+        assertFalse(new File(folder, "node15.xml.tmp").exists());
+        assertFalse(new File(folder, "node15.bin.tmp").exists());
+        assertEquals("Kitchen", serializer.DeserializeNode(15).getLocation());
+    }
+
+    @Test
+    public void testExistingXmlIsImportedIntoBinaryCache() throws IOException {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer();
+        serializer.SerializeNode(createNode(17));
+        File binaryFile = new File(folder, "node17.bin");
+        assertTrue(binaryFile.delete());
+
+        assertEquals("Lamp", serializer.DeserializeNode(17).getName());
+        assertTrue(binaryFile.isFile());
+
+        // the cache must be usable on its own: a broken XStream stream in it would make the next read fail
+        assertEquals("Lamp", new ZWaveNodeSerializer().DeserializeNode(17).getName());
+    }
+
+    @Test
+    public void testEditedXmlWinsOverBinaryCache() throws IOException {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer();
+        serializer.SerializeNode(createNode(19));
+
+        File file = new File(folder, "node19.xml");
+        String xml = new String(Files.readAllBytes(file.toPath()), "UTF-8");
+        write(file, xml.replace("<name>Lamp</name>", "<name>Ceiling</name>"));
+
+        assertEquals("Ceiling", serializer.DeserializeNode(19).getName());
+        // the cache has been updated with the edited node
+        assertEquals("Ceiling", new ZWaveNodeSerializer().DeserializeNode(19).getName());
+    }
+
+    @Test
+    public void testBrokenBinaryCacheFallsBackToXml() throws IOException {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer();
+        serializer.SerializeNode(createNode(21));
+        write(new File(folder, "node21.bin"), "garbage");
+
+        ZWaveNode node = serializer.DeserializeNode(21);
+        assertNotNull(node);
+        assertEquals("Lamp", node.getName());
+    }
+
+    @Test
+    public void testDeleteNodeRemovesBinaryCache() {
+        ZWaveNodeSerializer serializer = new ZWaveNodeSerializer();
+        serializer.SerializeNode(createNode(23));
+
+        assertTrue(serializer.DeleteNode(23));
+        assertFalse(new File(folder, "node23.xml").exists());
+        assertFalse(new File(folder, "node23.bin").exists());
+    }
+
+    private ZWaveNode createNode(int nodeId) {
+        ZWaveNode node = new ZWaveNode(0xca77fe42, nodeId, null);
+        node.setManufacturer(0x86);
+        node.setDeviceId(0x64);
+        node.setDeviceType(0x3);
+        node.setName("Lamp");
+        node.setLocation("Kitchen");
+        node.setListening(true);
+        node.addCommandClass(new ZWaveBasicCommandClass(node, null, null));
+        node.setNodeStage(ZWaveNodeInitStage.DONE);
+        return node;
+    }
+
+    private void write(File file, String content) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+}
@@ -8,6 +8,8 @@
  */
 package org.openhab.binding.zwave;
 
+import java.util.Collection;
+
 import org.openhab.core.autoupdate.AutoUpdateBindingProvider;
 import org.openhab.core.items.Item;
 
@@ -36,4 +38,15 @@ public interface ZWaveBindingProvider extends AutoUpdateBindingProvider {
      * @return the item.
      */
     public Item getItem(String itemName);
+
+    /**
+     * Returns the names of all items which are bound to the given node and endpoint.
+     * The result is taken from an index, so this is much cheaper than iterating over
+     * {@link #getItemNames()} and comparing each binding configuration.
+     *
+     * @param nodeId the node ID of the items.
+     * @param endpoint the endpoint of the items.
+     * @return the item names, never <code>null</code>.
+     */
+    public Collection<String> getItemNames(int nodeId, int endpoint);
 }
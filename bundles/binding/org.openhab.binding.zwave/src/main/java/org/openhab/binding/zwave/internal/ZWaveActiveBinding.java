@@ -468,14 +468,7 @@ public class ZWaveActiveBinding extends AbstractActiveBinding<ZWaveBindingProvid
                         event.getValue() });
 
         for (ZWaveBindingProvider provider : providers) {
-            for (String itemName : provider.getItemNames()) {
-                ZWaveBindingConfig bindingConfig = provider.getZwaveBindingConfig(itemName);
-
-                if (bindingConfig.getNodeId() != event.getNodeId()
-                        || bindingConfig.getEndpoint() != event.getEndpoint()) {
-                    continue;
-                }
-
+            for (String itemName : provider.getItemNames(event.getNodeId(), event.getEndpoint())) {
                 converterHandler.handleEvent(provider, itemName, event);
                 handled = true;
             }
@@ -8,8 +8,16 @@
  */
 package org.openhab.binding.zwave.internal;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.openhab.binding.zwave.ZWaveBindingConfig;
 import org.openhab.binding.zwave.ZWaveBindingProvider;
@@ -33,6 +41,9 @@ public class ZWaveGenericBindingProvider extends AbstractGenericBindingProvider
     private static final Logger logger = LoggerFactory.getLogger(ZWaveGenericBindingProvider.class);
     private final Map<String, Item> items = new HashMap<String, Item>();
 
+    /** index of the bound item names by node ID and endpoint, see {@link #getEndpointKey(int, int)} */
+    private final Map<Integer, Set<String>> itemsByEndpoint = new ConcurrentHashMap<Integer, Set<String>>();
+
     /**
      * {@inheritDoc}
      */
@@ -119,8 +130,74 @@ public class ZWaveGenericBindingProvider extends AbstractGenericBindingProvider
         }
 
         ZWaveBindingConfig config = new ZWaveBindingConfig(nodeId, endpoint, refreshInterval, arguments);
+        unindexItem(item.getName());
         addBindingConfig(item, config);
         items.put(item.getName(), item);
+        indexItem(item.getName(), config);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeConfigurations(String context) {
+        List<String> itemNames = new ArrayList<String>();
+        synchronized (contextMap) {
+            Set<Item> contextItems = contextMap.get(context);
+            if (contextItems != null) {
+                for (Item item : contextItems) {
+                    itemNames.add(item.getName());
+                }
+            }
+        }
+
+        super.removeConfigurations(context);
+
+        for (String itemName : itemNames) {
+            if (!providesBindingFor(itemName)) {
+                unindexItem(itemName);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<String> getItemNames(int nodeId, int endpoint) {
+        Set<String> itemNames = itemsByEndpoint.get(getEndpointKey(nodeId, endpoint));
+        if (itemNames == null) {
+            return Collections.emptySet();
+        }
+        return itemNames;
+    }
+
+    private void indexItem(String itemName, ZWaveBindingConfig config) {
+        Integer key = getEndpointKey(config.getNodeId(), config.getEndpoint());
+        synchronized (itemsByEndpoint) {
+            Set<String> itemNames = itemsByEndpoint.get(key);
+            if (itemNames == null) {
+                itemNames = new CopyOnWriteArraySet<String>();
+                itemsByEndpoint.put(key, itemNames);
+            }
+            itemNames.add(itemName);
+        }
+    }
+
+    private void unindexItem(String itemName) {
+        synchronized (itemsByEndpoint) {
+            Iterator<Set<String>> iterator = itemsByEndpoint.values().iterator();
+            while (iterator.hasNext()) {
+                Set<String> itemNames = iterator.next();
+                if (itemNames.remove(itemName) && itemNames.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static Integer getEndpointKey(int nodeId, int endpoint) {
+        return (nodeId << 8) | (endpoint & 0xff);
     }
 
     /**
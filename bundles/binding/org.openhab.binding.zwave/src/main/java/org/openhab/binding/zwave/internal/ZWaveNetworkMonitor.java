@@ -24,6 +24,7 @@ import org.openhab.binding.zwave.internal.protocol.ZWaveController;
 import org.openhab.binding.zwave.internal.protocol.ZWaveEventListener;
 import org.openhab.binding.zwave.internal.protocol.ZWaveNode;
 import org.openhab.binding.zwave.internal.protocol.ZWaveNodeState;
+import org.openhab.binding.zwave.internal.protocol.ZWaveTransmitQueue;
 import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveAssociationCommandClass;
 import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass;
 import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass;
@@ -312,6 +313,32 @@ public final class ZWaveNetworkMonitor implements ZWaveEventListener {
         return true;
     }
 
+    /**
+     * Returns the transmit statistics of a node, or null if nothing has been sent to the node yet.
+     *
+     * @param nodeId
+     *            the node ID
+     * @return the queue length, response time and timeout statistics of the node
+     */
+    public ZWaveTransmitQueue.NodeStatistics getTransmitStatistics(int nodeId) {
+        return zController.getTransmitStatistics().get(nodeId);
+    }
+
+    /**
+     * Logs the transmit statistics of all nodes which have messages queued.
+     */
+    private void logTransmitStatistics() {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+        for (Map.Entry<Integer, ZWaveTransmitQueue.NodeStatistics> entry : zController.getTransmitStatistics()
+                .entrySet()) {
+            if (entry.getValue().getQueueLength() > 0) {
+                logger.debug("NODE {}: Transmit statistics: {}", entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
     /**
      * The execute method is called periodically from the binding. It is the
      * main entry point for the network monitor class. It will (optionally)
@@ -322,6 +349,7 @@ public final class ZWaveNetworkMonitor implements ZWaveEventListener {
         if (zController.getSendQueueLength() > 1) {
             logger.debug("Network Monitor: Queue length is {} - deferring network monitor functions.",
                     zController.getSendQueueLength());
+            logTransmitStatistics();
             return;
         }
 
@@ -666,6 +666,25 @@ public class SerialMessage {
          */
         @Override
         public int compare(SerialMessage arg0, SerialMessage arg1) {
+            int res = comparePriority(arg0, arg1);
+
+            if (res == 0 && arg0 != arg1) {
+                res = (arg0.sequenceNumber < arg1.sequenceNumber ? -1 : 1);
+            }
+
+            return res;
+        }
+
+        /**
+         * Compares the sending priority of two serial messages, not taking into account
+         * the order in which they have been created.
+         *
+         * @param arg0 the first serial message to compare the other to.
+         * @param arg1 the other serial message to compare the first one to.
+         * @return a negative value if arg0 should be sent first, a positive value if arg1
+         *         should be sent first, and 0 if both have the same priority.
+         */
+        public int comparePriority(SerialMessage arg0, SerialMessage arg1) {
 
             boolean arg0Awake = false;
             boolean arg0Listening = true;
@@ -718,13 +737,7 @@ public class SerialMessage {
                 return 1;
             }
 
-            int res = arg0.priority.compareTo(arg1.priority);
-
-            if (res == 0 && arg0 != arg1) {
-                res = (arg0.sequenceNumber < arg1.sequenceNumber ? -1 : 1);
-            }
-
-            return res;
+            return arg0.priority.compareTo(arg1.priority);
         }
     }
 }
@@ -12,6 +12,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.TooManyListenersException;
@@ -87,7 +88,6 @@ public class ZWaveController {
 
     private static final int ZWAVE_RESPONSE_TIMEOUT = 5000; // 5000 ms ZWAVE_RESPONSE TIMEOUT
     private static final int ZWAVE_RECEIVE_TIMEOUT = 1000; // 1000 ms ZWAVE_RECEIVE_TIMEOUT
-    private static final int INITIAL_TX_QUEUE_SIZE = 128;
     private static final int INITIAL_RX_QUEUE_SIZE = 8;
     private static final long WATCHDOG_TIMER_PERIOD = 10000; // 10 seconds watchdog timer
 
@@ -97,8 +97,7 @@ public class ZWaveController {
 
     private final ConcurrentHashMap<Integer, ZWaveNode> zwaveNodes = new ConcurrentHashMap<Integer, ZWaveNode>();
     private final ArrayList<ZWaveEventListener> zwaveEventListeners = new ArrayList<ZWaveEventListener>();
-    private final PriorityBlockingQueue<SerialMessage> sendQueue = new PriorityBlockingQueue<SerialMessage>(
-            INITIAL_TX_QUEUE_SIZE, new SerialMessage.SerialMessageComparator(this));
+    private final ZWaveTransmitQueue sendQueue = new ZWaveTransmitQueue(new SerialMessage.SerialMessageComparator(this));
     private final PriorityBlockingQueue<SerialMessage> recvQueue = new PriorityBlockingQueue<SerialMessage>(
             INITIAL_RX_QUEUE_SIZE, new SerialMessage.SerialMessageComparator(this));
     private ZWaveSendThread sendThread;
@@ -639,6 +638,16 @@ public class ZWaveController {
         return this.sendQueue.size();
     }
 
+    /**
+     * Returns the transmit statistics (queue length, response times and timeouts) of all
+     * nodes that messages have been sent to.
+     *
+     * @return the statistics, keyed by node ID.
+     */
+    public Map<Integer, ZWaveTransmitQueue.NodeStatistics> getTransmitStatistics() {
+        return this.sendQueue.getStatistics();
+    }
+
     /**
      * Notify our own event listeners of a Z-Wave event.
      *
@@ -1296,6 +1305,13 @@ public class ZWaveController {
                     // Clear the semaphore used to acknowledge the completed transaction.
                     transactionCompleted.drainPermits();
 
+                    // Messages to nodes wait for the adaptive timeout of the node, so that
+                    // a node which doesn't respond doesn't hold up the queue longer than needed
+                    int messageNode = lastSentMessage.getMessageNode();
+                    boolean isNodeMessage = lastSentMessage.getMessageClass() == SerialMessageClass.SendData;
+                    long responseTimeout = isNodeMessage
+                            ? sendQueue.getResponseTimeout(messageNode, zWaveResponseTimeout) : zWaveResponseTimeout;
+
                     // Send the REQUEST message TO the controller
                     byte[] buffer = lastSentMessage.getMessageBuffer();
                     logger.debug("NODE {}: Sending REQUEST Message = {}", lastSentMessage.getMessageNode(),
@@ -1317,8 +1333,11 @@ public class ZWaveController {
                     // So, this might complete on a RESPONSE if there's an error (or no further REQUEST expected)
                     // or it might complete on a subsequent REQUEST.
                     try {
-                        if (!transactionCompleted.tryAcquire(1, zWaveResponseTimeout, TimeUnit.MILLISECONDS)) {
+                        if (!transactionCompleted.tryAcquire(1, responseTimeout, TimeUnit.MILLISECONDS)) {
                             timeOutCount.incrementAndGet();
+                            if (isNodeMessage) {
+                                sendQueue.recordTimeout(messageNode);
+                            }
                             // If this is a SendData message, then we need to abort
                             // This should only be sent if we didn't get the initial ACK!!!
                             // So we need to check the ACK flag and only abort if it's not set
@@ -1361,6 +1380,9 @@ public class ZWaveController {
                         if (responseTime > longestResponseTime) {
                             longestResponseTime = responseTime;
                         }
+                        if (isNodeMessage) {
+                            sendQueue.recordResponse(messageNode, responseTime);
+                        }
                         logger.debug("NODE {}: Response processed after {}ms/{}ms.", lastSentMessage.getMessageNode(),
                                 responseTime, longestResponseTime);
                         logger.trace("Acquired. Transaction completed permit count -> {}",
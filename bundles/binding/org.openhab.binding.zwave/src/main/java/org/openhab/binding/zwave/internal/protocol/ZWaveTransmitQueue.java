@@ -0,0 +1,282 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.zwave.internal.protocol;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * The transmit queue of the {@link ZWaveController}. Messages are held in one queue per
+ * node. When the next message is taken, the node queues are scheduled fairly: of all
+ * messages with the highest priority, the one for the node that has been served longest
+ * ago is sent first. A node which needs retries or is slow to respond therefore can't
+ * starve the other nodes with messages of the same priority.
+ * <p>
+ * The queue also keeps transmit statistics per node. The measured round trip times are
+ * used to derive an adaptive response timeout for each node.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ZWaveTransmitQueue {
+
+    private static final int INITIAL_NODE_QUEUE_SIZE = 8;
+
+    /** the number of responses after which the measured round trip time is used */
+    private static final int MIN_RTT_SAMPLES = 5;
+
+    /** the lowest adaptive response timeout */
+    private static final long MIN_RESPONSE_TIMEOUT = 1500;
+
+    private final SerialMessage.SerialMessageComparator comparator;
+    private final Map<Integer, PriorityQueue<SerialMessage>> nodeQueues = new HashMap<Integer, PriorityQueue<SerialMessage>>();
+    private final Map<Integer, NodeStatistics> statistics = new HashMap<Integer, NodeStatistics>();
+    private int size = 0;
+    private long serveCounter = 0;
+
+    /**
+     * Constructor. Creates a new transmit queue.
+     *
+     * @param comparator the comparator which defines the priority of the messages.
+     */
+    public ZWaveTransmitQueue(SerialMessage.SerialMessageComparator comparator) {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Adds a message to the queue of its node.
+     *
+     * @param serialMessage the message to add.
+     */
+    public synchronized void add(SerialMessage serialMessage) {
+        int nodeId = serialMessage.getMessageNode();
+        PriorityQueue<SerialMessage> queue = nodeQueues.get(nodeId);
+        if (queue == null) {
+            queue = new PriorityQueue<SerialMessage>(INITIAL_NODE_QUEUE_SIZE, comparator);
+            nodeQueues.put(nodeId, queue);
+        }
+        queue.add(serialMessage);
+        getStatistics(nodeId).queued++;
+        size++;
+        notifyAll();
+    }
+
+    /**
+     * Takes the next message to send, waiting for one if the queue is empty.
+     *
+     * @return the next message.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public synchronized SerialMessage take() throws InterruptedException {
+        while (size == 0) {
+            wait();
+        }
+
+        int bestNode = 0;
+        SerialMessage best = null;
+        for (Map.Entry<Integer, PriorityQueue<SerialMessage>> entry : nodeQueues.entrySet()) {
+            SerialMessage head = entry.getValue().peek();
+            if (head == null) {
+                continue;
+            }
+            if (best == null) {
+                best = head;
+                bestNode = entry.getKey();
+                continue;
+            }
+
+            // the priority decides first, then the node that has waited longest,
+            // then the order in which the messages have been queued
+            int res = comparator.comparePriority(head, best);
+            if (res == 0) {
+                long headServed = getStatistics(entry.getKey()).lastServed;
+                long bestServed = getStatistics(bestNode).lastServed;
+                res = headServed < bestServed ? -1 : (headServed > bestServed ? 1 : comparator.compare(head, best));
+            }
+            if (res < 0) {
+                best = head;
+                bestNode = entry.getKey();
+            }
+        }
+
+        nodeQueues.get(bestNode).poll();
+        NodeStatistics nodeStatistics = getStatistics(bestNode);
+        nodeStatistics.queued--;
+        nodeStatistics.lastServed = ++serveCounter;
+        size--;
+        return best;
+    }
+
+    /**
+     * Removes all messages from the queue.
+     */
+    public synchronized void clear() {
+        nodeQueues.clear();
+        for (NodeStatistics nodeStatistics : statistics.values()) {
+            nodeStatistics.queued = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * @return the total number of queued messages.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Records the round trip time of a completed transaction with a node.
+     *
+     * @param nodeId the node ID.
+     * @param responseTime the time from sending the request until the transaction completed.
+     */
+    public synchronized void recordResponse(int nodeId, long responseTime) {
+        getStatistics(nodeId).recordResponse(responseTime);
+    }
+
+    /**
+     * Records a transaction with a node that has timed out.
+     *
+     * @param nodeId the node ID.
+     */
+    public synchronized void recordTimeout(int nodeId) {
+        NodeStatistics nodeStatistics = getStatistics(nodeId);
+        nodeStatistics.timeouts++;
+        nodeStatistics.consecutiveTimeouts++;
+    }
+
+    /**
+     * Returns the time to wait for the completion of a transaction with a node. As long
+     * as there are too few measurements, or the last transaction has timed out, this is the
+     * configured timeout. Otherwise it is derived from the smoothed round trip time and its
+     * variation (as TCP does), bounded by the configured timeout.
+     *
+     * @param nodeId the node ID.
+     * @param configuredTimeout the configured response timeout in milliseconds.
+     * @return the response timeout in milliseconds.
+     */
+    public synchronized long getResponseTimeout(int nodeId, long configuredTimeout) {
+        NodeStatistics nodeStatistics = statistics.get(nodeId);
+        if (nodeStatistics == null || nodeStatistics.responses < MIN_RTT_SAMPLES
+                || nodeStatistics.consecutiveTimeouts > 0) {
+            return configuredTimeout;
+        }
+        long timeout = (long) (nodeStatistics.smoothedRtt + 4 * nodeStatistics.rttVariation);
+        return Math.min(configuredTimeout, Math.max(MIN_RESPONSE_TIMEOUT, timeout));
+    }
+
+    /**
+     * Returns a snapshot of the transmit statistics of all nodes which have been sent to.
+     *
+     * @return the statistics, keyed by node ID.
+     */
+    public synchronized Map<Integer, NodeStatistics> getStatistics() {
+        Map<Integer, NodeStatistics> snapshot = new TreeMap<Integer, NodeStatistics>();
+        for (Map.Entry<Integer, NodeStatistics> entry : statistics.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().copy());
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    private NodeStatistics getStatistics(int nodeId) {
+        NodeStatistics nodeStatistics = statistics.get(nodeId);
+        if (nodeStatistics == null) {
+            nodeStatistics = new NodeStatistics();
+            statistics.put(nodeId, nodeStatistics);
+        }
+        return nodeStatistics;
+    }
+
+    /**
+     * Transmit statistics of a single node.
+     */
+    public static class NodeStatistics {
+        private int queued;
+        private long lastServed;
+        private long responses;
+        private long timeouts;
+        private int consecutiveTimeouts;
+        private double smoothedRtt;
+        private double rttVariation;
+        private long maxRtt;
+
+        void recordResponse(long rtt) {
+            if (responses == 0) {
+                smoothedRtt = rtt;
+                rttVariation = rtt / 2.0;
+            } else {
+                rttVariation = 0.75 * rttVariation + 0.25 * Math.abs(smoothedRtt - rtt);
+                smoothedRtt = 0.875 * smoothedRtt + 0.125 * rtt;
+            }
+            if (rtt > maxRtt) {
+                maxRtt = rtt;
+            }
+            responses++;
+            consecutiveTimeouts = 0;
+        }
+
+        NodeStatistics copy() {
+            NodeStatistics copy = new NodeStatistics();
+            copy.queued = queued;
+            copy.lastServed = lastServed;
+            copy.responses = responses;
+            copy.timeouts = timeouts;
+            copy.consecutiveTimeouts = consecutiveTimeouts;
+            copy.smoothedRtt = smoothedRtt;
+            copy.rttVariation = rttVariation;
+            copy.maxRtt = maxRtt;
+            return copy;
+        }
+
+        /**
+         * @return the number of messages queued for the node.
+         */
+        public int getQueueLength() {
+            return queued;
+        }
+
+        /**
+         * @return the number of completed transactions.
+         */
+        public long getResponses() {
+            return responses;
+        }
+
+        /**
+         * @return the number of transactions that have timed out.
+         */
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        /**
+         * @return the smoothed round trip time in milliseconds.
+         */
+        public long getAverageResponseTime() {
+            return (long) smoothedRtt;
+        }
+
+        /**
+         * @return the longest round trip time in milliseconds.
+         */
+        public long getMaxResponseTime() {
+            return maxRtt;
+        }
+
+        @Override
+        public String toString() {
+            return "queue=" + queued + ", responses=" + responses + ", timeouts=" + timeouts + ", rtt="
+                    + (long) smoothedRtt + "ms, maxRtt=" + maxRtt + "ms";
+        }
+    }
+}
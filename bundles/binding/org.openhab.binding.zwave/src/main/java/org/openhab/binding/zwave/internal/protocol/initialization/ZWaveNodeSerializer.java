@@ -8,14 +8,24 @@
  */
 package org.openhab.binding.zwave.internal.protocol.initialization;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
 
 import org.openhab.binding.zwave.internal.protocol.ZWaveDeviceClass;
 import org.openhab.binding.zwave.internal.protocol.ZWaveEndpoint;
@@ -27,11 +37,27 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.XStreamException;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.io.binary.BinaryStreamDriver;
 import com.thoughtworks.xstream.io.xml.PrettyPrintWriter;
 import com.thoughtworks.xstream.io.xml.StaxDriver;
 
 /**
  * ZWaveNodeSerializer class. Serializes nodes to XML and back again.
+ * <p>
+ * Every node is stored in its own file <code>node&lt;id&gt;.xml</code>, which can be read and
+ * edited by users. The annotated XStream instance is set up once and shared by all serializers,
+ * and a file is only written if its content has changed. It is replaced through a temporary file,
+ * so a crash while writing can't leave a truncated node behind.
+ * <p>
+ * Next to the XML file, a binary node cache <code>node&lt;id&gt;.bin</code> is kept, which holds
+ * the XStream binary representation of the node and avoids the expensive XML parsing on startup.
+ * It starts with a magic number, a format version and the length and checksum of the XML file it
+ * has been created from. It is only used if it matches the current XML file, so the XML file
+ * always wins if it has been edited, and an XML file without binary cache (e.g. from an earlier
+ * version) is imported into the cache when the node is loaded for the first time. Nodes are
+ * loaded lazily, one file per node, when the controller restores them.
  *
  * @author Jan-Willem Spuij
  * @since 1.4.0
@@ -39,7 +65,18 @@ import com.thoughtworks.xstream.io.xml.StaxDriver;
 public class ZWaveNodeSerializer {
 
     private static final Logger logger = LoggerFactory.getLogger(ZWaveNodeSerializer.class);
-    private final XStream stream = new XStream(new StaxDriver());
+
+    /** "OHZN" */
+    private static final int MAGIC = 0x4f485a4e;
+
+    /** the format version of the binary cache, to be increased with incompatible changes of the node classes */
+    private static final int VERSION = 1;
+
+    private static final BinaryStreamDriver binaryDriver = new BinaryStreamDriver();
+
+    /** the XStream instance is expensive to set up, so it is shared by all serializers */
+    private static XStream stream;
+
     private String folderName = "etc/zwave";
 
     /**
@@ -64,34 +101,56 @@ public class ZWaveNodeSerializer {
             logger.debug("Creating directory {}", folderName);
             folder.mkdirs();
         }
-        stream.processAnnotations(ZWaveNode.class);
-        stream.processAnnotations(ZWaveEndpoint.class);
-        stream.processAnnotations(ZWaveDeviceClass.class);
-        stream.processAnnotations(ZWaveCommandClass.class);
-        stream.processAnnotations(CommandClass.class);
-        for (CommandClass commandClass : CommandClass.values()) {
-            Class<? extends ZWaveCommandClass> cc = commandClass.getCommandClassClass();
-
-            if (cc == null) {
-                continue;
+        logger.trace("Initialized ZWaveNodeSerializer.");
+    }
+
+    private static XStream getStream() {
+        synchronized (ZWaveNodeSerializer.class) {
+            if (stream != null) {
+                return stream;
             }
 
-            stream.processAnnotations(cc);
-            for (Class<?> inner : cc.getDeclaredClasses()) {
-                stream.processAnnotations(inner);
+            XStream newStream = new XStream(new StaxDriver());
+            newStream.processAnnotations(ZWaveNode.class);
+            newStream.processAnnotations(ZWaveEndpoint.class);
+            newStream.processAnnotations(ZWaveDeviceClass.class);
+            newStream.processAnnotations(ZWaveCommandClass.class);
+            newStream.processAnnotations(CommandClass.class);
+            for (CommandClass commandClass : CommandClass.values()) {
+                Class<? extends ZWaveCommandClass> cc = commandClass.getCommandClassClass();
+
+                if (cc == null) {
+                    continue;
+                }
+
+                newStream.processAnnotations(cc);
+                for (Class<?> inner : cc.getDeclaredClasses()) {
+                    newStream.processAnnotations(inner);
+                }
             }
+            newStream.processAnnotations(MeterScale.class);
+            stream = newStream;
+            return stream;
         }
-        stream.processAnnotations(MeterScale.class);
-        logger.trace("Initialized ZWaveNodeSerializer.");
+    }
+
+    private File getFile(int nodeId) {
+        return new File(this.folderName, String.format("node%d.xml", nodeId));
+    }
+
+    private File getBinaryFile(int nodeId) {
+        return new File(this.folderName, String.format("node%d.bin", nodeId));
     }
 
     /**
-     * Serializes an XML tree of a {@link ZWaveNode}
+     * Serializes an XML tree of a {@link ZWaveNode}. The file and the binary
+     * cache are only written if the content has changed.
      *
      * @param node
      *            the node to serialize
      */
     public void SerializeNode(ZWaveNode node) {
+        XStream stream = getStream();
         synchronized (stream) {
             // Don't serialise if the stage is not at least finished static
             // If we do serialise when we haven't completed the static stages
@@ -101,39 +160,134 @@ public class ZWaveNodeSerializer {
                 return;
             }
 
-            File file = new File(this.folderName, String.format("node%d.xml", node.getNodeId()));
-            BufferedWriter writer = null;
-
-            logger.debug("NODE {}: Serializing to file {}", node.getNodeId(), file.getPath());
+            File file = getFile(node.getNodeId());
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
 
             try {
-                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+                Writer writer = new OutputStreamWriter(buffer, "UTF-8");
                 stream.marshal(node, new PrettyPrintWriter(writer));
                 writer.flush();
+            } catch (IOException | XStreamException e) {
+                logger.error("NODE {}: Error serializing node: {}", node.getNodeId(), e.getMessage());
+                return;
+            }
+
+            byte[] content = buffer.toByteArray();
+            File binaryFile = getBinaryFile(node.getNodeId());
+            if (hasContent(file, content)) {
+                if (!binaryFile.exists()) {
+                    writeBinary(stream, node, content, binaryFile);
+                }
+                logger.debug("NODE {}: Serialise skipped as node is unchanged", node.getNodeId());
+                return;
+            }
+
+            logger.debug("NODE {}: Serializing to file {}", node.getNodeId(), file.getPath());
+
+            try {
+                writeFile(file, content);
             } catch (IOException e) {
                 logger.error("NODE {}: Error serializing to file: {}", node.getNodeId(), e.getMessage());
-            } finally {
-                if (writer != null) {
-                    try {
-                        writer.close();
-                    } catch (IOException e) {
-                    }
+                return;
+            }
+            writeBinary(stream, node, content, binaryFile);
+        }
+    }
+
+    /**
+     * Writes the binary cache of a node, which belongs to the given XML content.
+     */
+    private void writeBinary(XStream stream, ZWaveNode node, byte[] xml, File binaryFile) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+        try {
+            DataOutputStream header = new DataOutputStream(buffer);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(xml.length);
+            header.writeLong(checksum(xml));
+            header.flush();
+            HierarchicalStreamWriter writer = binaryDriver.createWriter(buffer);
+            stream.marshal(node, writer);
+            writer.flush();
+
+            writeFile(binaryFile, buffer.toByteArray());
+        } catch (IOException | XStreamException e) {
+            // the XML file is still there, so the node will be read from it next time
+            logger.warn("NODE {}: Error writing node cache: {}", node.getNodeId(), e.getMessage());
+            binaryFile.delete();
+        }
+    }
+
+    /**
+     * Replaces a file with the given content. The content is written to a temporary file
+     * first, which is then moved over the file in one step where the file system allows it.
+     */
+    private void writeFile(File file, byte[] content) throws IOException {
+        File tempFile = new File(this.folderName, file.getName() + ".tmp");
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(tempFile);
+            out.write(content);
+            out.close();
+            out = null;
+
+            try {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
                 }
             }
         }
     }
 
     /**
-     * Deserializes an XML tree of a {@link ZWaveNode}
+     * Checks whether a file has exactly the given content. Reading the file is
+     * cheaper than rewriting it, and the file may have been edited by the user.
+     */
+    private boolean hasContent(File file, byte[] content) {
+        if (file.length() != content.length) {
+            return false;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(file));
+            byte[] existing = new byte[content.length];
+            in.readFully(existing);
+            return in.read() == -1 && Arrays.equals(existing, content);
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Deserializes a {@link ZWaveNode}. The node is read from its binary cache if that
+     * matches the XML file, and from the XML file otherwise.
      *
      * @param nodeId
      *            the number of the node to deserialize
      * @return returns the Node or null in case Serialization failed.
      */
     public ZWaveNode DeserializeNode(int nodeId) {
+        XStream stream = getStream();
         synchronized (stream) {
-            File file = new File(this.folderName, String.format("node%d.xml", nodeId));
-            BufferedReader reader = null;
+            File file = getFile(nodeId);
 
             logger.debug("NODE {}: Serializing from file {}", nodeId, file.getPath());
 
@@ -142,23 +296,69 @@ public class ZWaveNodeSerializer {
                 return null;
             }
 
+            byte[] xml;
             try {
-                reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
-                return (ZWaveNode) stream.fromXML(reader);
+                xml = Files.readAllBytes(file.toPath());
             } catch (IOException e) {
                 logger.error("NODE {}: Error serializing from file: {}", nodeId, e.getMessage());
-            } finally {
-                if (reader != null) {
-                    try {
-                        reader.close();
-                    } catch (IOException e) {
-                    }
+                return null;
+            }
+
+            File binaryFile = getBinaryFile(nodeId);
+            if (binaryFile.exists()) {
+                ZWaveNode node = readBinary(stream, nodeId, xml, binaryFile);
+                if (node != null) {
+                    return node;
                 }
             }
+
+            ZWaveNode node;
+            try {
+                node = (ZWaveNode) stream
+                        .fromXML(new InputStreamReader(new ByteArrayInputStream(xml), "UTF-8"));
+            } catch (IOException | XStreamException | ClassCastException e) {
+                logger.error("NODE {}: Error serializing from file: {}", nodeId, e.getMessage());
+                return null;
+            }
+
+            // the XML file is new or has been edited, so the cache has to be (re)created
+            logger.debug("NODE {}: Updating node cache {}", nodeId, binaryFile.getPath());
+            writeBinary(stream, node, xml, binaryFile);
+            return node;
+        }
+    }
+
+    /**
+     * Reads a node from its binary cache.
+     *
+     * @return the node, or null if the cache doesn't belong to the given XML content or can't be read
+     */
+    private ZWaveNode readBinary(XStream stream, int nodeId, byte[] xml, File binaryFile) {
+        try {
+            InputStream in = new ByteArrayInputStream(Files.readAllBytes(binaryFile.toPath()));
+            DataInputStream header = new DataInputStream(in);
+            if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+                logger.debug("NODE {}: Ignoring node cache {} with unknown format", nodeId, binaryFile.getPath());
+                return null;
+            }
+            if (header.readInt() != xml.length || header.readLong() != checksum(xml)) {
+                logger.debug("NODE {}: Ignoring node cache {} as the XML file has changed", nodeId,
+                        binaryFile.getPath());
+                return null;
+            }
+            return (ZWaveNode) stream.unmarshal(binaryDriver.createReader(in));
+        } catch (IOException | XStreamException | ClassCastException e) {
+            logger.warn("NODE {}: Error reading node cache: {}", nodeId, e.getMessage());
             return null;
         }
     }
 
+    private static long checksum(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
     /**
      * Deletes the persistence store for the specified node.
      *
@@ -166,10 +366,10 @@ public class ZWaveNodeSerializer {
      * @return true if the file was deleted
      */
     public boolean DeleteNode(int nodeId) {
+        XStream stream = getStream();
         synchronized (stream) {
-            File file = new File(this.folderName, String.format("node%d.xml", nodeId));
-
-            return file.delete();
+            boolean deleted = getFile(nodeId).delete();
+            return getBinaryFile(nodeId).delete() || deleted;
         }
     }
 }
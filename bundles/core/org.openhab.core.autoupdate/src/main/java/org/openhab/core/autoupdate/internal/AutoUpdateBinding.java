@@ -8,11 +8,19 @@
  */
 package org.openhab.core.autoupdate.internal;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.openhab.core.autoupdate.AutoUpdateBindingProvider;
 import org.openhab.core.binding.AbstractBinding;
+import org.openhab.core.binding.BindingProvider;
 import org.openhab.core.items.GenericItem;
+import org.openhab.core.items.GroupItem;
+import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.items.ItemRegistryChangeListener;
 import org.openhab.core.types.Command;
 import org.openhab.core.types.State;
 import org.slf4j.Logger;
@@ -31,36 +39,126 @@ import org.slf4j.LoggerFactory;
  * @author Thomas.Eichstaedt-Engelen
  * @since 0.9.1
  */
-public class AutoUpdateBinding extends AbstractBinding<AutoUpdateBindingProvider> {
+public class AutoUpdateBinding extends AbstractBinding<AutoUpdateBindingProvider> implements ItemRegistryChangeListener {
 
 	private static final Logger logger = LoggerFactory.getLogger(AutoUpdateBinding.class);
 	
 	protected ItemRegistry itemRegistry;
 	
+	/** the combined autoupdate configurations of all items which have one */
+	private volatile Map<String, Boolean> autoUpdateConfigs = new ConcurrentHashMap<String, Boolean>();
+	
+	/** the items which received a command, to avoid looking them up in the item registry */
+	private final Map<String, GenericItem> items = new ConcurrentHashMap<String, GenericItem>();
+	
+	/** counts the changes of the item registry, so that no removed item is put into {@link #items} */
+	private volatile int itemsVersion = 0;
+	
+	/** whether a state class is accepted by the items of a class */
+	private final Map<Class<?>, Map<Class<?>, Boolean>> acceptedStates = new ConcurrentHashMap<Class<?>, Map<Class<?>, Boolean>>();
+	
 	public void setItemRegistry(ItemRegistry itemRegistry) {
 		this.itemRegistry = itemRegistry;
+		itemRegistry.addItemRegistryChangeListener(this);
+		itemsChanged(null);
 	}
 
 	public void unsetItemRegistry(ItemRegistry itemRegistry) {
+		itemRegistry.removeItemRegistryChangeListener(this);
 		this.itemRegistry = null;
+		itemsChanged(null);
 	}
 	
+	@Override
+	public void removeBindingProvider(BindingProvider provider) {
+		super.removeBindingProvider(provider);
+		updateAutoUpdateConfigs();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void allBindingsChanged(BindingProvider provider) {
+		updateAutoUpdateConfigs();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void bindingChanged(BindingProvider provider, String itemName) {
+		updateAutoUpdateConfig(itemName);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void allItemsChanged(Collection<String> oldItemNames) {
+		itemsChanged(null);
+	}
 
 	/**
-	 * <p>Iterates through all registered {@link AutoUpdateBindingProvider}s and
-	 * checks whether an autoupdate configuration is available for <code>itemName</code>.</p>
+	 * {@inheritDoc}
+	 */
+	public void itemAdded(Item item) {
+		itemsChanged(item.getName());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void itemRemoved(Item item) {
+		itemsChanged(item.getName());
+	}
+
+	private void itemsChanged(String itemName) {
+		itemsVersion++;
+		if (itemName != null) {
+			items.remove(itemName);
+		} else {
+			items.clear();
+		}
+	}
+
+	/**
+	 * <p>Looks up the autoupdate configuration of <code>itemName</code>, which
+	 * is combined from all registered {@link AutoUpdateBindingProvider}s
+	 * whenever their bindings change.</p>
 	 * 
 	 * <p>If there are more then one {@link AutoUpdateBindingProvider}s providing
 	 * a configuration the results are combined by a logical <em>OR</em>. If no
 	 * configuration is provided at all the autoupdate defaults to <code>true</code>
-	 * and an update is posted for the corresponding {@link State}.</p> 
+	 * and the item is updated to the corresponding {@link State}.</p> 
 	 * 
 	 * @param itemName the item for which to find an autoupdate configuration
-	 * @param command the command being received and posted as {@link State}
-	 * update if <code>command</code> is instance of {@link State} as well.
+	 * @param command the command being received and set as {@link State}
+	 * if <code>command</code> is instance of {@link State} as well.
 	 */
 	@Override
 	public void receiveCommand(String itemName, Command command) {
+		Boolean autoUpdate = autoUpdateConfigs.get(itemName);
+		
+		// we didn't find any autoupdate configuration, so apply the default now
+		if (autoUpdate == null) {
+			autoUpdate = Boolean.TRUE;
+		}
+		
+		if (autoUpdate && command instanceof State) {
+			postUpdate(itemName, (State) command);
+		} else {
+			logger.trace("Won't update item '{}' as it is not configured to update its state automatically.", itemName);
+		}
+	}
+
+	/**
+	 * Combines the configurations of all {@link AutoUpdateBindingProvider}s for
+	 * <code>itemName</code>.
+	 * 
+	 * @param itemName the item for which to find an autoupdate configuration
+	 * @return the combined configuration or <code>null</code> if there is none
+	 */
+	private Boolean getAutoUpdateConfig(String itemName) {
 		Boolean autoUpdate = null;
 		for (AutoUpdateBindingProvider provider : providers) {
 			Boolean au = provider.autoUpdate(itemName);
@@ -71,42 +169,48 @@ public class AutoUpdateBinding extends AbstractBinding<AutoUpdateBindingProvider
 				}
 			}
 		}
-		
-		// we didn't find any autoupdate configuration, so apply the default now
-		if (autoUpdate == null) {
-			autoUpdate = Boolean.TRUE;
-		}
-		
-		if (autoUpdate && command instanceof State) {
-			postUpdate(itemName, (State) command);
+		return autoUpdate;
+	}
+
+	private synchronized void updateAutoUpdateConfig(String itemName) {
+		Boolean autoUpdate = getAutoUpdateConfig(itemName);
+		if (autoUpdate != null) {
+			autoUpdateConfigs.put(itemName, autoUpdate);
 		} else {
-			logger.trace("Won't update item '{}' as it is not configured to update its state automatically.", itemName);
+			autoUpdateConfigs.remove(itemName);
+		}
+	}
+
+	private synchronized void updateAutoUpdateConfigs() {
+		Map<String, Boolean> configs = new ConcurrentHashMap<String, Boolean>();
+		for (AutoUpdateBindingProvider provider : providers) {
+			for (String itemName : provider.getItemNames()) {
+				if (!configs.containsKey(itemName)) {
+					Boolean autoUpdate = getAutoUpdateConfig(itemName);
+					if (autoUpdate != null) {
+						configs.put(itemName, autoUpdate);
+					}
+				}
+			}
 		}
+		autoUpdateConfigs = configs;
 	}
 
 	private void postUpdate(String itemName, State newStatus) {
+		ItemRegistry itemRegistry = this.itemRegistry;
 		if (itemRegistry != null) {
 			try {
-				GenericItem item = (GenericItem) itemRegistry.getItem(itemName);
-				boolean isAccepted = false;
-				if (item.getAcceptedDataTypes().contains(newStatus.getClass())) {
-					isAccepted = true;
-				} else {
-					// Look for class hierarchy
-					for (Class<? extends State> state : item.getAcceptedDataTypes()) {
-						try {
-							if (!state.isEnum() && state.newInstance().getClass().isAssignableFrom(newStatus.getClass())) {
-								isAccepted = true;
-								break;
-							}
-						} catch (InstantiationException e) {
-							logger.warn("InstantiationException on ", e.getMessage()); // Should never happen
-						} catch (IllegalAccessException e) {
-							logger.warn("IllegalAccessException on ", e.getMessage()); // Should never happen
-						}
+				GenericItem item = items.get(itemName);
+				if (item == null) {
+					int version = itemsVersion;
+					item = (GenericItem) itemRegistry.getItem(itemName);
+					items.put(itemName, item);
+					if (version != itemsVersion) {
+						// the registry has changed during the lookup
+						items.remove(itemName);
 					}
-				}				
-				if (isAccepted) {
+				}
+				if (isAccepted(item, newStatus)) {
 					item.setState(newStatus);
 				} else {
 					logger.debug("Received update of a not accepted type ("	+ newStatus.getClass().getSimpleName() + ") for item " + itemName);
@@ -116,5 +220,46 @@ public class AutoUpdateBinding extends AbstractBinding<AutoUpdateBindingProvider
 			}
 		}
 	}
+
+	/**
+	 * Checks whether <code>item</code> accepts <code>newStatus</code>. The
+	 * result is kept per item class, except for groups whose accepted data
+	 * types depend on their members.
+	 */
+	private boolean isAccepted(GenericItem item, State newStatus) {
+		if (item instanceof GroupItem) {
+			return isAcceptedDataType(item, newStatus);
+		}
+		Map<Class<?>, Boolean> itemAcceptedStates = acceptedStates.get(item.getClass());
+		if (itemAcceptedStates == null) {
+			itemAcceptedStates = new ConcurrentHashMap<Class<?>, Boolean>();
+			acceptedStates.put(item.getClass(), itemAcceptedStates);
+		}
+		Boolean accepted = itemAcceptedStates.get(newStatus.getClass());
+		if (accepted == null) {
+			accepted = isAcceptedDataType(item, newStatus);
+			itemAcceptedStates.put(newStatus.getClass(), accepted);
+		}
+		return accepted;
+	}
+
+	private boolean isAcceptedDataType(GenericItem item, State newStatus) {
+		if (item.getAcceptedDataTypes().contains(newStatus.getClass())) {
+			return true;
+		}
+		// Look for class hierarchy
+		for (Class<? extends State> state : item.getAcceptedDataTypes()) {
+			try {
+				if (!state.isEnum() && state.newInstance().getClass().isAssignableFrom(newStatus.getClass())) {
+					return true;
+				}
+			} catch (InstantiationException e) {
+				logger.warn("InstantiationException on ", e.getMessage()); // Should never happen
+			} catch (IllegalAccessException e) {
+				logger.warn("IllegalAccessException on ", e.getMessage()); // Should never happen
+			}
+		}
+		return false;
+	}
 	
 }
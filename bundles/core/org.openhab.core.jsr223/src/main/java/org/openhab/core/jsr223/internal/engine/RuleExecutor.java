@@ -0,0 +1,291 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.jsr223.internal.engine;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openhab.core.jsr223.internal.shared.Event;
+import org.openhab.core.jsr223.internal.shared.Rule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the triggered rules on a bounded thread pool. The executions of one
+ * rule are queued and run one after the other in the order of their events,
+ * different rules run in parallel. The thread pool queue holds each rule at most
+ * once, so it is bounded by the number of rules.
+ *
+ * The number of threads can be set with the system property
+ * <code>jsr223.threads</code>, the default is twice the number of processors.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class RuleExecutor {
+	static private final Logger logger = LoggerFactory.getLogger(RuleExecutor.class);
+
+	/** the maximum number of pending executions of one rule */
+	private static final int MAX_PENDING_EXECUTIONS = 10000;
+
+	/** the number of executions of a rule before another rule gets the thread */
+	private static final int EXECUTIONS_PER_RUN = 16;
+
+	/** the interval for logging the statistics in milliseconds */
+	private static final long STATISTICS_INTERVAL = 60000;
+
+	private final ExecutorService executor;
+
+	private final Map<Rule, RuleQueue> ruleQueues = new HashMap<Rule, RuleQueue>();
+
+	private final Map<String, RuleStatistics> statistics = new ConcurrentHashMap<String, RuleStatistics>();
+
+	private long nextStatistics = System.currentTimeMillis() + STATISTICS_INTERVAL;
+
+	public RuleExecutor() {
+		int threads = Integer.getInteger("jsr223.threads", Runtime.getRuntime().availableProcessors() * 2);
+		executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable runnable) {
+						return new Thread(runnable, "JSR223 Rule Executor " + count.incrementAndGet());
+					}
+				});
+		((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Queues the execution of a rule.
+	 *
+	 * @param scriptName the name of the script which contains the rule, used for the statistics
+	 * @param rule the rule to execute
+	 * @param event the event which has triggered the rule
+	 */
+	public void execute(String scriptName, Rule rule, Event event) {
+		RuleStatistics scriptStatistics = getStatistics(scriptName);
+		Execution execution = new Execution(event, scriptStatistics);
+		synchronized (ruleQueues) {
+			RuleQueue queue = ruleQueues.get(rule);
+			if (queue == null) {
+				queue = new RuleQueue(rule);
+				ruleQueues.put(rule, queue);
+			}
+			if (queue.executions.size() >= MAX_PENDING_EXECUTIONS) {
+				scriptStatistics.dropped.incrementAndGet();
+				logger.warn("Rule {} of script '{}' has {} pending executions, dropping event {}",
+						new Object[] { rule, scriptName, queue.executions.size(), event });
+				return;
+			}
+			queue.executions.add(execution);
+			scriptStatistics.pending.incrementAndGet();
+			if (!queue.scheduled) {
+				queue.scheduled = true;
+				submit(queue);
+			}
+		}
+		logStatistics();
+	}
+
+	private void submit(RuleQueue queue) {
+		try {
+			executor.execute(queue);
+		} catch (RejectedExecutionException e) {
+			logger.debug("Rule executor has been shut down, rule {} is not executed", queue.rule);
+			for (Execution execution : queue.executions) {
+				execution.statistics.pending.decrementAndGet();
+			}
+			ruleQueues.remove(queue.rule);
+		}
+	}
+
+	/**
+	 * Stops accepting new executions and waits for the running ones.
+	 *
+	 * @param timeout the time to wait in milliseconds
+	 */
+	public void shutdown(long timeout) {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+				logger.warn("Rules still running after {} ms", timeout);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		logStatistics(true);
+	}
+
+	/**
+	 * @param scriptName the name of a script
+	 * @return the statistics of the rules of the script
+	 */
+	public RuleStatistics getStatistics(String scriptName) {
+		RuleStatistics scriptStatistics = statistics.get(scriptName);
+		if (scriptStatistics == null) {
+			synchronized (statistics) {
+				scriptStatistics = statistics.get(scriptName);
+				if (scriptStatistics == null) {
+					scriptStatistics = new RuleStatistics();
+					statistics.put(scriptName, scriptStatistics);
+				}
+			}
+		}
+		return scriptStatistics;
+	}
+
+	private void logStatistics() {
+		logStatistics(false);
+	}
+
+	private void logStatistics(boolean force) {
+		if (!logger.isDebugEnabled()) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		synchronized (statistics) {
+			if (!force && now < nextStatistics) {
+				return;
+			}
+			nextStatistics = now + STATISTICS_INTERVAL;
+		}
+		for (Map.Entry<String, RuleStatistics> entry : statistics.entrySet()) {
+			logger.debug("Rule statistics of script '{}': {}", entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * The pending executions of a rule. It is in the queue of the thread pool
+	 * as long as it has pending executions.
+	 */
+	private class RuleQueue implements Runnable {
+		private final Rule rule;
+		private final Queue<Execution> executions = new ArrayDeque<Execution>();
+		private boolean scheduled = false;
+
+		RuleQueue(Rule rule) {
+			this.rule = rule;
+		}
+
+		@Override
+		public void run() {
+			for (int i = 0; i < EXECUTIONS_PER_RUN; i++) {
+				Execution execution;
+				synchronized (ruleQueues) {
+					execution = executions.poll();
+					if (execution == null) {
+						scheduled = false;
+						ruleQueues.remove(rule);
+						return;
+					}
+				}
+				execution.run(rule);
+			}
+			synchronized (ruleQueues) {
+				if (executions.isEmpty()) {
+					scheduled = false;
+					ruleQueues.remove(rule);
+				} else {
+					// give the other rules a chance
+					submit(this);
+				}
+			}
+		}
+	}
+
+	/**
+	 * One execution of a rule.
+	 */
+	private static class Execution {
+		private final Event event;
+		private final RuleStatistics statistics;
+		private final long queued = System.nanoTime();
+
+		Execution(Event event, RuleStatistics statistics) {
+			this.event = event;
+			this.statistics = statistics;
+		}
+
+		void run(Rule rule) {
+			long started = System.nanoTime();
+			statistics.pending.decrementAndGet();
+			new RuleExecutionRunnable(rule, event).run();
+			statistics.record(started - queued, System.nanoTime() - started);
+		}
+	}
+
+	/**
+	 * The execution statistics of the rules of one script.
+	 */
+	public static class RuleStatistics {
+		private final AtomicInteger pending = new AtomicInteger();
+		private final AtomicInteger dropped = new AtomicInteger();
+		private long executions;
+		private long totalLatency;
+		private long maxLatency;
+		private long totalDuration;
+		private long maxDuration;
+
+		private synchronized void record(long latency, long duration) {
+			executions++;
+			totalLatency += latency;
+			maxLatency = Math.max(maxLatency, latency);
+			totalDuration += duration;
+			maxDuration = Math.max(maxDuration, duration);
+		}
+
+		/**
+		 * @return the number of executions waiting for a thread
+		 */
+		public int getPending() {
+			return pending.get();
+		}
+
+		/**
+		 * @return the number of executions
+		 */
+		public synchronized long getExecutions() {
+			return executions;
+		}
+
+		/**
+		 * @return the average time between the trigger and the start of the execution in microseconds
+		 */
+		public synchronized long getAverageLatency() {
+			return executions > 0 ? TimeUnit.NANOSECONDS.toMicros(totalLatency / executions) : 0;
+		}
+
+		/**
+		 * @return the average execution time in microseconds
+		 */
+		public synchronized long getAverageDuration() {
+			return executions > 0 ? TimeUnit.NANOSECONDS.toMicros(totalDuration / executions) : 0;
+		}
+
+		@Override
+		public synchronized String toString() {
+			return "executions=" + executions + ", pending=" + pending.get() + ", dropped=" + dropped.get()
+					+ ", avgLatency=" + getAverageLatency() + "us, maxLatency="
+					+ TimeUnit.NANOSECONDS.toMicros(maxLatency) + "us, avgDuration=" + getAverageDuration()
+					+ "us, maxDuration=" + TimeUnit.NANOSECONDS.toMicros(maxDuration) + "us";
+		}
+	}
+
+}
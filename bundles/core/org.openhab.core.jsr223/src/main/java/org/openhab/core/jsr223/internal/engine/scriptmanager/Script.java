@@ -11,10 +11,12 @@ package org.openhab.core.jsr223.internal.engine.scriptmanager;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.Reader;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.script.Compilable;
 import javax.script.Invocable;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
@@ -22,9 +24,9 @@ import javax.script.ScriptException;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.joda.time.DateTime;
-import org.openhab.core.jsr223.internal.engine.RuleExecutionRunnable;
 import org.openhab.core.jsr223.internal.shared.ChangedEventTrigger;
 import org.openhab.core.jsr223.internal.shared.UpdatedEventTrigger;
 import org.openhab.core.jsr223.internal.shared.CommandEventTrigger;
@@ -88,7 +90,17 @@ public class Script{
 		if (engine != null) {
 			logger.info("EngineName: " + engine.getFactory().getEngineName());
 			initializeSciptGlobals();
-			engine.eval(new FileReader(file));
+			Reader reader = new FileReader(file);
+			try {
+				if (engine instanceof Compilable) {
+					// compile the whole file at once instead of interpreting it statement by statement
+					((Compilable) engine).compile(reader).eval();
+				} else {
+					engine.eval(reader);
+				}
+			} finally {
+				IOUtils.closeQuietly(reader);
+			}
 			Invocable inv = (Invocable) engine;
 			RuleSet ruleSet = (RuleSet) inv.invokeFunction("getRules");
 			rules.addAll(ruleSet.getRules());
@@ -272,8 +284,7 @@ public class Script{
 	}
 
 	public void executeRule(Rule rule, Event event) {
-		Thread t = new Thread(new RuleExecutionRunnable(rule, event));
-		t.start();
+		scriptManager.getRuleExecutor().execute(fileName, rule, event);
 	}
 
 	public String getFileName() {
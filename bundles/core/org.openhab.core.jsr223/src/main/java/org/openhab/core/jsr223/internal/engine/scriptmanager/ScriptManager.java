@@ -21,6 +21,7 @@ import javax.script.ScriptException;
 
 import org.openhab.config.core.ConfigDispatcher;
 import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.jsr223.internal.engine.RuleExecutor;
 import org.openhab.core.jsr223.internal.engine.RuleTriggerManager;
 import org.openhab.core.jsr223.internal.shared.Event;
 import org.openhab.core.jsr223.internal.shared.EventTrigger;
@@ -48,6 +49,8 @@ public class ScriptManager {
 
 	private RuleTriggerManager triggerManager;
 
+	private RuleExecutor ruleExecutor = new RuleExecutor();
+
 	private Thread scriptUpdateWatcher;
 
 	private static ScriptManager instance;
@@ -124,6 +127,19 @@ public class ScriptManager {
 		return ruleMap.keySet();
 	}
 
+	public RuleExecutor getRuleExecutor() {
+		return ruleExecutor;
+	}
+
+	/**
+	 * Waits for the running rules and stops the rule execution.
+	 * 
+	 * @param timeout the time to wait in milliseconds
+	 */
+	public void shutdown(long timeout) {
+		ruleExecutor.shutdown(timeout);
+	}
+
 	public ItemRegistry getItemRegistry() {
 		return itemRegistry;
 	}
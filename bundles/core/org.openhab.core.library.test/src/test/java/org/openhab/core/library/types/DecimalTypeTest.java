@@ -11,6 +11,11 @@ package org.openhab.core.library.types;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
 import java.text.DecimalFormatSymbols;
 
 import org.junit.Test;
@@ -34,6 +39,68 @@ public class DecimalTypeTest {
 		assertEquals(false, dt1.equals(pt));
 	}
 
+	@Test
+	public void testEqualsAcrossRepresentations() {
+		DecimalType dt1 = new DecimalType(42);
+		DecimalType dt2 = new DecimalType(new BigDecimal("42.00"));
+		DecimalType dt3 = new DecimalType(42.0);
+
+		assertEquals(true, dt1.equals(dt2));
+		assertEquals(true, dt1.equals(dt3));
+		assertEquals(true, dt3.equals(dt2));
+		assertEquals(dt1.hashCode(), dt3.hashCode());
+		assertEquals(0, dt1.compareTo(dt2));
+		assertEquals(0, new DecimalType(-0.0).compareTo(new DecimalType(0.0)));
+		assertEquals(-1, new DecimalType(Long.MIN_VALUE).compareTo(new DecimalType(Long.MAX_VALUE)));
+		assertEquals(1, new DecimalType(0.5).compareTo(new DecimalType(0)));
+	}
+
+	@Test
+	public void testValueOf() {
+		assertEquals(true, DecimalType.valueOf("100") == DecimalType.valueOf(100));
+		assertEquals(true, DecimalType.ZERO == DecimalType.valueOf("0"));
+		assertEquals("-17", DecimalType.valueOf("-17").toString());
+		assertEquals("1234567890123456789012", DecimalType.valueOf("1234567890123456789012").toString());
+		assertEquals("1.50", DecimalType.valueOf("1.50").toString());
+		assertEquals(-9000000000000000000L, new DecimalType(-9.0E18).longValue());
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(new DecimalType(-17));
+		out.close();
+		DecimalType dt = (DecimalType) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+		// only the BigDecimal is restored
+		assertEquals(new BigDecimal(-17), dt.value);
+		assertEquals(false, dt.isPrimitiveLong());
+		assertEquals("-17", dt.toString());
+		assertEquals(true, dt.equals(new DecimalType(-17)));
+		assertEquals(-1, dt.compareTo(new DecimalType(3)));
+		assertEquals(-17L, dt.longValue());
+	}
+
+	@Test
+	public void testValueSetBySubclass() {
+		DecimalType dt = new DecimalType(5) {
+			private static final long serialVersionUID = 1L;
+			{
+				value = new BigDecimal(7);
+			}
+		};
+
+		assertEquals("7", dt.toString());
+		assertEquals(7L, dt.longValue());
+		assertEquals(0, dt.compareTo(new DecimalType(7)));
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void testNaN() {
+		new DecimalType(Double.NaN);
+	}
+
 	@Test
 	public void testIntFormat() {
 		DecimalType dt;
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.library.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+import org.openhab.core.library.internal.CoreTypeParsers;
+import org.openhab.core.library.items.ColorItem;
+import org.openhab.core.library.items.DimmerItem;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.StringItem;
+import org.openhab.core.library.items.SwitchItem;
+import org.openhab.core.types.State;
+import org.openhab.core.types.TypeParser;
+import org.openhab.core.types.UnDefType;
+
+/**
+ * @author agent
+ * @since 1.9.0
+ */
+public class TypeParserTest {
+
+	@After
+	public void tearDown() {
+		CoreTypeParsers.unregister();
+	}
+
+	@Test
+	public void parseWithGenericParsers() {
+		CoreTypeParsers.unregister();
+		assertParsing();
+	}
+
+	@Test
+	public void parseWithRegisteredParsers() {
+		CoreTypeParsers.register();
+		assertParsing();
+	}
+
+	@Test
+	public void decimalRejection() {
+		assertNull(CoreTypeParsers.DECIMAL.parse(""));
+		assertNull(CoreTypeParsers.DECIMAL.parse("ON"));
+		assertNull(CoreTypeParsers.DECIMAL.parse("-"));
+		assertNull(CoreTypeParsers.DECIMAL.parse("1-2"));
+		assertNull(CoreTypeParsers.DECIMAL.parse(" 12"));
+		assertEquals(new DecimalType("1E+3"), CoreTypeParsers.DECIMAL.parse("1e3"));
+	}
+
+	@Test
+	public void decimalInterning() {
+		assertSame(DecimalType.valueOf(42), CoreTypeParsers.DECIMAL.parse("42"));
+		assertSame(PercentType.ZERO, CoreTypeParsers.PERCENT.parse("0"));
+		assertSame(PercentType.HUNDRED, CoreTypeParsers.PERCENT.parse("100"));
+	}
+
+	private void assertParsing() {
+		NumberItem number = new NumberItem("number");
+		assertEquals(new DecimalType("21.5"), TypeParser.parseState(number.getAcceptedDataTypes(), "21.5"));
+		assertEquals(UnDefType.UNDEF, TypeParser.parseState(number.getAcceptedDataTypes(), "UNDEF"));
+		assertNull(TypeParser.parseState(number.getAcceptedDataTypes(), "abc"));
+		assertNull(TypeParser.parseCommand(number.getAcceptedCommandTypes(), null));
+		assertNull(TypeParser.parseState(number.getAcceptedDataTypes(), null));
+		assertSame(DecimalType.valueOf(42), TypeParser.parseState(number.getAcceptedDataTypes(), "42"));
+
+		// StringType.valueOf() accepts null, which parseState() has always passed on
+		StringItem string = new StringItem("string");
+		State state = TypeParser.parseState(string.getAcceptedDataTypes(), null);
+		assertTrue(state instanceof StringType);
+		assertNull(state.toString());
+
+		SwitchItem switchItem = new SwitchItem("switch");
+		assertEquals(OnOffType.ON, TypeParser.parseCommand(switchItem.getAcceptedCommandTypes(), "ON"));
+		assertNull(TypeParser.parseCommand(switchItem.getAcceptedCommandTypes(), "on"));
+
+		DimmerItem dimmer = new DimmerItem("dimmer");
+		assertEquals(new PercentType(50), TypeParser.parseCommand(dimmer.getAcceptedCommandTypes(), "50"));
+		assertEquals(IncreaseDecreaseType.INCREASE,
+				TypeParser.parseCommand(dimmer.getAcceptedCommandTypes(), "INCREASE"));
+		assertNull(TypeParser.parseCommand(dimmer.getAcceptedCommandTypes(), "100.2"));
+
+		ColorItem color = new ColorItem("color");
+		assertEquals(new HSBType("120,100,50"), TypeParser.parseCommand(color.getAcceptedCommandTypes(), "120,100,50"));
+		assertEquals(new HSBType("120,100,50"), TypeParser.parseCommand(color.getAcceptedCommandTypes(), "120,100,50,"));
+		assertEquals(new PercentType(10), TypeParser.parseCommand(color.getAcceptedCommandTypes(), "10"));
+		assertNull(TypeParser.parseCommand(color.getAcceptedCommandTypes(), "1,2"));
+	}
+}
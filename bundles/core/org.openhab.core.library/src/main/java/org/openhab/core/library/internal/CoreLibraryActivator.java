@@ -18,6 +18,7 @@ public class CoreLibraryActivator implements BundleActivator {
 	 * @see org.osgi.framework.BundleActivator#start(org.osgi.framework.BundleContext)
 	 */
 	public void start(BundleContext context) throws Exception {
+		CoreTypeParsers.register();
 	}
 
 	/*
@@ -25,6 +26,7 @@ public class CoreLibraryActivator implements BundleActivator {
 	 * @see org.osgi.framework.BundleActivator#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		CoreTypeParsers.unregister();
 	}
 
 }
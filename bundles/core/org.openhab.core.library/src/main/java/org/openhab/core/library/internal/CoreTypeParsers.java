@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.library.internal;
+
+import java.math.BigDecimal;
+
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.types.TypeParser;
+import org.openhab.core.types.TypeParser.Parser;
+
+/**
+ * Dedicated {@link Parser}s for the numeric and string types of the core library.
+ * They accept exactly the same strings as the <code>valueOf(String)</code> methods
+ * of the respective types, but reject non-matching strings without creating and
+ * throwing exceptions.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class CoreTypeParsers {
+
+	private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+	public static final Parser<DecimalType> DECIMAL = new Parser<DecimalType>() {
+		@Override
+		public DecimalType parse(String s) {
+			if (!isNumber(s)) {
+				return null;
+			}
+			try {
+				// valueOf keeps integral values as primitives and interns the small ones
+				return DecimalType.valueOf(s);
+			} catch (NumberFormatException e) {
+				// rare case of misplaced signs, dots or exponents
+				return null;
+			}
+		}
+	};
+
+	public static final Parser<PercentType> PERCENT = new Parser<PercentType>() {
+		@Override
+		public PercentType parse(String s) {
+			BigDecimal value = parseDecimal(s);
+			if (value == null || value.signum() < 0 || value.compareTo(HUNDRED) > 0) {
+				return null;
+			}
+			if ("0".equals(s) || "100".equals(s)) {
+				// the constants which are returned by PercentType.valueOf()
+				return PercentType.valueOf(s);
+			}
+			return new PercentType(value);
+		}
+	};
+
+	public static final Parser<HSBType> HSB = new Parser<HSBType>() {
+		@Override
+		public HSBType parse(String value) {
+			// String.split() as used by HSBType(String) ignores trailing separators
+			int end = value.length();
+			while (end > 0 && value.charAt(end - 1) == ',') {
+				end--;
+			}
+			String s = value.substring(0, end);
+			int first = s.indexOf(',');
+			if (first < 0) {
+				return null;
+			}
+			int second = s.indexOf(',', first + 1);
+			if (second < 0 || s.indexOf(',', second + 1) >= 0) {
+				return null;
+			}
+			BigDecimal h = parseDecimal(s.substring(0, first));
+			BigDecimal sat = h != null ? parseDecimal(s.substring(first + 1, second)) : null;
+			BigDecimal b = sat != null ? parseDecimal(s.substring(second + 1)) : null;
+			if (b == null) {
+				return null;
+			}
+			// keep the validation behavior of HSBType(String), which checks none of the ranges
+			return new HSBType(value);
+		}
+	};
+
+	public static final Parser<StringType> STRING = new Parser<StringType>() {
+		@Override
+		public StringType parse(String s) {
+			return new StringType(s);
+		}
+	};
+
+	/**
+	 * Registers all parsers of this class with the {@link TypeParser}.
+	 */
+	public static void register() {
+		TypeParser.registerParser(DecimalType.class, DECIMAL);
+		TypeParser.registerParser(PercentType.class, PERCENT);
+		TypeParser.registerParser(HSBType.class, HSB);
+		TypeParser.registerParser(StringType.class, STRING);
+	}
+
+	/**
+	 * Removes all parsers of this class from the {@link TypeParser}.
+	 */
+	public static void unregister() {
+		TypeParser.unregisterParser(DecimalType.class);
+		TypeParser.unregisterParser(PercentType.class);
+		TypeParser.unregisterParser(HSBType.class);
+		TypeParser.unregisterParser(StringType.class);
+	}
+
+	/**
+	 * Parses a string the same way {@link BigDecimal#BigDecimal(String)} does, but
+	 * returns <code>null</code> for strings that cannot be a number at all.
+	 *
+	 * @param s the string to parse
+	 * @return the parsed value or <code>null</code>
+	 */
+	static BigDecimal parseDecimal(String s) {
+		if (!isNumber(s)) {
+			return null;
+		}
+		try {
+			return new BigDecimal(s);
+		} catch (NumberFormatException e) {
+			// rare case of misplaced signs, dots or exponents
+			return null;
+		}
+	}
+
+	/**
+	 * Checks whether a string consists only of characters which may occur in a
+	 * number, with at least one digit. Strings which pass this check are usually,
+	 * but not always, accepted by {@link BigDecimal#BigDecimal(String)}.
+	 *
+	 * @param s the string to check
+	 * @return <code>true</code> if the string may be a number
+	 */
+	static boolean isNumber(String s) {
+		boolean digit = false;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if ((c >= '0' && c <= '9') || (c > 127 && Character.isDigit(c))) {
+				digit = true;
+			} else if (c != '.' && c != '-' && c != '+' && c != 'e' && c != 'E') {
+				return false;
+			}
+		}
+		return digit;
+	}
+}
@@ -234,19 +234,19 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 		 * @{inheritDoc
 		 */
 		public State calculate(List<Item> items) {
-			BigDecimal sum = BigDecimal.ZERO;
+			DecimalSum sum = new DecimalSum();
 			int count = 0;
 			if(items!=null) {
 				for(Item item : items) {
 					DecimalType itemState = (DecimalType) item.getStateAs(DecimalType.class);
 					if(itemState!=null) {
-						sum = sum.add(itemState.toBigDecimal());
+						sum.add(itemState);
 						count++;
 					}
 				}
 			}
 			if(count>0) {
-				return new DecimalType(sum.divide(new BigDecimal(count), RoundingMode.HALF_UP));
+				return sum.divide(count);
 			} else {
 				return UnDefType.UNDEF;
 			}
@@ -332,16 +332,16 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 		 * @{inheritDoc
 		 */
 		public State calculate(List<Item> items) {
-			BigDecimal sum = BigDecimal.ZERO;
+			DecimalSum sum = new DecimalSum();
 			if(items!=null) {
 				for(Item item : items) {
 					DecimalType itemState = (DecimalType) item.getStateAs(DecimalType.class);
 					if(itemState!=null) {
-						sum = sum.add(itemState.toBigDecimal());
+						sum.add(itemState);
 					}
 				}
 			}
-			return new DecimalType(sum);
+			return sum.toDecimalType();
 		}
 		
 		/**
@@ -373,17 +373,17 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 		 */
 		public State calculate(List<Item> items) {
 			if(items!=null && items.size()>0) {
-				BigDecimal min = null;
+				DecimalType min = null;
 				for(Item item : items) {
 					DecimalType itemState = (DecimalType) item.getStateAs(DecimalType.class);
 					if(itemState!=null) {
-						if(min==null || min.compareTo(itemState.toBigDecimal()) > 0) {
-							min = itemState.toBigDecimal();
+						if(min==null || min.compareTo(itemState) > 0) {
+							min = itemState;
 						}
 					}
 				}
 				if(min!=null) {
-					return new DecimalType(min);
+					return DecimalSum.toDecimalType(min);
 				}
 			}
 			return UnDefType.UNDEF;
@@ -418,17 +418,17 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 		 */
 		public State calculate(List<Item> items) {
 			if(items!=null && items.size()>0) {
-				BigDecimal max = null;
+				DecimalType max = null;
 				for(Item item : items) {
 					DecimalType itemState = (DecimalType) item.getStateAs(DecimalType.class);
 					if(itemState!=null) {
-						if(max==null || max.compareTo(itemState.toBigDecimal()) < 0) {
-							max = itemState.toBigDecimal();
+						if(max==null || max.compareTo(itemState) < 0) {
+							max = itemState;
 						}
 					}
 				}
 				if(max!=null) {
-					return new DecimalType(max);
+					return DecimalSum.toDecimalType(max);
 				}
 			}
 			return UnDefType.UNDEF;
@@ -447,5 +447,62 @@ public interface ArithmeticGroupFunction extends GroupFunction {
 		}
 	}
 	
-	
+	/**
+	 * Adds up decimal states. As long as all states are integers and the sum
+	 * fits into a long, no BigDecimal is created.
+	 * 
+	 * @author agent
+	 * @since 1.9.0
+	 *
+	 */
+	static class DecimalSum {
+		
+		private long longSum = 0;
+		private BigDecimal sum = null;
+
+		public void add(DecimalType state) {
+			if(sum==null && state.isLong()) {
+				long value = state.longValue();
+				long result = longSum + value;
+				// overflow if both operands have a different sign than the result
+				if(((longSum ^ result) & (value ^ result)) >= 0) {
+					longSum = result;
+					return;
+				}
+			}
+			if(sum==null) {
+				sum = BigDecimal.valueOf(longSum);
+			}
+			sum = sum.add(state.toBigDecimal());
+		}
+
+		public DecimalType divide(int count) {
+			if(sum==null) {
+				// the same rounding as BigDecimal with RoundingMode.HALF_UP
+				long quotient = longSum / count;
+				long remainder = longSum % count;
+				if(2 * Math.abs(remainder) >= count) {
+					quotient += Long.signum(longSum);
+				}
+				return new DecimalType(quotient);
+			}
+			return new DecimalType(sum.divide(new BigDecimal(count), RoundingMode.HALF_UP));
+		}
+
+		public DecimalType toDecimalType() {
+			return sum==null ? new DecimalType(longSum) : new DecimalType(sum);
+		}
+
+		/**
+		 * Returns the state itself if it is a plain {@link DecimalType}, otherwise
+		 * a {@link DecimalType} with its value.
+		 */
+		static DecimalType toDecimalType(DecimalType state) {
+			if(state.getClass()==DecimalType.class) {
+				return state;
+			}
+			return new DecimalType(state.toBigDecimal());
+		}
+	}
+
 }
@@ -9,6 +9,7 @@
 package org.openhab.core.library.types;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.IllegalFormatConversionException;
 
 import org.openhab.core.types.Command;
@@ -18,6 +19,11 @@ import org.openhab.core.types.State;
 /**
  * The decimal type uses a BigDecimal internally and thus can be used for
  * integers, longs and floating point numbers alike.
+ * <p>
+ * The BigDecimal is the only persisted state. Values created from a
+ * <code>long</code> or an integer string additionally keep the long value in a
+ * transient field, so that comparisons and conversions of such values don't need
+ * the BigDecimal arithmetic.
  * 
  * @author Kai Kreuzer
  * 
@@ -27,10 +33,31 @@ public class DecimalType extends Number implements PrimitiveType, State,
 
 	private static final long serialVersionUID = 4226845847123464690L;
 
-	final static public DecimalType ZERO = new DecimalType(0);
+	/** the interned instances of the values 0 to 100 */
+	private static final DecimalType[] CACHE = new DecimalType[101];
+
+	static {
+		for (int i = 0; i < CACHE.length; i++) {
+			CACHE[i] = new DecimalType(i);
+		}
+	}
+
+	final static public DecimalType ZERO = CACHE[0];
+
+	/** the maximum length of a string which is parsed as a long */
+	private static final int MAX_LONG_DIGITS = 18;
 
 	protected BigDecimal value;
 
+	/**
+	 * the {@link #value} which {@link #longValue} has been taken from. It doesn't match the
+	 * value anymore if a subclass sets another value, and it is <code>null</code> after the
+	 * value has been restored by the persistence or the deserialization.
+	 */
+	private transient BigDecimal longSource;
+
+	private transient long longValue;
+
 	public DecimalType() {
 		this.value = BigDecimal.ZERO;
 	}
@@ -40,7 +67,7 @@ public class DecimalType extends Number implements PrimitiveType, State,
 	}
 
 	public DecimalType(long value) {
-		this.value = new BigDecimal(value);
+		setLong(value);
 	}
 
 	public DecimalType(double value) {
@@ -48,14 +75,43 @@ public class DecimalType extends Number implements PrimitiveType, State,
 	}
 
 	public DecimalType(String value) {
-		this.value = new BigDecimal(value);
+		if (isLongString(value)) {
+			setLong(Long.parseLong(value));
+		} else {
+			this.value = new BigDecimal(value);
+		}
+	}
+
+	private void setLong(long value) {
+		this.value = BigDecimal.valueOf(value);
+		this.longValue = value;
+		this.longSource = this.value;
 	}
 
 	public String toString() {
+		if (isPrimitiveLong()) {
+			return Long.toString(longValue);
+		}
 		return value.toPlainString();
 	}
 
 	public static DecimalType valueOf(String value) {
+		if (isLongString(value)) {
+			return valueOf(Long.parseLong(value));
+		}
+		return new DecimalType(new BigDecimal(value));
+	}
+
+	/**
+	 * Returns a decimal type for the given value. The values 0 to 100 are interned.
+	 * 
+	 * @param value the value
+	 * @return the decimal type
+	 */
+	public static DecimalType valueOf(long value) {
+		if (value >= 0 && value < CACHE.length) {
+			return CACHE[(int) value];
+		}
 		return new DecimalType(value);
 	}
 
@@ -63,6 +119,9 @@ public class DecimalType extends Number implements PrimitiveType, State,
 		// The value could be an integer value. Try to convert to BigInteger in
 		// order to have access to more conversion formats.
 		try {
+			if (isPrimitiveLong()) {
+				return String.format(pattern, BigInteger.valueOf(longValue));
+			}
 			return String.format(pattern, value.toBigIntegerExact());
 		} catch (ArithmeticException ae) {
 			// Could not convert to integer value without loss of
@@ -80,6 +139,38 @@ public class DecimalType extends Number implements PrimitiveType, State,
 		return value;
 	}
 
+	/**
+	 * @return <code>true</code> if the long value of {@link #value} is at hand
+	 */
+	boolean isPrimitiveLong() {
+		return longSource != null && longSource == value;
+	}
+
+	/**
+	 * @return <code>true</code> if the value is an integer which fits into a long
+	 */
+	boolean isLong() {
+		if (isPrimitiveLong()) {
+			return true;
+		}
+		return value != null && value.scale() == 0 && value.precision() <= MAX_LONG_DIGITS;
+	}
+
+	private static boolean isLongString(String value) {
+		int length = value.length();
+		int start = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+		if (length == start || length - start > MAX_LONG_DIGITS) {
+			return false;
+		}
+		for (int i = start; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -97,35 +188,53 @@ public class DecimalType extends Number implements PrimitiveType, State,
 		if (!(obj instanceof DecimalType))
 			return false;
 		DecimalType other = (DecimalType) obj;
+		if (isPrimitiveLong() && other.isPrimitiveLong()) {
+			return longValue == other.longValue;
+		}
 		if (value == null) {
 			if (other.value != null)
 				return false;
-		} else if (value.compareTo(other.value) != 0)
+		} else if (other.value == null || value.compareTo(other.value) != 0)
 			return false;
 		return true;
 	}
 
 	public int compareTo(DecimalType o) {
-		return value.compareTo(o.toBigDecimal());
+		if (isPrimitiveLong() && o.isPrimitiveLong()) {
+			return longValue < o.longValue ? -1 : (longValue == o.longValue ? 0 : 1);
+		}
+		return value.compareTo(o.value);
 	}
 
 	@Override
 	public double doubleValue() {
+		if (isPrimitiveLong()) {
+			return longValue;
+		}
 		return value.doubleValue();
 	}
 
 	@Override
 	public float floatValue() {
+		if (isPrimitiveLong()) {
+			return longValue;
+		}
 		return value.floatValue();
 	}
 
 	@Override
 	public int intValue() {
+		if (isPrimitiveLong()) {
+			return (int) longValue;
+		}
 		return value.intValue();
 	}
 
 	@Override
 	public long longValue() {
+		if (isPrimitiveLong()) {
+			return longValue;
+		}
 		return value.longValue();
 	}
 }
@@ -30,26 +30,31 @@ public class PercentType extends DecimalType {
 	
 	public PercentType(int value) {
 		super(value);
-		validateValue(this.value);
+		validateValue();
 	}
 
 	public PercentType(String value) {
 		super(value);
-		validateValue(this.value);
+		validateValue();
 	}
 
 	public PercentType(BigDecimal value) {
 		super(value);
-		validateValue(this.value);
+		validateValue();
 	}
 	
-	private void validateValue(BigDecimal value) {
-		if(BigDecimal.ZERO.compareTo(value) > 0 || new BigDecimal(100).compareTo(value) < 0) {
+	private void validateValue() {
+		if(compareTo(DecimalType.ZERO) < 0 || compareTo(DecimalType.valueOf(100)) > 0) {
 			throw new IllegalArgumentException("Value must be between 0 and 100");
 		}
 	}
 	
 	public static PercentType valueOf(String value) {
+		if("0".equals(value)) {
+			return ZERO;
+		} else if("100".equals(value)) {
+			return HUNDRED;
+		}
 		return new PercentType(value);
 	}
 
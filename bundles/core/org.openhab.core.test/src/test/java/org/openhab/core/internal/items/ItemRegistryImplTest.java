@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.internal.items;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.core.items.GenericItem;
+import org.openhab.core.items.GroupItem;
+import org.openhab.core.items.Item;
+import org.openhab.core.items.ItemProvider;
+import org.openhab.core.items.ItemsChangeListener;
+import org.openhab.core.types.Command;
+import org.openhab.core.types.State;
+import org.openhab.core.types.UnDefType;
+
+/**
+ * Tests how the {@link ItemRegistryImpl} handles the incremental reload of the
+ * items of a provider.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ItemRegistryImplTest {
+
+	private ItemRegistryImpl registry;
+
+	private TestItemProvider provider;
+
+	private GroupItem group;
+
+	private TestItem a;
+
+	private TestItem b;
+
+	@Before
+	public void setup() throws Exception {
+		group = new GroupItem("G");
+		a = new TestItem("a", "G");
+		b = new TestItem("b", "G");
+		provider = new TestItemProvider(group, a, b);
+		registry = new ItemRegistryImpl();
+		registry.addItemProvider(provider);
+	}
+
+	@Test
+	public void testAddedProviderIsInitialized() throws Exception {
+		Assert.assertEquals(3, registry.getItems().size());
+		Assert.assertEquals(1, a.initialized);
+		Assert.assertEquals(Arrays.asList(a, b), group.getMembers());
+	}
+
+	@Test
+	public void testItemsProvidedAgainAreKept() throws Exception {
+		a.setState(UnDefType.UNDEF);
+		TestItem newB = new TestItem("b", "G");
+		provider.setItems(group, a, newB);
+
+		Assert.assertSame(a, registry.getItem("a"));
+		Assert.assertEquals(UnDefType.UNDEF, registry.getItem("a").getState());
+		Assert.assertEquals(1, a.initialized);
+		Assert.assertSame(newB, registry.getItem("b"));
+		Assert.assertEquals(1, newB.initialized);
+
+		Assert.assertEquals(2, group.getMembers().size());
+		Assert.assertSame(a, group.getMembers().get(0));
+		Assert.assertSame(newB, group.getMembers().get(1));
+	}
+
+	@Test
+	public void testRemovedItemLeavesItsGroup() throws Exception {
+		provider.setItems(group, a);
+
+		Assert.assertEquals(2, registry.getItems().size());
+		Assert.assertEquals(Arrays.asList(a), group.getMembers());
+	}
+
+	@Test
+	public void testItemRemovedByIdentity() throws Exception {
+		// an equal instance in front of the old one, which must stay in the group
+		TestItem newB = new TestItem("b", "G");
+		group.getMembers().add(1, newB);
+
+		provider.removeItem(b);
+
+		Assert.assertEquals(2, group.getMembers().size());
+		Assert.assertSame(a, group.getMembers().get(0));
+		Assert.assertSame(newB, group.getMembers().get(1));
+	}
+
+	class TestItemProvider implements ItemProvider {
+
+		private final List<ItemsChangeListener> listeners = new ArrayList<ItemsChangeListener>();
+
+		private List<Item> items;
+
+		TestItemProvider(Item... items) {
+			this.items = Arrays.asList(items);
+		}
+
+		void setItems(Item... items) {
+			this.items = Arrays.asList(items);
+			for (ItemsChangeListener listener : listeners) {
+				listener.allItemsChanged(this, null);
+			}
+		}
+
+		void removeItem(Item item) {
+			items = new ArrayList<Item>(items);
+			items.remove(item);
+			for (ItemsChangeListener listener : listeners) {
+				listener.itemRemoved(this, item);
+			}
+		}
+
+		@Override
+		public Collection<Item> getItems() {
+			return items;
+		}
+
+		@Override
+		public void addItemChangeListener(ItemsChangeListener listener) {
+			listeners.add(listener);
+		}
+
+		@Override
+		public void removeItemChangeListener(ItemsChangeListener listener) {
+			listeners.remove(listener);
+		}
+
+	}
+
+	class TestItem extends GenericItem {
+
+		private int initialized = 0;
+
+		public TestItem(String name, String groupName) {
+			super(name);
+			getGroupNames().add(groupName);
+		}
+
+		@Override
+		public void initialize() {
+			initialized++;
+		}
+
+		@Override
+		public List<Class<? extends State>> getAcceptedDataTypes() {
+			return null;
+		}
+
+		@Override
+		public List<Class<? extends Command>> getAcceptedCommandTypes() {
+			return null;
+		}
+
+	}
+
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link AbstractActiveService} on the shared scheduler.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class AbstractActiveServiceTest {
+
+	private TestService service;
+
+	@After
+	public void tearDown() {
+		if (service != null) {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void testExecutesFrequently() throws Exception {
+		service = new TestService(20, 0, 3);
+		service.setProperlyConfigured(true);
+
+		Assert.assertTrue(service.executed.await(5, TimeUnit.SECONDS));
+		Assert.assertTrue(service.isRunning());
+		Assert.assertTrue(service.getRefreshStatistics().getExecutions() >= 2);
+	}
+
+	@Test
+	public void testShutdownStopsIdleService() throws Exception {
+		service = new TestService(1000, 0, 1);
+		service.setProperlyConfigured(true);
+		Assert.assertTrue(service.executed.await(5, TimeUnit.SECONDS));
+
+		service.shutdown();
+		for (int i = 0; i < 100 && service.isRunning(); i++) {
+			Thread.sleep(10);
+		}
+		Assert.assertFalse(service.isRunning());
+	}
+
+	@Test
+	public void testInterruptExecutesAgain() throws Exception {
+		service = new TestService(60000, 0, 2);
+		service.setProperlyConfigured(true);
+		// skip the random start delay
+		service.interrupt();
+		waitForExecutions(1);
+
+		service.interrupt();
+		Assert.assertTrue(service.executed.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testOverrunIsCounted() throws Exception {
+		service = new TestService(10, 50, 2);
+		service.setProperlyConfigured(true);
+
+		Assert.assertTrue(service.executed.await(5, TimeUnit.SECONDS));
+		Assert.assertTrue(service.getRefreshStatistics().getOverruns() >= 1);
+	}
+
+	private void waitForExecutions(long executions) throws InterruptedException {
+		for (int i = 0; i < 500 && service.getRefreshStatistics().getExecutions() < executions; i++) {
+			Thread.sleep(10);
+		}
+		Assert.assertTrue(service.getRefreshStatistics().getExecutions() >= executions);
+	}
+
+
+	class TestService extends AbstractActiveService {
+
+		private final long refreshInterval;
+		private final long executionTime;
+		private final CountDownLatch executed;
+
+		public TestService(long refreshInterval, long executionTime, int executions) {
+			this.refreshInterval = refreshInterval;
+			this.executionTime = executionTime;
+			this.executed = new CountDownLatch(executions);
+		}
+
+		@Override
+		protected boolean useSharedScheduler() {
+			return true;
+		}
+
+		@Override
+		protected void execute() {
+			if (executionTime > 0) {
+				try {
+					Thread.sleep(executionTime);
+				} catch (InterruptedException e) {
+					// stop sleeping
+				}
+			}
+			executed.countDown();
+		}
+
+		@Override
+		protected long getRefreshInterval() {
+			return refreshInterval;
+		}
+
+		@Override
+		protected String getName() {
+			return "Test Refresh Service";
+		}
+
+	}
+
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.transform;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 1.9.0
+ */
+public class TransformationCacheTest {
+
+	private int compilations;
+
+	private final TransformationCache.Compiler<String> compiler = new TransformationCache.Compiler<String>() {
+		@Override
+		public String compile(String expression) {
+			compilations++;
+			return expression.toUpperCase();
+		}
+	};
+
+	private final TransformationCache.Loader<Long> loader = new TransformationCache.Loader<Long>() {
+		@Override
+		public Long load(File file) {
+			compilations++;
+			return file.length();
+		}
+	};
+
+	private final TransformationCache.Loader<String> contentLoader = new TransformationCache.Loader<String>() {
+		@Override
+		public String load(File file) throws TransformationException {
+			compilations++;
+			try {
+				return FileUtils.readFileToString(file);
+			} catch (IOException e) {
+				throw new TransformationException("cannot read " + file, e);
+			}
+		}
+	};
+
+	@Test
+	public void testExpressionIsCompiledOnce() throws TransformationException {
+		TransformationCache<String> cache = new TransformationCache<String>();
+
+		Assert.assertEquals("ABC", cache.get("abc", compiler));
+		Assert.assertEquals("ABC", cache.get("abc", compiler));
+		Assert.assertEquals(1, compilations);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntryIsEvicted() throws TransformationException {
+		TransformationCache<String> cache = new TransformationCache<String>(2);
+
+		cache.get("a", compiler);
+		cache.get("b", compiler);
+		cache.get("a", compiler);
+		cache.get("c", compiler);
+		Assert.assertEquals(2, cache.size());
+
+		cache.get("a", compiler);
+		Assert.assertEquals(3, compilations);
+		cache.get("b", compiler);
+		Assert.assertEquals(4, compilations);
+	}
+
+	@Test
+	public void testModifiedFileIsReloaded() throws TransformationException, IOException {
+		TransformationCache<Long> cache = new TransformationCache<Long>();
+		File file = File.createTempFile("transform", ".map");
+		file.deleteOnExit();
+
+		write(file, "a=b");
+		// outside of the resolution of the modification time, so that the entry is reused
+		long lastModified = System.currentTimeMillis() - 2 * TransformationCache.MODIFICATION_RESOLUTION;
+		file.setLastModified(lastModified);
+		Assert.assertEquals(Long.valueOf(3), cache.get(file, loader));
+		Assert.assertEquals(Long.valueOf(3), cache.get(file, loader));
+		Assert.assertEquals(1, compilations);
+
+		write(file, "a=bc");
+		file.setLastModified(lastModified);
+		Assert.assertEquals(Long.valueOf(4), cache.get(file, loader));
+		Assert.assertEquals(2, compilations);
+	}
+
+	@Test
+	public void testChangeWithinModificationResolutionIsReloaded() throws TransformationException, IOException {
+		TransformationCache<String> cache = new TransformationCache<String>();
+		File file = File.createTempFile("transform", ".map");
+		file.deleteOnExit();
+
+		// a change of the same size and with the same modification time right after the load
+		long lastModified = System.currentTimeMillis();
+		write(file, "a=b");
+		file.setLastModified(lastModified);
+		Assert.assertEquals("a=b", cache.get(file, contentLoader));
+		write(file, "a=c");
+		file.setLastModified(lastModified);
+		Assert.assertEquals("a=c", cache.get(file, contentLoader));
+		Assert.assertEquals(2, compilations);
+	}
+
+	private void write(File file, String content) throws IOException {
+		FileWriter writer = new FileWriter(file);
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.transform.internal;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.openhab.config.core.ConfigConstants;
+import org.openhab.core.transform.TransformationCache;
+import org.openhab.core.transform.TransformationException;
+import org.openhab.core.transform.TransformationService;
+import org.openhab.core.transform.internal.service.JavaScriptTransformationService;
+import org.openhab.core.transform.internal.service.MapTransformationService;
+import org.openhab.core.transform.internal.service.RegExTransformationService;
+import org.openhab.core.transform.internal.service.ScaleTransformationService;
+import org.openhab.core.transform.internal.service.XsltTransformationService;
+
+/**
+ * Measures the first (loading and compiling) and the following (cached) calls of
+ * every transformation service which uses the {@link TransformationCache}.
+ * <p>
+ * This is not a unit test, it is run manually as a Java application:
+ * <code>TransformationServiceBenchmark [iterations]</code>
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class TransformationServiceBenchmark {
+
+	private static final int DEFAULT_ITERATIONS = 10000;
+
+	public static void main(String[] args) throws Exception {
+		int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+
+		File configFolder = new File(FileUtils.getTempDirectory(), "transformation-benchmark");
+		File transformFolder = new File(configFolder, TransformationActivator.TRANSFORM_FOLDER_NAME);
+		System.setProperty(ConfigConstants.CONFIG_DIR_PROG_ARGUMENT, configFolder.getAbsolutePath());
+		try {
+			write(transformFolder, "benchmark.map", "CLOSED=closed\nOPEN=open\nNULL=undefined\n");
+			write(transformFolder, "benchmark.scale", "[0,20[=cold\n[20,25[=comfortable\n[25,100]=hot\n");
+			write(transformFolder, "benchmark.xsl",
+					"<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+							+ "<xsl:output method=\"text\"/><xsl:template match=\"/\">"
+							+ "<xsl:value-of select=\"/weather/temp\"/></xsl:template></xsl:stylesheet>");
+			write(transformFolder, "benchmark.js", "Math.round(parseFloat(input) * 10) / 10");
+
+			run("MAP", new MapTransformationService(), "benchmark.map", "OPEN", iterations);
+			run("SCALE", new ScaleTransformationService(), "benchmark.scale", "21.5", iterations);
+			run("REGEX", new RegExTransformationService(), ".*temp=(\\d+).*", "location=home temp=21 unit=C",
+					iterations);
+			run("XSLT", new XsltTransformationService(), "benchmark.xsl", "<weather><temp>21</temp></weather>",
+					iterations);
+			run("JS", new JavaScriptTransformationService(), "benchmark.js", "21.54", iterations);
+		} finally {
+			FileUtils.deleteQuietly(configFolder);
+		}
+	}
+
+	private static void run(String name, TransformationService service, String function, String source,
+			int iterations) throws TransformationException {
+		long start = System.nanoTime();
+		String result = service.transform(function, source);
+		long first = System.nanoTime() - start;
+
+		// warm up the JIT before measuring the cached calls
+		for (int i = 0; i < iterations; i++) {
+			service.transform(function, source);
+		}
+		start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			service.transform(function, source);
+		}
+		long cached = (System.nanoTime() - start) / iterations;
+
+		System.out.println(String.format("%-6s first call: %8d us, cached call: %8d ns, result: %s", name,
+				first / 1000, cached, result));
+	}
+
+	private static void write(File folder, String filename, String content) throws IOException {
+		File file = new File(folder, filename);
+		FileUtils.writeStringToFile(file, content);
+		// outside of the resolution of the modification time, so that the cached entries are reused
+		file.setLastModified(System.currentTimeMillis() - 2 * TransformationCache.MODIFICATION_RESOLUTION);
+	}
+
+}
@@ -39,4 +39,18 @@ public class XPathTransformationServiceTest extends AbstractTransformationServic
 		Assert.assertEquals("8", transformedResponse);
 	}
 
+	@Test
+	public void testTransformSameSourceByDifferentXPaths() throws TransformationException {
+
+		// method under test
+		String temperature = processor.transform("//current_conditions/temp_c/@data", source);
+		String humidity = processor.transform("//current_conditions/humidity/@data", source);
+		String repeated = processor.transform("//current_conditions/temp_c/@data", source);
+		
+		// Asserts
+		Assert.assertEquals("8", temperature);
+		Assert.assertEquals("Feuchtigkeit: 66 %", humidity);
+		Assert.assertEquals("8", repeated);
+	}
+
 }
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.transform;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, thread-safe cache for compiled transformations (patterns, templates,
+ * scripts, parsed mapping files, ...). It is meant to be used by {@link TransformationService}s
+ * which would otherwise compile or load their transformation rule on every call.
+ * <p>
+ * Entries are either keyed by an expression, which never changes for a given key, or by a
+ * transformation file. File based entries are checked against the modification time and the
+ * size of the file on every access and are reloaded as soon as the file has been changed.
+ * As a file can be changed again within the resolution of the modification time, a file
+ * which has been loaded within {@link #MODIFICATION_RESOLUTION} of its modification is
+ * reloaded on every access until it has been loaded after that period.
+ * <p>
+ * The cached values are shared between all callers, so they must be safe for concurrent use.
+ *
+ * @param <T> the type of the compiled transformation
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class TransformationCache<T> {
+
+	/** the default maximum number of entries of a cache */
+	public static final int DEFAULT_MAX_SIZE = 256;
+
+	/**
+	 * the resolution of file modification times in milliseconds, which is assumed to be the
+	 * one of FAT file systems (the coarsest in common use)
+	 */
+	public static final long MODIFICATION_RESOLUTION = 2000;
+
+	/**
+	 * Compiles a transformation expression
+	 */
+	public interface Compiler<T> {
+		T compile(String expression) throws TransformationException;
+	}
+
+	/**
+	 * Loads and compiles a transformation file
+	 */
+	public interface Loader<T> {
+		T load(File file) throws TransformationException;
+	}
+
+	private final Map<String, CacheEntry<T>> entries;
+
+	public TransformationCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param maxSize the maximum number of entries, the least recently used entries are evicted first
+	 */
+	public TransformationCache(final int maxSize) {
+		this.entries = new LinkedHashMap<String, CacheEntry<T>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry<T>> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the compiled form of the given expression, compiling it on the first request.
+	 *
+	 * @param expression the transformation expression
+	 * @param compiler the compiler to use if the expression is not cached yet
+	 * @return the compiled expression
+	 * @throws TransformationException if the expression cannot be compiled
+	 */
+	public T get(String expression, Compiler<T> compiler) throws TransformationException {
+		CacheEntry<T> entry;
+		synchronized (entries) {
+			entry = entries.get(expression);
+		}
+		if (entry != null) {
+			return entry.value;
+		}
+		T value = compiler.compile(expression);
+		synchronized (entries) {
+			entries.put(expression, new CacheEntry<T>(value, 0, 0, 0));
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the compiled form of the given file. The file is (re)loaded if it has not been
+	 * cached yet or if it has been modified since it was loaded.
+	 *
+	 * @param file the transformation file
+	 * @param loader the loader to use if the file is not cached or outdated
+	 * @return the compiled file content
+	 * @throws TransformationException if the file cannot be loaded
+	 */
+	public T get(File file, Loader<T> loader) throws TransformationException {
+		String key = file.getAbsolutePath();
+		long lastModified = file.lastModified();
+		long length = file.length();
+		CacheEntry<T> entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+		}
+		if (entry != null && entry.lastModified == lastModified && entry.length == length
+				&& entry.loaded - lastModified > MODIFICATION_RESOLUTION) {
+			return entry.value;
+		}
+		// taken before the file is read, so that a change during the load is detected later on
+		long loaded = System.currentTimeMillis();
+		T value = loader.load(file);
+		synchronized (entries) {
+			entries.put(key, new CacheEntry<T>(value, lastModified, length, loaded));
+		}
+		return value;
+	}
+
+	/**
+	 * Removes all entries from this cache.
+	 */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	/**
+	 * @return the current number of entries
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	private static class CacheEntry<T> {
+		final T value;
+		final long lastModified;
+		final long length;
+		final long loaded;
+
+		CacheEntry(T value, long lastModified, long length, long loaded) {
+			this.value = value;
+			this.lastModified = lastModified;
+			this.length = length;
+			this.loaded = loaded;
+		}
+	}
+}
@@ -8,13 +8,16 @@
  */
 package org.openhab.core.transform.internal.service;
 
+import org.openhab.core.transform.TransformationCache;
 import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.InvalidPathException;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.spi.JsonProviderFactory;
 
 
 /**
@@ -29,6 +32,40 @@ public class JSonPathTransformationService implements TransformationService {
 
 	static final Logger logger = LoggerFactory.getLogger(JSonPathTransformationService.class);
 
+	/** the number of recently transformed documents which are kept in parsed form */
+	private static final int DOCUMENT_CACHE_SIZE = 8;
+
+	/** the compiled path expressions, shared by all instances */
+	private static final TransformationCache<JsonPath> expressions = new TransformationCache<JsonPath>();
+
+	/**
+	 * the parsed documents keyed by their source, so that items which read different paths
+	 * of the same response only parse it once
+	 */
+	private static final TransformationCache<Object> documents = new TransformationCache<Object>(DOCUMENT_CACHE_SIZE);
+
+	private static final TransformationCache.Compiler<JsonPath> PATH_COMPILER = new TransformationCache.Compiler<JsonPath>() {
+		@Override
+		public JsonPath compile(String expression) throws TransformationException {
+			try {
+				return JsonPath.compile(expression);
+			} catch (InvalidPathException e) {
+				throw new TransformationException("An error occured while transforming JSON expression.", e);
+			}
+		}
+	};
+
+	private static final TransformationCache.Compiler<Object> DOCUMENT_PARSER = new TransformationCache.Compiler<Object>() {
+		@Override
+		public Object compile(String source) throws TransformationException {
+			try {
+				return JsonProviderFactory.createProvider().parse(source);
+			} catch (InvalidJsonException e) {
+				throw new TransformationException("An error occured while parsing the JSON source.", e);
+			}
+		}
+	};
+
 	/**
 	 * @{inheritDoc
 	 */
@@ -41,7 +78,8 @@ public class JSonPathTransformationService implements TransformationService {
 		logger.debug("about to transform '{}' by the function '{}'", source, JSonPathExpression);
 
 		try {
-			Object transformationResult = JsonPath.read(source, JSonPathExpression);
+			JsonPath path = expressions.get(JSonPathExpression, PATH_COMPILER);
+			Object transformationResult = path.read(documents.get(source, DOCUMENT_PARSER));
 			logger.debug("transformation resulted in '{}'", transformationResult);
 			return (transformationResult != null) ? transformationResult.toString() : null;
 		} catch(InvalidPathException e) {
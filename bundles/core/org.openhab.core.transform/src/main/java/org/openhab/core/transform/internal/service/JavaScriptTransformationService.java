@@ -10,16 +10,21 @@ package org.openhab.core.transform.internal.service;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 import org.apache.commons.io.IOUtils;
 import org.openhab.config.core.ConfigDispatcher;
+import org.openhab.core.transform.TransformationCache;
 import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
 import org.openhab.core.transform.internal.TransformationActivator;
@@ -37,6 +42,38 @@ public class JavaScriptTransformationService implements TransformationService {
 
 	static final Logger logger = 
 		LoggerFactory.getLogger(JavaScriptTransformationService.class);
+
+	/** the compiled scripts of this service, which are bound to its script engine */
+	private final TransformationCache<CompiledScript> cache = new TransformationCache<CompiledScript>();
+
+	private final TransformationCache.Loader<CompiledScript> scriptLoader = new TransformationCache.Loader<CompiledScript>() {
+		@Override
+		public CompiledScript load(File file) throws TransformationException {
+			String script;
+			Reader reader = null;
+			try {
+				reader = new InputStreamReader(new FileInputStream(file));
+				script = IOUtils.toString(reader);
+			} catch (IOException e) {
+				throw new TransformationException("An error occured while loading script.", e);
+			} finally {
+				IOUtils.closeQuietly(reader);
+			}
+
+			ScriptEngine engine = getEngine();
+			if (engine instanceof Compilable) {
+				try {
+					return ((Compilable) engine).compile(script);
+				} catch (ScriptException e) {
+					throw new TransformationException("An error occured while compiling script.", e);
+				}
+			} else {
+				return new InterpretedScript(engine, script);
+			}
+		}
+	};
+
+	private ScriptEngine engine;
 	
 	/**
 	 * Transforms the input <code>source</code> by Java Script. It expects the
@@ -60,32 +97,23 @@ public class JavaScriptTransformationService implements TransformationService {
 
 		logger.debug("about to transform '{}' by the Java Script '{}'", source, filename);
 
-		Reader reader;
-
-		try {
-			String path = ConfigDispatcher.getConfigFolder() 
-				+ File.separator + TransformationActivator.TRANSFORM_FOLDER_NAME
-				+ File.separator + filename;
-			reader = new InputStreamReader(new FileInputStream(path));
-		} catch (FileNotFoundException e) {
-			throw new TransformationException("An error occured while loading script.", e);
-		}
+		String path = ConfigDispatcher.getConfigFolder() 
+			+ File.separator + TransformationActivator.TRANSFORM_FOLDER_NAME
+			+ File.separator + filename;
+		CompiledScript script = cache.get(new File(path), scriptLoader);
 
-		ScriptEngineManager manager = new ScriptEngineManager();
-		
-		ScriptEngine engine = manager.getEngineByName("javascript");
-		engine.put("input", source);
+		// every call gets its own bindings, so that concurrent transformations do not share the input
+		Bindings bindings = script.getEngine().createBindings();
+		bindings.put("input", source);
 
 		Object result = null;
 
 		long startTime = System.currentTimeMillis();
 
 		try {
-			result = engine.eval(reader);
+			result = script.eval(bindings);
 		} catch (ScriptException e) {
 			throw new TransformationException("An error occured while executing script.", e);
-		} finally {
-			IOUtils.closeQuietly(reader);
 		}
 
 		logger.trace("JavaScript execution elapsed {} ms", System.currentTimeMillis() - startTime);
@@ -93,4 +121,38 @@ public class JavaScriptTransformationService implements TransformationService {
 		return String.valueOf(result);
 	}
 
+	private synchronized ScriptEngine getEngine() throws TransformationException {
+		if (engine == null) {
+			engine = new ScriptEngineManager().getEngineByName("javascript");
+			if (engine == null) {
+				throw new TransformationException("No Java Script engine is available.");
+			}
+		}
+		return engine;
+	}
+
+	/**
+	 * Evaluates the script source on every call for engines which do not support compilation
+	 */
+	private static class InterpretedScript extends CompiledScript {
+
+		private final ScriptEngine engine;
+		private final String script;
+
+		InterpretedScript(ScriptEngine engine, String script) {
+			this.engine = engine;
+			this.script = script;
+		}
+
+		@Override
+		public Object eval(ScriptContext context) throws ScriptException {
+			return engine.eval(script, context);
+		}
+
+		@Override
+		public ScriptEngine getEngine() {
+			return engine;
+		}
+	}
+
 }
@@ -9,13 +9,18 @@
 package org.openhab.core.transform.internal.service;
 
 import java.io.BufferedReader;
-import java.io.DataInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.io.IOUtils;
+import org.openhab.core.transform.TransformationCache;
 import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
 import org.slf4j.Logger;
@@ -35,6 +40,56 @@ public class ScaleTransformationService extends LocalizableTransformationService
 	/** RegEx to extract a scale definition */
 	private static final Pattern limits_pattern = Pattern.compile("(\\[|\\])(.*)\\,(.*)(\\[|\\])\\=(.*)");
 
+	/** the parsed scale files, shared by all instances */
+	private static final TransformationCache<List<ScaleRange>> cache = new TransformationCache<List<ScaleRange>>();
+
+	private static final TransformationCache.Loader<List<ScaleRange>> SCALE_LOADER = new TransformationCache.Loader<List<ScaleRange>>() {
+		@Override
+		public List<ScaleRange> load(File file) throws TransformationException {
+			List<ScaleRange> ranges = new ArrayList<ScaleRange>();
+			BufferedReader br = null;
+			try {
+				br = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
+				String strLine;
+				while ((strLine = br.readLine()) != null) {
+					Matcher matcher = limits_pattern.matcher(strLine);
+					if (matcher.matches() && (matcher.groupCount()==5)) {
+						double minLimit;
+						double maxLimit;
+						try {
+							minLimit = Double.parseDouble(matcher.group(2));
+							maxLimit = Double.parseDouble(matcher.group(3));
+						} catch (NumberFormatException e) {
+							// the values are scaled up to this line, all others are mapped like a classical map
+							logger.debug("Invalid scale definition '{}' in file '{}'", strLine, file.getName());
+							ranges.add(ScaleRange.INVALID);
+							break;
+						}
+
+						// a bit of a trick to include/exclude limits of the segment
+						if (matcher.group(1).equals("]"))
+							minLimit = minLimit + 0.0000000001;
+						if (matcher.group(1).equals("["))
+							minLimit = minLimit - 0.0000000001;
+						if (matcher.group(4).equals("]"))
+							maxLimit = maxLimit + 0.0000000001;
+						if (matcher.group(4).equals("["))
+							maxLimit = maxLimit - 0.0000000001;
+
+						ranges.add(new ScaleRange(minLimit, maxLimit, matcher.group(5)));
+					}
+				}
+			} catch (IOException e) {
+				throw new TransformationException("An error occured while scaling value ", e);
+			} finally {
+				IOUtils.closeQuietly(br);
+			}
+			return Collections.unmodifiableList(ranges);
+		}
+	};
+
+	private final MapTransformationService map = new MapTransformationService();
+
 	/**
 	 * <p>
 	 * Transforms the input <code>source</code> by matching it to another string. It expects the scaling to be read from a file which
@@ -60,48 +115,44 @@ public class ScaleTransformationService extends LocalizableTransformationService
 	String result = "not found";
 	String path = getLocalizedProposedFilename(filename);
 
-	try{
-		double value = Double.parseDouble(source);
-		FileInputStream fstream = new FileInputStream(path);
-		DataInputStream in = new DataInputStream(fstream);
-		BufferedReader br = new BufferedReader(new InputStreamReader(in));
-
-		String strLine;
-		while ((strLine = br.readLine()) != null) {
-			Matcher matcher = limits_pattern.matcher(strLine);
-			if (matcher.matches() && (matcher.groupCount()==5)) {
-				double minLimit = Double.parseDouble(matcher.group(2));
-				double maxLimit = Double.parseDouble(matcher.group(3));
-
-				// a bit of a trick to include/exclude limits of the segment
-				if (matcher.group(1).equals("]"))
-					minLimit = minLimit + 0.0000000001;
-				if (matcher.group(1).equals("["))
-					minLimit = minLimit - 0.0000000001;
-				if (matcher.group(4).equals("]"))
-					maxLimit = maxLimit + 0.0000000001;
-				if (matcher.group(4).equals("["))
-					maxLimit = maxLimit - 0.0000000001;
-
-				if ((minLimit < value) && (value < maxLimit)) {
-					result = matcher.group(5);
-					break;
-				}
-			} 
-		}
-
-		in.close();
+	double value;
+	try {
+		value = Double.parseDouble(source);
 	} catch (NumberFormatException e){
 		// If it's not a number let's try it like a classical map
 		// mainly for UnDefType value reason
-		MapTransformationService map = new MapTransformationService();
-		result = map.transform(filename, source);
-		
-	} catch (IOException e) {	
-		throw new TransformationException("An error occured while scaling value ", e);
+		return map.transform(filename, source);
+	}
+
+	for (ScaleRange range : cache.get(new File(path), SCALE_LOADER)) {
+		if (range == ScaleRange.INVALID) {
+			return map.transform(filename, source);
+		}
+		if ((range.minLimit < value) && (value < range.maxLimit)) {
+			result = range.result;
+			break;
+		}
 	}
 
 	return result;
 }
 
+	/**
+	 * A single segment of a scale file
+	 */
+	private static class ScaleRange {
+		/** marks an invalid line, which makes the values that are not scaled before be mapped instead */
+		static final ScaleRange INVALID = new ScaleRange(0, 0, null);
+
+		final double minLimit;
+		final double maxLimit;
+		final String result;
+
+		ScaleRange(double minLimit, double maxLimit, String result) {
+			this.minLimit = minLimit;
+			this.maxLimit = maxLimit;
+			this.result = result;
+		}
+	}
+
 }
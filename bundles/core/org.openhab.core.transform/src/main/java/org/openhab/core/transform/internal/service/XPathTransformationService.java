@@ -17,6 +17,7 @@ import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathFactory;
 
+import org.openhab.core.transform.TransformationCache;
 import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
 import org.slf4j.Logger;
@@ -36,6 +37,55 @@ public class XPathTransformationService implements TransformationService {
 
 	static final Logger logger = LoggerFactory.getLogger(XPathTransformationService.class);
 
+	/** the number of recently transformed documents which are kept in parsed form */
+	private static final int DOCUMENT_CACHE_SIZE = 8;
+
+	/** the compiled XPath expressions, shared by all instances */
+	private static final TransformationCache<XPathExpression> expressions = new TransformationCache<XPathExpression>();
+
+	/**
+	 * the parsed documents keyed by their source, so that items which read different paths
+	 * of the same response only parse it once
+	 */
+	private static final TransformationCache<Document> documents = new TransformationCache<Document>(DOCUMENT_CACHE_SIZE);
+
+	private static final TransformationCache.Compiler<XPathExpression> XPATH_COMPILER = new TransformationCache.Compiler<XPathExpression>() {
+		@Override
+		public XPathExpression compile(String expression) throws TransformationException {
+			try {
+				XPath xpath = XPathFactory.newInstance().newXPath();
+				return xpath.compile(expression);
+			} catch (Exception e) {
+				throw new TransformationException("transformation throws exceptions", e);
+			}
+		}
+	};
+
+	private static final TransformationCache.Compiler<Document> DOCUMENT_PARSER = new TransformationCache.Compiler<Document>() {
+		@Override
+		public Document compile(String source) throws TransformationException {
+			StringReader stringReader = null;
+			try {
+				DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+				domFactory.setNamespaceAware(true);
+				domFactory.setValidating(false);
+				DocumentBuilder builder = domFactory.newDocumentBuilder();
+
+				stringReader = new StringReader(source);
+				InputSource inputSource = new InputSource(stringReader);
+				inputSource.setEncoding("UTF-8");
+
+				return builder.parse(inputSource);
+			} catch (Exception e) {
+				throw new TransformationException("transformation throws exceptions", e);
+			} finally {
+				if (stringReader != null) {
+					stringReader.close();
+				}
+			}
+		}
+	};
+
 	/**
 	 * @{inheritDoc
 	 */
@@ -47,34 +97,23 @@ public class XPathTransformationService implements TransformationService {
 
 		logger.debug("about to transform '{}' by the function '{}'", source, xpathExpression);
 
-		StringReader stringReader = null;
+		XPathExpression expr = expressions.get(xpathExpression, XPATH_COMPILER);
+		Document doc = documents.get(source, DOCUMENT_PARSER);
 
 		try {
-			DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
-			domFactory.setNamespaceAware(true);
-			domFactory.setValidating(false);
-			DocumentBuilder builder = domFactory.newDocumentBuilder();
-
-			stringReader = new StringReader(source);
-			InputSource inputSource = new InputSource(stringReader);
-			inputSource.setEncoding("UTF-8");
-
-			Document doc = builder.parse(inputSource);
-
-			XPath xpath = XPathFactory.newInstance().newXPath();
-			XPathExpression expr = xpath.compile(xpathExpression);
-
-			String transformationResult = (String) expr.evaluate(doc, XPathConstants.STRING);
+			String transformationResult;
+			// neither DOM documents nor XPath expressions are thread-safe
+			synchronized (doc) {
+				synchronized (expr) {
+					transformationResult = (String) expr.evaluate(doc, XPathConstants.STRING);
+				}
+			}
 
 			logger.debug("transformation resulted in '{}'", transformationResult);
 
 			return transformationResult;
 		} catch (Exception e) {
 			throw new TransformationException("transformation throws exceptions", e);
-		} finally {
-			if (stringReader != null) {
-				stringReader.close();
-			}
 		}
 
 	}
@@ -13,12 +13,14 @@ import java.io.StringReader;
 import java.io.StringWriter;
 
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
 import org.openhab.config.core.ConfigDispatcher;
+import org.openhab.core.transform.TransformationCache;
 import org.openhab.core.transform.TransformationException;
 import org.openhab.core.transform.TransformationService;
 import org.openhab.core.transform.internal.TransformationActivator;
@@ -37,6 +39,24 @@ public class XsltTransformationService implements TransformationService {
 
 	static final Logger logger = LoggerFactory.getLogger(XsltTransformationService.class);
 
+	/** the compiled stylesheets, shared by all instances */
+	private static final TransformationCache<Templates> cache = new TransformationCache<Templates>();
+
+	private static final TransformationCache.Loader<Templates> TEMPLATES_LOADER = new TransformationCache.Loader<Templates>() {
+		@Override
+		public Templates load(File file) throws TransformationException {
+			try {
+				Source xsl = new StreamSource(file);
+				return TransformerFactory.newInstance().newTemplates(xsl);
+			} catch (Exception e) {
+				String message = "opening file '" + file.getName() + "' throws exception";
+
+				logger.error(message, e);
+				throw new TransformationException(message, e);
+			}
+		}
+	};
+
 	/**
 	 * <p>
 	 * Transforms the input <code>source</code> by XSLT. It expects the transformation rule to be read from a file which
@@ -59,27 +79,17 @@ public class XsltTransformationService implements TransformationService {
 			throw new TransformationException("the given parameters 'filename' and 'source' must not be null");
 		}
 
-		Source xsl = null;
-
-		try {
-			String path = ConfigDispatcher.getConfigFolder() + File.separator + TransformationActivator.TRANSFORM_FOLDER_NAME + File.separator + filename;
-			xsl = new StreamSource(new File(path));
-		} catch (Exception e) {
-			String message = "opening file '" + filename + "' throws exception";
-
-			logger.error(message, e);
-			throw new TransformationException(message, e);
-		}
+		String path = ConfigDispatcher.getConfigFolder() + File.separator + TransformationActivator.TRANSFORM_FOLDER_NAME + File.separator + filename;
+		Templates templates = cache.get(new File(path), TEMPLATES_LOADER);
 
-		logger.debug("about to transform '{}' by the function '{}'", source, xsl);
+		logger.debug("about to transform '{}' by the function '{}'", source, filename);
 
 		StringReader xml = new StringReader(source);
 		StringWriter out = new StringWriter();
 
-		Transformer transformer;
-
 		try {
-			transformer = TransformerFactory.newInstance().newTransformer(xsl);
+			// Templates are thread-safe, the Transformers created from them are not
+			Transformer transformer = templates.newTransformer();
 			transformer.transform(new StreamSource(xml), new StreamResult(out));
 		} catch (Exception e) {
 			logger.error("transformation throws exception", e);
@@ -10,8 +10,11 @@ package org.openhab.core.internal.items;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -131,7 +134,8 @@ public class ItemRegistryImpl implements ItemRegistry, ItemsChangeListener {
 	public void addItemProvider(ItemProvider itemProvider) {
 		// only add this provider if it does not already exist
 		if(!itemMap.containsKey(itemProvider)) {
-			Collection<Item> items = new CopyOnWriteArraySet<Item>(itemProvider.getItems());
+			// the items are added by allItemsChanged, which initializes all items it doesn't know yet
+			Collection<Item> items = new CopyOnWriteArraySet<Item>();
 			itemProvider.addItemChangeListener(this);
         	itemMap.put(itemProvider, items);
 			logger.debug("Item provider '{}' has been added.", itemProvider.getClass().getSimpleName());
@@ -189,13 +193,32 @@ public class ItemRegistryImpl implements ItemRegistry, ItemsChangeListener {
 			}
 		}
 
+		// items which the provider returns again are kept as they are,
+		// only new item instances need to be initialized
+		Set<Item> knownItems = Collections.newSetFromMap(new IdentityHashMap<Item, Boolean>());
+		Collection<Item> previousItems = itemMap.get(provider);
+		if(previousItems!=null) {
+			knownItems.addAll(previousItems);
+		}
+
 		Collection<Item> items = new CopyOnWriteArrayList<Item>();
-    	itemMap.put(provider, items);
+		Collection<Item> newItems = new ArrayList<Item>();
 		for(Item item : provider.getItems()) {
+			if(knownItems.remove(item)) {
+				items.add(item);
+			} else {
+				newItems.add(item);
+			}
+		}
+    	itemMap.put(provider, items);
+		for(Item item : newItems) {
 			if(initializeItem(item)) {
 				items.add(item);
 			}
 		}
+		for(Item oldItem : knownItems) {
+			releaseItem(oldItem);
+		}
 
 		for(ItemRegistryChangeListener listener : listeners) {
 			listener.allItemsChanged(oldItemNames);
@@ -225,6 +248,7 @@ public class ItemRegistryImpl implements ItemRegistry, ItemsChangeListener {
 		if(items!=null) {
 			items.remove(item);
 		}
+		releaseItem(item);
 		for(ItemRegistryChangeListener listener : listeners) {
 			listener.itemRemoved(item);
 		}
@@ -282,4 +306,29 @@ public class ItemRegistryImpl implements ItemRegistry, ItemsChangeListener {
 			return false;
 		}
 	}
+
+	/**
+	 * releases an item which is no longer provided: it is removed from its groups
+	 * and, if it is a group itself, it stops listening to its members.
+	 * 
+	 * @param item the item to release
+	 */
+	private void releaseItem(Item item) {
+		for(String groupName : item.getGroupNames()) {
+			try {
+				Item groupItem = getItem(groupName);
+				if(groupItem instanceof GroupItem) {
+					((GroupItem)groupItem).removeMember(item);
+				}
+			} catch (ItemNotFoundException e) {
+				// the group has been removed as well
+			}
+		}
+		if(item instanceof GroupItem) {
+			GroupItem groupItem = (GroupItem) item;
+			for(Item member : groupItem.getMembers()) {
+				groupItem.removeMember(member);
+			}
+		}
+	}
 }
@@ -99,7 +99,13 @@ public class GroupItem extends GenericItem implements StateChangeListener {
 	}
 	
 	public void removeMember(Item item) {
-		members.remove(item);
+		// remove this very instance, as item equality also depends on the state
+		for (int i = members.size() - 1; i >= 0; i--) {
+			if (members.get(i) == item) {
+				members.remove(i);
+				break;
+			}
+		}
 		if (item instanceof GenericItem) {
 			GenericItem genericItem = (GenericItem) item;
 			genericItem.removeStateChangeListener(this);
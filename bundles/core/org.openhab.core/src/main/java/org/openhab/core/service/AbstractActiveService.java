@@ -8,6 +8,10 @@
  */
 package org.openhab.core.service;
 
+import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,6 +19,11 @@ import org.slf4j.LoggerFactory;
 /**
  * Base class for services that frequently run some action in a separate thread in the 
  * background.
+ * <p>
+ * By default every service has its own refresh thread. If the shared scheduler is
+ * enabled (see {@link #useSharedScheduler()}), the services are run by a common
+ * thread pool instead, starting with a random delay so that they don't all refresh
+ * at the same time.
  * 
  * @author Kai Kreuzer
  * @since 0.7.0
@@ -38,6 +47,19 @@ public abstract class AbstractActiveService {
 	 */
 	private Thread refreshThread;
 	
+	/**
+	 * holds the refresh task if the shared scheduler is used or is <code>null</code>
+	 * if there is no task active at the moment
+	 */
+	private volatile RefreshTask refreshTask;
+	
+	private final RefreshStatistics statistics = new RefreshStatistics();
+	
+	private static final Random random = new Random();
+	
+	/** the maximum random delay of the first execution on the shared scheduler in milliseconds */
+	private static final long MAX_START_DELAY = 10000;
+	
 	
 	public AbstractActiveService() {
 		super();
@@ -64,8 +86,16 @@ public abstract class AbstractActiveService {
 				
 		shutdown = false;
 		if (!isRunning()) {
-			this.refreshThread = new RefreshThread(getName(), getRefreshInterval());
-			this.refreshThread.start();
+			if (useSharedScheduler()) {
+				long refreshInterval = getRefreshInterval();
+				long startDelay = (long) (random.nextDouble() * Math.min(refreshInterval, MAX_START_DELAY));
+				this.refreshTask = new RefreshTask(getName(), refreshInterval);
+				this.refreshTask.schedule(startDelay);
+				logger.info("{} has been started on the shared scheduler with a delay of {} ms", getName(), startDelay);
+			} else {
+				this.refreshThread = new RefreshThread(getName(), getRefreshInterval());
+				this.refreshThread.start();
+			}
 		} else {
 			logger.trace("{} is already started > calling start() changed nothing.", getName());
 		}
@@ -77,13 +107,21 @@ public abstract class AbstractActiveService {
 	 */
 	public void shutdown() {
 		this.shutdown = true;
+		RefreshTask task = this.refreshTask;
+		if (task != null) {
+			task.cancelIfIdle();
+		}
 	}
 	
 	/**
 	 * Interrupts the refresh thread immediately.
 	 */
 	public void interrupt() {
-		if (isRunning()) {
+		RefreshTask task = this.refreshTask;
+		if (task != null) {
+			task.interrupt();
+			logger.trace("{} has been interrupted.", getName());
+		} else if (isRunning()) {
 			this.refreshThread.interrupt();
 			logger.trace("{} has been interrupted.", getName());
 		}
@@ -93,12 +131,62 @@ public abstract class AbstractActiveService {
 	 * {@inheritDoc}
 	 */
 	public boolean isRunning() {
-		if (this.refreshThread != null) {
-			return this.refreshThread.isAlive();
+		RefreshTask task = this.refreshTask;
+		if (task != null) {
+			return task.isActive();
+		}
+		Thread thread = this.refreshThread;
+		if (thread != null) {
+			return thread.isAlive();
 		}
 		return false;
 	}
 	
+	/**
+	 * Returns whether this service is run by the shared scheduler instead of its own
+	 * thread. The default is defined by the system property
+	 * <code>openhab.refresh.scheduler</code>; services can override it.
+	 * 
+	 * @return <code>true</code> if the shared scheduler should be used
+	 */
+	protected boolean useSharedScheduler() {
+		return RefreshScheduler.isEnabled();
+	}
+	
+	/**
+	 * @return the execution statistics of this service
+	 */
+	public RefreshStatistics getRefreshStatistics() {
+		return statistics;
+	}
+	
+	/**
+	 * Calls {@link #execute()} and records its execution time. An overrun is
+	 * only logged as a warning on the shared scheduler, where it delays the
+	 * other services; an own refresh thread just starts its next cycle later.
+	 * 
+	 * @param shared <code>true</code> if called by the shared scheduler
+	 */
+	private void executeAndRecord(String name, long refreshInterval, boolean shared) {
+		long start = System.nanoTime();
+		try {
+			execute();
+		} catch(RuntimeException e) {
+			logger.error("Error while executing background thread " + name, e);
+		}
+		long executionTime = System.nanoTime() - start;
+		if (statistics.record(executionTime, refreshInterval)) {
+			long overruns = statistics.getOverruns();
+			Object[] args = new Object[] { name, TimeUnit.NANOSECONDS.toMillis(executionTime), refreshInterval, overruns };
+			// warn about the first and every 100th overrun only
+			if (shared && (overruns == 1 || overruns % 100 == 0)) {
+				logger.warn("{} has taken {} ms, which is longer than its refresh interval of {} ms ({} overruns so far)", args);
+			} else {
+				logger.debug("{} has taken {} ms, which is longer than its refresh interval of {} ms ({} overruns so far)", args);
+			}
+		}
+	}
+	
 	/**
 	 * @return <code>true</code> if this binding is configured properly which means
 	 * that all necessary data is available
@@ -169,11 +257,7 @@ public abstract class AbstractActiveService {
 			logger.info(getName() + " has been started");
 			
 			while (!shutdown) {
-				try {
-					execute();
-				} catch(RuntimeException e) {
-					logger.error("Error while executing background thread " + getName(), e);
-				}
+				executeAndRecord(getName(), refreshInterval, false);
 				pause(refreshInterval);
 			}
 			
@@ -198,5 +282,109 @@ public abstract class AbstractActiveService {
 		}
 
 	}
+	
+	/**
+	 * Task on the shared scheduler which calls the execute method frequently.
+	 * Like the {@link RefreshThread}, it waits for the refresh interval after
+	 * each execution and stops after the current execution cycle on shutdown.
+	 */
+	class RefreshTask implements Runnable {
+		
+		private final String name;
+		private final long refreshInterval;
+		
+		private ScheduledFuture<?> future;
+		private Thread executingThread;
+		private boolean cancelled = false;
+		private boolean interrupted = false;
+		
+		public RefreshTask(String name, long refreshInterval) {
+			this.name = name;
+			this.refreshInterval = refreshInterval;
+		}
+		
+		synchronized void schedule(long delay) {
+			if (!cancelled) {
+				future = RefreshScheduler.getScheduler().schedule(this, delay, TimeUnit.MILLISECONDS);
+			}
+		}
+		
+		@Override
+		public void run() {
+			synchronized (this) {
+				if (cancelled) {
+					return;
+				}
+				if (shutdown) {
+					stop();
+					return;
+				}
+				executingThread = Thread.currentThread();
+				interrupted = false;
+			}
+			String threadName = executingThread.getName();
+			executingThread.setName(name);
+			try {
+				executeAndRecord(name, refreshInterval, true);
+			} finally {
+				Thread.currentThread().setName(threadName);
+				synchronized (this) {
+					executingThread = null;
+					// an interrupt must not affect the next task of this pool thread
+					Thread.interrupted();
+					if (shutdown) {
+						stop();
+					} else {
+						schedule(interrupted ? 0 : refreshInterval);
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Executes the service again right away, interrupting a running execution.
+		 */
+		synchronized void interrupt() {
+			if (cancelled) {
+				return;
+			}
+			if (executingThread != null) {
+				interrupted = true;
+				executingThread.interrupt();
+			} else if (future != null && future.cancel(false)) {
+				schedule(0);
+			}
+		}
+		
+		/**
+		 * Stops the task right away if it is not executing, otherwise it stops after the execution.
+		 */
+		synchronized void cancelIfIdle() {
+			if (executingThread == null) {
+				if (future != null) {
+					future.cancel(false);
+				}
+				stop();
+			}
+		}
+		
+		/**
+		 * @return <code>true</code> as long as the task is scheduled or executing
+		 */
+		synchronized boolean isActive() {
+			return !cancelled;
+		}
+		
+		private void stop() {
+			if (!cancelled) {
+				cancelled = true;
+				if (refreshTask == this) {
+					refreshTask = null;
+				}
+				logger.info(name + " has been shut down");
+			}
+		}
+		
+	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.service;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds the thread pool which runs the {@link AbstractActiveService}s if the
+ * shared scheduler is enabled by the system property
+ * <code>openhab.refresh.scheduler=shared</code>. The number of threads can be
+ * set with the system property <code>openhab.refresh.threads</code>, the default
+ * is 8. By default every active service has its own refresh thread.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+final class RefreshScheduler {
+
+	private static final boolean ENABLED = "shared".equalsIgnoreCase(System.getProperty("openhab.refresh.scheduler"));
+
+	private static final int THREADS = Integer.getInteger("openhab.refresh.threads", 8);
+
+	private static ScheduledExecutorService scheduler;
+
+	private RefreshScheduler() {
+	}
+
+	/**
+	 * @return <code>true</code> if the active services should use the shared scheduler
+	 */
+	static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * @return the shared scheduler, created on first use
+	 */
+	static synchronized ScheduledExecutorService getScheduler() {
+		if (scheduler == null) {
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(THREADS, new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "Refresh Scheduler " + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			executor.setRemoveOnCancelPolicy(true);
+			scheduler = executor;
+		}
+		return scheduler;
+	}
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.core.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution statistics of an {@link AbstractActiveService}. An overrun is an
+ * execution which has taken longer than the refresh interval of the service.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class RefreshStatistics {
+
+	private long executions;
+	private long totalExecutionTime;
+	private long maxExecutionTime;
+	private long overruns;
+
+	/**
+	 * Records an execution.
+	 *
+	 * @param executionTime the execution time in nanoseconds
+	 * @param refreshInterval the refresh interval in milliseconds
+	 * @return <code>true</code> if the execution has taken longer than the refresh interval
+	 */
+	synchronized boolean record(long executionTime, long refreshInterval) {
+		executions++;
+		totalExecutionTime += executionTime;
+		maxExecutionTime = Math.max(maxExecutionTime, executionTime);
+		if (executionTime > TimeUnit.MILLISECONDS.toNanos(refreshInterval)) {
+			overruns++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the number of executions
+	 */
+	public synchronized long getExecutions() {
+		return executions;
+	}
+
+	/**
+	 * @return the average execution time in milliseconds
+	 */
+	public synchronized long getAverageExecutionTime() {
+		return executions > 0 ? TimeUnit.NANOSECONDS.toMillis(totalExecutionTime / executions) : 0;
+	}
+
+	/**
+	 * @return the maximum execution time in milliseconds
+	 */
+	public synchronized long getMaxExecutionTime() {
+		return TimeUnit.NANOSECONDS.toMillis(maxExecutionTime);
+	}
+
+	/**
+	 * @return the number of executions which have taken longer than the refresh interval
+	 */
+	public synchronized long getOverruns() {
+		return overruns;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "executions=" + executions + ", avgExecutionTime=" + getAverageExecutionTime()
+				+ "ms, maxExecutionTime=" + getMaxExecutionTime() + "ms, overruns=" + overruns;
+	}
+
+}
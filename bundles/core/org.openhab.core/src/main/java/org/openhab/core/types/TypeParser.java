@@ -10,17 +10,84 @@ package org.openhab.core.types;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * This is a helper class that helps parsing a string into an openHAB type (state or command).
- * 
+ *
+ * <p>For every distinct list of accepted types (usually the static lists of an item class)
+ * a table of {@link Parser}s is built once and reused for all subsequent calls. Types can
+ * register a dedicated, non-throwing parser through {@link #registerParser(Class, Parser)};
+ * enum types are resolved through a name lookup and all other types fall back to a cached
+ * reference of their static <code>valueOf(String)</code> method.</p>
+ *
  * @author Kai Kreuzer
  * @since 0.1.0
  *
  */
 public class TypeParser {
 
+	/**
+	 * A parser converts a string into an instance of a single type. Implementations
+	 * must not throw an exception for strings they do not accept but return
+	 * <code>null</code> instead.
+	 *
+	 * @since 1.9.0
+	 */
+	public interface Parser<T extends Type> {
+
+		/**
+		 * @param s the string to parse, never <code>null</code>
+		 * @return the parsed value or <code>null</code>, if the string is not accepted
+		 */
+		T parse(String s);
+	}
+
+	/** the parsers which have been registered explicitly for a type */
+	private static final ConcurrentMap<Class<? extends Type>, Parser<?>> registeredParsers = new ConcurrentHashMap<>();
+
+	/** the parsers that have been resolved for a type, either registered or generic */
+	private static final ConcurrentMap<Class<? extends Type>, Parser<?>> resolvedParsers = new ConcurrentHashMap<>();
+
+	/** the parser tables per list of accepted types */
+	private static final ConcurrentMap<List<? extends Class<?>>, Parser<?>[]> parserTables = new ConcurrentHashMap<>();
+
+	/**
+	 * Registers a dedicated parser for the given type, which is used instead
+	 * of the reflective call of its <code>valueOf(String)</code> method.
+	 *
+	 * @param type the type to register the parser for
+	 * @param parser the parser to use for this type
+	 * @since 1.9.0
+	 */
+	public static <T extends Type> void registerParser(Class<T> type, Parser<? extends T> parser) {
+		registeredParsers.put(type, parser);
+		invalidate();
+	}
+
+	/**
+	 * Removes a parser that has been registered through {@link #registerParser(Class, Parser)}.
+	 *
+	 * @param type the type to remove the parser for
+	 * @since 1.9.0
+	 */
+	public static void unregisterParser(Class<? extends Type> type) {
+		if (registeredParsers.remove(type) != null) {
+			invalidate();
+		}
+	}
+
+	private static void invalidate() {
+		resolvedParsers.clear();
+		parserTables.clear();
+	}
+
 	/**
 	 * <p>Determines a state from a string. Possible state types are passed as a parameter.
 	 * Note that the order matters here; the first type that accepts the string as a valid
@@ -28,22 +95,19 @@ public class TypeParser {
 	 * <p>Example: The type list is OnOffType.class,StringType.class. The string "ON" is now
 	 * accepted by the OnOffType and thus OnOffType.ON will be returned (and not a StringType
 	 * with value "ON").</p>
-	 *  
-	 * @param types possible types of the state to consider 
+	 *
+	 * @param types possible types of the state to consider
 	 * @param s the string to parse
 	 * @return the corresponding State instance or <code>null</code>
 	 */
 	public static State parseState(List<Class<? extends State>> types, String s) {
-		for(Class<? extends Type> type : types) {
-			try {									
-				Method valueOf = type.getMethod("valueOf", String.class);
-				State state = (State) valueOf.invoke(type, s);
-				if(state!=null) return state;
-			} catch (NoSuchMethodException e) {
-			} catch (IllegalArgumentException e) {
-			} catch (IllegalAccessException e) {
-			} catch (InvocationTargetException e) {
-			}
+		if (s == null) {
+			// the parsers do not accept null, so let the valueOf methods decide as before
+			return (State) parseNull(types);
+		}
+		for (Parser<?> parser : getParserTable(types)) {
+			Type state = parser.parse(s);
+			if (state != null) return (State) state;
 		}
 		return null;
 	}
@@ -55,25 +119,127 @@ public class TypeParser {
 	 * <p>Example: The type list is OnOffType.class,StringType.class. The string "ON" is now
 	 * accepted by the OnOffType and thus OnOffType.ON will be returned (and not a StringType
 	 * with value "ON").</p>
-	 *  
-	 * @param types possible types of the command to consider 
+	 *
+	 * @param types possible types of the command to consider
 	 * @param s the string to parse
 	 * @return the corresponding Command instance or <code>null</code>
 	 */
 	public static Command parseCommand(List<Class<? extends Command>> types, String s) {
-		if(s!=null) {
-			for(Class<? extends Command> type : types) {
-				try {									
-					Method valueOf = type.getMethod("valueOf", String.class);
-					Command value = (Command) valueOf.invoke(type, s);
-					if(value!=null) return value;
-				} catch (NoSuchMethodException e) {
-				} catch (IllegalArgumentException e) {
-				} catch (IllegalAccessException e) {
-				} catch (InvocationTargetException e) {
-				}		
+		if (s != null) {
+			for (Parser<?> parser : getParserTable(types)) {
+				Type value = parser.parse(s);
+				if (value != null) return (Command) value;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Calls the <code>valueOf(String)</code> methods of the given types with <code>null</code>,
+	 * as some types (e.g. <code>StringType</code>) accept it.
+	 */
+	private static Type parseNull(List<? extends Class<? extends Type>> types) {
+		for (Class<? extends Type> type : types) {
+			try {
+				Method valueOf = type.getMethod("valueOf", String.class);
+				Type value = (Type) valueOf.invoke(type, (String) null);
+				if (value != null) return value;
+			} catch (NoSuchMethodException e) {
+			} catch (IllegalArgumentException e) {
+			} catch (IllegalAccessException e) {
+			} catch (InvocationTargetException e) {
+			}
+		}
+		return null;
+	}
+
+	private static Parser<?>[] getParserTable(List<? extends Class<? extends Type>> types) {
+		Parser<?>[] table = parserTables.get(types);
+		if (table == null) {
+			List<Parser<?>> parsers = new ArrayList<>(types.size());
+			for (Class<? extends Type> type : types) {
+				Parser<?> parser = getParser(type);
+				if (parser != null) {
+					parsers.add(parser);
+				}
+			}
+			table = parsers.toArray(new Parser<?>[parsers.size()]);
+			// copy the key so that later modifications of the list do not affect the table
+			parserTables.putIfAbsent(new ArrayList<Class<? extends Type>>(types), table);
+		}
+		return table;
+	}
+
+	private static Parser<?> getParser(Class<? extends Type> type) {
+		Parser<?> parser = resolvedParsers.get(type);
+		if (parser == null) {
+			parser = registeredParsers.get(type);
+			if (parser == null) {
+				parser = createGenericParser(type);
 			}
+			if (parser == null) {
+				return null;
+			}
+			resolvedParsers.putIfAbsent(type, parser);
+		}
+		return parser;
+	}
+
+	private static Parser<?> createGenericParser(Class<? extends Type> type) {
+		if (type.isEnum()) {
+			return new EnumParser(type.getEnumConstants());
+		}
+		try {
+			Method valueOf = type.getMethod("valueOf", String.class);
+			if (Modifier.isStatic(valueOf.getModifiers())) {
+				return new ValueOfParser(valueOf);
+			}
+		} catch (NoSuchMethodException e) {
+		} catch (SecurityException e) {
 		}
 		return null;
 	}
+
+	/**
+	 * Resolves enum constants by their name without using exceptions for unknown names.
+	 */
+	private static class EnumParser implements Parser<Type> {
+
+		private final Map<String, Type> constants = new HashMap<>();
+
+		EnumParser(Type[] values) {
+			for (Type value : values) {
+				constants.put(((Enum<?>) value).name(), value);
+			}
+		}
+
+		@Override
+		public Type parse(String s) {
+			return constants.get(s);
+		}
+	}
+
+	/**
+	 * Calls the (cached) static <code>valueOf(String)</code> method of a type.
+	 */
+	private static class ValueOfParser implements Parser<Type> {
+
+		private final Method valueOf;
+
+		ValueOfParser(Method valueOf) {
+			this.valueOf = valueOf;
+		}
+
+		@Override
+		public Type parse(String s) {
+			try {
+				return (Type) valueOf.invoke(null, s);
+			} catch (IllegalArgumentException e) {
+			} catch (IllegalAccessException e) {
+			} catch (InvocationTargetException e) {
+			} catch (ClassCastException e) {
+			}
+			return null;
+		}
+	}
 }
@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.multimedia.tts.cache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import junit.framework.Assert;
+
+/**
+ * Tests the eviction and the reload of the {@link TTSCache}.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class TTSCacheTest {
+
+    private static final List<String> NO_PHRASES = Collections.emptyList();
+
+    private File folder;
+
+    private TestSynthesizer synthesizer;
+
+    private TTSCache cache;
+
+    @Before
+    public void init() throws IOException {
+        folder = Files.createTempDirectory("ttscache").toFile();
+        synthesizer = new TestSynthesizer();
+        cache = createCache(10, 3);
+    }
+
+    @After
+    public void cleanup() {
+        for (File file : folder.listFiles()) {
+            file.delete();
+        }
+        folder.delete();
+    }
+
+    @Test
+    public void testCacheIsDisabledByDefault() {
+        Assert.assertFalse(new TTSCache().isEnabled());
+
+        cache.configure(folder, 0, 3, NO_PHRASES);
+        Assert.assertFalse(cache.isEnabled());
+        cache.configure(folder, 10, 0, NO_PHRASES);
+        Assert.assertFalse(cache.isEnabled());
+    }
+
+    @Test
+    public void testRepeatedTextIsNotSynthesizedAgain() throws IOException {
+        File file = play("a");
+        Assert.assertEquals(file, play("a"));
+        Assert.assertEquals(1, synthesizer.count);
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+
+        play("b");
+        Assert.assertEquals(2, synthesizer.count);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedFileIsEvicted() throws IOException {
+        File a = play("a");
+        File b = play("b");
+        play("c");
+        play("a");
+        play("d");
+
+        Assert.assertTrue(a.isFile());
+        Assert.assertFalse(b.isFile());
+        Assert.assertEquals(3, countFiles());
+    }
+
+    @Test
+    public void testSizeIsLimited() throws IOException {
+        cache.configure(folder, 10, 100, NO_PHRASES);
+        synthesizer.length = 4;
+        File a = play("a");
+        play("b");
+        play("c");
+
+        Assert.assertFalse(a.isFile());
+        Assert.assertEquals(2, countFiles());
+    }
+
+    @Test
+    public void testLimitsAreAppliedWhenConfigured() throws IOException {
+        File a = play("a");
+        play("b");
+        play("c");
+        cache.configure(folder, 10, 1, NO_PHRASES);
+
+        Assert.assertFalse(a.isFile());
+        Assert.assertEquals(1, countFiles());
+    }
+
+    @Test
+    public void testFileIsKeptUntilReleased() throws IOException {
+        File a = cache.getAudio("test", "voice", "a", "wav", synthesizer);
+        File b = play("b");
+        play("c");
+        play("d");
+        Assert.assertTrue(a.isFile());
+        Assert.assertFalse(b.isFile());
+
+        cache.release(a);
+        play("e");
+        Assert.assertFalse(a.isFile());
+        Assert.assertEquals(3, countFiles());
+    }
+
+    @Test
+    public void testMissingFileIsSynthesizedAgain() throws IOException {
+        File a = play("a");
+        a.delete();
+
+        Assert.assertEquals(a, play("a"));
+        Assert.assertTrue(a.isFile());
+        Assert.assertEquals(2, synthesizer.count);
+    }
+
+    @Test
+    public void testOrderOfUseSurvivesReload() throws IOException {
+        File a = play("a");
+        File b = play("b");
+        File c = play("c");
+        long now = System.currentTimeMillis();
+        b.setLastModified(now - 30000);
+        c.setLastModified(now - 20000);
+        a.setLastModified(now - 10000);
+
+        cache = createCache(10, 3);
+        play("d");
+
+        Assert.assertFalse(b.isFile());
+        Assert.assertTrue(c.isFile());
+        Assert.assertEquals(3, countFiles());
+
+        play("c");
+        play("e");
+        Assert.assertFalse(a.isFile());
+        Assert.assertTrue(c.isFile());
+    }
+
+    @Test
+    public void testLeftoverTempFilesAreDeleted() throws IOException {
+        File tempFile = File.createTempFile("tts-", ".wav", folder);
+        play("a");
+
+        Assert.assertFalse(tempFile.exists());
+        Assert.assertEquals(1, countFiles());
+    }
+
+    private TTSCache createCache(long maxSize, int maxEntries) {
+        TTSCache cache = new TTSCache();
+        cache.configure(folder, maxSize, maxEntries, NO_PHRASES);
+        return cache;
+    }
+
+    private File play(String text) throws IOException {
+        File file = cache.getAudio("test", "voice", text, "wav", synthesizer);
+        cache.release(file);
+        return file;
+    }
+
+    private int countFiles() {
+        return folder.listFiles().length;
+    }
+
+    private static class TestSynthesizer implements TTSCache.Synthesizer {
+        private int count;
+        private int length = 1;
+
+        @Override
+        public void synthesize(String text, String voice, File file) throws IOException {
+            count++;
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(new byte[length]);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,418 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.multimedia.tts.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache for synthesized speech on disk, which is shared by all {@link org.openhab.io.multimedia.tts.TTSService}s. The audio of a text is stored
+ * in a file which is named by the SHA-1 hash of the engine, the voice and the text. If the cache exceeds its size or
+ * its number of entries, the least recently used files are deleted, except for the files which are being played.
+ * <p>
+ * The cache is disabled until a maximum size is configured.
+ * <p>
+ * The engines register themselves with their default voice, so that the configured phrases are synthesized in the
+ * background as soon as an engine is available.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class TTSCache {
+
+    /**
+     * Synthesizes the audio of a text for the {@link TTSCache}.
+     */
+    public interface Synthesizer {
+
+        /**
+         * Synthesizes a text and writes the audio to the given file
+         *
+         * @param text the text to synthesize
+         * @param voice the name of the voice to use
+         * @param file the file to write the audio to
+         * @throws IOException if the text could not be synthesized or the audio could not be written
+         */
+        void synthesize(String text, String voice, File file) throws IOException;
+
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(TTSCache.class);
+
+    /** the default maximum size of the cache in megabytes, which disables the cache */
+    public static final long DEFAULT_MAX_SIZE = 0;
+
+    /** the default maximum number of files in the cache */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private static final String TEMP_FILE_PREFIX = "tts-";
+
+    private static final int HASH_LENGTH = 40;
+
+    private static final TTSCache instance = new TTSCache();
+
+    /** the size of all cached files by their name, in the order of their last use */
+    private final Map<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+
+    /** the number of users of the files which are being played */
+    private final Map<File, Integer> pins = new HashMap<File, Integer>();
+
+    private final Map<String, Registration> registrations = new HashMap<String, Registration>();
+
+    private File folder = getDefaultFolder();
+
+    private long maxSize = DEFAULT_MAX_SIZE * 1024 * 1024;
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    private List<String> phrases = Collections.emptyList();
+
+    private boolean loaded;
+
+    private long size;
+
+    private long hits;
+
+    private long misses;
+
+    private ExecutorService prewarmExecutor;
+
+    TTSCache() {
+    }
+
+    /**
+     * @return the cache which is shared by all engines
+     */
+    public static TTSCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * @return the folder <code>etc/tts</code>
+     */
+    public static File getDefaultFolder() {
+        return new File("etc" + File.separator + "tts");
+    }
+
+    /**
+     * Configures the cache. Files which exceed the new limits are deleted and the phrases are synthesized by all
+     * registered engines.
+     *
+     * @param folder the folder to store the audio files in
+     * @param maxSize the maximum size of all audio files in bytes, 0 disables the cache
+     * @param maxEntries the maximum number of audio files, 0 disables the cache
+     * @param phrases the phrases to synthesize when an engine is registered
+     */
+    public synchronized void configure(File folder, long maxSize, int maxEntries, List<String> phrases) {
+        if (!folder.equals(this.folder)) {
+            this.folder = folder;
+            entries.clear();
+            size = 0;
+            loaded = false;
+        }
+        this.maxSize = maxSize;
+        this.maxEntries = maxEntries;
+        this.phrases = phrases;
+        logger.debug("TTS cache in folder '{}' is configured with a maximum size of {} bytes and {} files",
+                folder.getAbsolutePath(), maxSize, maxEntries);
+
+        if (isEnabled()) {
+            if (loaded) {
+                evict();
+            }
+            for (Map.Entry<String, Registration> registration : registrations.entrySet()) {
+                prewarm(registration.getKey(), registration.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the engines should use the cache
+     */
+    public synchronized boolean isEnabled() {
+        return maxSize > 0 && maxEntries > 0;
+    }
+
+    /**
+     * Registers an engine, so that the configured phrases are synthesized with its default voice.
+     *
+     * @param engine the name of the engine
+     * @param voice the name of the default voice of the engine
+     * @param extension the file extension of the audio which is created by the engine
+     * @param synthesizer the synthesizer of the engine
+     */
+    public synchronized void register(String engine, String voice, String extension, Synthesizer synthesizer) {
+        Registration registration = new Registration(voice, extension, synthesizer);
+        registrations.put(engine, registration);
+        if (isEnabled()) {
+            prewarm(engine, registration);
+        }
+    }
+
+    /**
+     * Unregisters an engine, which stops the synthesis of its phrases.
+     *
+     * @param engine the name of the engine
+     */
+    public synchronized void unregister(String engine) {
+        registrations.remove(engine);
+    }
+
+    /**
+     * Returns the audio file for a text. If the text is not in the cache yet, it is synthesized and stored. The file
+     * is kept until it is released with {@link #release(File)}, which must be called once it has been played.
+     *
+     * @param engine the name of the engine
+     * @param voice the name of the voice
+     * @param text the text to speak
+     * @param extension the file extension of the audio which is created by the engine
+     * @param synthesizer the synthesizer of the engine
+     * @return the audio file
+     * @throws IOException if the text could not be synthesized or stored
+     */
+    public File getAudio(String engine, String voice, String text, String extension, Synthesizer synthesizer)
+            throws IOException {
+        String name = getFileName(engine, voice, text, extension);
+        File folder;
+        synchronized (this) {
+            load();
+            folder = this.folder;
+            File file = new File(folder, name);
+            // the lookup moves the entry to the end of the order of use
+            if (entries.get(name) != null) {
+                if (file.isFile()) {
+                    // the modification time is the time of the last use after a restart
+                    file.setLastModified(System.currentTimeMillis());
+                    hits++;
+                    logger.trace("TTS cache hit for '{}' ({} hits, {} misses)", text, hits, misses);
+                    pin(file);
+                    return file;
+                }
+                remove(name);
+            }
+            misses++;
+        }
+
+        File file = new File(folder, name);
+        File tempFile = File.createTempFile(TEMP_FILE_PREFIX, "." + extension, folder);
+        try {
+            long start = System.currentTimeMillis();
+            synthesizer.synthesize(text, voice, tempFile);
+            synchronized (this) {
+                // another thread may play the file of the same text right now
+                if (!pins.containsKey(file) || !file.isFile()) {
+                    if (!tempFile.renameTo(file) && !(file.delete() && tempFile.renameTo(file))) {
+                        throw new IOException("Could not store audio file " + file.getAbsolutePath());
+                    }
+                }
+                pin(file);
+                if (folder.equals(this.folder)) {
+                    Long previous = entries.put(name, file.length());
+                    size += file.length() - (previous != null ? previous : 0);
+                    evict();
+                }
+            }
+            logger.debug("Synthesized '{}' with {} in {}ms", text, engine, System.currentTimeMillis() - start);
+            return file;
+        } finally {
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Releases a file which has been returned by {@link #getAudio(String, String, String, String, Synthesizer)}, so
+     * that it can be deleted.
+     *
+     * @param file the audio file
+     */
+    public synchronized void release(File file) {
+        Integer count = pins.remove(file);
+        if (count != null && count > 1) {
+            pins.put(file, count - 1);
+        } else if (loaded) {
+            evict();
+        }
+    }
+
+    private void pin(File file) {
+        Integer count = pins.get(file);
+        pins.put(file, count != null ? count + 1 : 1);
+    }
+
+    /**
+     * @return the number of texts which have been found in the cache
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of texts which have been synthesized
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Reads the files of the cache folder in the order of their last use.
+     */
+    private void load() throws IOException {
+        if (loaded) {
+            return;
+        }
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            throw new IOException("Could not create TTS cache folder " + folder.getAbsolutePath());
+        }
+        File[] files = folder.listFiles();
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                long modified1 = file1.lastModified();
+                long modified2 = file2.lastModified();
+                return modified1 < modified2 ? -1 : (modified1 == modified2 ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if (file.getName().startsWith(TEMP_FILE_PREFIX)) {
+                // left over from an interrupted synthesis
+                file.delete();
+            } else if (file.isFile() && file.getName().indexOf('.') == HASH_LENGTH) {
+                entries.put(file.getName(), file.length());
+                size += file.length();
+            }
+        }
+        loaded = true;
+        logger.debug("Loaded {} files with {} bytes from TTS cache folder '{}'", entries.size(), size,
+                folder.getAbsolutePath());
+        evict();
+    }
+
+    /**
+     * Deletes the least recently used files, which are not being played, until the cache is within its limits.
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while ((size > maxSize || entries.size() > maxEntries) && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            File file = new File(folder, entry.getKey());
+            if (pins.containsKey(file)) {
+                continue;
+            }
+            iterator.remove();
+            size -= entry.getValue();
+            if (!file.delete() && file.exists()) {
+                logger.debug("Could not delete TTS cache file {}", file.getAbsolutePath());
+            }
+        }
+    }
+
+    private void remove(String name) {
+        Long length = entries.remove(name);
+        if (length != null) {
+            size -= length;
+        }
+    }
+
+    /**
+     * Synthesizes the configured phrases with the default voice of an engine in the background.
+     */
+    private void prewarm(final String engine, final Registration registration) {
+        if (phrases.isEmpty()) {
+            return;
+        }
+        if (prewarmExecutor == null) {
+            prewarmExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "TTS Cache Prewarming");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        final List<String> phrases = this.phrases;
+        prewarmExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (String phrase : phrases) {
+                    synchronized (TTSCache.this) {
+                        if (registrations.get(engine) != registration || !isEnabled()) {
+                            return;
+                        }
+                    }
+                    try {
+                        release(getAudio(engine, registration.voice, phrase, registration.extension,
+                                registration.synthesizer));
+                    } catch (IOException e) {
+                        logger.warn("Could not synthesize '{}' with {}: {}", phrase, engine, e.getMessage());
+                    } catch (RuntimeException e) {
+                        logger.warn("Could not synthesize '{}' with {}", phrase, engine, e);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the name of the audio file for a text, which is the SHA-1 hash of the engine, the voice and the text
+     */
+    private static String getFileName(String engine, String voice, String text, String extension) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(engine.getBytes("UTF-8"));
+            digest.update((byte) 0);
+            if (voice != null) {
+                digest.update(voice.getBytes("UTF-8"));
+            }
+            digest.update((byte) 0);
+            byte[] hash = digest.digest(text.getBytes("UTF-8"));
+
+            StringBuilder name = new StringBuilder(HASH_LENGTH + 1 + extension.length());
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16));
+                name.append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.append('.').append(extension).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not supported", e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported", e);
+        }
+    }
+
+    private static class Registration {
+        private final String voice;
+        private final String extension;
+        private final Synthesizer synthesizer;
+
+        private Registration(String voice, String extension, Synthesizer synthesizer) {
+            this.voice = voice;
+            this.extension = extension;
+            this.synthesizer = synthesizer;
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.multimedia.tts.cache.internal;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.openhab.io.multimedia.tts.cache.TTSCache;
+import org.osgi.service.cm.ConfigurationException;
+import org.osgi.service.cm.ManagedService;
+
+/**
+ * Passes the <code>ttscache:</code> configuration to the {@link TTSCache}.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class TTSCacheConfiguration implements ManagedService {
+
+    private static final String FOLDER_PROPERTY = "folder";
+    private static final String MAX_SIZE_PROPERTY = "maxSize";
+    private static final String MAX_ENTRIES_PROPERTY = "maxEntries";
+    private static final String PREWARM_PROPERTY = "prewarm";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updated(Dictionary<String, ?> properties) throws ConfigurationException {
+        File folder = TTSCache.getDefaultFolder();
+        long maxSize = TTSCache.DEFAULT_MAX_SIZE;
+        int maxEntries = TTSCache.DEFAULT_MAX_ENTRIES;
+        List<String> phrases = new ArrayList<String>();
+
+        if (properties != null) {
+            String folderString = (String) properties.get(FOLDER_PROPERTY);
+            if (StringUtils.isNotBlank(folderString)) {
+                folder = new File(folderString.trim());
+            }
+
+            String maxSizeString = (String) properties.get(MAX_SIZE_PROPERTY);
+            if (StringUtils.isNotBlank(maxSizeString)) {
+                try {
+                    maxSize = Long.parseLong(maxSizeString.trim());
+                } catch (NumberFormatException e) {
+                    throw new ConfigurationException(MAX_SIZE_PROPERTY,
+                            "the value '" + maxSizeString + "' is not a valid number of megabytes");
+                }
+            }
+
+            String maxEntriesString = (String) properties.get(MAX_ENTRIES_PROPERTY);
+            if (StringUtils.isNotBlank(maxEntriesString)) {
+                try {
+                    maxEntries = Integer.parseInt(maxEntriesString.trim());
+                } catch (NumberFormatException e) {
+                    throw new ConfigurationException(MAX_ENTRIES_PROPERTY,
+                            "the value '" + maxEntriesString + "' is not a valid number of files");
+                }
+            }
+
+            String prewarmString = (String) properties.get(PREWARM_PROPERTY);
+            if (StringUtils.isNotBlank(prewarmString)) {
+                for (String phrase : prewarmString.split("\\|")) {
+                    if (StringUtils.isNotBlank(phrase)) {
+                        phrases.add(phrase.trim());
+                    }
+                }
+            }
+        }
+
+        TTSCache.getInstance().configure(folder, maxSize * 1024 * 1024, maxEntries, phrases);
+    }
+
+}
@@ -8,14 +8,26 @@
  */
 package org.openhab.io.multimedia.internal.tts;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
 import org.openhab.io.multimedia.tts.TTSService;
+import org.openhab.io.multimedia.tts.cache.TTSCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.sun.speech.freetts.Voice;
+import com.sun.speech.freetts.audio.AudioPlayer;
+import com.sun.speech.freetts.audio.SingleFileAudioPlayer;
 import com.sun.speech.freetts.en.us.cmu_time_awb.AlanVoiceDirectory;
 import com.sun.speech.freetts.en.us.cmu_us_kal.KevinVoiceDirectory;
 
@@ -30,8 +42,41 @@ public class TTSServiceFreeTTS implements TTSService {
 
     private static final Logger logger = LoggerFactory.getLogger(TTSServiceFreeTTS.class);
 
+    private static final String ENGINE = "freetts";
+    private static final String AUDIO_EXTENSION = "wav";
+    private static final String DEFAULT_VOICE = "kevin16";
+
     private static final Map<String, Voice> voices = new HashMap<String, Voice>();
 
+    private final TTSCache.Synthesizer synthesizer = new TTSCache.Synthesizer() {
+        @Override
+        public void synthesize(String text, String voiceName, File file) throws IOException {
+            Voice voice = voices.get(voiceName);
+            if (voice == null) {
+                throw new IOException("Could not find voice: " + voiceName);
+            }
+            // the player appends the extension to the base name
+            String path = file.getPath();
+            SingleFileAudioPlayer player = new SingleFileAudioPlayer(
+                    path.substring(0, path.length() - AUDIO_EXTENSION.length() - 1), AudioFileFormat.Type.WAVE);
+            synchronized (voice) {
+                if (!voice.isLoaded()) {
+                    voice.allocate();
+                }
+                AudioPlayer defaultPlayer = voice.getAudioPlayer();
+                voice.setAudioPlayer(player);
+                try {
+                    if (!voice.speak(text)) {
+                        throw new IOException("Could not synthesize text: " + text);
+                    }
+                } finally {
+                    voice.setAudioPlayer(defaultPlayer);
+                    player.close();
+                }
+            }
+        }
+    };
+
     public void activate() {
         for (Voice voice : new KevinVoiceDirectory().getVoices()) {
             voices.put(voice.getName(), voice);
@@ -45,9 +90,11 @@ public class TTSServiceFreeTTS implements TTSService {
         System.setProperty("com.sun.speech.freetts.audio.AudioPlayer.openFailDelayMs", "100");
         System.setProperty("com.sun.speech.freetts.audio.AudioPlayer.totalOpenFailDelayMs", "30000");
 
+        TTSCache.getInstance().register(ENGINE, DEFAULT_VOICE, AUDIO_EXTENSION, synthesizer);
     }
 
     public void deactivate() {
+        TTSCache.getInstance().unregister(ENGINE);
         for (Voice voice : voices.values()) {
             voice.deallocate();
         }
@@ -65,16 +112,36 @@ public class TTSServiceFreeTTS implements TTSService {
         }
 
         if (voiceName == null) {
-            voiceName = "kevin16";
+            voiceName = DEFAULT_VOICE;
         }
 
         Voice voice = voices.get(voiceName);
 
         if (voice != null) {
-            if (!voice.isLoaded()) {
-                voice.allocate();
+            TTSCache cache = TTSCache.getInstance();
+            if (cache.isEnabled()) {
+                try {
+                    File file = cache.getAudio(ENGINE, voiceName, text, AUDIO_EXTENSION, synthesizer);
+                    try {
+                        play(file);
+                    } finally {
+                        cache.release(file);
+                    }
+                } catch (IOException e) {
+                    logger.error("Error during tts generation: {}", e.getLocalizedMessage(), e);
+                } catch (UnsupportedAudioFileException e) {
+                    logger.error("Error during tts playback: {}", e.getLocalizedMessage(), e);
+                } catch (LineUnavailableException e) {
+                    logger.error("Error during tts playback: {}", e.getLocalizedMessage(), e);
+                }
+            } else {
+                synchronized (voice) {
+                    if (!voice.isLoaded()) {
+                        voice.allocate();
+                    }
+                    voice.speak(text);
+                }
             }
-            voice.speak(text);
         } else {
             logger.error("Could not find voice: " + voiceName);
             StringBuilder sb = new StringBuilder();
@@ -87,4 +154,28 @@ public class TTSServiceFreeTTS implements TTSService {
         }
     }
 
+    /**
+     * Plays an audio file on the default output device and waits until it has been played.
+     */
+    private void play(File file) throws IOException, UnsupportedAudioFileException, LineUnavailableException {
+        AudioInputStream audio = AudioSystem.getAudioInputStream(file);
+        try {
+            SourceDataLine line = AudioSystem.getSourceDataLine(audio.getFormat());
+            line.open(audio.getFormat());
+            try {
+                line.start();
+                byte[] buffer = new byte[4096];
+                int length;
+                while ((length = audio.read(buffer)) != -1) {
+                    line.write(buffer, 0, length);
+                }
+                line.drain();
+            } finally {
+                line.close();
+            }
+        } finally {
+            audio.close();
+        }
+    }
+
 }
@@ -9,7 +9,10 @@
 package org.openhab.io.multimedia.internal.tts;
 
 import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.SequenceInputStream;
@@ -22,6 +25,7 @@ import java.util.Vector;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.openhab.io.multimedia.tts.TTSService;
+import org.openhab.io.multimedia.tts.cache.TTSCache;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.slf4j.Logger;
@@ -51,16 +55,36 @@ public class TTSServiceGoogleTTS implements TTSService, ManagedService {
     private static final String LANGUAGE_PROPERTY = "language";
     private static final String TRANSLATE_URL_PROPERTY = "translateUrl";
 
+    private static final String ENGINE = "googletts";
+    private static final String AUDIO_EXTENSION = "mp3";
+
     private String ttsLanguage = "en";
     private String translateUrl = "http://translate.google.com/translate_tts?tl=%s&q=%s&client=t";
 
     private final GoogleTTSTextProcessor textProcessor = new GoogleTTSTextProcessor(MAX_SENTENCE_LENGTH);
 
+    /** the voice of the cache is the language, which is used to synthesize the text */
+    private final TTSCache.Synthesizer synthesizer = new TTSCache.Synthesizer() {
+        @Override
+        public void synthesize(String text, String language, File file) throws IOException {
+            InputStream input = getSpeechForText(textProcessor.splitIntoChunks(text), language);
+            FileOutputStream output = new FileOutputStream(file);
+            try {
+                IOUtils.copy(input, output);
+            } finally {
+                IOUtils.closeQuietly(input);
+                output.close();
+            }
+        }
+    };
+
     public void activate() {
+        TTSCache.getInstance().register(ENGINE, ttsLanguage, AUDIO_EXTENSION, synthesizer);
         logger.debug("GoogleTTS service has been activated");
     }
 
     public void deactivate() {
+        TTSCache.getInstance().unregister(ENGINE);
         logger.debug("GoogleTTS service has been deactivated");
     }
 
@@ -69,12 +93,19 @@ public class TTSServiceGoogleTTS implements TTSService, ManagedService {
      */
     public void say(String text, String voiceName, String outputDevice) {
         logger.info("Executing GoogleTTS for text '{}' in language {}", text, ttsLanguage);
-        BufferedInputStream stream = null;
+        InputStream stream = null;
+        TTSCache cache = TTSCache.getInstance();
+        File file = null;
 
         try {
-            List<String> sentences = textProcessor.splitIntoChunks(text);
-            InputStream completeStream = getSpeechForText(sentences);
-            Player playMP3 = new Player(completeStream);
+            if (cache.isEnabled()) {
+                file = cache.getAudio(ENGINE, ttsLanguage, text, AUDIO_EXTENSION, synthesizer);
+                stream = new BufferedInputStream(new FileInputStream(file));
+            } else {
+                List<String> sentences = textProcessor.splitIntoChunks(text);
+                stream = getSpeechForText(sentences, ttsLanguage);
+            }
+            Player playMP3 = new Player(stream);
             playMP3.play();
         } catch (IOException e) {
             logger.warn("Error while connecting to Google translate service", e);
@@ -85,6 +116,9 @@ public class TTSServiceGoogleTTS implements TTSService, ManagedService {
             logger.warn("Unable to play InputStream for text " + text, e);
         } finally {
             IOUtils.closeQuietly(stream);
+            if (file != null) {
+                cache.release(file);
+            }
         }
     }
 
@@ -93,15 +127,17 @@ public class TTSServiceGoogleTTS implements TTSService, ManagedService {
      * 
      * @param sentences
      *            The text to be converted to audio
+     * @param language
+     *            The language of the text
      * @return {@link InputStream} with audio output
      * @throws IOException
      *             Exception if the connection could not be established properly
      */
-    private InputStream getSpeechForText(List<String> sentences) throws IOException {
+    private InputStream getSpeechForText(List<String> sentences, String language) throws IOException {
         Vector<InputStream> inputStreams = new Vector<InputStream>(sentences.size());
         for (String sentence : sentences) {
             String encodedSentence = GoogleTTSTextProcessor.urlEncodeSentence(sentence);
-            URL url = new URL(String.format(translateUrl, ttsLanguage, encodedSentence));
+            URL url = new URL(String.format(translateUrl, language, encodedSentence));
             inputStreams.add(getInputStreamFromUrl(url));
         }
         return new SequenceInputStream(inputStreams.elements());
@@ -147,6 +183,9 @@ public class TTSServiceGoogleTTS implements TTSService, ManagedService {
                 logger.debug("Using custom translate URL from config: " + configTranslateUrl);
                 translateUrl = configTranslateUrl;
             }
+
+            // the configured phrases are synthesized in the configured language
+            TTSCache.getInstance().register(ENGINE, ttsLanguage, AUDIO_EXTENSION, synthesizer);
         }
     }
 }
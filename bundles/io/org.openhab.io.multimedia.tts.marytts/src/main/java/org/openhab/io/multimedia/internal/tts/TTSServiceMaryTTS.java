@@ -8,12 +8,18 @@
  */
 package org.openhab.io.multimedia.internal.tts;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Locale;
 
+import javax.sound.sampled.AudioFileFormat;
 import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.io.multimedia.tts.TTSService;
+import org.openhab.io.multimedia.tts.cache.TTSCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,9 +41,28 @@ public class TTSServiceMaryTTS implements TTSService {
 
     private static final Logger logger = LoggerFactory.getLogger(TTSServiceMaryTTS.class);
 
+    private static final String ENGINE = "marytts";
+    private static final String AUDIO_EXTENSION = "wav";
+
     private static MaryInterface marytts;
     private Voice defaultVoice;
 
+    private final TTSCache.Synthesizer synthesizer = new TTSCache.Synthesizer() {
+        @Override
+        public void synthesize(String text, String voiceName, File file) throws IOException {
+            try {
+                AudioInputStream audio = generateAudio(text, Voice.getVoice(voiceName));
+                try {
+                    AudioSystem.write(audio, AudioFileFormat.Type.WAVE, file);
+                } finally {
+                    audio.close();
+                }
+            } catch (SynthesisException e) {
+                throw new IOException(e.getLocalizedMessage(), e);
+            }
+        }
+    };
+
     public void activate() {
         try {
             marytts = new LocalMaryInterface();
@@ -49,12 +74,16 @@ public class TTSServiceMaryTTS implements TTSService {
                 // Fallback
                 defaultVoice = Voice.getVoice(marytts.getAvailableVoices().iterator().next());
             }
+            if (defaultVoice != null) {
+                TTSCache.getInstance().register(ENGINE, defaultVoice.getName(), AUDIO_EXTENSION, synthesizer);
+            }
         } catch (MaryConfigurationException e) {
             logger.error("Error connecting to Mary TTS: " + e.getLocalizedMessage(), e);
         }
     }
 
     public void deactivate() {
+        TTSCache.getInstance().unregister(ENGINE);
         marytts = null;
     }
 
@@ -80,26 +109,49 @@ public class TTSServiceMaryTTS implements TTSService {
         }
 
         if (voice != null) {
-            // Workaround: we have to set the Locale first, because only in the LocalMaryInterface.setLocale() method
-            // the required private method
-            // LocalMaryInterface.setAudioFileFormatForVoice() method is called. After that we can set the voice,
-            // otherwise an NPE occurs
-            marytts.setLocale(voice.getLocale());
-            marytts.setVoice(voice.getName());
+            TTSCache cache = TTSCache.getInstance();
+            File file = null;
             try {
-                AudioInputStream audio = marytts.generateAudio(text);
-                AudioPlayer player = new AudioPlayer(audio);
+                AudioPlayer player;
+                if (cache.isEnabled()) {
+                    file = cache.getAudio(ENGINE, voice.getName(), text, AUDIO_EXTENSION, synthesizer);
+                    player = new AudioPlayer(file);
+                } else {
+                    player = new AudioPlayer(generateAudio(text, voice));
+                }
                 player.start();
                 player.join();
 
             } catch (SynthesisException e) {
                 logger.error("Error during tts generation: {}", e.getLocalizedMessage(), e);
+            } catch (IOException e) {
+                logger.error("Error during tts generation: {}", e.getLocalizedMessage(), e);
+            } catch (UnsupportedAudioFileException e) {
+                logger.error("Error during tts playback: {}", e.getLocalizedMessage(), e);
             } catch (InterruptedException e) {
                 logger.error("Error during tts playback: {}", e.getLocalizedMessage(), e);
+            } finally {
+                if (file != null) {
+                    cache.release(file);
+                }
             }
         } else {
             logger.error("Could not find voice: {}", voiceName);
             logger.info("Available Voices are {} ", StringUtils.join(marytts.getAvailableVoices(), ", "));
         }
     }
+
+    /**
+     * Generates the audio for a text. The Mary interface is shared, so the voice and the generation must not be
+     * interleaved with another thread.
+     */
+    private synchronized AudioInputStream generateAudio(String text, Voice voice) throws SynthesisException {
+        // Workaround: we have to set the Locale first, because only in the LocalMaryInterface.setLocale() method
+        // the required private method
+        // LocalMaryInterface.setAudioFileFormatForVoice() method is called. After that we can set the voice,
+        // otherwise an NPE occurs
+        marytts.setLocale(voice.getLocale());
+        marytts.setVoice(voice.getName());
+        return marytts.generateAudio(text);
+    }
 }
@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.net.http;
+
+/**
+ * Request statistics of a single host which is accessed through {@link HttpUtil}.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class HttpHostStatistics {
+
+    private final String host;
+
+    private long requests;
+    private long failures;
+    private long totalLatency;
+    private long maxLatency;
+    private int connectionsInPool;
+
+    HttpHostStatistics(String host) {
+        this.host = host;
+    }
+
+    synchronized void recordRequest(long latency, boolean failed) {
+        requests++;
+        if (failed) {
+            failures++;
+        }
+        totalLatency += latency;
+        if (latency > maxLatency) {
+            maxLatency = latency;
+        }
+    }
+
+    synchronized void setConnectionsInPool(int connectionsInPool) {
+        this.connectionsInPool = connectionsInPool;
+    }
+
+    /**
+     * @return the host (and port) these statistics belong to
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return the number of executed requests
+     */
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return the number of requests which failed with a transport or protocol error
+     */
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return the average request latency in milliseconds
+     */
+    public synchronized long getAverageLatency() {
+        return requests > 0 ? totalLatency / requests : 0;
+    }
+
+    /**
+     * @return the maximum request latency in milliseconds
+     */
+    public synchronized long getMaxLatency() {
+        return maxLatency;
+    }
+
+    /**
+     * @return the number of pooled connections to this host after the last request
+     */
+    public synchronized int getConnectionsInPool() {
+        return connectionsInPool;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return host + " [requests=" + requests + ", failures=" + failures + ", avgLatency=" + getAverageLatency()
+                + "ms, maxLatency=" + maxLatency + "ms, connectionsInPool=" + connectionsInPool + "]";
+    }
+
+}
@@ -12,7 +12,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
@@ -22,10 +26,13 @@ import org.apache.commons.httpclient.Credentials;
 import org.apache.commons.httpclient.DefaultHttpMethodRetryHandler;
 import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HeaderElement;
+import org.apache.commons.httpclient.HostConfiguration;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpException;
 import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpState;
 import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.URIException;
 import org.apache.commons.httpclient.UsernamePasswordCredentials;
 import org.apache.commons.httpclient.auth.AuthScope;
@@ -35,6 +42,7 @@ import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.methods.InputStreamRequestEntity;
 import org.apache.commons.httpclient.methods.PostMethod;
 import org.apache.commons.httpclient.methods.PutMethod;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
 import org.apache.commons.httpclient.params.HttpMethodParams;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
@@ -55,6 +63,28 @@ public class HttpUtil {
     /** {@link Pattern} which matches the credentials out of an URL */
     private static final Pattern URL_CREDENTIALS_PATTERN = Pattern.compile("http://(.*?):(.*?)@.*");
 
+    /** System properties to configure the shared connection pool */
+    public static final String MAX_CONNECTIONS_PER_HOST_PROPERTY = "openhab.http.maxConnectionsPerHost";
+    public static final String MAX_TOTAL_CONNECTIONS_PROPERTY = "openhab.http.maxTotalConnections";
+    public static final String CONNECTION_MANAGER_TIMEOUT_PROPERTY = "openhab.http.connectionManagerTimeout";
+    public static final String KEEP_ALIVE_TIMEOUT_PROPERTY = "openhab.http.keepAliveTimeout";
+
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
+    private static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 40;
+    private static final int DEFAULT_CONNECTION_MANAGER_TIMEOUT = 30000;
+    private static final int DEFAULT_KEEP_ALIVE_TIMEOUT = 60000;
+    private static final long IDLE_CONNECTION_CHECK_INTERVAL = 10000;
+
+    private static final ConcurrentMap<String, HttpHostStatistics> statisticsByHost = new ConcurrentHashMap<String, HttpHostStatistics>();
+
+    private static MultiThreadedHttpConnectionManager connectionManager;
+
+    private static HttpClient client;
+
+    private static int keepAliveTimeout;
+
+    private static long lastIdleConnectionCheck;
+
     /**
      * Executes the given <code>url</code> with the given <code>httpMethod</code>.
      * Furthermore the <code>http.proxyXXX</code> System variables are read and
@@ -156,14 +186,16 @@ public class HttpUtil {
             String contentType, int timeout, String proxyHost, Integer proxyPort, String proxyUser,
             String proxyPassword, String nonProxyHosts) {
 
-        HttpClient client = new HttpClient();
+        // the client and its connections are shared, so everything request specific
+        // goes into a dedicated host configuration and state
+        HostConfiguration hostConfiguration = new HostConfiguration();
+        HttpState state = new HttpState();
 
         // only configure a proxy if a host is provided
         if (StringUtils.isNotBlank(proxyHost) && proxyPort != null && shouldUseProxy(url, nonProxyHosts)) {
-            client.getHostConfiguration().setProxy(proxyHost, proxyPort);
+            hostConfiguration.setProxy(proxyHost, proxyPort);
             if (StringUtils.isNotBlank(proxyUser)) {
-                client.getState().setProxyCredentials(AuthScope.ANY,
-                        new UsernamePasswordCredentials(proxyUser, proxyPassword));
+                state.setProxyCredentials(AuthScope.ANY, new UsernamePasswordCredentials(proxyUser, proxyPassword));
             }
         }
 
@@ -183,23 +215,31 @@ public class HttpUtil {
 
         Credentials credentials = extractCredentials(url);
         if (credentials != null) {
-            client.getParams().setAuthenticationPreemptive(true);
-            client.getState().setCredentials(AuthScope.ANY, credentials);
+            // only this request authenticates preemptively, the shared client doesn't
+            state.setAuthenticationPreemptive(true);
+            state.setCredentials(AuthScope.ANY, credentials);
         }
 
-        if (logger.isDebugEnabled()) {
-            try {
+        HttpHostStatistics statistics = null;
+        try {
+            hostConfiguration.setHost(method.getURI());
+            statistics = getStatistics(hostConfiguration.getHost() + ":" + hostConfiguration.getPort());
+            if (logger.isDebugEnabled()) {
                 logger.debug("About to execute '" + method.getURI().toString() + "'");
-            } catch (URIException e) {
-                logger.debug(e.getMessage());
             }
+        } catch (URIException e) {
+            logger.debug(e.getMessage());
         }
 
+        HttpClient httpClient = getClient();
+        long startTime = System.currentTimeMillis();
+        boolean failed = true;
         try {
 
-            int statusCode = client.executeMethod(method);
+            int statusCode = httpClient.executeMethod(hostConfiguration, method, state);
             if (statusCode == HttpStatus.SC_NO_CONTENT || statusCode == HttpStatus.SC_ACCEPTED) {
                 // perfectly fine but we cannot expect any answer...
+                failed = false;
                 return null;
             }
 
@@ -226,18 +266,94 @@ public class HttpUtil {
                 logger.debug(responseBody);
             }
 
+            failed = false;
             return responseBody;
         } catch (HttpException he) {
             logger.error("Fatal protocol violation: {}", he.toString());
         } catch (IOException ioe) {
             logger.error("Fatal transport error: {}", ioe.toString());
         } finally {
+            // returns the (fully read) connection to the pool for reuse
             method.releaseConnection();
+            if (statistics != null) {
+                statistics.recordRequest(System.currentTimeMillis() - startTime, failed);
+                MultiThreadedHttpConnectionManager manager = (MultiThreadedHttpConnectionManager) httpClient
+                        .getHttpConnectionManager();
+                statistics.setConnectionsInPool(manager.getConnectionsInPool(hostConfiguration));
+            }
         }
 
         return null;
     }
 
+    /**
+     * Returns the request statistics of all hosts which have been accessed so far.
+     * 
+     * @return a snapshot of the statistics keyed by <code>host:port</code>
+     */
+    public static Map<String, HttpHostStatistics> getStatistics() {
+        return new TreeMap<String, HttpHostStatistics>(statisticsByHost);
+    }
+
+    /**
+     * @return the number of connections currently held by the shared connection pool
+     */
+    public static synchronized int getConnectionsInPool() {
+        return connectionManager != null ? connectionManager.getConnectionsInPool() : 0;
+    }
+
+    private static HttpHostStatistics getStatistics(String host) {
+        HttpHostStatistics statistics = statisticsByHost.get(host);
+        if (statistics == null) {
+            statistics = new HttpHostStatistics(host);
+            HttpHostStatistics existing = statisticsByHost.putIfAbsent(host, statistics);
+            if (existing != null) {
+                statistics = existing;
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the {@link HttpClient} shared by all requests. Its connections are pooled and
+     * kept alive per host. Idle connections are closed by the following requests, so that
+     * no thread has to be stopped when the bundle stops.
+     */
+    private static synchronized HttpClient getClient() {
+        if (client == null) {
+            connectionManager = new MultiThreadedHttpConnectionManager();
+            HttpConnectionManagerParams params = connectionManager.getParams();
+            params.setDefaultMaxConnectionsPerHost(
+                    getIntProperty(MAX_CONNECTIONS_PER_HOST_PROPERTY, DEFAULT_MAX_CONNECTIONS_PER_HOST));
+            params.setMaxTotalConnections(getIntProperty(MAX_TOTAL_CONNECTIONS_PROPERTY, DEFAULT_MAX_TOTAL_CONNECTIONS));
+            params.setStaleCheckingEnabled(true);
+
+            client = new HttpClient(connectionManager);
+            client.getParams().setConnectionManagerTimeout(
+                    getIntProperty(CONNECTION_MANAGER_TIMEOUT_PROPERTY, DEFAULT_CONNECTION_MANAGER_TIMEOUT));
+
+            keepAliveTimeout = getIntProperty(KEEP_ALIVE_TIMEOUT_PROPERTY, DEFAULT_KEEP_ALIVE_TIMEOUT);
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastIdleConnectionCheck >= IDLE_CONNECTION_CHECK_INTERVAL) {
+            lastIdleConnectionCheck = now;
+            connectionManager.closeIdleConnections(keepAliveTimeout);
+        }
+        return client;
+    }
+
+    private static int getIntProperty(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        if (StringUtils.isNotBlank(value)) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("'{}' is not a valid value for '{}' - using {} instead", value, name, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
     /**
      * Determines whether the list of <code>nonProxyHosts</code> contains the
      * host (which is part of the given <code>urlString</code> or not.
@@ -0,0 +1,286 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.cul.internal;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.io.transport.cul.CULCommunicationException;
+import org.openhab.io.transport.cul.CULDeviceException;
+import org.openhab.io.transport.cul.CULListener;
+import org.openhab.io.transport.cul.CULMode;
+
+import junit.framework.Assert;
+
+/**
+ * Tests the send queue and the receive dispatcher of the {@link AbstractCULHandler}
+ * with a pseudo serial device in place of the CUL.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class AbstractCULHandlerTest {
+
+    private PseudoSerialCULHandler handler;
+
+    @Before
+    public void setUp() throws Exception {
+        handler = new PseudoSerialCULHandler();
+        handler.open();
+    }
+
+    @After
+    public void tearDown() {
+        handler.close();
+    }
+
+    @Test
+    public void testCommandIsSentWithCreditRequest() throws Exception {
+        handler.send("F12340011");
+
+        Assert.assertEquals("F12340011", handler.nextSentLine());
+        Assert.assertEquals("X", handler.nextSentLine());
+    }
+
+    @Test
+    public void testModeChangeIsNotSent() throws Exception {
+        handler.send("X21");
+        handler.send("F12340011");
+
+        Assert.assertEquals("F12340011", handler.nextSentLine());
+    }
+
+    @Test
+    public void testMessagesAreDispatchedInOrder() throws Exception {
+        final int count = 200;
+        final List<String> received = new ArrayList<String>();
+        final CountDownLatch latch = new CountDownLatch(count);
+        handler.registerListener(new CULListener() {
+            @Override
+            public void dataReceived(String data) {
+                received.add(data);
+                latch.countDown();
+            }
+
+            @Override
+            public void error(Exception e) {
+            }
+        });
+
+        for (int i = 0; i < count; i++) {
+            handler.receive("F1234" + i);
+        }
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals("F1234" + i, received.get(i));
+        }
+    }
+
+    @Test
+    public void testCommandIsHeldBackWithoutCredit() throws Exception {
+        handler.receive("21  3");
+        waitForCredit(3);
+
+        handler.send("F12340011");
+        Assert.assertNull(handler.sentLines.poll(500, TimeUnit.MILLISECONDS));
+
+        handler.receive("21  900");
+        Assert.assertEquals("F12340011", handler.nextSentLine());
+    }
+
+    @Test
+    public void testNonRfCommandIsNotHeldBack() throws Exception {
+        handler.receive("21  0");
+        waitForCredit(0);
+
+        handler.sendWithoutCheck("V");
+        Assert.assertEquals("V", handler.nextSentLine());
+    }
+
+    @Test
+    public void testNonRfCommandDoesNotRequestCredit() throws Exception {
+        handler.sendWithoutCheck("V");
+        Assert.assertEquals("V", handler.nextSentLine());
+        Assert.assertNull(handler.sentLines.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRfCommandsMatchCulfw() {
+        Assert.assertTrue(handler.isRfCommand("F12340011"));
+        Assert.assertTrue(handler.isRfCommand("Zs0B0100021234560000000000"));
+        Assert.assertTrue(handler.isRfCommand("Zf0B0100021234560000000000"));
+        Assert.assertTrue(handler.isRfCommand("Ys01AB12345678"));
+        // an FHT message, and the FHT settings of the CUL
+        Assert.assertTrue(handler.isRfCommand("T1234004166"));
+        Assert.assertFalse(handler.isRfCommand("T01"));
+        Assert.assertFalse(handler.isRfCommand("T011234"));
+        Assert.assertFalse(handler.isRfCommand("V"));
+        Assert.assertFalse(handler.isRfCommand("Yr4"));
+    }
+
+    @Test
+    public void testCreditEstimateIncludesProtocolOverhead() {
+        String maxMessage = "0B0100021234560000000000";
+        int fast = handler.estimateCredit10ms("Zf" + maxMessage);
+        Assert.assertTrue(fast > 0 && fast < 10);
+        Assert.assertEquals(100 + fast, handler.estimateCredit10ms("Zs" + maxMessage));
+
+        // 5 bytes including the checksum with parity bits and sync, sent 3 times
+        Assert.assertEquals(18, handler.estimateCredit10ms("F12340011"));
+        // 6 bytes, sent twice
+        Assert.assertEquals(14, handler.estimateCredit10ms("T1234004166"));
+    }
+
+    @Test
+    public void testHandlerCanBeReopened() throws Exception {
+        handler.close();
+        handler.open();
+
+        handler.send("F12340011");
+        Assert.assertEquals("F12340011", handler.nextSentLine());
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        handler.registerListener(new CULListener() {
+            @Override
+            public void dataReceived(String data) {
+                latch.countDown();
+            }
+
+            @Override
+            public void error(Exception e) {
+            }
+        });
+        handler.receive("F12340011");
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSentCommandConsumesCredit() throws Exception {
+        handler.receive("21  900");
+        waitForCredit(900);
+
+        handler.send("F12340011");
+        Assert.assertEquals("F12340011", handler.nextSentLine());
+        waitForCredit(900 - handler.estimateCredit10ms("F12340011"));
+    }
+
+    private void waitForCredit(int credit) throws InterruptedException {
+        for (int i = 0; i < 100 && handler.getCredit10ms() != credit; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(credit, handler.getCredit10ms());
+    }
+
+    /**
+     * A CUL handler which reads from a pipe filled by the test and writes into a
+     * queue of lines.
+     */
+    private static class PseudoSerialCULHandler extends AbstractCULHandler {
+
+        private final BlockingQueue<String> sentLines = new LinkedBlockingQueue<String>();
+        private PipedWriter device;
+        private Thread readThread;
+
+        PseudoSerialCULHandler() {
+            super("pseudo", CULMode.SLOW_RF);
+        }
+
+        void receive(String line) throws IOException {
+            device.write(line + "\r\n");
+            device.flush();
+        }
+
+        String nextSentLine() throws InterruptedException {
+            return sentLines.poll(5, TimeUnit.SECONDS);
+        }
+
+        @Override
+        protected void openHardware() throws CULDeviceException {
+            try {
+                device = new PipedWriter();
+                br = new BufferedReader(new PipedReader(device, 4096));
+            } catch (IOException e) {
+                throw new CULDeviceException(e);
+            }
+            bw = new BufferedWriter(new LineWriter());
+            readThread = new Thread("CUL pseudo serial") {
+                @Override
+                public void run() {
+                    try {
+                        while (!isInterrupted()) {
+                            processNextLine();
+                        }
+                    } catch (CULCommunicationException e) {
+                        // the pipe has been closed
+                    }
+                }
+            };
+            readThread.setDaemon(true);
+            readThread.start();
+        }
+
+        @Override
+        protected void closeHardware() {
+            try {
+                device.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            readThread.interrupt();
+        }
+
+        @Override
+        public boolean arePropertiesEqual(Map<String, ?> properties) {
+            return true;
+        }
+
+        /**
+         * Collects the written data into lines.
+         */
+        private class LineWriter extends Writer {
+            private final StringBuilder line = new StringBuilder();
+
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                for (int i = off; i < off + len; i++) {
+                    char c = cbuf[i];
+                    if (c == '\n') {
+                        sentLines.add(line.toString());
+                        line.setLength(0);
+                    } else if (c != '\r') {
+                        line.append(c);
+                    }
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        }
+    }
+}
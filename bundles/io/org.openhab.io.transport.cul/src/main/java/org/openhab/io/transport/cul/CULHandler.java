@@ -53,8 +53,10 @@ public interface CULHandler {
     public CULMode getCULMode();
 
     /**
-     * Get the number of transmit credits remaining. This
-     * value is updated every time data is RX'd or TX'd
+     * Get the number of transmit credits remaining. This is an
+     * estimate based on the last credit report of the CUL: reduced
+     * by the send time of the messages sent since, and increased by
+     * the credit regained since. It is current without a new report.
      * 
      * @return number of 10ms transmit credits remaining
      */
@@ -11,6 +11,12 @@ package org.openhab.io.transport.cul;
 /**
  * Listen to received events from the CUL. These events can be either received
  * data or an exception thrown while trying to read data.
+ * <p>
+ * The received data of a CUL is passed to all its listeners one after the other
+ * from a single dispatcher thread, so the listeners see the messages in the
+ * order they have been received. A listener must therefore return quickly and
+ * hand any lengthy work (e.g. waiting for a reply) over to a thread of its own,
+ * otherwise it delays the messages for all other listeners of the CUL.
  *
  * @author Till Klocke
  * @since 1.4.0
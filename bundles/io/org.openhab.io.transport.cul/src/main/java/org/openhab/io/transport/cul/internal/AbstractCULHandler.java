@@ -12,13 +12,15 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.net.SocketException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Executor;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.regex.Pattern;
 
 import org.openhab.io.transport.cul.CULCommunicationException;
 import org.openhab.io.transport.cul.CULDeviceException;
@@ -39,8 +41,52 @@ public abstract class AbstractCULHandler implements CULHandler, CULHandlerIntern
 
     private final static Logger log = LoggerFactory.getLogger(AbstractCULHandler.class);
 
+    /** a credit report of the CUL: the remaining hourly and the current send time */
+    private final static Pattern CREDIT_REPORT_PATTERN = Pattern.compile("^\\d+\\s+\\d+");
+
+    /**
+     * The maximum credit the CUL accumulates in 10ms units. The CUL regains one
+     * unit per second, which is the 1% duty cycle allowed in the ISM band.
+     */
+    private final static int MAX_CREDIT10MS = 900;
+
+    /** the time the CUL needs to regain one credit unit */
+    private final static long CREDIT_REGAIN_INTERVAL = 1000;
+
+    /**
+     * The minimum interval for credit reports requested after received messages.
+     * Reports are requested after every burst of RF commands anyway, these ones
+     * catch up with messages the CUL sends on its own, e.g. FHT acknowledges.
+     */
+    private final static long CREDIT_REPORT_INTERVAL = 10000;
+
+    /**
+     * Commands which make the CUL send RF messages, see the culfw command
+     * reference. All other commands only talk to the CUL itself and don't take
+     * any send time. FHT commands (T) are checked separately, as the short ones
+     * only read or change the FHT settings of the CUL.
+     */
+    private final static String[] RF_COMMAND_PREFIXES = { "F", "G", "i", "As", "Zs", "Zf", "Ys" };
+
+    /** the length of the shortest FHT command which is sent: T, housecode, address, command and argument */
+    private final static int FHT_SEND_COMMAND_LENGTH = 11;
+
+    /** the long preamble (about one second) of MAX! messages sent to devices which may be asleep */
+    private final static int MAX_PREAMBLE_CREDIT10MS = 100;
+
+    /** the number of times culfw sends an FS20 message */
+    private final static int FS20_REPEATS = 3;
+
+    /** the number of times culfw sends an FHT message */
+    private final static int FHT_REPEATS = 2;
+
+    /** the time a listener may take to process a message before it is reported as slow */
+    private final static long SLOW_LISTENER_THRESHOLD = 1000;
+
     /**
-     * Thread which sends all queued commands to the CUL.
+     * Thread which sends all queued commands to the CUL. It blocks until a
+     * command is queued and holds back RF commands as long as the CUL hasn't got
+     * enough credit left to send them.
      * 
      * @author Till Klocke
      * @since 1.4.0
@@ -50,72 +96,66 @@ public abstract class AbstractCULHandler implements CULHandler, CULHandlerIntern
 
         private final Logger logger = LoggerFactory.getLogger(SendThread.class);
 
+        SendThread() {
+            super("CUL SendThread " + deviceName);
+            setDaemon(true);
+        }
+
         @Override
         public void run() {
-            while (!isInterrupted()) {
-                String command = sendQueue.poll();
-                if (command != null) {
+            try {
+                while (!isInterrupted()) {
+                    String command = sendQueue.take();
+                    boolean rfCommand = isRfCommand(command);
+                    int credit = rfCommand ? estimateCredit10ms(command) : 0;
+                    if (credit > 0) {
+                        waitForCredit(credit);
+                    }
                     if (!command.endsWith("\r\n")) {
                         command = command + "\r\n";
                     }
                     try {
                         writeMessage(command);
+                        consumeCredit(credit);
                     } catch (CULCommunicationException e) {
                         logger.error("Error while writing command to CUL", e);
                     }
+                    // ask for the actual credit once a burst of RF commands has been sent
+                    String next = sendQueue.peek();
+                    if (rfCommand && (next == null || !isRfCommand(next))) {
+                        requestCreditReport();
+                    }
                 }
-                try {
-                    Thread.sleep(10);
-                } catch (InterruptedException e) {
-                    logger.debug("Error while sleeping in SendThread", e);
-                }
+            } catch (InterruptedException e) {
+                logger.debug("SendThread for {} interrupted", deviceName);
             }
         }
     }
 
     /**
-     * Wrapper class wraps a CULListener and a received Strings and gets
-     * executed by a executor in its own thread.
-     * 
-     * @author Till Klocke
-     * @since 1.4.0
-     * 
+     * Executor to handle received messages. All listeners are notified from
+     * one thread in the order the messages have been received.
      */
-    private static class NotifyDataReceivedRunner implements Runnable {
-
-        private String message;
-        private CULListener listener;
-
-        public NotifyDataReceivedRunner(CULListener listener, String message) {
-            this.message = message;
-            this.listener = listener;
-        }
-
-        @Override
-        public void run() {
-            listener.dataReceived(message);
-        }
-
-    }
-
-    /**
-     * Executor to handle received messages. Every listern should be called in
-     * its own thread.
-     */
-    protected Executor receiveExecutor = Executors.newCachedThreadPool();
-    protected SendThread sendThread = new SendThread();
+    protected volatile ExecutorService receiveExecutor;
+    protected SendThread sendThread;
 
     protected String deviceName;
     protected CULMode mode;
 
-    protected List<CULListener> listeners = new ArrayList<CULListener>();
+    protected List<CULListener> listeners = new CopyOnWriteArrayList<CULListener>();
 
-    protected Queue<String> sendQueue = new ConcurrentLinkedQueue<String>();
+    protected BlockingQueue<String> sendQueue = new LinkedBlockingQueue<String>();
     protected int credit10ms = 0;
     protected BufferedReader br;
     protected BufferedWriter bw;
 
-    protected AbstractCULHandler(String deviceName, CULMode mode) {
+    /** guards the credit fields */
+    private final Object creditLock = new Object();
+    private long creditTime = 0;
+    private boolean creditKnown = false;
+    private volatile long creditReportRequested = 0;
+
+    protected AbstractCULHandler(final String deviceName, CULMode mode) {
         this.mode = mode;
         this.deviceName = deviceName;
     }
@@ -149,14 +189,31 @@ public abstract class AbstractCULHandler implements CULHandler, CULHandlerIntern
 
     @Override
     public void open() throws CULDeviceException {
+        // the threads are created on every open, a closed handler may be opened again
+        receiveExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CUL Dispatcher " + deviceName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
         openHardware();
+        sendThread = new SendThread();
         sendThread.start();
     }
 
     @Override
     public void close() {
-        sendThread.interrupt();
+        if (sendThread != null) {
+            sendThread.interrupt();
+            sendThread = null;
+        }
         closeHardware();
+        if (receiveExecutor != null) {
+            receiveExecutor.shutdown();
+            receiveExecutor = null;
+        }
     }
 
     /**
@@ -201,14 +258,36 @@ public abstract class AbstractCULHandler implements CULHandler, CULHandlerIntern
     }
 
     /**
-     * Notifies each CULListener about the received data in its own thread.
+     * Notifies all CULListeners about the received data. The listeners are
+     * called one after the other from the dispatcher thread, so they see the
+     * messages in the order they have been received. Listeners which block the
+     * dispatcher thread are logged, see {@link CULListener}.
      * 
      * @param data
      */
-    protected void notifyDataReceived(String data) {
-        for (final CULListener listener : listeners) {
-            receiveExecutor.execute(new NotifyDataReceivedRunner(listener, data));
+    protected void notifyDataReceived(final String data) {
+        ExecutorService executor = receiveExecutor;
+        if (listeners.isEmpty() || executor == null) {
+            return;
         }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (CULListener listener : listeners) {
+                    long start = System.currentTimeMillis();
+                    try {
+                        listener.dataReceived(data);
+                    } catch (RuntimeException e) {
+                        log.error("Listener failed to process message from CUL " + deviceName, e);
+                    }
+                    long duration = System.currentTimeMillis() - start;
+                    if (duration > SLOW_LISTENER_THRESHOLD) {
+                        log.warn("Listener {} took {}ms to process a message from CUL {}, delaying the others",
+                                listener.getClass().getName(), duration, deviceName);
+                    }
+                }
+            }
+        });
     }
 
     protected void notifyError(Exception e) {
@@ -240,12 +319,14 @@ public abstract class AbstractCULHandler implements CULHandler, CULHandlerIntern
                 log.warn(
                         "(LOVF) Limit Overflow: Last message lost. You are using more than 1% transmitting time. Reduce the number of rf messages");
                 return;
-            } else if (data.matches("^\\d+\\s+\\d+")) {
+            } else if (CREDIT_REPORT_PATTERN.matcher(data).matches()) {
                 processCreditReport(data);
                 return;
             }
             notifyDataReceived(data);
-            requestCreditReport();
+            if (System.currentTimeMillis() - creditReportRequested > CREDIT_REPORT_INTERVAL) {
+                requestCreditReport();
+            }
         } catch (SocketException e) {
             try {
                 this.openHardware();
@@ -270,20 +351,123 @@ public abstract class AbstractCULHandler implements CULHandler, CULHandlerIntern
      */
     private void processCreditReport(String data) {
         // Credit report received
-        String[] report = data.split(" ");
-        credit10ms = Integer.parseInt(report[report.length - 1]);
+        String[] report = data.split("\\s+");
+        synchronized (creditLock) {
+            credit10ms = Integer.parseInt(report[report.length - 1]);
+            creditTime = System.currentTimeMillis();
+            creditKnown = true;
+            creditLock.notifyAll();
+        }
         log.debug("credit10ms = " + credit10ms);
     }
 
     /**
-     * get the remaining send time on channel as seen at the last send/receive
-     * event.
+     * get the remaining send time on channel. This is the credit of the last
+     * credit report, reduced by the estimated send time of the messages sent
+     * since and increased by the credit regained since.
      * 
      * @return remaining send time in 10ms units
      */
     @Override
     public int getCredit10ms() {
-        return credit10ms;
+        synchronized (creditLock) {
+            return currentCredit10ms(System.currentTimeMillis());
+        }
+    }
+
+    private int currentCredit10ms(long now) {
+        if (!creditKnown) {
+            return credit10ms;
+        }
+        long regained = (now - creditTime) / CREDIT_REGAIN_INTERVAL;
+        return (int) Math.min(MAX_CREDIT10MS, credit10ms + regained);
+    }
+
+    /**
+     * Checks if the command makes the CUL send an RF message, which is
+     * limited by the duty cycle.
+     * 
+     * @param command
+     * @return true if the command is sent over the air
+     */
+    protected boolean isRfCommand(String command) {
+        if (command.startsWith("T")) {
+            return command.trim().length() >= FHT_SEND_COMMAND_LENGTH;
+        }
+        for (String prefix : RF_COMMAND_PREFIXES) {
+            if (command.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Estimates the send time of an RF command in 10ms units. The slow RF
+     * protocols (FS20, FHT, Intertechno, ...) take about 1ms per bit, with a
+     * parity bit per byte, a checksum byte and a sync sequence, and are sent
+     * several times. MAX! and AskSin messages are sent once at 10kBit/s, but a
+     * slow MAX! message starts with a preamble of about one second.
+     * 
+     * @param command
+     * @return the estimated send time in 10ms units
+     */
+    protected int estimateCredit10ms(String command) {
+        String data = command.trim();
+        if (data.startsWith("Zs")) {
+            return MAX_PREAMBLE_CREDIT10MS + estimateFastCredit10ms(data.length() - 2);
+        } else if (data.startsWith("Zf") || data.startsWith("As")) {
+            return estimateFastCredit10ms(data.length() - 2);
+        }
+
+        int repeats = FS20_REPEATS;
+        if (data.startsWith("T")) {
+            repeats = FHT_REPEATS;
+        }
+        int bytes = Math.max(0, data.length() - 1) / 2 + 1;
+        int bits = 13 + bytes * 9;
+        return (bits * repeats + 9) / 10;
+    }
+
+    private int estimateFastCredit10ms(int hexChars) {
+        // preamble and sync word, then the data
+        int bits = 64 + hexChars * 4;
+        return (bits + 99) / 100;
+    }
+
+    /**
+     * Blocks until the CUL has regained enough credit to send a message. As
+     * long as no credit report has been received, messages are not held back.
+     * 
+     * @param required
+     *            the send time of the message in 10ms units
+     * @throws InterruptedException
+     */
+    private void waitForCredit(int required) throws InterruptedException {
+        synchronized (creditLock) {
+            long now = System.currentTimeMillis();
+            int available = currentCredit10ms(now);
+            if (!creditKnown || available >= required) {
+                return;
+            }
+            log.info("CUL {} has only {} of {} credits left, delaying message to keep the duty cycle", deviceName,
+                    available, required);
+            while (creditKnown && available < required) {
+                creditLock.wait((required - available) * CREDIT_REGAIN_INTERVAL);
+                now = System.currentTimeMillis();
+                available = currentCredit10ms(now);
+            }
+        }
+    }
+
+    private void consumeCredit(int used) {
+        synchronized (creditLock) {
+            if (creditKnown) {
+                long now = System.currentTimeMillis();
+                credit10ms = Math.max(0, currentCredit10ms(now) - used);
+                creditTime = now;
+            }
+        }
     }
 
     /**
@@ -292,11 +476,17 @@ public abstract class AbstractCULHandler implements CULHandler, CULHandlerIntern
     private void requestCreditReport() {
         /* this requests a report which provides credit10ms */
         log.debug("Requesting credit report");
-        try {
-            bw.write("X\r\n");
-            bw.flush();
-        } catch (IOException e) {
-            log.error("Can't write report command to CUL", e);
+        creditReportRequested = System.currentTimeMillis();
+        if (bw == null) {
+            return;
+        }
+        synchronized (bw) {
+            try {
+                bw.write("X\r\n");
+                bw.flush();
+            } catch (IOException e) {
+                log.error("Can't write report command to CUL", e);
+            }
         }
     }
 
@@ -310,6 +500,7 @@ public abstract class AbstractCULHandler implements CULHandler, CULHandlerIntern
         log.debug("Sending raw message to CUL " + deviceName + ":  '" + message + "'");
         if (bw == null) {
             log.error("Can't write message, BufferedWriter is NULL");
+            return;
         }
         synchronized (bw) {
             try {
@@ -318,8 +509,6 @@ public abstract class AbstractCULHandler implements CULHandler, CULHandlerIntern
             } catch (IOException e) {
                 log.error("Can't write to CUL " + deviceName, e);
             }
-
-            requestCreditReport();
         }
 
     }
@@ -60,13 +60,8 @@ public class CULNetworkHandlerImpl extends AbstractCULHandler {
 
             try {
                 while (!isInterrupted()) {
+                    // readLine() blocks until the next line arrives
                     processNextLine();
-
-                    try {
-                        Thread.sleep(10);
-                    } catch (InterruptedException e) {
-                        logger.debug("Error while sleeping in ReceiveThread", e);
-                    }
                 }
                 logger.debug("ReceiveThread exiting.");
             } catch (CULCommunicationException e) {
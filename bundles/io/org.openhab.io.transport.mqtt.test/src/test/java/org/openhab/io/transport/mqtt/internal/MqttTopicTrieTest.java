@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.mqtt.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.openhab.core.events.EventPublisher;
+import org.openhab.io.transport.mqtt.MqttMessageConsumer;
+
+/**
+ * Tests the topic matching of the {@link MqttTopicTrie}.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class MqttTopicTrieTest {
+
+    @Test
+    public void testExactTopic() {
+        assertMatch("a/b/c", "a/b/c");
+        assertNoMatch("a/b/c", "a/b", "a/b/c/d", "a/b/C", "/a/b/c");
+    }
+
+    @Test
+    public void testSingleLevelWildcard() {
+        assertMatch("a/+/c", "a/b/c", "a/x/c", "a//c");
+        assertNoMatch("a/+/c", "a/c", "a/b/c/d", "a/b/d");
+        assertMatch("+", "a", "");
+        assertNoMatch("+", "a/b", "/a");
+        assertMatch("+/+", "/a", "a/b", "/");
+        assertNoMatch("+/+", "a", "a/b/c");
+    }
+
+    @Test
+    public void testMultiLevelWildcard() {
+        assertMatch("a/#", "a", "a/b", "a/b/c", "a/");
+        assertNoMatch("a/#", "b", "b/a");
+        assertMatch("#", "a", "a/b", "/a", "");
+        assertMatch("a/+/#", "a/b", "a/b/c/d");
+        assertNoMatch("a/+/#", "a", "b/c");
+    }
+
+    @Test
+    public void testSystemTopicsAreNotMatchedByLeadingWildcards() {
+        assertNoMatch("#", "$SYS/broker/uptime", "$SYS");
+        assertNoMatch("+/broker/uptime", "$SYS/broker/uptime");
+        assertMatch("$SYS/#", "$SYS/broker/uptime", "$SYS");
+        assertMatch("$SYS/+/uptime", "$SYS/broker/uptime");
+        assertMatch("a/+", "a/$b");
+        assertMatch("a/#", "a/$b");
+    }
+
+    @Test
+    public void testMatchesAreInRegistrationOrder() {
+        Consumer first = new Consumer("a/#");
+        Consumer second = new Consumer("a/b");
+        Consumer third = new Consumer("+/b");
+        Consumer other = new Consumer("b/#");
+        Consumer none = new Consumer(null);
+        MqttTopicTrie trie = new MqttTopicTrie(Arrays.<MqttMessageConsumer> asList(first, none, second, other, third));
+
+        assertEquals(Arrays.asList(first, second, third), trie.match("a/b"));
+        assertEquals(Arrays.asList(third), trie.match("c/b"));
+        assertEquals(new ArrayList<MqttMessageConsumer>(), trie.match("c"));
+    }
+
+    private static void assertMatch(String consumerTopic, String... topics) {
+        Consumer consumer = new Consumer(consumerTopic);
+        MqttTopicTrie trie = new MqttTopicTrie(Arrays.<MqttMessageConsumer> asList(consumer));
+        for (String topic : topics) {
+            assertEquals(consumerTopic + " matches " + topic, Arrays.asList(consumer), trie.match(topic));
+        }
+    }
+
+    private static void assertNoMatch(String consumerTopic, String... topics) {
+        MqttTopicTrie trie = new MqttTopicTrie(Arrays.<MqttMessageConsumer> asList(new Consumer(consumerTopic)));
+        for (String topic : topics) {
+            assertEquals(consumerTopic + " doesn't match " + topic, 0, trie.match(topic).size());
+        }
+    }
+
+    private static class Consumer implements MqttMessageConsumer {
+        private String topic;
+
+        Consumer(String topic) {
+            this.topic = topic;
+        }
+
+        @Override
+        public void processMessage(String topic, byte[] payload) {
+        }
+
+        @Override
+        public String getTopic() {
+            return topic;
+        }
+
+        @Override
+        public void setTopic(String topic) {
+            this.topic = topic;
+        }
+
+        @Override
+        public void setEventPublisher(EventPublisher eventPublisher) {
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.mqtt.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openhab.io.transport.mqtt.MqttMessageConsumer;
+
+/**
+ * Finds the consumers whose topic matches the topic of a received message.
+ *
+ * The consumer topics are stored in a tree with one level per topic level. The
+ * + and # wildcards are separate child nodes, so the matching consumers are
+ * found by following the levels of the received topic, without regular
+ * expressions. The tree is immutable and is rebuilt when the consumers change.
+ *
+ * Topics starting with '$' are reserved for the broker, so a wildcard at the
+ * first level doesn't match them (MQTT 3.1.1, section 4.7.2).
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+class MqttTopicTrie {
+
+    private static final String SINGLE_LEVEL_WILDCARD = "+";
+
+    private static final String MULTI_LEVEL_WILDCARD = "#";
+
+    private static final String SYSTEM_TOPIC_PREFIX = "$";
+
+    private final Node root = new Node();
+
+    /**
+     * Builds the tree for the given consumers. Matches are returned in the
+     * order of this collection.
+     *
+     * @param consumers
+     *            consumers to match against.
+     */
+    MqttTopicTrie(Collection<MqttMessageConsumer> consumers) {
+        int order = 0;
+        for (MqttMessageConsumer consumer : consumers) {
+            String topic = consumer.getTopic();
+            if (topic == null) {
+                continue;
+            }
+            Node node = root;
+            for (String level : splitTopic(topic)) {
+                node = node.getOrCreateChild(level);
+            }
+            node.entries.add(new Entry(order++, consumer));
+        }
+    }
+
+    /**
+     * Find all consumers whose topic matches the given topic.
+     *
+     * @param topic
+     *            topic of a received message.
+     * @return matching consumers in the order they were registered.
+     */
+    List<MqttMessageConsumer> match(String topic) {
+        List<Entry> matches = new ArrayList<Entry>();
+        collect(root, splitTopic(topic), 0, matches);
+        if (matches.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (matches.size() > 1) {
+            Collections.sort(matches);
+        }
+        List<MqttMessageConsumer> consumers = new ArrayList<MqttMessageConsumer>(matches.size());
+        for (Entry entry : matches) {
+            consumers.add(entry.consumer);
+        }
+        return consumers;
+    }
+
+    private static void collect(Node node, List<String> levels, int depth, List<Entry> matches) {
+        boolean wildcards = depth > 0 || !levels.get(0).startsWith(SYSTEM_TOPIC_PREFIX);
+        // '#' also matches the parent level, e.g. 'a/#' matches 'a'
+        if (wildcards && node.multiLevel != null) {
+            matches.addAll(node.multiLevel.entries);
+        }
+        if (depth == levels.size()) {
+            matches.addAll(node.entries);
+            return;
+        }
+        Node child = node.children.get(levels.get(depth));
+        if (child != null) {
+            collect(child, levels, depth + 1, matches);
+        }
+        if (wildcards && node.singleLevel != null) {
+            collect(node.singleLevel, levels, depth + 1, matches);
+        }
+    }
+
+    /**
+     * Split a topic into its levels. Empty levels are kept, as they are
+     * significant in MQTT.
+     */
+    private static List<String> splitTopic(String topic) {
+        if (topic.indexOf('/') == -1) {
+            return Collections.singletonList(topic);
+        }
+        return Arrays.asList(topic.split("/", -1));
+    }
+
+    /**
+     * A topic level in the tree.
+     */
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<String, Node>(4);
+        private final List<Entry> entries = new ArrayList<Entry>(1);
+        private Node singleLevel;
+        private Node multiLevel;
+
+        Node getOrCreateChild(String level) {
+            if (SINGLE_LEVEL_WILDCARD.equals(level)) {
+                if (singleLevel == null) {
+                    singleLevel = new Node();
+                }
+                return singleLevel;
+            }
+            if (MULTI_LEVEL_WILDCARD.equals(level)) {
+                if (multiLevel == null) {
+                    multiLevel = new Node();
+                }
+                return multiLevel;
+            }
+            Node child = children.get(level);
+            if (child == null) {
+                child = new Node();
+                children.put(level, child);
+            }
+            return child;
+        }
+    }
+
+    /**
+     * A consumer and its position in the list of registered consumers.
+     */
+    private static class Entry implements Comparable<Entry> {
+        private final int order;
+        private final MqttMessageConsumer consumer;
+
+        Entry(int order, MqttMessageConsumer consumer) {
+            this.order = order;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return order < other.order ? -1 : (order == other.order ? 0 : 1);
+        }
+    }
+}
@@ -8,13 +8,60 @@
  */
 package org.openhab.model.core.internal;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.SynchronousBundleListener;
 
 public class ModelCoreActivator implements BundleActivator {
 
 	private static BundleContext context;
 
+	/**
+	 * records the time the bundle activators of the bundles started after this one take for
+	 * the {@link StartupTimeline}
+	 */
+	private final SynchronousBundleListener bundleListener = new SynchronousBundleListener() {
+		private final Map<Long, Long> startTimes = new ConcurrentHashMap<Long, Long>();
+
+		public void bundleChanged(BundleEvent event) {
+			Long bundleId = event.getBundle().getBundleId();
+			if (event.getType() == BundleEvent.STARTING) {
+				startTimes.put(bundleId, StartupTimeline.now());
+			} else if (event.getType() == BundleEvent.STARTED) {
+				Long startTime = startTimes.remove(bundleId);
+				if (startTime != null) {
+					StartupTimeline.record("activator", event.getBundle().getSymbolicName(), startTime);
+				}
+			}
+		}
+	};
+
+	/**
+	 * records the registration of services for the {@link StartupTimeline}; most bindings are
+	 * activated by Declarative Services after their bundle has started, which registers their
+	 * services, so this tells when they have become available
+	 */
+	private final ServiceListener serviceListener = new ServiceListener() {
+		public void serviceChanged(ServiceEvent event) {
+			if (event.getType() == ServiceEvent.REGISTERED) {
+				Bundle bundle = event.getServiceReference().getBundle();
+				String[] objectClass = (String[]) event.getServiceReference().getProperty(Constants.OBJECTCLASS);
+				if (bundle != null && objectClass != null && objectClass.length > 0) {
+					StartupTimeline.record("service", bundle.getSymbolicName() + " " + objectClass[0],
+							StartupTimeline.now());
+				}
+			}
+		}
+	};
+
 	static BundleContext getContext() {
 		return context;
 	}
@@ -25,6 +72,8 @@ public class ModelCoreActivator implements BundleActivator {
 	 */
 	public void start(BundleContext bundleContext) throws Exception {
 		ModelCoreActivator.context = bundleContext;
+		bundleContext.addBundleListener(bundleListener);
+		bundleContext.addServiceListener(serviceListener);
 	}
 
 	/*
@@ -32,6 +81,8 @@ public class ModelCoreActivator implements BundleActivator {
 	 * @see org.osgi.framework.BundleActivator#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext bundleContext) throws Exception {
+		bundleContext.removeServiceListener(serviceListener);
+		bundleContext.removeBundleListener(bundleListener);
 		ModelCoreActivator.context = null;
 	}
 
@@ -10,9 +10,12 @@ package org.openhab.model.core.internal;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.runtime.ListenerList;
 import org.eclipse.emf.common.util.URI;
@@ -28,29 +31,34 @@ import org.openhab.model.core.ModelRepositoryChangeListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Function;
-import com.google.common.base.Predicate;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
-
+/**
+ * The model repository keeps one resource set per model type (i.e. file extension).
+ * The models don't reference each other across files, so models of different
+ * types can be loaded in parallel; only loading models of the same type is
+ * serialized by the lock on their resource set. The listeners are notified
+ * outside of these locks, one change at a time.
+ * 
+ * @author Kai Kreuzer
+ *
+ */
 public class ModelRepositoryImpl implements ModelRepository {
 	
 	private static final Logger logger = LoggerFactory.getLogger(ModelRepositoryImpl.class);
-	private final ResourceSet resourceSet;
+	
+	/** the resource sets by model type */
+	private final Map<String, ResourceSet> resourceSets = new ConcurrentHashMap<String, ResourceSet>();
 	
 	private final ListenerList listeners = new ListenerList();
 
 	public ModelRepositoryImpl() {
-		XtextResourceSet xtextResourceSet = new SynchronizedXtextResourceSet();
-		xtextResourceSet.addLoadOption(XtextResource.OPTION_RESOLVE_ALL, Boolean.TRUE);
-		this.resourceSet = xtextResourceSet;
 		// don't use XMI as a default
 		Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap().remove("*");
 	}
 	
 	public EObject getModel(String name) {
+		ResourceSet resourceSet = getResourceSet(name);
 		synchronized (resourceSet) {
-	 		Resource resource = getResource(name);
+	 		Resource resource = getResource(resourceSet, name);
 			if(resource!=null) {
 				if(resource.getContents().size()>0) {
 					return resource.getContents().get(0);
@@ -68,11 +76,25 @@ public class ModelRepositoryImpl implements ModelRepository {
 	}
 
 	public boolean addOrRefreshModel(String name, InputStream inputStream) {
-		Resource resource = getResource(name);
-		if(resource==null) {
+		EventType eventType = loadModel(name, inputStream);
+		if(eventType!=null) {
+			notifyListeners(name, eventType);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Loads the model into the resource set of its type.
+	 * 
+	 * @return the type of change or <code>null</code> if the model couldn't be loaded
+	 */
+	private EventType loadModel(String name, InputStream inputStream) {
+		ResourceSet resourceSet = getResourceSet(name);
+		long startTime = StartupTimeline.now();
+		try {
 			synchronized(resourceSet) {
-				// try again to retrieve the resource as it might have been created by now
-				resource = getResource(name);
+				Resource resource = getResource(resourceSet, name);
 				if(resource==null) {
 					// seems to be a new file
 					resource = resourceSet.createResource(URI.createURI(name));
@@ -82,61 +104,58 @@ public class ModelRepositoryImpl implements ModelRepository {
 							Map<String, String> options = new HashMap<String, String>();
 							options.put(XtextResource.OPTION_ENCODING, "UTF-8");
 							resource.load(inputStream, options);
-							notifyListeners(name, EventType.ADDED);
-							return true;
+							return EventType.ADDED;
 						} catch (IOException e) {
 							logger.warn("Configuration model '" + name + "' cannot be parsed correctly!", e);
 							resourceSet.getResources().remove(resource);
 						}
 					}
+				} else {
+					resource.unload();
+					try {
+						logger.info("Refreshing model '{}'", name);
+						resource.load(inputStream, Collections.EMPTY_MAP);
+						return EventType.MODIFIED;
+					} catch (IOException e) {
+						logger.warn("Configuration model '" + name + "' cannot be parsed correctly!", e);
+						resourceSet.getResources().remove(resource);
+					}
 				}
 			}
-		} else {
-			synchronized(resourceSet) {
-				resource.unload();
-				try {
-					logger.info("Refreshing model '{}'", name);
-					resource.load(inputStream, Collections.EMPTY_MAP);
-					notifyListeners(name, EventType.MODIFIED);
-					return true;
-				} catch (IOException e) {
-					logger.warn("Configuration model '" + name + "' cannot be parsed correctly!", e);
-					resourceSet.getResources().remove(resource);
-				}
-			}
+			return null;
+		} finally {
+			StartupTimeline.record("model", name, startTime);
 		}
-		return false;
 	}
 
 	public boolean removeModel(String name) {
-		Resource resource = getResource(name);
+		ResourceSet resourceSet = getResourceSet(name);
+		Resource resource = getResource(resourceSet, name);
 		if(resource!=null) {
+			// do not physically delete it, but remove it from the resource set
+			notifyListeners(name, EventType.REMOVED);
 			synchronized(resourceSet) {
-				// do not physically delete it, but remove it from the resource set
-				notifyListeners(name, EventType.REMOVED);
 				resourceSet.getResources().remove(resource);
-				return true;
 			}
+			return true;
 		} else {
 			return false;
 		}
 	}
 
 	public Iterable<String> getAllModelNamesOfType(final String modelType) {
-		synchronized(resourceSet) {
-			Iterable<Resource> matchingResources = Iterables.filter(resourceSet.getResources(), new Predicate<Resource>() {
-				public boolean apply(Resource input) {
-					if(input!=null && input.getURI().lastSegment().contains(".") && input.isLoaded()) {
-						return modelType.equalsIgnoreCase(input.getURI().fileExtension());
-					} else {
-						return false;
+		List<String> names = new ArrayList<String>();
+		ResourceSet resourceSet = resourceSets.get(modelType.toLowerCase());
+		if(resourceSet!=null) {
+			synchronized(resourceSet) {
+				for(Resource resource : resourceSet.getResources()) {
+					if(resource!=null && resource.getURI().lastSegment().contains(".") && resource.isLoaded()) {
+						names.add(resource.getURI().path());
 					}
-				}});
-			return Lists.newArrayList(Iterables.transform(matchingResources, new Function<Resource, String>() {
-				public String apply(Resource from) {
-					return from.getURI().path();
-				}}));
+				}
+			}
 		}
+		return names;
 	}
 
 	public void addModelRepositoryChangeListener(
@@ -149,14 +168,42 @@ public class ModelRepositoryImpl implements ModelRepository {
 		listeners.remove(listener);
 	}
 
-	private Resource getResource(String name) {
+	/**
+	 * Returns the resource set for the type of the given model, creating it if necessary.
+	 */
+	private ResourceSet getResourceSet(String name) {
+		String modelType = getModelType(name);
+		ResourceSet resourceSet = resourceSets.get(modelType);
+		if(resourceSet==null) {
+			synchronized(resourceSets) {
+				resourceSet = resourceSets.get(modelType);
+				if(resourceSet==null) {
+					XtextResourceSet xtextResourceSet = new SynchronizedXtextResourceSet();
+					xtextResourceSet.addLoadOption(XtextResource.OPTION_RESOLVE_ALL, Boolean.TRUE);
+					resourceSet = xtextResourceSet;
+					resourceSets.put(modelType, resourceSet);
+				}
+			}
+		}
+		return resourceSet;
+	}
+
+	private String getModelType(String name) {
+		String modelType = URI.createURI(name).fileExtension();
+		return modelType!=null ? modelType.toLowerCase() : "";
+	}
+
+	private Resource getResource(ResourceSet resourceSet, String name) {
 		 return resourceSet.getResource(URI.createURI(name), false);
 	}
 
 	private void notifyListeners(String name, EventType type) {
-		for(Object listener : listeners.getListeners()) {
-			ModelRepositoryChangeListener changeListener = (ModelRepositoryChangeListener) listener;
-			changeListener.modelChanged(name, type);
+		// the listeners have been written for one change at a time
+		synchronized(listeners) {
+			for(Object listener : listeners.getListeners()) {
+				ModelRepositoryChangeListener changeListener = (ModelRepositoryChangeListener) listener;
+				changeListener.modelChanged(name, type);
+			}
 		}
 	}
 
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.model.core.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records how long the bundle activators and the loading of the model files
+ * take during startup, and when services are registered. The timeline is
+ * logged once, when the initial load of all model folders has finished.
+ * <p>
+ * The activator entries only cover <code>BundleActivator.start</code>. Most
+ * bindings are activated by Declarative Services afterwards, so their cost
+ * shows up in the time until their services have been registered.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class StartupTimeline {
+
+	private static final Logger logger = LoggerFactory.getLogger(StartupTimeline.class);
+
+	private static final long START = System.nanoTime();
+
+	private static final List<Entry> entries = new ArrayList<Entry>();
+
+	private static boolean reported = false;
+
+	private StartupTimeline() {
+	}
+
+	/**
+	 * @return the current time to be passed to {@link #record}
+	 */
+	public static long now() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Adds an entry to the timeline, unless it has been reported already.
+	 *
+	 * @param category the kind of entry, e.g. <code>activator</code>, <code>service</code> or
+	 *            <code>model</code>
+	 * @param name the name of the bundle, service or model
+	 * @param startTime the start time as returned by {@link #now()}
+	 */
+	public static void record(String category, String name, long startTime) {
+		long endTime = System.nanoTime();
+		synchronized (entries) {
+			if (!reported) {
+				entries.add(new Entry(category, name, startTime - START, endTime - startTime,
+						Thread.currentThread().getName()));
+			}
+		}
+	}
+
+	/**
+	 * Logs the timeline ordered by start time and stops recording.
+	 */
+	public static void report() {
+		List<Entry> timeline;
+		synchronized (entries) {
+			if (reported) {
+				return;
+			}
+			reported = true;
+			timeline = new ArrayList<Entry>(entries);
+			entries.clear();
+		}
+		Collections.sort(timeline, new Comparator<Entry>() {
+			public int compare(Entry e1, Entry e2) {
+				return e1.start < e2.start ? -1 : (e1.start == e2.start ? 0 : 1);
+			}
+		});
+
+		long modelTime = 0;
+		int models = 0;
+		StringBuilder report = new StringBuilder();
+		for (Entry entry : timeline) {
+			if ("model".equals(entry.category)) {
+				modelTime += entry.duration;
+				models++;
+			}
+			report.append(String.format("%n%8d ms %8d ms  %-9s %s [%s]", toMillis(entry.start),
+					toMillis(entry.duration), entry.category, entry.name, entry.thread));
+		}
+		logger.info("Loaded {} models in {} ms ({} ms parse time) after {} ms since startup", new Object[] {
+				models, toMillis(getModelLoadTime(timeline)), toMillis(modelTime), toMillis(System.nanoTime() - START) });
+		logger.debug("Startup timeline (start, duration, category, name, thread):{}", report);
+	}
+
+	private static long getModelLoadTime(List<Entry> timeline) {
+		long firstStart = Long.MAX_VALUE;
+		long lastEnd = 0;
+		for (Entry entry : timeline) {
+			if ("model".equals(entry.category)) {
+				firstStart = Math.min(firstStart, entry.start);
+				lastEnd = Math.max(lastEnd, entry.start + entry.duration);
+			}
+		}
+		return lastEnd > firstStart ? lastEnd - firstStart : 0;
+	}
+
+	private static long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	private static class Entry {
+		private final String category;
+		private final String name;
+		private final long start;
+		private final long duration;
+		private final String thread;
+
+		Entry(String category, String name, long start, long duration, String thread) {
+			this.category = category;
+			this.name = name;
+			this.start = start;
+			this.duration = duration;
+			this.thread = thread;
+		}
+	}
+
+}
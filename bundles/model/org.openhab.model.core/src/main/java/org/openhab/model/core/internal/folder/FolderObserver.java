@@ -8,34 +8,68 @@
  */
 package org.openhab.model.core.internal.folder;
 
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.util.Date;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.openhab.config.core.ConfigDispatcher;
 import org.openhab.model.core.ModelCoreConstants;
 import org.openhab.model.core.ModelRepository;
-import org.openhab.model.core.internal.util.MathUtils;
+import org.openhab.model.core.internal.StartupTimeline;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * This class is able to observe multiple folders for changes. It checks the
- * last modified date in a configurable frequency and notifies the model repository
- * about every change, so that it can update itself.
- * 
+ * This class is able to observe multiple folders for changes. It registers the
+ * folders with a {@link WatchService} and notifies the model repository about
+ * every change, so that it can update itself. Folders on file systems which
+ * cannot be watched are scanned for changes in the configured frequency instead.
+ *
+ * Editors often write a file in several steps, so a changed file is only read
+ * once no further change has been reported for {@link #DEBOUNCE_DELAY} ms. Files
+ * whose content hasn't changed are not passed to the model repository again.
+ *
  * This logic is run as a separate thread, so that it can always detect changes.
- * 
+ * Folders which are checked for the first time are checked in parallel, so that
+ * the models of different types are loaded concurrently at startup.
+ *
  * @author Kai Kreuzer
  * @since 0.3.0
  *
@@ -45,7 +79,10 @@ public class FolderObserver extends Thread implements ManagedService {
 	private static final Logger logger = LoggerFactory
 			.getLogger(FolderObserver.class);
 
-	/* map that lists all foldernames that should be observed and the frequency for checks in seconds */
+	/* the time in milliseconds to wait for further changes of a file before reading it */
+	private static final long DEBOUNCE_DELAY = 500;
+
+	/* map that lists all foldernames that should be observed and the frequency for scans in seconds */
 	private final Map<String, Integer> folderRefreshMap = new ConcurrentHashMap<String, Integer>();
 
 	/* map that stores a list of valid file extensions for each folder */
@@ -53,115 +90,403 @@ public class FolderObserver extends Thread implements ManagedService {
 
 	/* map that stores the time of the last check of a filename in milliseconds */
 	private Map<String, Long> lastCheckedMap = new ConcurrentHashMap<String, Long>();
-	
+
+	/* map that stores the content hash of the last version of a filename passed to the model repository */
+	private Map<String, byte[]> contentHashMap = new ConcurrentHashMap<String, byte[]>();
+
 	/* map that remembers all filenames of the last check, so that it can detect file deletions */
 	private Map<String, Set<String>> lastFileNames = new ConcurrentHashMap<String, Set<String>>();
 
-	/* the greatest common divisor of all folder refresh rates */
-	private int gcdRefresh = 1;
-	
-	/* the least common multiple of all folder refresh rates */
-	private int lcmRefresh = 1;
-	
-	/* a counter to know which folders need to be refreshed when waking up */
-	private int refreshCount = 0;
-	
+	/* the watched folders by their watch key, only used by the observer thread */
+	private final Map<WatchKey, String> watchedFolders = new HashMap<WatchKey, String>();
+
+	/* the time in milliseconds of the next scan of a folder which cannot be watched, only used by the observer thread */
+	private final Map<String, Long> scannedFolders = new HashMap<String, Long>();
+
+	/* the files with pending changes and the time when they should be read, only used by the observer thread */
+	private final Map<File, Long> pendingFiles = new HashMap<File, Long>();
+
+	/* the folder of each file with pending changes */
+	private final Map<File, String> pendingFolders = new HashMap<File, String>();
+
+	private WatchService watchService;
+
+	/* true if the configuration has changed and the folders must be registered again */
+	private boolean configChanged = true;
+
+	/* true while the observer thread waits for changes and may be interrupted */
+	private boolean waiting = false;
+
 	/* the model repository is provided as a service */
 	private ModelRepository modelRepo = null;
-	
-	
+
+	/* true once the first check of all observed folders has been done */
+	private boolean initialCheckDone = false;
+
+
 	public FolderObserver() {
 		super("FolderObserver");
 	}
-	
+
 	public void setModelRepository(ModelRepository modelRepo) {
 		this.modelRepo = modelRepo;
 	}
-	
+
 	public void unsetModelRepository(ModelRepository modelRepo) {
 		this.modelRepo = null;
 	}
 
 	@Override
 	public void run() {
+		try {
+			watchService = FileSystems.getDefault().newWatchService();
+		} catch (IOException e) {
+			logger.warn("Cannot watch the configuration folders, scanning them instead: {}", e.getMessage());
+		}
+
 		while(!folderRefreshMap.isEmpty()) { // keep the thread running as long as there are folders to observe
 			try {
-				for(String foldername : folderRefreshMap.keySet()) {
-					// if folder has been checked at least once and it is not time yet to refresh, skip
-					if( lastFileNames.get(foldername) != null  && 
-							(refreshCount % folderRefreshMap.get(foldername) > 0)) {										
-						logger.debug("skipping refresh of folder '{}' folderRefreshMap={}",
-								foldername, folderRefreshMap.get(foldername));
-						continue;
-					} 
-					
-					logger.debug("Refreshing folder '{}'", foldername);
-					checkFolder(foldername);
+				boolean reconfigure;
+				synchronized (this) {
+					reconfigure = configChanged;
+					configChanged = false;
+				}
+				if(reconfigure) {
+					registerFolders();
 				}
 
-				// increase the counter and set it to 0, if it reaches the max value
-				refreshCount = (refreshCount + gcdRefresh) % lcmRefresh;
+				WatchKey key = waitForChanges();
+				if(key != null) {
+					do {
+						processEvents(key);
+					} while((key = watchService.poll()) != null);
+				}
+
+				processPendingFiles();
+				scanFolders();
+			} catch (InterruptedException e) {
+				break;
 			} catch(Throwable e) {
 				logger.error("An unexpected exception has occured", e);
-			}			
+			}
+		}
+
+		if(watchService != null) {
 			try {
-				if(gcdRefresh <= 0) break;
-				synchronized(FolderObserver.this) {
-					wait(gcdRefresh * 1000L);
+				watchService.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Registers all observed folders with the watch service and checks them
+	 * for the first time. Folders which cannot be watched are scanned instead.
+	 */
+	private void registerFolders() {
+		for(WatchKey key : watchedFolders.keySet()) {
+			key.cancel();
+		}
+		watchedFolders.clear();
+		scannedFolders.clear();
+		pendingFiles.clear();
+		pendingFolders.clear();
+
+		// register before the first check, so that no change gets lost in between
+		for(String foldername : folderRefreshMap.keySet()) {
+			Path path = getFolder(foldername).toPath();
+			try {
+				if(watchService == null) {
+					throw new UnsupportedOperationException("no watch service");
 				}
-			} catch (InterruptedException e) {
-				break;
+				watchedFolders.put(path.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), foldername);
+				logger.debug("Watching folder '{}'", foldername);
+			} catch (IOException | UnsupportedOperationException e) {
+				logger.info("Folder '{}' cannot be watched, it is scanned every {} seconds instead: {}",
+						new Object[] { foldername, folderRefreshMap.get(foldername), e.getMessage() });
+				scannedFolders.put(foldername, System.currentTimeMillis() + folderRefreshMap.get(foldername) * 1000L);
+			}
+		}
+
+		checkFolders(folderRefreshMap.keySet());
+		if(!initialCheckDone) {
+			initialCheckDone = true;
+			StartupTimeline.report();
+		}
+	}
+
+	/**
+	 * Waits until a watched folder has changed, a pending file has to be read,
+	 * a folder has to be scanned or the configuration has changed.
+	 *
+	 * @return the key of a changed folder or <code>null</code>
+	 */
+	private WatchKey waitForChanges() throws InterruptedException {
+		long now = System.currentTimeMillis();
+		long timeout = Long.MAX_VALUE;
+		for(Long time : pendingFiles.values()) {
+			timeout = Math.min(timeout, time - now);
+		}
+		for(Long time : scannedFolders.values()) {
+			timeout = Math.min(timeout, time - now);
+		}
+		if(timeout <= 0) {
+			return watchService != null ? watchService.poll() : null;
+		}
+
+		synchronized (this) {
+			if(configChanged) {
+				return null;
+			}
+			waiting = true;
+		}
+		try {
+			if(watchService != null) {
+				return watchService.poll(timeout, TimeUnit.MILLISECONDS);
+			}
+			Thread.sleep(timeout == Long.MAX_VALUE ? TimeUnit.DAYS.toMillis(1) : timeout);
+			return null;
+		} catch (InterruptedException e) {
+			synchronized (this) {
+				if(!configChanged) {
+					throw e;
+				}
+			}
+			return null;
+		} finally {
+			synchronized (this) {
+				waiting = false;
+				// clear an interrupt of a configuration change which came too late
+				if(configChanged) {
+					Thread.interrupted();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Marks the files of all events of a folder as pending.
+	 */
+	private void processEvents(WatchKey key) {
+		String foldername = watchedFolders.get(key);
+		if(foldername == null) {
+			key.cancel();
+			return;
+		}
+
+		long readTime = System.currentTimeMillis() + DEBOUNCE_DELAY;
+		for(WatchEvent<?> event : key.pollEvents()) {
+			if(event.kind() == OVERFLOW) {
+				logger.debug("Missed changes in folder '{}', scanning it", foldername);
+				scannedFolders.put(foldername, 0L);
+				continue;
+			}
+			String filename = ((Path) event.context()).getFileName().toString();
+			if(isModelFile(foldername, filename)) {
+				logger.trace("File '{}' in folder '{}': {}", new Object[] { filename, foldername, event.kind() });
+				File file = new File(getFolder(foldername), filename);
+				pendingFiles.put(file, readTime);
+				pendingFolders.put(file, foldername);
+			}
+		}
+		if(!key.reset()) {
+			logger.warn("Folder '{}' cannot be watched anymore", foldername);
+			watchedFolders.remove(key);
+		}
+	}
+
+	/**
+	 * Reads or removes the pending files which haven't changed for {@link #DEBOUNCE_DELAY} ms.
+	 */
+	private void processPendingFiles() {
+		long now = System.currentTimeMillis();
+		for(Iterator<Map.Entry<File, Long>> it = pendingFiles.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<File, Long> entry = it.next();
+			if(entry.getValue() > now) {
+				continue;
+			}
+			it.remove();
+			File file = entry.getKey();
+			String foldername = pendingFolders.remove(file);
+			Set<String> fileNames = lastFileNames.get(foldername);
+			if(file.isFile()) {
+				if(fileNames != null) {
+					fileNames.add(file.getName());
+				}
+				loadFile(file);
+			} else if(fileNames != null && fileNames.remove(file.getName())) {
+				removeFile(file.getName());
+			}
+		}
+	}
+
+	/**
+	 * Scans the folders which cannot be watched if it is their time.
+	 */
+	private void scanFolders() {
+		long now = System.currentTimeMillis();
+		for(Map.Entry<String, Long> entry : scannedFolders.entrySet()) {
+			if(entry.getValue() <= now) {
+				String foldername = entry.getKey();
+				logger.debug("Refreshing folder '{}'", foldername);
+				checkFolder(foldername);
+				if(watchedFolders.containsValue(foldername)) {
+					// a watched folder which has lost events is only scanned once
+					entry.setValue(Long.MAX_VALUE);
+				} else {
+					entry.setValue(now + folderRefreshMap.get(foldername) * 1000L);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks the given folders. Folders which haven't been checked before are
+	 * checked in parallel.
+	 *
+	 * @param foldernames the folders to check
+	 */
+	private void checkFolders(Collection<String> foldernames) {
+		List<String> newFolders = new ArrayList<String>();
+		for(String foldername : foldernames) {
+			if(lastFileNames.get(foldername) == null) {
+				newFolders.add(foldername);
+			} else {
+				checkFolder(foldername);
+			}
+		}
+		if(newFolders.size() <= 1) {
+			for(String foldername : newFolders) {
+				checkFolder(foldername);
+			}
+			return;
+		}
+
+		int threads = Math.min(newFolders.size(), Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "FolderObserver Loader " + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			List<Future<Object>> results = new ArrayList<Future<Object>>();
+			for(final String foldername : newFolders) {
+				results.add(executor.submit(new Callable<Object>() {
+					public Object call() {
+						checkFolder(foldername);
+						return null;
+					}
+				}));
 			}
+			for(Future<Object> result : results) {
+				try {
+					result.get();
+				} catch (ExecutionException e) {
+					logger.error("An unexpected exception has occured", e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdown();
 		}
 	}
-	
+
 	private void checkFolder(String foldername) {
 		File folder = getFolder(foldername);
 		if(!folder.exists()) {
 			return;
 		}
-		String[] extensions = folderFileExtMap.get(foldername);
-		
+
 		// check current files and add or refresh them accordingly
 		Set<String> currentFileNames = new HashSet<String>();
 		for(File file : folder.listFiles()) {
 			if(file.isDirectory()) continue;
-			if(!file.getName().contains(".")) continue;
-			if(file.getName().startsWith(".")) continue;
-			
-			// if there is an extension filter defined, continue if the file has a different extension
-			String fileExt = getExtension(file.getName());
-			if(extensions!=null && extensions.length>0 && !ArrayUtils.contains(extensions, fileExt)) continue;
-			
+			if(!isModelFile(foldername, file.getName())) continue;
+
 			currentFileNames.add(file.getName());
 			Long timeLastCheck = lastCheckedMap.get(file.getName());
 			if(timeLastCheck==null) timeLastCheck = 0L;
 			if(FileUtils.isFileNewer(file, timeLastCheck)) {
-				if(modelRepo!=null) {
-					try {
-						if(modelRepo.addOrRefreshModel(file.getName(), FileUtils.openInputStream(file))) {
-							lastCheckedMap.put(file.getName(), new Date().getTime());							
-						}
-					} catch (IOException e) {
-						logger.warn("Cannot open file '"+ file.getAbsolutePath() + "' for reading.", e);
-					}
-				}
+				loadFile(file);
 			}
 		}
-		
+
 		// check for files that have been deleted meanwhile
 		if (lastFileNames.get(foldername) != null) {
 			for (String fileName : lastFileNames.get(foldername)) {
 				if (!currentFileNames.contains(fileName)) {
-					logger.info("File '{}' has been deleted", fileName);
-					if (modelRepo != null) {
-						modelRepo.removeModel(fileName);
-						lastCheckedMap.remove(fileName);
-					}
+					removeFile(fileName);
 				}
 			}
 		}
-		lastFileNames.put(foldername, currentFileNames);
+		// the set is updated by the observer thread when watched files are created or deleted
+		Set<String> fileNames = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		fileNames.addAll(currentFileNames);
+		lastFileNames.put(foldername, fileNames);
+	}
+
+	/**
+	 * Passes the file to the model repository, unless its content is the same
+	 * as the last time.
+	 */
+	private void loadFile(File file) {
+		if(modelRepo==null) {
+			return;
+		}
+		long checkTime = System.currentTimeMillis();
+		byte[] content;
+		try {
+			content = FileUtils.readFileToByteArray(file);
+		} catch (IOException e) {
+			logger.warn("Cannot open file '"+ file.getAbsolutePath() + "' for reading.", e);
+			return;
+		}
+
+		byte[] hash = getHash(content);
+		if(hash != null && Arrays.equals(hash, contentHashMap.get(file.getName()))) {
+			logger.debug("File '{}' has been saved without changes", file.getName());
+			lastCheckedMap.put(file.getName(), checkTime);
+			return;
+		}
+		if(modelRepo.addOrRefreshModel(file.getName(), new ByteArrayInputStream(content))) {
+			lastCheckedMap.put(file.getName(), checkTime);
+			if(hash != null) {
+				contentHashMap.put(file.getName(), hash);
+			}
+		}
+	}
+
+	private void removeFile(String fileName) {
+		logger.info("File '{}' has been deleted", fileName);
+		if (modelRepo != null) {
+			modelRepo.removeModel(fileName);
+			lastCheckedMap.remove(fileName);
+			contentHashMap.remove(fileName);
+		}
+	}
+
+	private byte[] getHash(byte[] content) {
+		try {
+			return MessageDigest.getInstance("MD5").digest(content);
+		} catch (NoSuchAlgorithmException e) {
+			return null;
+		}
+	}
+
+	private boolean isModelFile(String foldername, String filename) {
+		if(!filename.contains(".")) return false;
+		if(filename.startsWith(".")) return false;
+
+		// if there is an extension filter defined, skip the file if it has a different extension
+		String[] extensions = folderFileExtMap.get(foldername);
+		String fileExt = getExtension(filename);
+		return extensions==null || extensions.length==0 || ArrayUtils.contains(extensions, fileExt);
 	}
 
 	private String getExtension(String filename) {
@@ -172,60 +497,57 @@ public class FolderObserver extends Thread implements ManagedService {
 	@SuppressWarnings("rawtypes")
 	public void updated(Dictionary config) throws ConfigurationException {
 		if (config != null) {
-			// make sure to clear the caches first
-			lastFileNames.clear();
-			lastCheckedMap.clear();
-			folderFileExtMap.clear();
-			folderRefreshMap.clear();
-			
-			Enumeration keys = config.keys();
-			while (keys.hasMoreElements()) {
-				String foldername = (String) keys.nextElement();
-				if(foldername.equals("service.pid")) continue;
-				String[] values = ((String) config.get(foldername)).split(",");
-				try {
-					Integer refreshValue = Integer.valueOf(values[0]);
-					String[] fileExts = (String[]) ArrayUtils.remove(values, 0);
-					File folder = getFolder(foldername);
-					if (folder.exists() && folder.isDirectory()) {
-						folderFileExtMap.put(foldername, fileExts);
-						if (refreshValue > 0) {
-							folderRefreshMap.put(foldername, refreshValue);
-							if(!this.isAlive()) {
-								// seems we have the first folder to observe, so let's start the thread
-								this.start();
+			List<String> unobservedFolders = new ArrayList<String>();
+			synchronized (this) {
+				// make sure to clear the caches first
+				lastFileNames.clear();
+				lastCheckedMap.clear();
+				folderFileExtMap.clear();
+				folderRefreshMap.clear();
+
+				Enumeration keys = config.keys();
+				while (keys.hasMoreElements()) {
+					String foldername = (String) keys.nextElement();
+					if(foldername.equals("service.pid")) continue;
+					String[] values = ((String) config.get(foldername)).split(",");
+					try {
+						Integer refreshValue = Integer.valueOf(values[0]);
+						String[] fileExts = (String[]) ArrayUtils.remove(values, 0);
+						File folder = getFolder(foldername);
+						if (folder.exists() && folder.isDirectory()) {
+							folderFileExtMap.put(foldername, fileExts);
+							if (refreshValue > 0) {
+								folderRefreshMap.put(foldername, refreshValue);
 							} else {
-								// make sure that we notify the sleeping thread and directly refresh the folders
-								synchronized (FolderObserver.this) {
-									notify();
-									checkFolder(foldername);
-								}
+								// deactivate the observation of this folder
+								unobservedFolders.add(foldername);
 							}
 						} else {
-							// deactivate the refresh for this folder
-							folderRefreshMap.remove(foldername);
-							checkFolder(foldername);
+							logger.warn(
+									"Directory '{}' does not exist in '{}'. Please check your configuration settings!",
+									foldername, ConfigDispatcher.getConfigFolder());
 						}
-					} else {
+					} catch (NumberFormatException e) {
 						logger.warn(
-								"Directory '{}' does not exist in '{}'. Please check your configuration settings!",
-								foldername, ConfigDispatcher.getConfigFolder());
+								"Invalid value '{}' for configuration '{}'. Integer value expected!",
+								values[0], ModelCoreConstants.SERVICE_PID + ":"
+										+ foldername);
 					}
-					
-					// now update the refresh information for the thread
-					Integer[] refreshValues = folderRefreshMap.values().toArray(new Integer[0]);
-					if(refreshValues.length>0) {
-						gcdRefresh = MathUtils.gcd(refreshValues);
-						lcmRefresh = MathUtils.lcm(refreshValues);
-					}
-					refreshCount = 0;
-				} catch (NumberFormatException e) {
-					logger.warn(
-							"Invalid value '{}' for configuration '{}'. Integer value expected!",
-							values[0], ModelCoreConstants.SERVICE_PID + ":"
-									+ foldername);
 				}
 
+				configChanged = true;
+				if(waiting) {
+					// wake up the observer thread, so that it registers the folders again
+					interrupt();
+				}
+			}
+
+			checkFolders(unobservedFolders);
+			if(folderRefreshMap.isEmpty()) {
+				StartupTimeline.report();
+			} else if(!this.isAlive()) {
+				// seems we have the first folders to observe, so let's start the thread
+				this.start();
 			}
 		}
 	}
@@ -0,0 +1,345 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.model.item.internal;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.core.items.GroupItem;
+import org.openhab.core.items.Item;
+import org.openhab.core.items.ItemProvider;
+import org.openhab.core.items.ItemsChangeListener;
+import org.openhab.core.library.CoreItemFactory;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.SwitchItem;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.model.core.EventType;
+import org.openhab.model.core.ModelRepository;
+import org.openhab.model.core.ModelRepositoryChangeListener;
+import org.openhab.model.item.binding.BindingConfigParseException;
+import org.openhab.model.item.binding.BindingConfigReader;
+import org.openhab.model.items.ItemModel;
+import org.openhab.model.items.ItemsFactory;
+import org.openhab.model.items.ModelBinding;
+import org.openhab.model.items.ModelGroupItem;
+import org.openhab.model.items.ModelItem;
+import org.openhab.model.items.ModelNormalItem;
+
+/**
+ * Tests how the {@link GenericItemProvider} reloads the items of a changed model.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class GenericItemProviderTest {
+
+	private static final String MODEL_NAME = "test.items";
+
+	private TestModelRepository modelRepository;
+
+	private GenericItemProvider provider;
+
+	private RecordingListener listener;
+
+	private RecordingReader reader;
+
+	@Before
+	public void setup() {
+		modelRepository = new TestModelRepository();
+		provider = new GenericItemProvider();
+		provider.addItemFactory(new CoreItemFactory());
+		provider.setModelRepository(modelRepository);
+		reader = new RecordingReader("test");
+		provider.addBindingConfigReader(reader);
+		listener = new RecordingListener();
+		provider.addItemChangeListener(listener);
+
+		ItemModel model = createModel();
+		model.getItems().add(createGroup("G"));
+		model.getItems().add(createItem("Switch", "a", "test", "a1", "G"));
+		model.getItems().add(createItem("Switch", "b", null, null, "G"));
+		model.getItems().add(createItem("Switch", "c", null, null));
+		loadModel(model, EventType.ADDED);
+
+		Assert.assertEquals(1, listener.allItemsChanged);
+		Assert.assertEquals(4, provider.getItems().size());
+		listener.clear();
+		reader.clear();
+	}
+
+	@Test
+	public void testUnchangedModelKeepsAllItems() {
+		Map<String, Item> before = getItems();
+
+		ItemModel model = createModel();
+		model.getItems().add(createGroup("G"));
+		model.getItems().add(createItem("Switch", "a", "test", "a1", "G"));
+		model.getItems().add(createItem("Switch", "b", null, null, "G"));
+		model.getItems().add(createItem("Switch", "c", null, null));
+		loadModel(model, EventType.MODIFIED);
+
+		Map<String, Item> after = getItems();
+		Assert.assertEquals(before.keySet(), after.keySet());
+		for (String name : before.keySet()) {
+			Assert.assertSame(before.get(name), after.get(name));
+		}
+		Assert.assertTrue(listener.added.isEmpty());
+		Assert.assertTrue(listener.removed.isEmpty());
+		Assert.assertEquals(0, listener.allItemsChanged);
+		Assert.assertTrue(reader.processed.isEmpty());
+	}
+
+	@Test
+	public void testChangedItemsAreReplaced() {
+		Map<String, Item> before = getItems();
+		((SwitchItem) before.get("b")).setState(OnOffType.ON);
+
+		ItemModel model = createModel();
+		model.getItems().add(createGroup("G"));
+		model.getItems().add(createGroup("H"));
+		// only the binding changes
+		model.getItems().add(createItem("Switch", "a", "test", "a2", "G"));
+		// the type changes
+		model.getItems().add(createItem("Number", "b", null, null, "G"));
+		// the group membership changes
+		model.getItems().add(createItem("Switch", "c", null, null, "H"));
+		loadModel(model, EventType.MODIFIED);
+
+		Map<String, Item> after = getItems();
+		Assert.assertSame(before.get("G"), after.get("G"));
+		Assert.assertSame(before.get("a"), after.get("a"));
+		Assert.assertNotSame(before.get("b"), after.get("b"));
+		Assert.assertTrue(after.get("b") instanceof NumberItem);
+		Assert.assertNotSame(before.get("c"), after.get("c"));
+		Assert.assertEquals(1, after.get("c").getGroupNames().size());
+		Assert.assertEquals("H", after.get("c").getGroupNames().get(0));
+		Assert.assertTrue(after.get("H") instanceof GroupItem);
+
+		Assert.assertEquals(2, listener.removed.size());
+		Assert.assertTrue(listener.removed.contains(before.get("b")));
+		Assert.assertTrue(listener.removed.contains(before.get("c")));
+		Assert.assertEquals(3, listener.added.size());
+		Assert.assertTrue(listener.added.contains(after.get("b")));
+		Assert.assertTrue(listener.added.contains(after.get("c")));
+		Assert.assertTrue(listener.added.contains(after.get("H")));
+
+		// the binding of the unchanged item has been read again
+		Assert.assertEquals(1, reader.removed);
+		Assert.assertEquals(1, reader.processed.size());
+		Assert.assertSame(after.get("a"), reader.processed.get(0));
+		Assert.assertEquals("a2", reader.configs.get(0));
+	}
+
+	@Test
+	public void testRemovedItemsAreReported() {
+		Map<String, Item> before = getItems();
+
+		ItemModel model = createModel();
+		model.getItems().add(createGroup("G"));
+		model.getItems().add(createItem("Switch", "a", "test", "a1", "G"));
+		loadModel(model, EventType.MODIFIED);
+
+		Map<String, Item> after = getItems();
+		Assert.assertEquals(2, after.size());
+		Assert.assertSame(before.get("a"), after.get("a"));
+		Assert.assertEquals(2, listener.removed.size());
+		Assert.assertTrue(listener.removed.contains(before.get("b")));
+		Assert.assertTrue(listener.removed.contains(before.get("c")));
+		Assert.assertTrue(listener.added.isEmpty());
+		Assert.assertTrue(reader.processed.isEmpty());
+	}
+
+	@Test
+	public void testItemsAreKeptAcrossSeveralReloads() {
+		Item a = getItems().get("a");
+
+		for (int i = 0; i < 3; i++) {
+			ItemModel model = createModel();
+			model.getItems().add(createGroup("G"));
+			model.getItems().add(createItem("Switch", "a", "test", "a1", "G"));
+			model.getItems().add(createItem("Switch", "d" + i, null, null, "G"));
+			loadModel(model, EventType.MODIFIED);
+		}
+
+		Map<String, Item> after = getItems();
+		Assert.assertSame(a, after.get("a"));
+		Assert.assertEquals(3, after.size());
+		Assert.assertTrue(after.containsKey("d2"));
+		// b and c, then d0 and d1
+		Assert.assertEquals(4, listener.removed.size());
+		Assert.assertEquals(3, listener.added.size());
+	}
+
+	@Test
+	public void testRemovedModelRemovesAllItems() {
+		Collection<Item> before = provider.getItems();
+		modelRepository.models.remove(MODEL_NAME);
+		provider.modelChanged(MODEL_NAME, EventType.REMOVED);
+
+		Assert.assertTrue(provider.getItems().isEmpty());
+		Assert.assertEquals(before.size(), listener.removed.size());
+		Assert.assertEquals(1, reader.removed);
+	}
+
+	private void loadModel(ItemModel model, EventType type) {
+		modelRepository.models.put(MODEL_NAME, model);
+		provider.modelChanged(MODEL_NAME, type);
+	}
+
+	private Map<String, Item> getItems() {
+		Map<String, Item> items = new HashMap<String, Item>();
+		for (Item item : provider.getItems()) {
+			items.put(item.getName(), item);
+		}
+		return items;
+	}
+
+	private ItemModel createModel() {
+		return ItemsFactory.eINSTANCE.createItemModel();
+	}
+
+	private ModelItem createGroup(String name) {
+		ModelGroupItem item = ItemsFactory.eINSTANCE.createModelGroupItem();
+		item.setName(name);
+		return item;
+	}
+
+	private ModelItem createItem(String type, String name, String bindingType, String bindingConfig,
+			String... groups) {
+		ModelNormalItem item = ItemsFactory.eINSTANCE.createModelNormalItem();
+		item.setType(type);
+		item.setName(name);
+		for (String group : groups) {
+			item.getGroups().add(group);
+		}
+		if (bindingType != null) {
+			ModelBinding binding = ItemsFactory.eINSTANCE.createModelBinding();
+			binding.setType(bindingType);
+			binding.setConfiguration(bindingConfig);
+			item.getBindings().add(binding);
+		}
+		return item;
+	}
+
+	private static class TestModelRepository implements ModelRepository {
+
+		private final Map<String, EObject> models = new HashMap<String, EObject>();
+
+		@Override
+		public EObject getModel(String name) {
+			return models.get(name);
+		}
+
+		@Override
+		public boolean addOrRefreshModel(String name, InputStream inputStream) {
+			return false;
+		}
+
+		@Override
+		public boolean removeModel(String name) {
+			return models.remove(name) != null;
+		}
+
+		@Override
+		public Iterable<String> getAllModelNamesOfType(String modelType) {
+			List<String> names = new ArrayList<String>();
+			for (String name : models.keySet()) {
+				if (name.endsWith(modelType)) {
+					names.add(name);
+				}
+			}
+			return names;
+		}
+
+		@Override
+		public void addModelRepositoryChangeListener(ModelRepositoryChangeListener listener) {
+		}
+
+		@Override
+		public void removeModelRepositoryChangeListener(ModelRepositoryChangeListener listener) {
+		}
+	}
+
+	private static class RecordingListener implements ItemsChangeListener {
+
+		private final List<Item> added = new ArrayList<Item>();
+		private final List<Item> removed = new ArrayList<Item>();
+		private int allItemsChanged = 0;
+
+		@Override
+		public void allItemsChanged(ItemProvider provider, Collection<String> oldItemNames) {
+			allItemsChanged++;
+		}
+
+		@Override
+		public void itemAdded(ItemProvider provider, Item item) {
+			added.add(item);
+		}
+
+		@Override
+		public void itemRemoved(ItemProvider provider, Item item) {
+			removed.add(item);
+		}
+
+		void clear() {
+			added.clear();
+			removed.clear();
+			allItemsChanged = 0;
+		}
+	}
+
+	private static class RecordingReader implements BindingConfigReader {
+
+		private final String bindingType;
+		private final List<Item> processed = new ArrayList<Item>();
+		private final List<String> configs = new ArrayList<String>();
+		private int removed = 0;
+
+		RecordingReader(String bindingType) {
+			this.bindingType = bindingType;
+		}
+
+		@Override
+		public String getBindingType() {
+			return bindingType;
+		}
+
+		@Override
+		public void validateItemType(Item item, String bindingConfig) throws BindingConfigParseException {
+		}
+
+		@Override
+		public void processBindingConfiguration(String context, Item item, String bindingConfig)
+				throws BindingConfigParseException {
+			processed.add(item);
+			configs.add(bindingConfig);
+		}
+
+		@Override
+		public void removeConfigurations(String context) {
+			removed++;
+		}
+
+		void clear() {
+			processed.clear();
+			configs.clear();
+			removed = 0;
+		}
+	}
+
+}
@@ -12,8 +12,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.eclipse.emf.common.util.EList;
 import org.openhab.core.items.GenericItem;
@@ -44,6 +47,12 @@ import org.slf4j.LoggerFactory;
 
 /**
  * ItemProvider implementation which computes *.items file based item configurations.
+ * <p>
+ * The items created from a model are kept until the model changes. On a change only
+ * the items whose definition has changed are recreated and announced to the listeners
+ * by {@link ItemsChangeListener#itemRemoved} and {@link ItemsChangeListener#itemAdded},
+ * all other items are kept together with their state. Binding configurations are only
+ * processed again for the binding types which are used by a changed item.
  * 
  * @author Kai Kreuzer 
  * @author Thomas.Eichstaedt-Engelen
@@ -63,6 +72,9 @@ public class GenericItemProvider implements ItemProvider, ModelRepositoryChangeL
 	
 	private Collection<ItemFactory> itemFactorys = new ArrayList<ItemFactory>();
 	
+	/** the items created from each model, guarded by itself */
+	private Map<String, ModelItems> modelItemsMap = new HashMap<String, ModelItems>();
+	
 	
 	public GenericItemProvider() {
 		// make sure that the DSL is correctly registered with EMF before we
@@ -89,6 +101,7 @@ public class GenericItemProvider implements ItemProvider, ModelRepositoryChangeL
 	public void addItemFactory(ItemFactory factory) {
 		itemFactorys.add(factory);
 		dispatchBindingsPerItemType(null, factory.getSupportedItemTypes());
+		itemFactoriesChanged();
 	}
 	
 	/**
@@ -98,6 +111,23 @@ public class GenericItemProvider implements ItemProvider, ModelRepositoryChangeL
 	 */
 	public void removeItemFactory(ItemFactory factory) {
 		itemFactorys.remove(factory);
+		itemFactoriesChanged();
+	}
+	
+	/**
+	 * Items are only created if there is a factory for their type, so the items created
+	 * so far are dropped and all listeners are told to read the items again.
+	 */
+	private void itemFactoriesChanged() {
+		synchronized (modelItemsMap) {
+			if (modelItemsMap.isEmpty()) {
+				return;
+			}
+			modelItemsMap.clear();
+		}
+		for (ItemsChangeListener listener : listeners) {
+			listener.allItemsChanged(this, null);
+		}
 	}
 	
 	public void addBindingConfigReader(BindingConfigReader reader) {
@@ -123,31 +153,58 @@ public class GenericItemProvider implements ItemProvider, ModelRepositoryChangeL
 	@Override
 	public Collection<Item> getItems() {
 		List<Item> items = new ArrayList<Item>();
-		for (String name : modelRepository.getAllModelNamesOfType("items")) {
-			items.addAll(getItemsFromModel(name));
+		if (modelRepository == null) {
+			return items;
+		}
+		synchronized (modelItemsMap) {
+			for (String name : modelRepository.getAllModelNamesOfType("items")) {
+				ModelItems modelItems = modelItemsMap.get(name);
+				if (modelItems == null) {
+					modelItems = readModelItems(name);
+					if (modelItems == null) {
+						continue;
+					}
+					modelItemsMap.put(name, modelItems);
+				}
+				items.addAll(modelItems.getItems());
+			}
 		}
 		return items;
 	}
 	
-	private Collection<Item> getItemsFromModel(String modelName) {
+	/**
+	 * Creates the items of a model.
+	 * 
+	 * @param modelName the name of the model
+	 * @return the items of the model or <code>null</code> if the model doesn't exist
+	 */
+	private ModelItems readModelItems(String modelName) {
 		logger.debug("Read items from model '{}'", modelName);
 		
-		List<Item> items = new ArrayList<Item>();
 		if (modelRepository != null) {
 			ItemModel model = (ItemModel) modelRepository.getModel(modelName);
 			if (model != null) {
-				for(ModelItem modelItem : model.getItems()) {
-					Item item = createItemFromModelItem(modelItem);
+				ModelItems modelItems = new ModelItems();
+				for (ModelItem modelItem : model.getItems()) {
+					Item item = createItemWithGroups(modelItem);
 					if (item != null) {
-						for (String groupName : modelItem.getGroups()) {
-							item.getGroupNames().add(groupName);
-						}
-						items.add(item);
+						modelItems.put(modelItem, item);
 					}
 				}
+				return modelItems;
 			}
 		}
-		return items;
+		return null;
+	}
+	
+	private Item createItemWithGroups(ModelItem modelItem) {
+		Item item = createItemFromModelItem(modelItem);
+		if (item != null) {
+			for (String groupName : modelItem.getGroups()) {
+				item.getGroupNames().add(groupName);
+			}
+		}
+		return item;
 	}
 
 	private void processBindingConfigsFromModel(String modelName) {
@@ -164,13 +221,26 @@ public class GenericItemProvider implements ItemProvider, ModelRepositoryChangeL
 				reader.removeConfigurations(modelName);
 			}
 
-			// create items and read new binding configuration
+			ModelItems modelItems;
+			synchronized (modelItemsMap) {
+				modelItems = modelItemsMap.get(modelName);
+			}
+
+			// read new binding configuration
 			for (ModelItem modelItem : model.getItems()) {
-				Item item = createItemFromModelItem(modelItem);
+				Item item = modelItems != null ? modelItems.getItem(modelItem.getName()) : null;
+				if (item == null) {
+					item = createItemFromModelItem(modelItem);
+				}
 				if (item != null) {
 					internalDispatchBindings(modelName, item, modelItem.getBindings());
 				}
 			}
+			if (modelItems != null) {
+				synchronized (modelItemsMap) {
+					modelItems.bindingsProcessed = true;
+				}
+			}
 		}
 	}
 
@@ -386,11 +456,184 @@ public class GenericItemProvider implements ItemProvider, ModelRepositoryChangeL
 	@Override
 	public void modelChanged(String modelName, EventType type) {
 		if (modelName.endsWith("items")) {
+			ItemModel model = type == EventType.REMOVED || modelRepository == null ? null
+					: (ItemModel) modelRepository.getModel(modelName);
+			
+			ModelItems oldItems;
+			synchronized (modelItemsMap) {
+				oldItems = modelItemsMap.get(modelName);
+			}
 
-			processBindingConfigsFromModel(modelName);
+			if (model == null) {
+				removeModelItems(modelName, oldItems);
+			} else if (oldItems == null || !oldItems.bindingsProcessed) {
+				// the listeners don't know the items of this model yet, or the
+				// binding configurations haven't been read
+				synchronized (modelItemsMap) {
+					if (oldItems == null) {
+						ModelItems modelItems = readModelItems(modelName);
+						if (modelItems != null) {
+							modelItemsMap.put(modelName, modelItems);
+						}
+					}
+				}
+				processBindingConfigsFromModel(modelName);
+				for (ItemsChangeListener listener : listeners) {
+				 	listener.allItemsChanged(this, null);
+				}
+			} else {
+				updateModelItems(modelName, model, oldItems);
+			}
+		}
+	}
+	
+	private void removeModelItems(String modelName, ModelItems oldItems) {
+		synchronized (modelItemsMap) {
+			modelItemsMap.remove(modelName);
+		}
+		for (BindingConfigReader reader : bindingConfigReaders.values()) {
+			reader.removeConfigurations(modelName);
+		}
+		if (oldItems != null) {
+			logger.debug("Removing {} items of model '{}'", oldItems.size(), modelName);
+			for (Item item : oldItems.getItems()) {
+				for (ItemsChangeListener listener : listeners) {
+					listener.itemRemoved(this, item);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Compares the items of the changed model with the ones created before. Only items
+	 * whose definition has changed are recreated, only binding types used by changed
+	 * items are processed again. The items of the model are replaced as a whole, the
+	 * published ones are never modified.
+	 */
+	private void updateModelItems(String modelName, ItemModel model, ModelItems oldItems) {
+		ModelItems newItems = new ModelItems();
+		newItems.bindingsProcessed = true;
+		List<Item> removedItems = new ArrayList<Item>();
+		List<Item> addedItems = new ArrayList<Item>();
+		Set<String> changedBindingTypes = new TreeSet<String>();
+		
+		synchronized (modelItemsMap) {
+			ModelItems currentItems = modelItemsMap.get(modelName);
+			if (currentItems != null) {
+				// another change of the model may have been published in the meantime
+				oldItems = currentItems;
+			}
+			Set<String> remainingNames = new HashSet<String>();
 			
+			for (ModelItem modelItem : model.getItems()) {
+				String itemKey = getItemKey(modelItem);
+				String bindingKey = getBindingKey(modelItem);
+				ModelItems.Entry oldEntry = oldItems.getEntry(modelItem.getName());
+				if (oldEntry != null) {
+					remainingNames.add(modelItem.getName());
+				}
+				
+				if (oldEntry != null && oldEntry.itemKey.equals(itemKey)) {
+					// the item itself is unchanged
+					newItems.put(modelItem.getName(), oldEntry.item, itemKey, bindingKey);
+					if (!oldEntry.bindingKey.equals(bindingKey)) {
+						addBindingTypes(changedBindingTypes, oldEntry.bindingKey);
+						addBindingTypes(changedBindingTypes, bindingKey);
+					}
+					continue;
+				}
+				
+				Item item = createItemWithGroups(modelItem);
+				if (oldEntry != null) {
+					removedItems.add(oldEntry.item);
+					addBindingTypes(changedBindingTypes, oldEntry.bindingKey);
+					if (item != null) {
+						copyState(oldEntry.item, item);
+					}
+				}
+				if (item != null) {
+					newItems.put(modelItem.getName(), item, itemKey, bindingKey);
+					addedItems.add(item);
+					addBindingTypes(changedBindingTypes, bindingKey);
+				}
+			}
+			for (Map.Entry<String, ModelItems.Entry> oldEntry : oldItems.entries.entrySet()) {
+				if (!remainingNames.contains(oldEntry.getKey())) {
+					removedItems.add(oldEntry.getValue().item);
+					addBindingTypes(changedBindingTypes, oldEntry.getValue().bindingKey);
+				}
+			}
+			
+			modelItemsMap.put(modelName, newItems);
+		}
+		logger.debug("Model '{}' changed: {} items removed, {} items added, binding types {} changed",
+				new Object[] { modelName, removedItems.size(), addedItems.size(), changedBindingTypes });
+		
+		for (String bindingType : changedBindingTypes) {
+			BindingConfigReader reader = bindingConfigReaders.get(bindingType);
+			if (reader != null) {
+				reader.removeConfigurations(modelName);
+				for (ModelItem modelItem : model.getItems()) {
+					Item item = newItems.getItem(modelItem.getName());
+					if (item != null) {
+						internalDispatchBindings(reader, modelName, item, modelItem.getBindings());
+					}
+				}
+			}
+		}
+		
+		for (Item item : removedItems) {
 			for (ItemsChangeListener listener : listeners) {
-			 	listener.allItemsChanged(this, null);
+				listener.itemRemoved(this, item);
+			}
+		}
+		for (Item item : addedItems) {
+			for (ItemsChangeListener listener : listeners) {
+				listener.itemAdded(this, item);
+			}
+		}
+	}
+	
+	/**
+	 * Keeps the state of an item which has been recreated with the same type.
+	 */
+	private void copyState(Item oldItem, Item newItem) {
+		if (oldItem.getClass() == newItem.getClass() && !(newItem instanceof GroupItem)
+				&& newItem instanceof GenericItem) {
+			((GenericItem) newItem).setState(oldItem.getState());
+		}
+	}
+	
+	/**
+	 * @return a key for all properties of the model item which are part of the item object
+	 */
+	private String getItemKey(ModelItem modelItem) {
+		StringBuilder key = new StringBuilder();
+		key.append(modelItem.getClass().getSimpleName()).append('|').append(modelItem.getType());
+		if (modelItem instanceof ModelGroupItem) {
+			ModelGroupItem modelGroupItem = (ModelGroupItem) modelItem;
+			key.append('|').append(modelGroupItem.getFunction()).append(modelGroupItem.getArgs());
+		}
+		key.append('|').append(modelItem.getGroups());
+		return key.toString();
+	}
+	
+	/**
+	 * @return a key for the binding configurations of the model item
+	 */
+	private String getBindingKey(ModelItem modelItem) {
+		StringBuilder key = new StringBuilder();
+		for (ModelBinding binding : modelItem.getBindings()) {
+			key.append(binding.getType()).append('=').append(binding.getConfiguration()).append('\n');
+		}
+		return key.toString();
+	}
+	
+	private void addBindingTypes(Set<String> bindingTypes, String bindingKey) {
+		for (String binding : bindingKey.split("\n")) {
+			int index = binding.indexOf('=');
+			if (index > 0) {
+				bindingTypes.add(binding.substring(0, index));
 			}
 		}
 	}
@@ -420,4 +663,56 @@ public class GenericItemProvider implements ItemProvider, ModelRepositoryChangeL
 		return null;
 	}
 
+	/**
+	 * The items created from one model, by item name.
+	 */
+	private class ModelItems {
+		
+		private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+		
+		/** true if the binding configurations of this model have been read */
+		private boolean bindingsProcessed = false;
+		
+		void put(ModelItem modelItem, Item item) {
+			put(modelItem.getName(), item, getItemKey(modelItem), getBindingKey(modelItem));
+		}
+		
+		void put(String itemName, Item item, String itemKey, String bindingKey) {
+			entries.put(itemName, new Entry(item, itemKey, bindingKey));
+		}
+		
+		Entry getEntry(String itemName) {
+			return entries.get(itemName);
+		}
+		
+		Item getItem(String itemName) {
+			Entry entry = entries.get(itemName);
+			return entry != null ? entry.item : null;
+		}
+		
+		List<Item> getItems() {
+			List<Item> items = new ArrayList<Item>(entries.size());
+			for (Entry entry : entries.values()) {
+				items.add(entry.item);
+			}
+			return items;
+		}
+		
+		int size() {
+			return entries.size();
+		}
+		
+		private class Entry {
+			private final Item item;
+			private final String itemKey;
+			private final String bindingKey;
+			
+			Entry(Item item, String itemKey, String bindingKey) {
+				this.item = item;
+				this.itemKey = itemKey;
+				this.bindingKey = bindingKey;
+			}
+		}
+	}
+
 }